@@ -15,13 +15,30 @@
  */
 package io.micronaut.discovery.client;
 
+import io.micronaut.discovery.client.dns.DnsClient;
+import io.micronaut.discovery.client.dns.DnsException;
+import io.micronaut.discovery.client.dns.DnsRecord;
+import io.micronaut.discovery.client.dns.DnsResponse;
+import reactor.core.publisher.Mono;
+
+import javax.naming.Context;
 import javax.naming.NamingException;
-import javax.naming.directory.Attribute;
-import javax.naming.directory.Attributes;
 import javax.naming.directory.DirContext;
 import javax.naming.directory.InitialDirContext;
-import java.util.Collections;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -30,68 +47,284 @@ import java.util.TreeSet;
  * DnsResolver implementation.
  *
  * Forked from https://raw.githubusercontent.com/Netflix/eureka/master/eureka-client/src/main/java/com/netflix/discovery/endpoint/DnsResolver.java
+ * and changed to query the name servers of the host with the non-blocking {@link DnsClient} instead of JNDI.
  *
  * @author Tomasz Bak
  */
 final class DnsResolver {
 
+    private static final Path RESOLV_CONF = Paths.get("/etc/resolv.conf");
+    private static final String NAMESERVER = "nameserver";
+    private static final String SEARCH = "search";
+    private static final String DOMAIN = "domain";
+    private static final String OPTIONS = "options";
+    private static final String NDOTS = "ndots:";
+    private static final int DEFAULT_NDOTS = 1;
+    private static final int MAX_NDOTS = 15;
+    private static final String DEFAULT_NAMESERVER = "127.0.0.1";
     private static final String DNS_PROVIDER_URL = "dns:";
     private static final String DNS_NAMING_FACTORY = "com.sun.jndi.dns.DnsContextFactory";
-    private static final String JAVA_NAMING_FACTORY_INITIAL = "java.naming.factory.initial";
-    private static final String JAVA_NAMING_PROVIDER_URL = "java.naming.provider.url";
-
-    private static final String TXT_RECORD_TYPE = "TXT";
-
-    private static final DirContext DIR_CONTEXT = getDirContext();
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
 
     private DnsResolver() {
     }
 
     /**
-     * Looks up the DNS name provided in the JNDI context.
+     * Looks up the TXT record of the given name.
      *
      * @param discoveryDnsName The discovery DNS name
-     * @throws NamingException when the record cannot be found
-     * @return A set of cname records
+     * @return A mono that emits the set of cname records, or a {@link DnsException} if the record cannot be found
+     */
+    static Mono<Set<String>> getCNamesFromTxtRecord(String discoveryDnsName) {
+        return getCNamesFromTxtRecords(List.of(discoveryDnsName))
+            .map(cnames -> cnames.get(discoveryDnsName));
+    }
+
+    /**
+     * Looks up the TXT records of the given names. The queries are sent concurrently.
+     *
+     * @param discoveryDnsNames The discovery DNS names
+     * @return A mono that emits the sets of cname records keyed by name, or a {@link DnsException} if a record cannot
+     * be found
+     */
+    static Mono<Map<String, Set<String>>> getCNamesFromTxtRecords(Collection<String> discoveryDnsNames) {
+        return getCNamesFromTxtRecords(Holder.CLIENT, Holder.CONFIGURATION, discoveryDnsNames);
+    }
+
+    /**
+     * Looks up the TXT records of the given names with the given client, without applying search domains.
+     *
+     * @param client            The DNS client
+     * @param discoveryDnsNames The discovery DNS names
+     * @return A mono that emits the sets of cname records keyed by name
+     */
+    static Mono<Map<String, Set<String>>> getCNamesFromTxtRecords(DnsClient client, Collection<String> discoveryDnsNames) {
+        return getCNamesFromTxtRecords(client, ResolverConfiguration.NONE, discoveryDnsNames);
+    }
+
+    /**
+     * Looks up the TXT records of the given names with the given client. Like the system resolver, names that do not
+     * exist are retried with the next search domain of the configuration, until all candidates are exhausted.
+     *
+     * @param client            The DNS client
+     * @param configuration     The resolver configuration providing the search domains
+     * @param discoveryDnsNames The discovery DNS names
+     * @return A mono that emits the sets of cname records keyed by name
      */
-    static Set<String> getCNamesFromTxtRecord(String discoveryDnsName) throws NamingException {
-        Attributes attrs = DIR_CONTEXT.getAttributes(discoveryDnsName, new String[]{TXT_RECORD_TYPE});
-        Attribute attr = attrs.get(TXT_RECORD_TYPE);
-        String txtRecord = null;
-        if (attr != null) {
-            txtRecord = attr.get().toString();
-
-            /*
-             * compatible splited txt record of "host1 host2 host3" but not "host1" "host2" "host3".
-             * some dns service provider support txt value only format "host1 host2 host3"
-             */
-            if (txtRecord.startsWith("\"") && txtRecord.endsWith("\"")) {
-                txtRecord = txtRecord.substring(1, txtRecord.length() - 1);
+    static Mono<Map<String, Set<String>>> getCNamesFromTxtRecords(DnsClient client,
+                                                                  ResolverConfiguration configuration,
+                                                                  Collection<String> discoveryDnsNames) {
+        Map<String, List<String>> candidates = new LinkedHashMap<>();
+        for (String name : discoveryDnsNames) {
+            candidates.put(name, configuration.candidates(name));
+        }
+        return lookup(client, candidates, 0, new LinkedHashMap<>()).map(cnames -> {
+            Map<String, Set<String>> ordered = new LinkedHashMap<>();
+            for (String name : candidates.keySet()) {
+                ordered.put(name, cnames.get(name));
+            }
+            return ordered;
+        });
+    }
+
+    private static Mono<Map<String, Set<String>>> lookup(DnsClient client,
+                                                         Map<String, List<String>> candidates,
+                                                         int attempt,
+                                                         Map<String, Set<String>> cnames) {
+        // the queried candidate of every name not resolved yet, so all of them are still sent in a single batch
+        Map<String, String> queries = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : candidates.entrySet()) {
+            if (!cnames.containsKey(entry.getKey())) {
+                queries.put(entry.getValue().get(attempt), entry.getKey());
             }
         }
+        return client.queryAll(queries.keySet(), DnsClient.TYPE_TXT).flatMap(responses -> {
+            boolean retry = false;
+            for (Map.Entry<String, DnsResponse> entry : responses.entrySet()) {
+                String name = queries.get(entry.getKey());
+                DnsResponse response = entry.getValue();
+                if (response.responseCode() == DnsResponse.NO_ERROR) {
+                    cnames.put(name, getCNames(response));
+                } else if (response.responseCode() == DnsResponse.NAME_ERROR && attempt + 1 < candidates.get(name).size()) {
+                    retry = true;
+                } else {
+                    return Mono.error(new DnsException("DNS lookup of " + name + " failed with response code " + response.responseCode()));
+                }
+            }
+            return retry ? lookup(client, candidates, attempt + 1, cnames) : Mono.just(cnames);
+        });
+    }
 
+    private static Set<String> getCNames(DnsResponse response) {
         Set<String> cnamesSet = new TreeSet<>();
-        if (txtRecord == null || txtRecord.trim().isEmpty()) {
-            return cnamesSet;
+        for (DnsRecord record : response.answers()) {
+            if (record instanceof DnsRecord.Txt txt) {
+                /*
+                 * compatible splited txt record of "host1 host2 host3" but not "host1" "host2" "host3".
+                 * some dns service provider support txt value only format "host1 host2 host3"
+                 */
+                for (String text : txt.texts()) {
+                    for (String cname : text.trim().split("\\s+")) {
+                        if (!cname.isEmpty()) {
+                            cnamesSet.add(cname);
+                        }
+                    }
+                }
+            }
         }
-        String[] cnames = txtRecord.split(" ");
-        Collections.addAll(cnamesSet, cnames);
         return cnamesSet;
     }
 
     /**
-     * Load up the DNS JNDI context provider.
+     * Reads the name servers of the host.
+     *
+     * @return The name servers
      */
-    private static DirContext getDirContext() {
-        Hashtable<String, String> env = new Hashtable<>();
-        env.put(JAVA_NAMING_FACTORY_INITIAL, DNS_NAMING_FACTORY);
-        env.put(JAVA_NAMING_PROVIDER_URL, DNS_PROVIDER_URL);
+    static List<InetSocketAddress> getNameServers() {
+        return getResolverConfiguration().servers();
+    }
+
+    /**
+     * Reads the resolver configuration of the host from {@code /etc/resolv.conf}. If it does not name any server, the
+     * name servers the JNDI DNS provider finds on the platform are used, and failing that the local host.
+     *
+     * @return The resolver configuration
+     */
+    static ResolverConfiguration getResolverConfiguration() {
+        ResolverConfiguration configuration = ResolverConfiguration.NONE;
+        if (Files.isReadable(RESOLV_CONF)) {
+            try {
+                configuration = ResolverConfiguration.parse(Files.readAllLines(RESOLV_CONF));
+            } catch (IOException e) {
+                // fall back to the platform name servers
+            }
+        }
+        if (configuration.servers().isEmpty()) {
+            List<InetSocketAddress> servers = getPlatformNameServers();
+            if (servers.isEmpty()) {
+                servers = List.of(DnsClient.parseServer(DEFAULT_NAMESERVER, DnsClient.DEFAULT_PORT));
+            }
+            configuration = new ResolverConfiguration(servers, configuration.search(), configuration.ndots());
+        }
+        return configuration;
+    }
 
+    /**
+     * Reads the name servers the JNDI DNS provider takes from the platform, such as the registry on Windows. Creating
+     * the context does not send any query; the provider only expands the {@code dns:} URL to the servers it found.
+     *
+     * @return The name servers, or an empty list if there are none
+     */
+    static List<InetSocketAddress> getPlatformNameServers() {
+        Hashtable<String, String> env = new Hashtable<>();
+        env.put(Context.INITIAL_CONTEXT_FACTORY, DNS_NAMING_FACTORY);
+        env.put(Context.PROVIDER_URL, DNS_PROVIDER_URL);
+        List<InetSocketAddress> servers = new ArrayList<>();
         try {
-            return new InitialDirContext(env);
-        } catch (Throwable e) {
-            throw new RuntimeException("Cannot get dir context for some reason", e);
+            DirContext context = new InitialDirContext(env);
+            try {
+                Object providerUrl = context.getEnvironment().get(Context.PROVIDER_URL);
+                if (providerUrl != null) {
+                    for (String url : providerUrl.toString().trim().split("\\s+")) {
+                        String authority = URI.create(url).getRawAuthority();
+                        if (authority != null) {
+                            servers.add(DnsClient.parseServer(authority, DnsClient.DEFAULT_PORT));
+                        }
+                    }
+                }
+            } finally {
+                context.close();
+            }
+        } catch (NamingException | IllegalArgumentException e) {
+            // no platform name servers
+        }
+        return servers;
+    }
+
+    /**
+     * The parts of {@code /etc/resolv.conf} applied to lookups. Of the options only {@code ndots} is honoured.
+     *
+     * @param servers The name servers
+     * @param search  The search domains
+     * @param ndots   The number of dots from which a name is first looked up as given
+     */
+    record ResolverConfiguration(List<InetSocketAddress> servers, List<String> search, int ndots) {
+
+        static final ResolverConfiguration NONE = new ResolverConfiguration(List.of(), List.of(), DEFAULT_NDOTS);
+
+        /**
+         * Parses the lines of {@code /etc/resolv.conf}. As with the system resolver, the last {@code search} or
+         * {@code domain} line wins.
+         *
+         * @param lines The lines
+         * @return The resolver configuration
+         */
+        static ResolverConfiguration parse(List<String> lines) {
+            List<InetSocketAddress> servers = new ArrayList<>();
+            List<String> search = List.of();
+            int ndots = DEFAULT_NDOTS;
+            for (String line : lines) {
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens.length < 2) {
+                    continue;
+                }
+                switch (tokens[0]) {
+                    case NAMESERVER -> servers.add(DnsClient.parseServer(tokens[1], DnsClient.DEFAULT_PORT));
+                    case SEARCH -> search = List.copyOf(Arrays.asList(tokens).subList(1, tokens.length));
+                    case DOMAIN -> search = List.of(tokens[1]);
+                    case OPTIONS -> {
+                        for (int i = 1; i < tokens.length; i++) {
+                            if (tokens[i].startsWith(NDOTS)) {
+                                try {
+                                    ndots = Math.min(Integer.parseInt(tokens[i].substring(NDOTS.length())), MAX_NDOTS);
+                                } catch (NumberFormatException e) {
+                                    // keep the previous value, as the system resolver does
+                                }
+                            }
+                        }
+                    }
+                    default -> {
+                        // comments and options not applied to lookups
+                    }
+                }
+            }
+            return new ResolverConfiguration(servers, search, ndots);
+        }
+
+        /**
+         * The names to look up for the given name, in order. A fully qualified name ending with a dot is looked up
+         * as is. Otherwise a name with at least {@link #ndots()} dots is looked up as given before the search
+         * domains are appended, and any other name after.
+         *
+         * @param name The name
+         * @return The candidate names
+         */
+        List<String> candidates(String name) {
+            if (name.endsWith(".")) {
+                return List.of(name.substring(0, name.length() - 1));
+            }
+            if (search.isEmpty()) {
+                return List.of(name);
+            }
+            List<String> candidates = new ArrayList<>(search.size() + 1);
+            for (String domain : search) {
+                candidates.add(name + "." + domain);
+            }
+            int dots = (int) name.chars().filter(c -> c == '.').count();
+            if (dots >= ndots) {
+                candidates.add(0, name);
+            } else {
+                candidates.add(name);
+            }
+            return candidates;
         }
     }
 
+    /**
+     * Creates the client on first use rather than when the class is initialized.
+     */
+    private static final class Holder {
+        private static final ResolverConfiguration CONFIGURATION = getResolverConfiguration();
+        private static final DnsClient CLIENT = new DnsClient(CONFIGURATION.servers(), TIMEOUT);
+    }
 }
@@ -20,8 +20,10 @@ import io.micronaut.core.convert.value.ConvertibleValues;
 import io.micronaut.discovery.ServiceInstance;
 import io.micronaut.runtime.ApplicationConfiguration;
 import io.micronaut.runtime.server.EmbeddedServer;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
 
 import java.util.*;
 
@@ -50,6 +52,10 @@ public class EndpointUtil {
      * other zones randomly. If there are multiple servers in the same zone, the client once
      * again picks one randomly. This way the traffic will be distributed in the case of failures.
      *
+     * <p>This method blocks until the DNS lookups complete. Use
+     * {@link #resolveServiceUrlsFromDNS(EmbeddedServer, ApplicationConfiguration.InstanceConfiguration, DiscoveryClientConfiguration)}
+     * on event loop threads.</p>
+     *
      * @param embeddedServer the embedded server
      * @param instanceConfiguration The instance configuration
      * @param discoveryClientConfiguration The discovery client configuration
@@ -61,7 +67,32 @@ public class EndpointUtil {
             ApplicationConfiguration.InstanceConfiguration instanceConfiguration,
             DiscoveryClientConfiguration discoveryClientConfiguration) {
 
-        return getServiceUrlsFromDNS(
+        return resolveServiceUrlsFromDNS(
+                instanceConfiguration,
+                discoveryClientConfiguration,
+                instanceConfiguration.getZone().orElse(DEFAULT_ZONE),
+                true,
+                new InstanceInfoBasedUrlRandomizer(embeddedServer)
+        ).block();
+    }
+
+    /**
+     * Resolves the list of all eureka service urls from DNS without blocking the calling thread. The TXT records
+     * of all zones are looked up concurrently.
+     *
+     * @param embeddedServer the embedded server
+     * @param instanceConfiguration The instance configuration
+     * @param discoveryClientConfiguration The discovery client configuration
+     *
+     * @return A publisher that emits the list of all eureka service urls for the eureka client to talk to.
+     * @since 4.5.0
+     */
+    public static Publisher<List<String>> resolveServiceUrlsFromDNS(
+            EmbeddedServer embeddedServer,
+            ApplicationConfiguration.InstanceConfiguration instanceConfiguration,
+            DiscoveryClientConfiguration discoveryClientConfiguration) {
+
+        return resolveServiceUrlsFromDNS(
                 instanceConfiguration,
                 discoveryClientConfiguration,
                 instanceConfiguration.getZone().orElse(DEFAULT_ZONE),
@@ -84,7 +115,7 @@ public class EndpointUtil {
      *
      * @return The list of all eureka service urls for the eureka client to talk to.
      */
-    private static List<String> getServiceUrlsFromDNS(
+    private static Mono<List<String>> resolveServiceUrlsFromDNS(
             ApplicationConfiguration.InstanceConfiguration serviceInstance,
             DiscoveryClientConfiguration discoveryClientConfiguration,
             String instanceZone,
@@ -94,107 +125,136 @@ public class EndpointUtil {
         String region = values.get(ServiceInstance.REGION, String.class).orElse(DEFAULT_REGION);
         // Get zone-specific DNS names for the given region so that we can get a
         // list of available zones
-        Map<String, List<String>> zoneDnsNamesMap = getZoneBasedDiscoveryUrlsFromRegion(discoveryClientConfiguration, region);
-        Set<String> availableZones = zoneDnsNamesMap.keySet();
-        List<String> zones = new ArrayList<>(availableZones);
-        if (zones.isEmpty()) {
-            throw new RuntimeException("No available zones configured for the instanceZone " + instanceZone);
-        }
-        int zoneIndex = 0;
-        boolean zoneFound = false;
-        for (String zone : zones) {
-            LOG.debug("Checking if the instance zone {} is the same as the zone from DNS {}", instanceZone, zone);
-            if (preferSameZone) {
-                if (instanceZone.equalsIgnoreCase(zone)) {
-                    zoneFound = true;
+        return getZoneBasedDiscoveryUrlsFromRegion(discoveryClientConfiguration, region).flatMap(zoneDnsNamesMap -> {
+            Set<String> availableZones = zoneDnsNamesMap.keySet();
+            List<String> zones = new ArrayList<>(availableZones);
+            if (zones.isEmpty()) {
+                return Mono.error(new RuntimeException("No available zones configured for the instanceZone " + instanceZone));
+            }
+            int zoneIndex = 0;
+            boolean zoneFound = false;
+            for (String zone : zones) {
+                LOG.debug("Checking if the instance zone {} is the same as the zone from DNS {}", instanceZone, zone);
+                if (preferSameZone) {
+                    if (instanceZone.equalsIgnoreCase(zone)) {
+                        zoneFound = true;
+                    }
+                } else {
+                    if (!instanceZone.equalsIgnoreCase(zone)) {
+                        zoneFound = true;
+                    }
                 }
-            } else {
-                if (!instanceZone.equalsIgnoreCase(zone)) {
-                    zoneFound = true;
+                if (zoneFound) {
+                    LOG.debug("The zone index from the list {} that matches the instance zone {} is {}",
+                            zones, instanceZone, zoneIndex);
+                    break;
                 }
+                zoneIndex++;
             }
-            if (zoneFound) {
-                LOG.debug("The zone index from the list {} that matches the instance zone {} is {}",
-                        zones, instanceZone, zoneIndex);
-                break;
-            }
-            zoneIndex++;
-        }
-        if (zoneIndex >= zones.size()) {
-            if (LOG.isWarnEnabled()) {
-                LOG.warn("No match for the zone {} in the list of available zones {}",
-                        instanceZone, zones.toArray());
-            }
-        } else {
-            // Rearrange the zones with the instance zone first
-            for (int i = 0; i < zoneIndex; i++) {
-                String zone = zones.remove(0);
-                zones.add(zone);
+            if (zoneIndex >= zones.size()) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("No match for the zone {} in the list of available zones {}",
+                            instanceZone, zones.toArray());
+                }
+            } else {
+                // Rearrange the zones with the instance zone first
+                for (int i = 0; i < zoneIndex; i++) {
+                    String zone = zones.remove(0);
+                    zones.add(zone);
+                }
             }
-        }
 
-        // Now get the eureka urls for all the zones in the order and return it
-        List<String> serviceUrls = new ArrayList<>();
-        for (String zone : zones) {
-            for (String zoneCname : zoneDnsNamesMap.get(zone)) {
-                List<String> ec2Urls = new ArrayList<>(getEC2DiscoveryUrlsFromZone(zoneCname, DiscoveryUrlType.CNAME));
-                // Rearrange the list to distribute the load in case of multiple servers
-                if (ec2Urls.size() > 1) {
-                    randomizer.randomize(ec2Urls);
-                }
-                for (String ec2Url : ec2Urls) {
-                    StringBuilder sb = new StringBuilder()
-                            .append("http://")
-                            .append(ec2Url)
-                            .append(":")
-                            .append(discoveryClientConfiguration.getPort());
-                    final Optional<String> contextPath = discoveryClientConfiguration.getContextPath();
-                    if (contextPath.isPresent()) {
-                        final String path = contextPath.get();
-                        if (!path.startsWith("/")) {
-                            sb.append('/');
-                        }
-                        sb.append(path);
-                        if (!path.endsWith("/")) {
+            // Now get the eureka urls for all the zones in the order, looking up the zones concurrently
+            List<String> zoneCnames = new ArrayList<>();
+            for (String zone : zones) {
+                zoneCnames.addAll(zoneDnsNamesMap.get(zone));
+            }
+            return getEC2DiscoveryUrlsFromZones(zoneCnames, DiscoveryUrlType.CNAME).map(ec2UrlsByZoneCname -> {
+                List<String> serviceUrls = new ArrayList<>();
+                for (String zoneCname : zoneCnames) {
+                    List<String> ec2Urls = new ArrayList<>(ec2UrlsByZoneCname.get(zoneCname));
+                    // Rearrange the list to distribute the load in case of multiple servers
+                    if (ec2Urls.size() > 1) {
+                        randomizer.randomize(ec2Urls);
+                    }
+                    for (String ec2Url : ec2Urls) {
+                        StringBuilder sb = new StringBuilder()
+                                .append("http://")
+                                .append(ec2Url)
+                                .append(":")
+                                .append(discoveryClientConfiguration.getPort());
+                        final Optional<String> contextPath = discoveryClientConfiguration.getContextPath();
+                        if (contextPath.isPresent()) {
+                            final String path = contextPath.get();
+                            if (!path.startsWith("/")) {
+                                sb.append('/');
+                            }
+                            sb.append(path);
+                            if (!path.endsWith("/")) {
+                                sb.append('/');
+                            }
+                        } else {
                             sb.append('/');
                         }
-                    } else {
-                        sb.append('/');
+                        String serviceUrl = sb.toString();
+                        LOG.debug("The EC2 url is {}", serviceUrl);
+                        serviceUrls.add(serviceUrl);
                     }
-                    String serviceUrl = sb.toString();
-                    LOG.debug("The EC2 url is {}", serviceUrl);
-                    serviceUrls.add(serviceUrl);
                 }
-            }
-        }
-        // Rearrange the fail over server list to distribute the load
-        String primaryServiceUrl = serviceUrls.remove(0);
-        randomizer.randomize(serviceUrls);
-        serviceUrls.add(0, primaryServiceUrl);
+                // Rearrange the fail over server list to distribute the load
+                String primaryServiceUrl = serviceUrls.remove(0);
+                randomizer.randomize(serviceUrls);
+                serviceUrls.add(0, primaryServiceUrl);
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("This client will talk to the following serviceUrls in order : {} ",
+                            (Object) serviceUrls.toArray());
+                }
+                return serviceUrls;
+            });
+        });
+    }
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("This client will talk to the following serviceUrls in order : {} ",
-                    (Object) serviceUrls.toArray());
+    /**
+     * Get the lists of EC2 URLs given the zone names.
+     *
+     * @param zoneCnames The dns names of the zone-specific CNAMEs
+     * @param type CNAME or EIP that needs to be retrieved
+     * @return The lists of EC2 URLs keyed by the dns name of the zone
+     */
+    private static Mono<Map<String, Set<String>>> getEC2DiscoveryUrlsFromZones(List<String> zoneCnames, DiscoveryUrlType type) {
+        Map<String, String> txtNames = new LinkedHashMap<>();
+        for (String zoneCname : zoneCnames) {
+            String dnsName = "txt." + zoneCname;
+            LOG.debug("The zone url to be looked up is {} :", dnsName);
+            txtNames.put(dnsName, zoneCname);
         }
-        return serviceUrls;
+        return DnsResolver.getCNamesFromTxtRecords(txtNames.keySet())
+            .onErrorMap(e -> new RuntimeException("Cannot get cnames bound to the zones:" + txtNames.keySet(), e))
+            .map(ec2UrlsByDnsName -> {
+                Map<String, Set<String>> ec2UrlsByZoneCname = new LinkedHashMap<>();
+                for (Map.Entry<String, Set<String>> entry : ec2UrlsByDnsName.entrySet()) {
+                    ec2UrlsByZoneCname.put(txtNames.get(entry.getKey()), getEC2DiscoveryUrlsFromZone(entry.getKey(), entry.getValue(), type));
+                }
+                return ec2UrlsByZoneCname;
+            });
     }
 
     /**
-     * Get the list of EC2 URLs given the zone name.
+     * Get the list of EC2 URLs given the CNAMEs of the zone.
      *
      * @param dnsName The dns name of the zone-specific CNAME
+     * @param ec2UrlsForZone The CNAMEs looked up for the dns name
      * @param type CNAME or EIP that needs to be retrieved
      * @return The list of EC2 URLs associated with the dns name
      */
-    private static Set<String> getEC2DiscoveryUrlsFromZone(String dnsName, DiscoveryUrlType type) {
+    private static Set<String> getEC2DiscoveryUrlsFromZone(String dnsName, Set<String> ec2UrlsForZone, DiscoveryUrlType type) {
         Set<String> eipsForZone;
         try {
-            dnsName = "txt." + dnsName;
-            LOG.debug("The zone url to be looked up is {} :", dnsName);
-            Set<String> ec2UrlsForZone = DnsResolver.getCNamesFromTxtRecord(dnsName);
-            for (String ec2Url : ec2UrlsForZone) {
-                LOG.debug("The eureka url for the dns name {} is {}", dnsName, ec2Url);
-                ec2UrlsForZone.add(ec2Url);
+            if (LOG.isDebugEnabled()) {
+                for (String ec2Url : ec2UrlsForZone) {
+                    LOG.debug("The eureka url for the dns name {} is {}", dnsName, ec2Url);
+                }
             }
             if (DiscoveryUrlType.CNAME.equals(type)) {
                 return ec2UrlsForZone;
@@ -230,15 +290,14 @@ public class EndpointUtil {
      * @return - The list of CNAMES from which the zone-related information can
      *         be retrieved
      */
-    private static Map<String, List<String>> getZoneBasedDiscoveryUrlsFromRegion(
+    private static Mono<Map<String, List<String>>> getZoneBasedDiscoveryUrlsFromRegion(
             DiscoveryClientConfiguration discoveryClientConfiguration,
             String region) {
-        String discoveryDnsName = null;
-        try {
-            discoveryDnsName = "txt." + region + "." + discoveryClientConfiguration.getHost();
+        String discoveryDnsName = "txt." + region + "." + discoveryClientConfiguration.getHost();
 
-            LOG.debug("The region url to be looked up is {} :", discoveryDnsName);
-            Set<String> zoneCnamesForRegion = new TreeSet<>(DnsResolver.getCNamesFromTxtRecord(discoveryDnsName));
+        LOG.debug("The region url to be looked up is {} :", discoveryDnsName);
+        return DnsResolver.getCNamesFromTxtRecord(discoveryDnsName).map(cnames -> {
+            Set<String> zoneCnamesForRegion = new TreeSet<>(cnames);
             Map<String, List<String>> zoneCnameMapForRegion = new TreeMap<>();
             for (String zoneCname : zoneCnamesForRegion) {
                 String zone;
@@ -257,9 +316,7 @@ public class EndpointUtil {
                 zoneCnamesSet.add(zoneCname);
             }
             return zoneCnameMapForRegion;
-        } catch (Throwable e) {
-            throw new RuntimeException("Cannot get cnames bound to the region:" + discoveryDnsName, e);
-        }
+        }).onErrorMap(e -> new RuntimeException("Cannot get cnames bound to the region:" + discoveryDnsName, e));
     }
 
     // FIXME this is no valid for vpc
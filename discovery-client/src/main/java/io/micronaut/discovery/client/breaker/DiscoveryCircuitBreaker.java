@@ -0,0 +1,232 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.breaker;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.exceptions.DiscoveryException;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>A circuit breaker around the lookups of a single discovery server.</p>
+ *
+ * <p>The circuit opens after the configured number of consecutive failed lookups. While it is open, lookups are not
+ * sent to the discovery server but answered at once with the last known good result, so that an outage of the
+ * discovery server does not slow down or fail the requests that depend on it. Once the reset timeout has passed a
+ * single trial lookup is sent, which closes the circuit again if it succeeds.</p>
+ *
+ * @since 4.5.0
+ */
+public final class DiscoveryCircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiscoveryCircuitBreaker.class);
+    private static final int SERVER_ERROR = 500;
+
+    private final String name;
+    private final int failureThreshold;
+    private final long resetTimeoutNanos;
+    private final Duration timeout;
+    private final LongSupplier clock;
+    private final Map<String, Object> lastKnownGood = new ConcurrentHashMap<>();
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long openedAt;
+    private volatile Throwable lastFailure;
+
+    /**
+     * @param name          The name of the discovery server
+     * @param configuration The circuit breaker configuration
+     */
+    public DiscoveryCircuitBreaker(@NonNull String name, @NonNull DiscoveryCircuitBreakerConfiguration configuration) {
+        this(name, configuration.getFailureThreshold(), configuration.getResetTimeout(), configuration.getTimeout(), System::nanoTime);
+    }
+
+    /**
+     * @param name             The name of the discovery server
+     * @param failureThreshold The number of consecutive failures after which the circuit opens
+     * @param resetTimeout     How long the circuit stays open before a trial lookup
+     * @param timeout          The time after which a lookup counts as failed
+     * @param clock            The nano time source
+     */
+    DiscoveryCircuitBreaker(String name, int failureThreshold, Duration resetTimeout, Duration timeout, LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.resetTimeoutNanos = resetTimeout.toNanos();
+        this.timeout = timeout;
+        this.clock = clock;
+    }
+
+    /**
+     * Executes a lookup through the circuit breaker.
+     *
+     * @param key    The key the last known good result of the lookup is stored under
+     * @param lookup The lookup
+     * @param <T>    The result type
+     * @return The result of the lookup, or the last known good result while the circuit is open
+     */
+    @NonNull
+    public <T> Publisher<T> execute(@NonNull String key, @NonNull Publisher<T> lookup) {
+        State current = state.get();
+        if (current == State.CLOSED
+            || (current == State.OPEN && clock.getAsLong() - openedAt >= resetTimeoutNanos && state.compareAndSet(State.OPEN, State.HALF_OPEN))) {
+            return call(key, lookup);
+        }
+        return fallback(key, null);
+    }
+
+    /**
+     * @return The name of the discovery server
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The state of the circuit
+     */
+    @NonNull
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * @return The failure that last counted against the discovery server, if any
+     */
+    @Nullable
+    public Throwable getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * @return Whether lookups are currently answered from the last known good results
+     */
+    public boolean isDegraded() {
+        return state.get() != State.CLOSED;
+    }
+
+    /**
+     * @return The details of the circuit breaker, suitable for health and management endpoints
+     */
+    @NonNull
+    public Map<String, Object> getDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("state", state.get().name());
+        details.put("mode", isDegraded() ? "degraded" : "normal");
+        details.put("consecutive-failures", failures.get());
+        details.put("cached-lookups", lastKnownGood.size());
+        Throwable failure = lastFailure;
+        if (failure != null) {
+            details.put("last-failure", String.valueOf(failure.getMessage()));
+        }
+        return details;
+    }
+
+    private <T> Flux<T> call(String key, Publisher<T> lookup) {
+        Flux<T> flux = Flux.from(lookup);
+        if (!timeout.isZero() && !timeout.isNegative()) {
+            flux = flux.timeout(timeout);
+        }
+        return flux
+            .doOnNext(value -> {
+                lastKnownGood.put(key, value);
+                onSuccess();
+            })
+            .doOnComplete(this::onSuccess)
+            .doOnCancel(() -> {
+                // an abandoned trial lookup must not leave the circuit half open forever
+                if (state.get() == State.HALF_OPEN) {
+                    open(State.HALF_OPEN);
+                }
+            })
+            .onErrorResume(throwable -> {
+                if (throwable instanceof HttpClientResponseException e && e.getResponse().code() < SERVER_ERROR) {
+                    onSuccess();
+                    return Flux.error(throwable);
+                }
+                onFailure(throwable);
+                if (state.get() != State.CLOSED) {
+                    return fallback(key, throwable);
+                }
+                return Flux.error(throwable);
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Flux<T> fallback(String key, @Nullable Throwable cause) {
+        Object value = lastKnownGood.get(key);
+        if (value != null) {
+            return Flux.just((T) value);
+        }
+        Throwable failure = cause != null ? cause : lastFailure;
+        return Flux.error(new DiscoveryException("Circuit breaker for discovery server [" + name + "] is open and no previous result is available", failure));
+    }
+
+    private void onSuccess() {
+        if (failures.get() != 0) {
+            failures.set(0);
+        }
+        if (state.get() != State.CLOSED && state.getAndSet(State.CLOSED) != State.CLOSED && LOG.isInfoEnabled()) {
+            LOG.info("Circuit breaker for discovery server [{}] closed", name);
+        }
+    }
+
+    private void onFailure(Throwable throwable) {
+        lastFailure = throwable;
+        int count = failures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && count >= failureThreshold)) {
+            if (open(current) && LOG.isWarnEnabled()) {
+                LOG.warn("Circuit breaker for discovery server [{}] opened after {} consecutive failures: {}", name, count, throwable.getMessage());
+            }
+        }
+    }
+
+    private boolean open(State expected) {
+        openedAt = clock.getAsLong();
+        return state.compareAndSet(expected, State.OPEN);
+    }
+
+    /**
+     * The states of the circuit.
+     */
+    public enum State {
+        /**
+         * Lookups are sent to the discovery server.
+         */
+        CLOSED,
+        /**
+         * Lookups are answered with the last known good results.
+         */
+        OPEN,
+        /**
+         * A single trial lookup is sent to the discovery server.
+         */
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.breaker;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.core.util.Toggleable;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the circuit breakers protecting lookups against the discovery servers.
+ *
+ * @since 4.5.0
+ */
+@ConfigurationProperties(DiscoveryCircuitBreakerConfiguration.PREFIX)
+@Requires(property = DiscoveryCircuitBreakerConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class DiscoveryCircuitBreakerConfiguration implements Toggleable {
+
+    /**
+     * The prefix to use for all circuit breaker settings.
+     */
+    public static final String PREFIX = "discovery-client.circuit-breaker";
+
+    /**
+     * The default number of consecutive failures.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    /**
+     * The default reset timeout in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_RESET_TIMEOUT_SECONDS = 30;
+
+    /**
+     * The default lookup timeout in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_TIMEOUT_SECONDS = 5;
+
+    private boolean enabled;
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private Duration resetTimeout = Duration.ofSeconds(DEFAULT_RESET_TIMEOUT_SECONDS);
+    private Duration timeout = Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS);
+
+    /**
+     * @return Whether the circuit breakers are enabled
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Default value (false).
+     * @param enabled Whether the circuit breakers are enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The number of consecutive failed lookups after which the circuit opens
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_FAILURE_THRESHOLD}).
+     * @param failureThreshold The number of consecutive failed lookups after which the circuit opens
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        if (failureThreshold > 0) {
+            this.failureThreshold = failureThreshold;
+        }
+    }
+
+    /**
+     * @return How long the circuit stays open before a trial lookup is sent to the discovery server
+     */
+    public Duration getResetTimeout() {
+        return resetTimeout;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_RESET_TIMEOUT_SECONDS} seconds).
+     * @param resetTimeout How long the circuit stays open before a trial lookup is sent to the discovery server
+     */
+    public void setResetTimeout(Duration resetTimeout) {
+        if (resetTimeout != null) {
+            this.resetTimeout = resetTimeout;
+        }
+    }
+
+    /**
+     * @return The time after which a lookup that has not completed counts as failed
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_TIMEOUT_SECONDS} seconds).
+     * @param timeout The time after which a lookup that has not completed counts as failed
+     */
+    public void setTimeout(Duration timeout) {
+        if (timeout != null) {
+            this.timeout = timeout;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DiscoveryCircuitBreakerConfiguration{" +
+            "enabled=" + enabled +
+            ", failureThreshold=" + failureThreshold +
+            ", resetTimeout=" + resetTimeout +
+            ", timeout=" + timeout +
+            '}';
+    }
+}
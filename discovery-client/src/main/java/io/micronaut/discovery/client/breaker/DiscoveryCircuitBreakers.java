@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.breaker;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link DiscoveryCircuitBreaker} of every discovery server.
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = DiscoveryCircuitBreakerConfiguration.class)
+public class DiscoveryCircuitBreakers {
+
+    private final DiscoveryCircuitBreakerConfiguration configuration;
+    private final Map<String, DiscoveryCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * @param configuration The circuit breaker configuration
+     */
+    public DiscoveryCircuitBreakers(DiscoveryCircuitBreakerConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * @param name The name of the discovery server
+     * @return The circuit breaker of the discovery server
+     */
+    @NonNull
+    public DiscoveryCircuitBreaker get(@NonNull String name) {
+        return circuitBreakers.computeIfAbsent(name, n -> new DiscoveryCircuitBreaker(n, configuration));
+    }
+
+    /**
+     * @return The circuit breakers created so far
+     */
+    @NonNull
+    public Collection<DiscoveryCircuitBreaker> getAll() {
+        return Collections.unmodifiableCollection(circuitBreakers.values());
+    }
+}
@@ -24,6 +24,8 @@ import io.micronaut.context.env.PropertySource;
 import io.micronaut.context.exceptions.ConfigurationException;
 import io.micronaut.core.annotation.Blocking;
 import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.client.jfr.ConfigLoadEvent;
+import io.micronaut.discovery.client.jfr.DiscoveryEvents;
 import io.micronaut.discovery.config.ConfigurationClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,17 +73,20 @@ public class DistributedPropertySourceLocator implements BootstrapPropertySource
         if (LOG.isDebugEnabled()) {
             LOG.debug("Resolving configuration sources from client: {}", configurationClient);
         }
+        ConfigLoadEvent event = DiscoveryEvents.configLoad(configurationClient.getDescription(), environment.getActiveNames());
         try {
             Flux<PropertySource> propertySourceFlowable = Flux.from(configurationClient.getPropertySources(environment));
             List<PropertySource> propertySources = propertySourceFlowable
                     .timeout(Duration.ofMillis(readTimeout.toMillis()))
                     .collectList()
                     .block();
+            DiscoveryEvents.configLoaded(event, propertySources, null);
             if (LOG.isInfoEnabled()) {
                 LOG.info("Resolved {} configuration sources from client: {}", propertySources != null ? propertySources.size() : 0, configurationClient);
             }
             return propertySources;
         } catch (RuntimeException e) {
+            DiscoveryEvents.configLoaded(event, null, e);
             if (e.getCause() instanceof TimeoutException) {
                 throw new ConfigurationException("Read timeout occurred reading distributed configuration from client: " + configurationClient.getDescription(), e);
             } else {
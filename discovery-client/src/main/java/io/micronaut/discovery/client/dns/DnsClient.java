@@ -0,0 +1,307 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.dns;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A DNS client built on non-blocking NIO channels.</p>
+ *
+ * <p>Queries are sent over UDP and repeated over TCP when the response is truncated. The configured servers are tried
+ * in order until one of them answers within the timeout. Concurrent queries sent with {@link #queryAll(Collection, int)}
+ * share a single channel and are matched to their responses by ID.</p>
+ *
+ * @since 4.5.0
+ */
+@Internal
+public final class DnsClient {
+
+    /**
+     * The type of IPv4 address records.
+     */
+    public static final int TYPE_A = 1;
+
+    /**
+     * The type of canonical name records.
+     */
+    public static final int TYPE_CNAME = 5;
+
+    /**
+     * The type of text records.
+     */
+    public static final int TYPE_TXT = 16;
+
+    /**
+     * The type of IPv6 address records.
+     */
+    public static final int TYPE_AAAA = 28;
+
+    /**
+     * The type of service records.
+     */
+    public static final int TYPE_SRV = 33;
+
+    /**
+     * The default DNS port.
+     */
+    public static final int DEFAULT_PORT = 53;
+
+    private static final int MAX_TCP_MESSAGE_SIZE = 0xFFFF;
+
+    private final List<InetSocketAddress> servers;
+    private final Duration timeout;
+
+    /**
+     * @param servers The DNS servers, tried in order
+     * @param timeout The timeout of a query against a single server
+     */
+    public DnsClient(@NonNull List<InetSocketAddress> servers, @NonNull Duration timeout) {
+        if (servers.isEmpty()) {
+            throw new IllegalArgumentException("At least one DNS server is required");
+        }
+        this.servers = List.copyOf(servers);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Parses a DNS server address given as {@code host}, {@code host:port} or {@code [ipv6]:port}.
+     *
+     * @param server      The server address
+     * @param defaultPort The port to use if none is given
+     * @return The unresolved socket address
+     */
+    @NonNull
+    public static InetSocketAddress parseServer(@NonNull String server, int defaultPort) {
+        String host = server.trim();
+        int port = defaultPort;
+        if (host.startsWith("[")) {
+            int close = host.indexOf(']');
+            if (close < 0) {
+                throw new IllegalArgumentException("Invalid DNS server address: " + server);
+            }
+            if (host.length() > close + 2 && host.charAt(close + 1) == ':') {
+                port = Integer.parseInt(host.substring(close + 2));
+            }
+            host = host.substring(1, close);
+        } else if (host.indexOf(':') == host.lastIndexOf(':') && host.indexOf(':') > 0) {
+            int colon = host.indexOf(':');
+            port = Integer.parseInt(host.substring(colon + 1));
+            host = host.substring(0, colon);
+        }
+        return InetSocketAddress.createUnresolved(host, port);
+    }
+
+    /**
+     * Sends a query. The query runs on the bounded elastic scheduler, so the caller is never blocked.
+     *
+     * @param name The name to query
+     * @param type The record type, such as {@link #TYPE_SRV}
+     * @return A mono that emits the response
+     */
+    @NonNull
+    public Mono<DnsResponse> query(@NonNull String name, int type) {
+        return queryAll(List.of(name), type).map(responses -> responses.get(name));
+    }
+
+    /**
+     * Sends several queries at once. All queries are pipelined over a single UDP channel per server, so the time taken
+     * is that of the slowest query rather than the sum of all of them. The queries run on the bounded elastic scheduler,
+     * so the caller is never blocked.
+     *
+     * @param names The names to query
+     * @param type  The record type, such as {@link #TYPE_TXT}
+     * @return A mono that emits the responses keyed by name, in the order of the given names
+     */
+    @NonNull
+    public Mono<Map<String, DnsResponse>> queryAll(@NonNull Collection<String> names, int type) {
+        return Mono.fromCallable(() -> queryServers(names, type))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Map<String, DnsResponse> queryServers(Collection<String> names, int type) throws IOException {
+        Map<String, DnsResponse> responses = new LinkedHashMap<>();
+        Set<String> pending = new LinkedHashSet<>(names);
+        IOException failure = null;
+        for (InetSocketAddress server : servers) {
+            if (pending.isEmpty()) {
+                break;
+            }
+            InetSocketAddress address = server.isUnresolved() ? new InetSocketAddress(server.getHostString(), server.getPort()) : server;
+            try {
+                Map<String, DnsResponse> answered = queryUdp(address, pending, type);
+                for (Map.Entry<String, DnsResponse> entry : answered.entrySet()) {
+                    DnsResponse response = entry.getValue();
+                    if (response.truncated()) {
+                        response = queryTcp(address, entry.getKey(), type);
+                    }
+                    responses.put(entry.getKey(), response);
+                    pending.remove(entry.getKey());
+                }
+                if (!pending.isEmpty()) {
+                    IOException timeout = new SocketTimeoutException("DNS query to " + address + " timed out for " + pending);
+                    if (failure == null) {
+                        failure = timeout;
+                    } else {
+                        failure.addSuppressed(timeout);
+                    }
+                }
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            throw failure;
+        }
+        Map<String, DnsResponse> ordered = new LinkedHashMap<>();
+        for (String name : names) {
+            ordered.put(name, responses.get(name));
+        }
+        return ordered;
+    }
+
+    private Map<String, DnsResponse> queryUdp(InetSocketAddress server, Set<String> names, int type) throws IOException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Map<String, DnsResponse> responses = new LinkedHashMap<>();
+        try (DatagramChannel channel = DatagramChannel.open(); Selector selector = Selector.open()) {
+            channel.configureBlocking(false);
+            channel.connect(server);
+            SelectionKey key = channel.register(selector, 0);
+            Map<Integer, String> outstanding = new HashMap<>();
+            for (String name : names) {
+                int id = nextId();
+                while (outstanding.containsKey(id)) {
+                    id = nextId();
+                }
+                outstanding.put(id, name);
+                channel.write(ByteBuffer.wrap(DnsMessage.encodeQuery(id, name, type)));
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(DnsMessage.UDP_PAYLOAD_SIZE);
+            while (!outstanding.isEmpty()) {
+                try {
+                    await(key, SelectionKey.OP_READ, deadline, server);
+                } catch (SocketTimeoutException e) {
+                    // answers received so far are kept and the remaining names are asked of the next server
+                    break;
+                }
+                buffer.clear();
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    if (buffer.remaining() >= 2) {
+                        int id = buffer.getShort(0) & MAX_TCP_MESSAGE_SIZE;
+                        String name = outstanding.get(id);
+                        // datagrams that do not answer an outstanding query are ignored
+                        DnsResponse response = name != null ? DnsMessage.decode(buffer, id) : null;
+                        if (response != null) {
+                            outstanding.remove(id);
+                            responses.put(name, response);
+                        }
+                    }
+                    buffer.clear();
+                }
+            }
+        }
+        return responses;
+    }
+
+    private DnsResponse queryTcp(InetSocketAddress server, String name, int type) throws IOException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try (SocketChannel channel = SocketChannel.open(); Selector selector = Selector.open()) {
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, 0);
+            if (!channel.connect(server)) {
+                await(key, SelectionKey.OP_CONNECT, deadline, server);
+                channel.finishConnect();
+            }
+            int id = nextId();
+            byte[] query = DnsMessage.encodeQuery(id, name, type);
+            ByteBuffer out = ByteBuffer.allocate(2 + query.length);
+            out.putShort((short) query.length).put(query).flip();
+            while (out.hasRemaining()) {
+                if (channel.write(out) == 0) {
+                    await(key, SelectionKey.OP_WRITE, deadline, server);
+                }
+            }
+            ByteBuffer length = ByteBuffer.allocate(2);
+            read(channel, key, length, deadline, server);
+            int size = length.getShort(0) & MAX_TCP_MESSAGE_SIZE;
+            ByteBuffer message = ByteBuffer.allocate(size);
+            read(channel, key, message, deadline, server);
+            DnsResponse response = DnsMessage.decode(message.flip(), id);
+            if (response == null) {
+                throw new DnsException("DNS server " + server + " answered a different query");
+            }
+            return response;
+        }
+    }
+
+    private static void read(SocketChannel channel, SelectionKey key, ByteBuffer buffer, long deadline, InetSocketAddress server) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new EOFException("DNS server " + server + " closed the connection");
+            }
+            if (read == 0) {
+                await(key, SelectionKey.OP_READ, deadline, server);
+            }
+        }
+    }
+
+    private static void await(SelectionKey key, int ops, long deadline, InetSocketAddress server) throws IOException {
+        key.interestOps(ops);
+        Selector selector = key.selector();
+        while (true) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new SocketTimeoutException("DNS query to " + server + " timed out");
+            }
+            if (selector.select(remaining) > 0) {
+                selector.selectedKeys().clear();
+                return;
+            }
+        }
+    }
+
+    private static int nextId() {
+        return ThreadLocalRandom.current().nextInt(MAX_TCP_MESSAGE_SIZE + 1);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.dns;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a DNS server answers with a malformed response.
+ *
+ * @since 4.5.0
+ */
+public class DnsException extends IOException {
+
+    /**
+     * @param message The message
+     */
+    public DnsException(String message) {
+        super(message);
+    }
+
+    /**
+     * @param message The message
+     * @param cause   The cause
+     */
+    public DnsException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
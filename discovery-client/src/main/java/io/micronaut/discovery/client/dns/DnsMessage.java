@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.dns;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Nullable;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Encodes DNS queries and decodes DNS responses as described by RFC 1035.</p>
+ *
+ * <p>Queries carry an EDNS(0) {@code OPT} record advertising a UDP payload size of {@value #UDP_PAYLOAD_SIZE} bytes, so
+ * that servers such as Consul do not truncate responses listing many instances to 512 bytes.</p>
+ *
+ * @since 4.5.0
+ */
+@Internal
+final class DnsMessage {
+
+    static final int UDP_PAYLOAD_SIZE = 4096;
+
+    private static final int HEADER_SIZE = 12;
+    private static final int FLAG_RESPONSE = 0x8000;
+    private static final int FLAG_TRUNCATED = 0x0200;
+    private static final int FLAG_RECURSION_DESIRED = 0x0100;
+    private static final int RESPONSE_CODE_MASK = 0x000F;
+    private static final int CLASS_IN = 1;
+    private static final int TYPE_OPT = 41;
+    private static final int POINTER_MASK = 0xC0;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_POINTERS = 32;
+
+    private DnsMessage() {
+    }
+
+    /**
+     * Encodes a query.
+     *
+     * @param id   The ID of the query
+     * @param name The name to query
+     * @param type The record type
+     * @return The encoded query
+     */
+    static byte[] encodeQuery(int id, String name, int type) {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + MAX_NAME_LENGTH + 2 + 4 + 11);
+        out.putShort((short) id);
+        out.putShort((short) FLAG_RECURSION_DESIRED);
+        out.putShort((short) 1);
+        out.putShort((short) 0);
+        out.putShort((short) 0);
+        out.putShort((short) 1);
+        writeName(out, name);
+        out.putShort((short) type);
+        out.putShort((short) CLASS_IN);
+        // EDNS(0) OPT pseudo-record: root name, type, UDP payload size as class, extended flags as TTL, no data
+        out.put((byte) 0);
+        out.putShort((short) TYPE_OPT);
+        out.putShort((short) UDP_PAYLOAD_SIZE);
+        out.putInt(0);
+        out.putShort((short) 0);
+        byte[] query = new byte[out.position()];
+        out.flip().get(query);
+        return query;
+    }
+
+    /**
+     * Decodes a response.
+     *
+     * @param message The message
+     * @param id      The ID of the query the response must answer
+     * @return The response, or {@code null} if the message does not answer the query
+     * @throws DnsException If the message is malformed
+     */
+    @Nullable
+    static DnsResponse decode(ByteBuffer message, int id) throws DnsException {
+        try {
+            ByteBuffer in = message.slice();
+            if (in.remaining() < HEADER_SIZE || (in.getShort(0) & 0xFFFF) != (id & 0xFFFF)) {
+                return null;
+            }
+            int flags = in.getShort(2) & 0xFFFF;
+            if ((flags & FLAG_RESPONSE) == 0) {
+                return null;
+            }
+            int questions = in.getShort(4) & 0xFFFF;
+            int answers = in.getShort(6) & 0xFFFF;
+            int authorities = in.getShort(8) & 0xFFFF;
+            int additionals = in.getShort(10) & 0xFFFF;
+            in.position(HEADER_SIZE);
+            for (int i = 0; i < questions; i++) {
+                skipName(in);
+                in.position(in.position() + 4);
+            }
+            List<DnsRecord> answerRecords = readRecords(in, answers);
+            readRecords(in, authorities);
+            List<DnsRecord> additionalRecords = readRecords(in, additionals);
+            return new DnsResponse(flags & RESPONSE_CODE_MASK, (flags & FLAG_TRUNCATED) != 0, answerRecords, additionalRecords);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new DnsException("Malformed DNS response: " + e.getMessage(), e);
+        }
+    }
+
+    private static List<DnsRecord> readRecords(ByteBuffer in, int count) throws DnsException {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<DnsRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = readName(in, in.position(), true);
+            int type = in.getShort() & 0xFFFF;
+            in.getShort();
+            long ttl = in.getInt() & 0xFFFFFFFFL;
+            int length = in.getShort() & 0xFFFF;
+            int start = in.position();
+            int end = start + length;
+            if (end > in.limit()) {
+                throw new DnsException("Malformed DNS response: record data exceeds the message");
+            }
+            DnsRecord record = switch (type) {
+                case DnsClient.TYPE_A, DnsClient.TYPE_AAAA -> {
+                    byte[] address = new byte[length];
+                    in.get(address);
+                    try {
+                        yield new DnsRecord.Address(name, ttl, InetAddress.getByAddress(name, address));
+                    } catch (UnknownHostException e) {
+                        throw new DnsException("Malformed DNS response: invalid address of length " + length, e);
+                    }
+                }
+                case DnsClient.TYPE_CNAME -> new DnsRecord.Cname(name, ttl, readName(in, in.position(), false));
+                case DnsClient.TYPE_SRV -> {
+                    int priority = in.getShort() & 0xFFFF;
+                    int weight = in.getShort() & 0xFFFF;
+                    int port = in.getShort() & 0xFFFF;
+                    yield new DnsRecord.Srv(name, ttl, priority, weight, port, readName(in, in.position(), false));
+                }
+                case DnsClient.TYPE_TXT -> {
+                    List<String> texts = new ArrayList<>();
+                    while (in.position() < end) {
+                        int textLength = in.get() & 0xFF;
+                        byte[] text = new byte[textLength];
+                        in.get(text);
+                        texts.add(new String(text, StandardCharsets.UTF_8));
+                    }
+                    yield new DnsRecord.Txt(name, ttl, texts);
+                }
+                default -> null;
+            };
+            in.position(end);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private static void writeName(ByteBuffer out, String name) {
+        if (!name.isEmpty() && !".".equals(name)) {
+            for (String label : name.split("\\.")) {
+                if (label.isEmpty()) {
+                    continue;
+                }
+                byte[] bytes = label.getBytes(StandardCharsets.US_ASCII);
+                if (bytes.length > MAX_LABEL_LENGTH) {
+                    throw new IllegalArgumentException("DNS label exceeds " + MAX_LABEL_LENGTH + " characters: " + label);
+                }
+                if (out.position() + bytes.length + 1 > HEADER_SIZE + MAX_NAME_LENGTH) {
+                    throw new IllegalArgumentException("DNS name exceeds " + MAX_NAME_LENGTH + " characters: " + name);
+                }
+                out.put((byte) bytes.length);
+                out.put(bytes);
+            }
+        }
+        out.put((byte) 0);
+    }
+
+    private static void skipName(ByteBuffer in) {
+        while (true) {
+            int length = in.get() & 0xFF;
+            if (length == 0) {
+                return;
+            }
+            if ((length & POINTER_MASK) == POINTER_MASK) {
+                in.get();
+                return;
+            }
+            in.position(in.position() + length);
+        }
+    }
+
+    /**
+     * Reads a possibly compressed name starting at the given offset.
+     *
+     * @param in      The message
+     * @param offset  The offset of the name
+     * @param advance Whether to move the position of the buffer past the name
+     * @return The name without the trailing dot
+     * @throws DnsException If the name is malformed
+     */
+    private static String readName(ByteBuffer in, int offset, boolean advance) throws DnsException {
+        StringBuilder name = new StringBuilder();
+        int position = offset;
+        int end = -1;
+        int pointers = 0;
+        while (true) {
+            int length = in.get(position) & 0xFF;
+            if (length == 0) {
+                position++;
+                break;
+            }
+            if ((length & POINTER_MASK) == POINTER_MASK) {
+                if (++pointers > MAX_POINTERS) {
+                    throw new DnsException("Malformed DNS response: compression loop");
+                }
+                if (end < 0) {
+                    end = position + 2;
+                }
+                position = ((length & ~POINTER_MASK) << 8) | (in.get(position + 1) & 0xFF);
+                continue;
+            }
+            if (!name.isEmpty()) {
+                name.append('.');
+            }
+            for (int i = 1; i <= length; i++) {
+                name.append((char) (in.get(position + i) & 0xFF));
+            }
+            position += length + 1;
+        }
+        if (advance) {
+            in.position(end >= 0 ? end : position);
+        }
+        return name.toString();
+    }
+}
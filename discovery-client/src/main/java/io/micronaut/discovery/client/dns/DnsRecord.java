@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.dns;
+
+import io.micronaut.core.annotation.NonNull;
+
+import java.net.InetAddress;
+import java.util.List;
+
+/**
+ * A resource record of a DNS response.
+ *
+ * @since 4.5.0
+ */
+public sealed interface DnsRecord permits DnsRecord.Address, DnsRecord.Cname, DnsRecord.Srv, DnsRecord.Txt {
+
+    /**
+     * @return The owner name of the record, without the trailing dot
+     */
+    @NonNull
+    String name();
+
+    /**
+     * @return The time to live of the record in seconds
+     */
+    long ttl();
+
+    /**
+     * An {@code A} or {@code AAAA} record.
+     *
+     * @param name    The owner name
+     * @param ttl     The time to live in seconds
+     * @param address The address
+     */
+    record Address(@NonNull String name, long ttl, @NonNull InetAddress address) implements DnsRecord {
+    }
+
+    /**
+     * A {@code CNAME} record.
+     *
+     * @param name   The owner name
+     * @param ttl    The time to live in seconds
+     * @param target The canonical name, without the trailing dot
+     */
+    record Cname(@NonNull String name, long ttl, @NonNull String target) implements DnsRecord {
+    }
+
+    /**
+     * An {@code SRV} record.
+     *
+     * @param name     The owner name
+     * @param ttl      The time to live in seconds
+     * @param priority The priority, lower values are preferred
+     * @param weight   The relative weight among records of the same priority
+     * @param port     The port
+     * @param target   The host name of the target, without the trailing dot
+     */
+    record Srv(@NonNull String name, long ttl, int priority, int weight, int port, @NonNull String target) implements DnsRecord {
+    }
+
+    /**
+     * A {@code TXT} record.
+     *
+     * @param name  The owner name
+     * @param ttl   The time to live in seconds
+     * @param texts The character strings of the record
+     */
+    record Txt(@NonNull String name, long ttl, @NonNull List<String> texts) implements DnsRecord {
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.dns;
+
+import io.micronaut.core.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * A DNS response.
+ *
+ * @param responseCode The response code, {@code 0} if the query succeeded
+ * @param truncated    Whether the response was truncated to fit a UDP datagram
+ * @param answers      The records of the answer section
+ * @param additionals  The records of the additional section
+ * @since 4.5.0
+ */
+public record DnsResponse(int responseCode,
+                          boolean truncated,
+                          @NonNull List<DnsRecord> answers,
+                          @NonNull List<DnsRecord> additionals) {
+
+    /**
+     * The response code of a successful query.
+     */
+    public static final int NO_ERROR = 0;
+
+    /**
+     * The response code of a query for a name that does not exist.
+     */
+    public static final int NAME_ERROR = 3;
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.health;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.management.health.indicator.HealthResult;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Caches the result of a health probe. A fresh result is served as is, an expired one is served while a single
+ * probe refreshes it in the background, and only the first probe or a probe after a long pause waits for the
+ * registry.
+ *
+ * @since 4.5.0
+ */
+@Internal
+public final class CachedHealthResult {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachedHealthResult.class);
+
+    private final HealthCacheConfiguration configuration;
+    private final Supplier<Publisher<HealthResult>> probe;
+    private final AtomicReference<Mono<HealthResult>> inFlight = new AtomicReference<>();
+    private volatile Probed probed;
+
+    /**
+     * @param configuration The health cache configuration
+     * @param probe         Supplies a publisher that probes the registry
+     */
+    public CachedHealthResult(@NonNull HealthCacheConfiguration configuration,
+                              @NonNull Supplier<Publisher<HealthResult>> probe) {
+        this.configuration = configuration;
+        this.probe = probe;
+    }
+
+    /**
+     * @return A publisher of the cached or freshly probed health result
+     */
+    @NonNull
+    public Publisher<HealthResult> getResult() {
+        if (!configuration.isEnabled()) {
+            return probe.get();
+        }
+        Probed probed = this.probed;
+        if (probed != null) {
+            long age = System.nanoTime() - probed.probedAt;
+            long ttl = configuration.getTtl().toNanos();
+            if (age < ttl) {
+                return Mono.just(probed.result);
+            }
+            if (age < ttl + configuration.getMaxStale().toNanos()) {
+                refresh();
+                return Mono.just(probed.result);
+            }
+        }
+        return refresh();
+    }
+
+    /**
+     * Starts a probe unless one is already in flight.
+     *
+     * @return A publisher of the result of the probe in flight
+     */
+    private Mono<HealthResult> refresh() {
+        Mono<HealthResult> current = inFlight.get();
+        if (current != null) {
+            return current;
+        }
+        Sinks.One<HealthResult> sink = Sinks.one();
+        Mono<HealthResult> result = sink.asMono();
+        if (!inFlight.compareAndSet(null, result)) {
+            return inFlight.get();
+        }
+        Mono.defer(() -> Flux.from(probe.get()).next()).subscribe(
+            healthResult -> {
+                probed = new Probed(healthResult, System.nanoTime());
+                inFlight.set(null);
+                sink.tryEmitValue(healthResult);
+            },
+            throwable -> {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Health probe failed: {}", throwable.getMessage());
+                }
+                inFlight.set(null);
+                sink.tryEmitError(throwable);
+            },
+            () -> {
+                if (inFlight.compareAndSet(result, null)) {
+                    sink.tryEmitEmpty();
+                }
+            }
+        );
+        return result;
+    }
+
+    /**
+     * A health result and the time it was probed.
+     *
+     * @param result   The health result
+     * @param probedAt The value of {@link System#nanoTime()} when the result was probed
+     */
+    private record Probed(HealthResult result, long probedAt) {
+    }
+}
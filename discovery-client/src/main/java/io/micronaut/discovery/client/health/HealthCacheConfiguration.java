@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.health;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.util.Toggleable;
+
+import java.time.Duration;
+
+/**
+ * Configuration for caching the results of the Consul and Eureka health indicators, so that frequent probes of the
+ * health endpoint do not translate into requests against the registry.
+ *
+ * @since 4.5.0
+ */
+@ConfigurationProperties(HealthCacheConfiguration.PREFIX)
+public class HealthCacheConfiguration implements Toggleable {
+
+    /**
+     * The prefix to use for all health cache settings.
+     */
+    public static final String PREFIX = "discovery-client.health.cache";
+
+    /**
+     * The default time to live in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_TTL_SECONDS = 10;
+
+    /**
+     * The default maximum staleness in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_STALE_SECONDS = 30;
+
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofSeconds(DEFAULT_TTL_SECONDS);
+    private Duration maxStale = Duration.ofSeconds(DEFAULT_MAX_STALE_SECONDS);
+
+    /**
+     * @return Whether health results are cached
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Default value (true).
+     * @param enabled Whether health results are cached
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return How long a health result is served without probing the registry again
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_TTL_SECONDS} seconds).
+     * @param ttl How long a health result is served without probing the registry again
+     */
+    public void setTtl(Duration ttl) {
+        if (ttl != null) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * @return How long an expired health result is still served while it is refreshed in the background
+     */
+    public Duration getMaxStale() {
+        return maxStale;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_MAX_STALE_SECONDS} seconds). Once a result is older than the time to live plus
+     * this duration, the next probe waits for a fresh result.
+     * @param maxStale How long an expired health result is still served while it is refreshed in the background
+     */
+    public void setMaxStale(Duration maxStale) {
+        if (maxStale != null) {
+            this.maxStale = maxStale;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HealthCacheConfiguration{" +
+            "enabled=" + enabled +
+            ", ttl=" + ttl +
+            ", maxStale=" + maxStale +
+            '}';
+    }
+}
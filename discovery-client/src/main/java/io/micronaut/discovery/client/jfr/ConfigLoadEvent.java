@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.jfr;
+
+import io.micronaut.core.annotation.Internal;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for the load of distributed configuration.
+ *
+ * @since 4.5.0
+ */
+@Internal
+@Name("io.micronaut.discovery.ConfigLoad")
+@Label("Distributed Configuration Load")
+@Category({"Micronaut", "Discovery"})
+@Description("Loads property sources from a distributed configuration server")
+@StackTrace(false)
+public final class ConfigLoadEvent extends Event {
+
+    @Label("Configuration Client")
+    String configurationClient;
+
+    @Label("Environments")
+    String environments;
+
+    @Label("Property Sources")
+    int propertySources;
+
+    @Label("Properties")
+    int properties;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Error")
+    String error;
+}
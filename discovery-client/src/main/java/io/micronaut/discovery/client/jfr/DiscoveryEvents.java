@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.jfr;
+
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.http.HttpStatus;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * <p>Emits the flight recorder events of the discovery clients.</p>
+ *
+ * <p>Every method returns the given publisher untouched unless the event is enabled in a running recording, so the
+ * events cost a single volatile read when recording is off.</p>
+ *
+ * @since 4.5.0
+ */
+@Internal
+public final class DiscoveryEvents {
+
+    private static final EventType REGISTRATION = EventType.getEventType(RegistrationEvent.class);
+    private static final EventType HEARTBEAT = EventType.getEventType(HeartbeatEvent.class);
+    private static final EventType LOOKUP = EventType.getEventType(LookupEvent.class);
+    private static final EventType CONFIG_LOAD = EventType.getEventType(ConfigLoadEvent.class);
+
+    private DiscoveryEvents() {
+    }
+
+    /**
+     * Records the registration of a service instance.
+     *
+     * @param discoveryService The discovery service
+     * @param instance         The instance
+     * @param registration     The registration publisher
+     * @return The instrumented publisher
+     */
+    @NonNull
+    public static Publisher<HttpStatus> registration(@NonNull String discoveryService,
+                                                     @NonNull ServiceInstance instance,
+                                                     @NonNull Publisher<HttpStatus> registration) {
+        if (!REGISTRATION.isEnabled()) {
+            return registration;
+        }
+        return record(registration, () -> {
+            RegistrationEvent event = new RegistrationEvent();
+            event.discoveryService = discoveryService;
+            event.serviceId = instance.getId();
+            event.metadataSize = instance.getMetadata().asMap().size();
+            return event;
+        }, (event, status) -> { }, (event, error) -> {
+            event.success = error == null;
+            event.error = error;
+        });
+    }
+
+    /**
+     * Records a heartbeat of a service instance.
+     *
+     * @param discoveryService The discovery service
+     * @param instance         The instance
+     * @param status           The reported health status
+     * @param heartbeat        The heartbeat publisher
+     * @return The instrumented publisher
+     */
+    @NonNull
+    public static Publisher<HttpStatus> heartbeat(@NonNull String discoveryService,
+                                                  @NonNull ServiceInstance instance,
+                                                  @NonNull HealthStatus status,
+                                                  @NonNull Publisher<HttpStatus> heartbeat) {
+        if (!HEARTBEAT.isEnabled()) {
+            return heartbeat;
+        }
+        return record(heartbeat, () -> {
+            HeartbeatEvent event = new HeartbeatEvent();
+            event.discoveryService = discoveryService;
+            event.serviceId = instance.getId();
+            event.healthStatus = status.getName();
+            return event;
+        }, (event, httpStatus) -> { }, (event, error) -> {
+            event.success = error == null;
+            event.error = error;
+        });
+    }
+
+    /**
+     * Records the lookup of the instances of a service.
+     *
+     * @param discoveryService The discovery service
+     * @param serviceId        The service ID
+     * @param instances        The instances publisher
+     * @return The instrumented publisher
+     */
+    @NonNull
+    public static Publisher<List<ServiceInstance>> lookup(@NonNull String discoveryService,
+                                                          @NonNull String serviceId,
+                                                          @NonNull Publisher<List<ServiceInstance>> instances) {
+        if (!LOOKUP.isEnabled()) {
+            return instances;
+        }
+        return record(instances, () -> {
+            LookupEvent event = new LookupEvent();
+            event.discoveryService = discoveryService;
+            event.serviceId = serviceId;
+            return event;
+        }, (event, list) -> event.instances = list.size(), (event, error) -> {
+            event.success = error == null;
+            event.error = error;
+        });
+    }
+
+    /**
+     * Starts recording the load of distributed configuration. The returned event must be passed to
+     * {@link #configLoaded(ConfigLoadEvent, List, Throwable)}.
+     *
+     * @param configurationClient The description of the configuration client
+     * @param environments        The active environments
+     * @return The started event, or {@code null} if the event is disabled
+     */
+    @Nullable
+    public static ConfigLoadEvent configLoad(@NonNull String configurationClient, @NonNull Iterable<String> environments) {
+        if (!CONFIG_LOAD.isEnabled()) {
+            return null;
+        }
+        ConfigLoadEvent event = new ConfigLoadEvent();
+        event.configurationClient = configurationClient;
+        event.environments = String.join(",", environments);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits the event started with {@link #configLoad(String, Iterable)}.
+     *
+     * @param event           The event, may be {@code null}
+     * @param propertySources The loaded property sources, or {@code null} if loading failed
+     * @param error           The error, if loading failed
+     */
+    public static void configLoaded(@Nullable ConfigLoadEvent event,
+                                    @Nullable List<PropertySource> propertySources,
+                                    @Nullable Throwable error) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            if (propertySources != null) {
+                event.propertySources = propertySources.size();
+                int properties = 0;
+                for (PropertySource propertySource : propertySources) {
+                    for (String ignored : propertySource) {
+                        properties++;
+                    }
+                }
+                event.properties = properties;
+            }
+            event.success = error == null;
+            event.error = error != null ? error.getMessage() : null;
+            event.commit();
+        }
+    }
+
+    private static <T, E extends Event> Publisher<T> record(Publisher<T> publisher,
+                                                            Supplier<E> factory,
+                                                            ValueRecorder<E, T> onValue,
+                                                            ValueRecorder<E, String> onTermination) {
+        return Flux.defer(() -> {
+            E event = factory.get();
+            event.begin();
+            String[] error = new String[1];
+            return Flux.from(publisher)
+                .doOnNext(value -> onValue.record(event, value))
+                .doOnError(throwable -> error[0] = String.valueOf(throwable.getMessage()))
+                .doFinally(signal -> {
+                    event.end();
+                    if (event.shouldCommit()) {
+                        onTermination.record(event, error[0]);
+                        event.commit();
+                    }
+                });
+        });
+    }
+
+    /**
+     * Copies a value into an event.
+     *
+     * @param <E> The event type
+     * @param <T> The value type
+     */
+    @FunctionalInterface
+    private interface ValueRecorder<E, T> {
+        void record(E event, T value);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.jfr;
+
+import io.micronaut.core.annotation.Internal;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for the registration of a service instance with a discovery server.
+ *
+ * @since 4.5.0
+ */
+@Internal
+@Name("io.micronaut.discovery.Registration")
+@Label("Service Registration")
+@Category({"Micronaut", "Discovery"})
+@Description("Registers a service instance with a discovery server")
+@StackTrace(false)
+public final class RegistrationEvent extends Event {
+
+    @Label("Discovery Service")
+    String discoveryService;
+
+    @Label("Service ID")
+    String serviceId;
+
+    @Label("Metadata Entries")
+    int metadataSize;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Error")
+    String error;
+}
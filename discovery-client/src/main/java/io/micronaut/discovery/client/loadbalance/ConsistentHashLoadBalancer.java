@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.discovery.DiscoveryClient;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.exceptions.NoAvailableServiceException;
+import io.micronaut.http.client.LoadBalancer;
+import org.reactivestreams.Publisher;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A {@link LoadBalancer} that maps the discriminator passed to {@link #select(Object)} to an instance using
+ * Maglev-style consistent hashing, so that the same key keeps landing on the same instance and only the keys of
+ * removed instances move when the topology changes.</p>
+ *
+ * <p>The lookup table is an immutable snapshot that is only rebuilt when the set of instance IDs changes, making
+ * lookups a lock-free array access. The permutation of every instance is cached so that a rebuild only hashes the
+ * instances that were added. Selections without a discriminator are distributed round-robin.</p>
+ *
+ * @since 4.5.0
+ */
+public class ConsistentHashLoadBalancer implements LoadBalancer {
+
+    private static final long OFFSET_SEED = 0x9e3779b97f4a7c15L;
+    private static final long SKIP_SEED = 0xbf58476d1ce4e5b9L;
+
+    private final String serviceId;
+    private final DiscoveryClient discoveryClient;
+    private final int tableSize;
+    private final Map<String, int[]> permutations = new ConcurrentHashMap<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private volatile Table table = Table.EMPTY;
+
+    /**
+     * @param serviceId       The service ID
+     * @param discoveryClient The discovery client
+     * @param tableSize       The minimum number of entries in the lookup table, rounded up to the next prime so that
+     *                        every permutation visits all entries
+     */
+    public ConsistentHashLoadBalancer(@NonNull String serviceId, @NonNull DiscoveryClient discoveryClient, int tableSize) {
+        if (tableSize < 2) {
+            throw new IllegalArgumentException("Table size must be at least 2");
+        }
+        this.serviceId = serviceId;
+        this.discoveryClient = discoveryClient;
+        this.tableSize = Hashing.nextPrime(tableSize);
+    }
+
+    @Override
+    public Publisher<ServiceInstance> select(@Nullable Object discriminator) {
+        return Publishers.map(discoveryClient.getInstances(serviceId), instances -> select(instances, discriminator));
+    }
+
+    /**
+     * Selects the instance for a discriminator from the given instances.
+     *
+     * @param instances     The current instances
+     * @param discriminator The discriminator
+     * @return The selected instance
+     */
+    @NonNull
+    ServiceInstance select(@NonNull List<ServiceInstance> instances, @Nullable Object discriminator) {
+        Table current = table(instances);
+        ServiceInstance[] candidates = current.instances;
+        if (candidates.length == 0) {
+            throw new NoAvailableServiceException(serviceId);
+        }
+        if (discriminator == null) {
+            return candidates[Math.floorMod(roundRobin.getAndIncrement(), candidates.length)];
+        }
+        return candidates[current.lookup[Hashing.bucket(Hashing.hash(discriminator), tableSize)]];
+    }
+
+    private Table table(List<ServiceInstance> instances) {
+        Table current = table;
+        if (current.source == instances) {
+            return current;
+        }
+        ServiceInstance[] ordered = current.reorder(instances);
+        if (ordered != null) {
+            // same instance IDs, so keep the lookup table and only refresh the instance details
+            Table refreshed = new Table(instances, ordered, current.index, current.lookup);
+            table = refreshed;
+            return refreshed;
+        }
+        synchronized (this) {
+            current = table;
+            ordered = current.reorder(instances);
+            if (ordered != null) {
+                return current;
+            }
+            Table rebuilt = build(instances);
+            table = rebuilt;
+            return rebuilt;
+        }
+    }
+
+    private Table build(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            permutations.clear();
+            return new Table(instances, new ServiceInstance[0], Collections.emptyMap(), new int[0]);
+        }
+        Map<String, ServiceInstance> byKey = new HashMap<>(instances.size() * 4 / 3 + 1);
+        for (ServiceInstance instance : instances) {
+            byKey.putIfAbsent(Hashing.key(instance), instance);
+        }
+        String[] keys = byKey.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        permutations.keySet().retainAll(byKey.keySet());
+
+        int count = keys.length;
+        ServiceInstance[] ordered = new ServiceInstance[count];
+        Map<String, Integer> index = new HashMap<>(count * 4 / 3 + 1);
+        int[] offsets = new int[count];
+        int[] skips = new int[count];
+        for (int i = 0; i < count; i++) {
+            String key = keys[i];
+            ordered[i] = byKey.get(key);
+            index.put(key, i);
+            int[] permutation = permutations.computeIfAbsent(key, k -> new int[] {
+                Hashing.bucket(Hashing.hash(k, OFFSET_SEED), tableSize),
+                Hashing.bucket(Hashing.hash(k, SKIP_SEED), tableSize - 1) + 1
+            });
+            offsets[i] = permutation[0];
+            skips[i] = permutation[1];
+        }
+
+        int[] lookup = new int[tableSize];
+        Arrays.fill(lookup, -1);
+        int[] next = new int[count];
+        int filled = 0;
+        fill:
+        while (true) {
+            for (int i = 0; i < count; i++) {
+                int entry;
+                do {
+                    entry = (int) ((offsets[i] + (long) next[i] * skips[i]) % tableSize);
+                    next[i]++;
+                } while (lookup[entry] >= 0);
+                lookup[entry] = i;
+                if (++filled == tableSize) {
+                    break fill;
+                }
+            }
+        }
+        return new Table(instances, ordered, index, lookup);
+    }
+
+    /**
+     * An immutable lookup table.
+     *
+     * @param source    The instance list the table was built from
+     * @param instances The instances ordered by key
+     * @param index     The position of every key in the ordered instances
+     * @param lookup    The table entries, each holding a position in the ordered instances
+     */
+    private record Table(List<ServiceInstance> source, ServiceInstance[] instances, Map<String, Integer> index, int[] lookup) {
+
+        static final Table EMPTY = new Table(null, new ServiceInstance[0], Collections.emptyMap(), new int[0]);
+
+        /**
+         * @param candidates The current instances
+         * @return The instances in table order if they have the same distinct keys as this table, otherwise
+         * {@code null}. Like {@link #build(List)}, the first instance of a duplicated key wins.
+         */
+        @Nullable
+        ServiceInstance[] reorder(List<ServiceInstance> candidates) {
+            if (source == null) {
+                return null;
+            }
+            ServiceInstance[] ordered = new ServiceInstance[instances.length];
+            int distinct = 0;
+            for (ServiceInstance candidate : candidates) {
+                Integer position = index.get(Hashing.key(candidate));
+                if (position == null) {
+                    return null;
+                }
+                if (ordered[position] == null) {
+                    ordered[position] = candidate;
+                    distinct++;
+                }
+            }
+            return distinct == instances.length ? ordered : null;
+        }
+    }
+}
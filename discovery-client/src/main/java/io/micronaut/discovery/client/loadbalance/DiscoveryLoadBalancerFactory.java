@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.order.OrderUtil;
+import io.micronaut.discovery.DiscoveryClient;
+import io.micronaut.http.client.LoadBalancer;
+import io.micronaut.http.client.loadbalance.DiscoveryClientLoadBalancerFactory;
+import io.micronaut.http.client.loadbalance.DiscoveryClientRoundRobinLoadBalancer;
+import jakarta.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link DiscoveryClientLoadBalancerFactory} that creates the load balancer configured for each service with
+ * {@link LoadBalancerConfiguration}.
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Replaces(DiscoveryClientLoadBalancerFactory.class)
+@Requires(beans = LoadBalancerConfiguration.class)
+public class DiscoveryLoadBalancerFactory extends DiscoveryClientLoadBalancerFactory {
+
+    private final LoadBalancerConfiguration configuration;
+    private final InstanceLoadTracker loadTracker;
+    private final DiscoveryClient filteredClient;
+
+    /**
+     * @param discoveryClient The discovery client
+     * @param configuration   The load balancer configuration
+     * @param loadTracker     The tracker of the load of discovered instances
+     * @param filters         The filters applied to discovered instances before load balancing
+     */
+    public DiscoveryLoadBalancerFactory(DiscoveryClient discoveryClient,
+                                        LoadBalancerConfiguration configuration,
+                                        InstanceLoadTracker loadTracker,
+                                        List<InstanceFilter> filters) {
+        super(discoveryClient);
+        this.configuration = configuration;
+        this.loadTracker = loadTracker;
+        List<InstanceFilter> ordered = new ArrayList<>(filters);
+        OrderUtil.sort(ordered);
+        this.filteredClient = new FilteredDiscoveryClient(discoveryClient, loadTracker, ordered);
+    }
+
+    @Override
+    public LoadBalancer create(String serviceID) {
+        return switch (configuration.getStrategy(serviceID)) {
+            case CONSISTENT_HASH -> new ConsistentHashLoadBalancer(serviceID, filteredClient, configuration.getTableSize());
+            case LEAST_LOADED -> new LeastLoadedLoadBalancer(serviceID, filteredClient, loadTracker);
+            case WEIGHTED -> new WeightedLoadBalancer(serviceID, filteredClient, configuration.getSlowStart(), configuration.getWarningFactor());
+            default -> new DiscoveryClientRoundRobinLoadBalancer(serviceID, filteredClient);
+        };
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.discovery.DiscoveryClient;
+import io.micronaut.discovery.ServiceInstance;
+import org.reactivestreams.Publisher;
+
+import java.util.List;
+
+/**
+ * A {@link DiscoveryClient} that applies the {@link InstanceFilter} beans to the instances of another client. The
+ * unfiltered instances are reported to the {@link InstanceLoadTracker} so that it evicts instances that are gone.
+ *
+ * @since 4.5.0
+ */
+@Internal
+final class FilteredDiscoveryClient implements DiscoveryClient {
+
+    private final DiscoveryClient discoveryClient;
+    private final InstanceLoadTracker loadTracker;
+    private final List<InstanceFilter> filters;
+
+    /**
+     * @param discoveryClient The discovery client
+     * @param loadTracker     The tracker of the load of discovered instances
+     * @param filters         The filters, in order
+     */
+    FilteredDiscoveryClient(DiscoveryClient discoveryClient, InstanceLoadTracker loadTracker, List<InstanceFilter> filters) {
+        this.discoveryClient = discoveryClient;
+        this.loadTracker = loadTracker;
+        this.filters = filters;
+    }
+
+    @Override
+    public Publisher<List<ServiceInstance>> getInstances(String serviceId) {
+        return Publishers.map(discoveryClient.getInstances(serviceId), instances -> {
+            loadTracker.retain(serviceId, instances);
+            List<ServiceInstance> filtered = instances;
+            for (InstanceFilter filter : filters) {
+                filtered = filter.filter(serviceId, filtered);
+            }
+            return filtered;
+        });
+    }
+
+    @Override
+    public Publisher<List<String>> getServiceIds() {
+        return discoveryClient.getServiceIds();
+    }
+
+    @Override
+    public String getDescription() {
+        return discoveryClient.getDescription();
+    }
+
+    @Override
+    public void close() {
+        // the delegate is managed by the application context
+    }
+}
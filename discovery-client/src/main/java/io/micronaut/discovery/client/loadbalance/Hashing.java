@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.ServiceInstance;
+
+/**
+ * Hash functions shared by the discovery load balancers.
+ *
+ * @since 4.5.0
+ */
+@Internal
+final class Hashing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * Hashes a string with FNV-1a followed by the MurmurHash3 finalizer, which spreads the bits of similar keys.
+     *
+     * @param value The value
+     * @param seed  The seed, allowing independent hash functions over the same values
+     * @return The hash
+     */
+    static long hash(@NonNull CharSequence value, long seed) {
+        long hash = FNV_OFFSET_BASIS ^ seed;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Hashes a load balancer discriminator.
+     *
+     * @param discriminator The discriminator
+     * @return The hash
+     */
+    static long hash(@Nullable Object discriminator) {
+        if (discriminator instanceof Long || discriminator instanceof Integer || discriminator instanceof Short) {
+            return mix(((Number) discriminator).longValue());
+        } else if (discriminator instanceof CharSequence cs) {
+            return hash(cs, 0L);
+        }
+        return discriminator == null ? 0L : hash(discriminator.toString(), 0L);
+    }
+
+    /**
+     * The MurmurHash3 64-bit finalizer.
+     *
+     * @param value The value
+     * @return The mixed value
+     */
+    static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * @param hash    The hash
+     * @param buckets The number of buckets
+     * @return The bucket the hash falls into
+     */
+    static int bucket(long hash, int buckets) {
+        return (int) Long.remainderUnsigned(hash, buckets);
+    }
+
+    /**
+     * @param value The minimum value
+     * @return The smallest prime that is at least the given value and at least 2
+     */
+    static int nextPrime(int value) {
+        int candidate = Math.max(2, value);
+        while (!isPrime(candidate)) {
+            candidate++;
+        }
+        return candidate;
+    }
+
+    private static boolean isPrime(int value) {
+        if (value < 4) {
+            return value >= 2;
+        }
+        if ((value & 1) == 0) {
+            return false;
+        }
+        for (long divisor = 3; divisor * divisor <= value; divisor += 2) {
+            if (value % divisor == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the key identifying an instance across lookups.
+     *
+     * @param instance The instance
+     * @return The instance ID, or the URI when the instance has no ID
+     */
+    @NonNull
+    static String key(@NonNull ServiceInstance instance) {
+        return instance.getInstanceId().orElseGet(() -> instance.getURI().toString());
+    }
+}
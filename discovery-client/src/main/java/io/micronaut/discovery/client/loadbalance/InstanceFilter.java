@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.order.Ordered;
+import io.micronaut.discovery.ServiceInstance;
+
+import java.util.List;
+
+/**
+ * Narrows down the instances a discovery load balancer selects from, for example to the instances of the local zone.
+ * Filters are applied in order before the load balancing strategy of the service.
+ *
+ * @since 4.5.0
+ */
+public interface InstanceFilter extends Ordered {
+
+    /**
+     * Filters the instances of a service.
+     *
+     * @param serviceId The service ID
+     * @param instances The discovered instances
+     * @return The instances to select from
+     */
+    @NonNull
+    List<ServiceInstance> filter(@NonNull String serviceId, @NonNull List<ServiceInstance> instances);
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.filter.ClientFilterChain;
+import io.micronaut.http.filter.HttpClientFilter;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link HttpClientFilter} that reports the in-flight requests, response latency and failures of discovered
+ * instances to the {@link InstanceLoadTracker}.
+ *
+ * @since 4.5.0
+ */
+@Filter(Filter.MATCH_ALL_PATTERN)
+@Requires(beans = InstanceLoadTracker.class)
+public class InstanceLoadFilter implements HttpClientFilter {
+
+    private static final int SERVER_ERROR = 500;
+
+    private final InstanceLoadTracker tracker;
+
+    /**
+     * @param tracker The instance load tracker
+     */
+    public InstanceLoadFilter(InstanceLoadTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Publisher<? extends HttpResponse<?>> doFilter(MutableHttpRequest<?> request, ClientFilterChain chain) {
+        InstanceLoadTracker.InstanceLoad load = tracker.forUri(request.getUri());
+        if (load == null) {
+            return chain.proceed(request);
+        }
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean finished = new AtomicBoolean();
+            load.start();
+            return Flux.from(chain.proceed(request))
+                .doOnNext(response -> {
+                    if (finished.compareAndSet(false, true)) {
+                        load.finish(System.nanoTime() - start);
+                        if (response.code() >= SERVER_ERROR) {
+                            load.recordFailure();
+                        } else {
+                            load.recordSuccess();
+                        }
+                    }
+                })
+                .doOnError(throwable -> {
+                    if (throwable instanceof HttpClientResponseException e && e.getResponse().code() < SERVER_ERROR) {
+                        // the instance responded, so client errors do not count against it
+                        load.recordSuccess();
+                    } else {
+                        load.recordFailure();
+                    }
+                })
+                .doFinally(signal -> {
+                    if (finished.compareAndSet(false, true)) {
+                        load.finish(-1);
+                    }
+                });
+        });
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.ServiceInstance;
+import jakarta.inject.Singleton;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the in-flight requests and an exponentially weighted moving average of the response latency of every
+ * discovered instance, keyed by its stable instance ID. The counters are lock-free so that they can be updated on
+ * every request. The load of an instance is evicted once the instance is no longer discovered, so that the tracker does
+ * not grow as instances churn and a new instance reusing the address of a previous one starts from a clean state.
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = LoadBalancerConfiguration.class)
+public class InstanceLoadTracker {
+
+    /**
+     * The weight of a new latency sample in the moving average.
+     */
+    static final double LATENCY_ALPHA = 0.3;
+
+    private final Map<String, InstanceLoad> loads = new ConcurrentHashMap<>();
+    private final Map<String, InstanceLoad> loadsByAuthority = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> services = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Resolves the load of an instance, associating it with the address of the instance so that requests sent to
+     * that address are tracked.
+     *
+     * @param instance The instance
+     * @return The load
+     */
+    @NonNull
+    public InstanceLoad get(@NonNull ServiceInstance instance) {
+        InstanceLoad load = loads.computeIfAbsent(Hashing.key(instance), key -> new InstanceLoad());
+        String authority = authority(instance.getURI());
+        if (authority != null && loadsByAuthority.get(authority) != load) {
+            loadsByAuthority.put(authority, load);
+        }
+        return load;
+    }
+
+    /**
+     * @param uri The URI of a request
+     * @return The load of the instance the request is sent to, if it is tracked
+     */
+    @Nullable
+    public InstanceLoad forUri(@NonNull URI uri) {
+        String authority = authority(uri);
+        return authority != null ? loadsByAuthority.get(authority) : null;
+    }
+
+    /**
+     * Records the instances currently discovered for a service, evicting the load of instances that are no longer
+     * discovered for any service. Unchanged instance sets are detected without allocating.
+     *
+     * @param serviceId The service ID
+     * @param instances All discovered instances of the service, before any filtering
+     */
+    public void retain(@NonNull String serviceId, @NonNull List<ServiceInstance> instances) {
+        Set<String> previous = services.get(serviceId);
+        if (previous != null && previous.size() == instances.size() && containsAll(previous, instances)) {
+            return;
+        }
+        Set<String> current = new HashSet<>(instances.size() * 4 / 3 + 1);
+        for (ServiceInstance instance : instances) {
+            current.add(Hashing.key(instance));
+        }
+        services.put(serviceId, current);
+        if (previous == null) {
+            return;
+        }
+        boolean evicted = false;
+        for (String key : previous) {
+            if (!current.contains(key) && !isDiscovered(key)) {
+                InstanceLoad load = loads.remove(key);
+                if (load != null) {
+                    loadsByAuthority.values().removeIf(value -> value == load);
+                    evicted = true;
+                }
+            }
+        }
+        if (evicted) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param key The key of an instance
+     * @return Whether the load of the instance is tracked
+     */
+    boolean isTracked(@NonNull String key) {
+        return loads.containsKey(key);
+    }
+
+    /**
+     * @return The number of times the load of instances that are no longer discovered was evicted
+     */
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    private boolean isDiscovered(String key) {
+        for (Set<String> keys : services.values()) {
+            if (keys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAll(Set<String> keys, List<ServiceInstance> instances) {
+        for (int i = 0; i < instances.size(); i++) {
+            if (!keys.contains(Hashing.key(instances.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private static String authority(URI uri) {
+        String host = uri.getHost();
+        if (host == null) {
+            return null;
+        }
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return host + ':' + port;
+    }
+
+    /**
+     * The load of a single instance.
+     */
+    public static final class InstanceLoad {
+
+        private final LongAdder inFlight = new LongAdder();
+        private final AtomicLong latency = new AtomicLong(Double.doubleToRawLongBits(0));
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        /**
+         * @return The number of requests currently in flight
+         */
+        public long getInFlight() {
+            return inFlight.sum();
+        }
+
+        /**
+         * @return The moving average of the response latency in nanoseconds, or {@code 0} if no response was received yet
+         */
+        public double getLatency() {
+            return Double.longBitsToDouble(latency.get());
+        }
+
+        /**
+         * @return The number of requests that failed since the last successful request
+         */
+        public int getConsecutiveFailures() {
+            return consecutiveFailures.get();
+        }
+
+        /**
+         * Records a successful request.
+         */
+        public void recordSuccess() {
+            if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+        }
+
+        /**
+         * Records a request that failed because of the instance, such as a connection error or a server error.
+         */
+        public void recordFailure() {
+            consecutiveFailures.incrementAndGet();
+        }
+
+        /**
+         * Records the start of a request.
+         */
+        public void start() {
+            inFlight.increment();
+        }
+
+        /**
+         * Records the end of a request.
+         *
+         * @param latencyNanos The latency of the response, or a negative value if the request failed
+         */
+        public void finish(long latencyNanos) {
+            inFlight.decrement();
+            if (latencyNanos >= 0) {
+                long current;
+                long next;
+                do {
+                    current = latency.get();
+                    double average = Double.longBitsToDouble(current);
+                    double updated = average == 0 ? latencyNanos : average + LATENCY_ALPHA * (latencyNanos - average);
+                    next = Double.doubleToRawLongBits(updated);
+                } while (!latency.compareAndSet(current, next));
+            }
+        }
+    }
+}
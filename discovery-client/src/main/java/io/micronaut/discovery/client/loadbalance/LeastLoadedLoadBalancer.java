@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.discovery.DiscoveryClient;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.exceptions.NoAvailableServiceException;
+import io.micronaut.http.client.LoadBalancer;
+import org.reactivestreams.Publisher;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>A {@link LoadBalancer} that picks two instances at random and selects the less loaded one (power of two
+ * choices), using the load recorded by the {@link InstanceLoadTracker}.</p>
+ *
+ * <p>The load of an instance is its number of in-flight requests plus one, multiplied by the moving average of its
+ * response latency. While either candidate has not responded yet, only the in-flight requests are compared.</p>
+ *
+ * @since 4.5.0
+ */
+public class LeastLoadedLoadBalancer implements LoadBalancer {
+
+    private final String serviceId;
+    private final DiscoveryClient discoveryClient;
+    private final InstanceLoadTracker tracker;
+
+    /**
+     * @param serviceId       The service ID
+     * @param discoveryClient The discovery client
+     * @param tracker         The instance load tracker
+     */
+    public LeastLoadedLoadBalancer(@NonNull String serviceId,
+                                   @NonNull DiscoveryClient discoveryClient,
+                                   @NonNull InstanceLoadTracker tracker) {
+        this.serviceId = serviceId;
+        this.discoveryClient = discoveryClient;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Publisher<ServiceInstance> select(@Nullable Object discriminator) {
+        return Publishers.map(discoveryClient.getInstances(serviceId), this::select);
+    }
+
+    /**
+     * Selects an instance from the given instances.
+     *
+     * @param instances The current instances
+     * @return The selected instance
+     */
+    @NonNull
+    ServiceInstance select(@NonNull List<ServiceInstance> instances) {
+        int size = instances.size();
+        if (size == 0) {
+            throw new NoAvailableServiceException(serviceId);
+        }
+        if (size == 1) {
+            ServiceInstance instance = instances.get(0);
+            tracker.get(instance);
+            return instance;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return compare(tracker.get(a), tracker.get(b)) <= 0 ? a : b;
+    }
+
+    private static int compare(InstanceLoadTracker.InstanceLoad a, InstanceLoadTracker.InstanceLoad b) {
+        double latencyA = a.getLatency();
+        double latencyB = b.getLatency();
+        long inFlightA = a.getInFlight() + 1;
+        long inFlightB = b.getInFlight() + 1;
+        if (latencyA == 0 || latencyB == 0) {
+            return Long.compare(inFlightA, inFlightB);
+        }
+        return Double.compare(inFlightA * latencyA, inFlightB * latencyB);
+    }
+}
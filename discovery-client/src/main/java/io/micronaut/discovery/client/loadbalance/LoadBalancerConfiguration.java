@@ -0,0 +1,519 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.naming.NameUtils;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.core.util.Toggleable;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Configuration for the load balancers created for discovered services.
+ *
+ * @since 4.5.0
+ */
+@ConfigurationProperties(LoadBalancerConfiguration.PREFIX)
+@Requires(property = LoadBalancerConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class LoadBalancerConfiguration implements Toggleable {
+
+    /**
+     * The prefix to use for all load balancer settings.
+     */
+    public static final String PREFIX = "discovery-client.load-balancer";
+
+    /**
+     * The default size of consistent hash lookup tables. Must be prime.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_TABLE_SIZE = 65537;
+
+    /**
+     * The default slow start window in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_SLOW_START_SECONDS = 30;
+
+    /**
+     * The default factor applied to the weight of instances in warning state.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final double DEFAULT_WARNING_FACTOR = 0.5;
+
+    private boolean enabled;
+    private Strategy strategy = Strategy.ROUND_ROBIN;
+    private Map<String, String> strategies = Collections.emptyMap();
+    private int tableSize = DEFAULT_TABLE_SIZE;
+    private Duration slowStart = Duration.ofSeconds(DEFAULT_SLOW_START_SECONDS);
+    private double warningFactor = DEFAULT_WARNING_FACTOR;
+
+    /**
+     * @return Whether the discovery load balancers are enabled
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Default value (false).
+     * @param enabled Whether the discovery load balancers are enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The strategy used for services without a specific strategy
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Default value (round-robin).
+     * @param strategy The strategy used for services without a specific strategy
+     */
+    public void setStrategy(Strategy strategy) {
+        if (strategy != null) {
+            this.strategy = strategy;
+        }
+    }
+
+    /**
+     * A map of service ID to load balancing strategy.
+     *
+     * @return The strategies
+     */
+    public Map<String, String> getStrategies() {
+        return strategies;
+    }
+
+    /**
+     * @param strategies The service ID to load balancing strategy
+     */
+    public void setStrategies(Map<String, String> strategies) {
+        if (strategies != null) {
+            this.strategies = strategies;
+        }
+    }
+
+    /**
+     * @return The number of entries in consistent hash lookup tables
+     */
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_TABLE_SIZE}). A size considerably larger than the number of instances
+     * keeps the distribution of keys even. Sizes that are not prime are rounded up to the next prime.
+     * @param tableSize The number of entries in consistent hash lookup tables
+     */
+    public void setTableSize(int tableSize) {
+        if (tableSize > 0) {
+            this.tableSize = Hashing.nextPrime(tableSize);
+        }
+    }
+
+    /**
+     * @return The window over which the weight of newly discovered instances ramps up to their full weight
+     */
+    public Duration getSlowStart() {
+        return slowStart;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_SLOW_START_SECONDS} seconds). A zero duration disables slow start.
+     * @param slowStart The window over which the weight of newly discovered instances ramps up to their full weight
+     */
+    public void setSlowStart(Duration slowStart) {
+        if (slowStart != null && !slowStart.isNegative()) {
+            this.slowStart = slowStart;
+        }
+    }
+
+    /**
+     * @return The factor applied to the passing weight of instances with a check in warning state and no warning weight
+     */
+    public double getWarningFactor() {
+        return warningFactor;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_WARNING_FACTOR}).
+     * @param warningFactor The factor applied to the passing weight of instances with a check in warning state and no warning weight
+     */
+    public void setWarningFactor(double warningFactor) {
+        if (warningFactor >= 0 && warningFactor <= 1) {
+            this.warningFactor = warningFactor;
+        }
+    }
+
+    /**
+     * Resolves the strategy of the given service.
+     *
+     * @param serviceId The service ID
+     * @return The strategy
+     */
+    @NonNull
+    public Strategy getStrategy(@NonNull String serviceId) {
+        String value = strategies.get(NameUtils.hyphenate(serviceId));
+        if (value == null) {
+            value = strategies.get(serviceId);
+        }
+        if (StringUtils.isEmpty(value)) {
+            return strategy;
+        }
+        return Strategy.valueOf(NameUtils.environmentName(value).toUpperCase(Locale.ENGLISH));
+    }
+
+    @Override
+    public String toString() {
+        return "LoadBalancerConfiguration{" +
+            "enabled=" + enabled +
+            ", strategy=" + strategy +
+            ", strategies=" + strategies +
+            ", tableSize=" + tableSize +
+            ", slowStart=" + slowStart +
+            ", warningFactor=" + warningFactor +
+            '}';
+    }
+
+    /**
+     * Configuration for routing requests to instances in the same zone as the client.
+     */
+    @ConfigurationProperties(ZoneAffinityConfiguration.PREFIX)
+    public static class ZoneAffinityConfiguration implements Toggleable {
+
+        /**
+         * The prefix to use for zone affinity settings, relative to the load balancer prefix.
+         */
+        public static final String PREFIX = "zone-affinity";
+
+        /**
+         * The default minimum capacity of the local zone.
+         */
+        @SuppressWarnings("WeakerAccess")
+        public static final double DEFAULT_MIN_CAPACITY = 0.7;
+
+        private boolean enabled;
+        private String zone;
+        private double minCapacity = DEFAULT_MIN_CAPACITY;
+
+        /**
+         * @return Whether zone affinity is enabled
+         */
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Default value (false).
+         * @param enabled Whether zone affinity is enabled
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return The zone of the client. Defaults to the zone of the application instance.
+         */
+        public Optional<String> getZone() {
+            return Optional.ofNullable(zone);
+        }
+
+        /**
+         * @param zone The zone of the client
+         */
+        public void setZone(String zone) {
+            this.zone = zone;
+        }
+
+        /**
+         * @return The healthy capacity the local zone needs, relative to an even share of all healthy instances,
+         * for requests to stay in the zone
+         */
+        public double getMinCapacity() {
+            return minCapacity;
+        }
+
+        /**
+         * Default value ({@value #DEFAULT_MIN_CAPACITY}). Requests spill over to all zones once the healthy instances
+         * of the local zone fall below this fraction of an even share of the healthy instances across all zones.
+         * @param minCapacity The healthy capacity the local zone needs for requests to stay in the zone
+         */
+        public void setMinCapacity(double minCapacity) {
+            if (minCapacity >= 0) {
+                this.minCapacity = minCapacity;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ZoneAffinityConfiguration{" +
+                "enabled=" + enabled +
+                ", zone='" + zone + '\'' +
+                ", minCapacity=" + minCapacity +
+                '}';
+        }
+    }
+
+    /**
+     * Configuration for restricting each client to a deterministic subset of the instances of a service.
+     */
+    @ConfigurationProperties(SubsettingConfiguration.PREFIX)
+    public static class SubsettingConfiguration implements Toggleable {
+
+        /**
+         * The prefix to use for subsetting settings, relative to the load balancer prefix.
+         */
+        public static final String PREFIX = "subsetting";
+
+        /**
+         * The default subset size.
+         */
+        @SuppressWarnings("WeakerAccess")
+        public static final int DEFAULT_SUBSET_SIZE = 20;
+
+        private boolean enabled;
+        private int subsetSize = DEFAULT_SUBSET_SIZE;
+        private String clientId;
+
+        /**
+         * @return Whether subsetting is enabled
+         */
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Default value (false).
+         * @param enabled Whether subsetting is enabled
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return The maximum number of instances of a service each client selects from
+         */
+        public int getSubsetSize() {
+            return subsetSize;
+        }
+
+        /**
+         * Default value ({@value #DEFAULT_SUBSET_SIZE}).
+         * @param subsetSize The maximum number of instances of a service each client selects from
+         */
+        public void setSubsetSize(int subsetSize) {
+            if (subsetSize > 0) {
+                this.subsetSize = subsetSize;
+            }
+        }
+
+        /**
+         * @return The ID the subset of the client is derived from. Defaults to the ID of the application instance.
+         */
+        public Optional<String> getClientId() {
+            return Optional.ofNullable(clientId);
+        }
+
+        /**
+         * @param clientId The ID the subset of the client is derived from
+         */
+        public void setClientId(String clientId) {
+            this.clientId = clientId;
+        }
+
+        @Override
+        public String toString() {
+            return "SubsettingConfiguration{" +
+                "enabled=" + enabled +
+                ", subsetSize=" + subsetSize +
+                ", clientId='" + clientId + '\'' +
+                '}';
+        }
+    }
+
+    /**
+     * Configuration for temporarily ejecting instances whose requests keep failing.
+     */
+    @ConfigurationProperties(OutlierDetectionConfiguration.PREFIX)
+    public static class OutlierDetectionConfiguration implements Toggleable {
+
+        /**
+         * The prefix to use for outlier detection settings, relative to the load balancer prefix.
+         */
+        public static final String PREFIX = "outlier-detection";
+
+        /**
+         * The default number of consecutive failures.
+         */
+        @SuppressWarnings("WeakerAccess")
+        public static final int DEFAULT_CONSECUTIVE_FAILURES = 5;
+
+        /**
+         * The default base ejection time in seconds.
+         */
+        @SuppressWarnings("WeakerAccess")
+        public static final int DEFAULT_BASE_EJECTION_TIME_SECONDS = 30;
+
+        /**
+         * The default maximum ejection time in seconds.
+         */
+        @SuppressWarnings("WeakerAccess")
+        public static final int DEFAULT_MAX_EJECTION_TIME_SECONDS = 300;
+
+        /**
+         * The default maximum percentage of ejected instances.
+         */
+        @SuppressWarnings("WeakerAccess")
+        public static final int DEFAULT_MAX_EJECTION_PERCENT = 50;
+
+        private boolean enabled;
+        private int consecutiveFailures = DEFAULT_CONSECUTIVE_FAILURES;
+        private Duration baseEjectionTime = Duration.ofSeconds(DEFAULT_BASE_EJECTION_TIME_SECONDS);
+        private Duration maxEjectionTime = Duration.ofSeconds(DEFAULT_MAX_EJECTION_TIME_SECONDS);
+        private int maxEjectionPercent = DEFAULT_MAX_EJECTION_PERCENT;
+
+        /**
+         * @return Whether outlier detection is enabled
+         */
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Default value (false).
+         * @param enabled Whether outlier detection is enabled
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return The number of consecutive failed requests after which an instance is ejected
+         */
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        /**
+         * Default value ({@value #DEFAULT_CONSECUTIVE_FAILURES}).
+         * @param consecutiveFailures The number of consecutive failed requests after which an instance is ejected
+         */
+        public void setConsecutiveFailures(int consecutiveFailures) {
+            if (consecutiveFailures > 0) {
+                this.consecutiveFailures = consecutiveFailures;
+            }
+        }
+
+        /**
+         * @return The duration of the first ejection of an instance, which doubles with every further ejection
+         */
+        public Duration getBaseEjectionTime() {
+            return baseEjectionTime;
+        }
+
+        /**
+         * Default value ({@value #DEFAULT_BASE_EJECTION_TIME_SECONDS} seconds).
+         * @param baseEjectionTime The duration of the first ejection of an instance
+         */
+        public void setBaseEjectionTime(Duration baseEjectionTime) {
+            if (baseEjectionTime != null) {
+                this.baseEjectionTime = baseEjectionTime;
+            }
+        }
+
+        /**
+         * @return The maximum duration of an ejection
+         */
+        public Duration getMaxEjectionTime() {
+            return maxEjectionTime;
+        }
+
+        /**
+         * Default value ({@value #DEFAULT_MAX_EJECTION_TIME_SECONDS} seconds).
+         * @param maxEjectionTime The maximum duration of an ejection
+         */
+        public void setMaxEjectionTime(Duration maxEjectionTime) {
+            if (maxEjectionTime != null) {
+                this.maxEjectionTime = maxEjectionTime;
+            }
+        }
+
+        /**
+         * @return The maximum percentage of the instances of a service that can be ejected at the same time
+         */
+        public int getMaxEjectionPercent() {
+            return maxEjectionPercent;
+        }
+
+        /**
+         * Default value ({@value #DEFAULT_MAX_EJECTION_PERCENT}).
+         * @param maxEjectionPercent The maximum percentage of the instances of a service that can be ejected at the same time
+         */
+        public void setMaxEjectionPercent(int maxEjectionPercent) {
+            if (maxEjectionPercent >= 0 && maxEjectionPercent <= 100) {
+                this.maxEjectionPercent = maxEjectionPercent;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "OutlierDetectionConfiguration{" +
+                "enabled=" + enabled +
+                ", consecutiveFailures=" + consecutiveFailures +
+                ", baseEjectionTime=" + baseEjectionTime +
+                ", maxEjectionTime=" + maxEjectionTime +
+                ", maxEjectionPercent=" + maxEjectionPercent +
+                '}';
+        }
+    }
+
+    /**
+     * The load balancing strategies.
+     */
+    public enum Strategy {
+        /**
+         * Selects instances in turn.
+         */
+        ROUND_ROBIN,
+        /**
+         * Selects the instance a consistent hash of the discriminator maps to.
+         */
+        CONSISTENT_HASH,
+        /**
+         * Selects instances in proportion to their weight, ramping newly discovered instances up over the slow start window.
+         */
+        WEIGHTED,
+        /**
+         * Selects the less loaded of two random instances, based on in-flight requests and response latency.
+         */
+        LEAST_LOADED
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.ServiceInstance;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>An {@link InstanceFilter} that passively detects failing instances from the outcome of the requests recorded by
+ * the {@link InstanceLoadTracker} and temporarily removes them from the instances the load balancers select from,
+ * without waiting for the next health check of the discovery server.</p>
+ *
+ * <p>An instance is ejected once its requests failed the configured number of times in a row. The ejection time
+ * doubles with every further ejection up to the configured maximum, and is halved again for every ejection time that
+ * passes without the instance being ejected. No more than the configured percentage of the instances of a service is
+ * ejected at the same time.</p>
+ *
+ * <p>Ejection only applies to load balancing: the instances returned by {@link io.micronaut.discovery.DiscoveryClient}
+ * beans, and cached by them, still include ejected instances.</p>
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = LoadBalancerConfiguration.class)
+@Requires(property = LoadBalancerConfiguration.PREFIX + "." + LoadBalancerConfiguration.OutlierDetectionConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class OutlierDetector implements InstanceFilter {
+
+    /**
+     * The order of the filter, before zone affinity and subsetting so that they only consider available instances.
+     */
+    public static final int ORDER = ZoneAffinityFilter.ORDER - 100;
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutlierDetector.class);
+
+    private final InstanceLoadTracker tracker;
+    private final int consecutiveFailures;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final int maxEjectionPercent;
+    private final LongSupplier clock;
+    private final Map<String, Ejection> ejections = new ConcurrentHashMap<>();
+    private volatile long trackerEvictions;
+
+    /**
+     * @param tracker       The instance load tracker
+     * @param configuration The outlier detection configuration
+     */
+    public OutlierDetector(InstanceLoadTracker tracker, LoadBalancerConfiguration.OutlierDetectionConfiguration configuration) {
+        this(tracker,
+            configuration.getConsecutiveFailures(),
+            configuration.getBaseEjectionTime(),
+            configuration.getMaxEjectionTime(),
+            configuration.getMaxEjectionPercent(),
+            System::nanoTime);
+    }
+
+    /**
+     * @param tracker             The instance load tracker
+     * @param consecutiveFailures The number of consecutive failures after which an instance is ejected
+     * @param baseEjectionTime    The duration of the first ejection
+     * @param maxEjectionTime     The maximum duration of an ejection
+     * @param maxEjectionPercent  The maximum percentage of ejected instances
+     * @param clock               The nano time source
+     */
+    OutlierDetector(InstanceLoadTracker tracker,
+                    int consecutiveFailures,
+                    Duration baseEjectionTime,
+                    Duration maxEjectionTime,
+                    int maxEjectionPercent,
+                    LongSupplier clock) {
+        this.tracker = tracker;
+        this.consecutiveFailures = consecutiveFailures;
+        this.baseEjectionNanos = Math.max(1, baseEjectionTime.toNanos());
+        this.maxEjectionNanos = Math.max(baseEjectionNanos, maxEjectionTime.toNanos());
+        this.maxEjectionPercent = maxEjectionPercent;
+        this.clock = clock;
+    }
+
+    @Override
+    public List<ServiceInstance> filter(String serviceId, List<ServiceInstance> instances) {
+        pruneEjections();
+        long now = clock.getAsLong();
+        List<ServiceInstance> available = null;
+        int maxEjected = instances.size() * maxEjectionPercent / 100;
+        int ejected = 0;
+        for (int i = 0; i < instances.size(); i++) {
+            ServiceInstance instance = instances.get(i);
+            if (isEjected(instance, now, ejected < maxEjected)) {
+                ejected++;
+                if (available == null) {
+                    available = new ArrayList<>(instances.subList(0, i));
+                }
+            } else if (available != null) {
+                available.add(instance);
+            }
+        }
+        return available != null ? available : instances;
+    }
+
+    /**
+     * @param instance The instance
+     * @return Whether the instance is currently ejected
+     */
+    public boolean isEjected(ServiceInstance instance) {
+        Ejection ejection = ejections.get(Hashing.key(instance));
+        return ejection != null && ejection.isActive(clock.getAsLong());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * Drops the ejection state of instances whose load the tracker evicted because they are no longer discovered.
+     */
+    private void pruneEjections() {
+        long evictions = tracker.getEvictions();
+        if (evictions != trackerEvictions) {
+            trackerEvictions = evictions;
+            ejections.keySet().removeIf(key -> !tracker.isTracked(key));
+        }
+    }
+
+    private boolean isEjected(ServiceInstance instance, long now, boolean canEject) {
+        String key = Hashing.key(instance);
+        Ejection ejection = ejections.get(key);
+        if (ejection != null && ejection.isActive(now)) {
+            return canEject;
+        }
+        InstanceLoadTracker.InstanceLoad load = tracker.get(instance);
+        if (load.getConsecutiveFailures() < consecutiveFailures || !canEject) {
+            return false;
+        }
+        ejection = ejections.computeIfAbsent(key, k -> new Ejection(now));
+        long duration = ejection.eject(now, baseEjectionNanos, maxEjectionNanos);
+        if (duration > 0) {
+            load.recordSuccess();
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Ejecting instance [{}] of service [{}] for {}ms after {} consecutive failures", key, instance.getId(), Duration.ofNanos(duration).toMillis(), consecutiveFailures);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The ejection state of an instance.
+     */
+    private static final class Ejection {
+
+        private volatile long ejectedUntil;
+        private int multiplier;
+
+        Ejection(long now) {
+            this.ejectedUntil = now;
+        }
+
+        boolean isActive(long now) {
+            return now - ejectedUntil < 0;
+        }
+
+        /**
+         * @return The ejection duration, or {@code 0} if another thread ejected the instance concurrently
+         */
+        synchronized long eject(long now, long baseNanos, long maxNanos) {
+            if (isActive(now)) {
+                return 0;
+            }
+            if (multiplier > 0) {
+                // halve the ejection time for every base ejection time that passed since the last ejection ended
+                long quiet = (now - ejectedUntil) / baseNanos;
+                multiplier = quiet >= Integer.SIZE ? 0 : multiplier >>> (int) quiet;
+            }
+            if (multiplier == 0) {
+                multiplier = 1;
+            } else if (baseNanos * multiplier < maxNanos) {
+                multiplier <<= 1;
+            }
+            long duration = Math.min(maxNanos, baseNanos * multiplier);
+            ejectedUntil = now + duration;
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.runtime.ApplicationConfiguration;
+import jakarta.inject.Singleton;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>An {@link InstanceFilter} that restricts each client to a deterministic subset of the instances of a service,
+ * bounding the number of connections every client opens and every instance accepts.</p>
+ *
+ * <p>The subset is chosen with rendezvous hashing: every instance is scored with a hash of its instance ID seeded by
+ * the ID of the client, and the instances with the highest scores form the subset. The subset of a client therefore
+ * stays the same across lookups, instances are spread evenly over clients, and a change to the fleet only replaces
+ * the instances that were added or removed.</p>
+ *
+ * <p>The subset of a service is memoized for the instance list it was selected from, and held only as long as that
+ * list is: once the discovery client no longer references the list, for example because the service is no longer
+ * watched, the memoized subset is evicted on the next selection.</p>
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = LoadBalancerConfiguration.class)
+@Requires(property = LoadBalancerConfiguration.PREFIX + "." + LoadBalancerConfiguration.SubsettingConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class SubsettingFilter implements InstanceFilter {
+
+    /**
+     * The order of the filter, after zone affinity so that the subset is taken from the preferred zone.
+     */
+    public static final int ORDER = ZoneAffinityFilter.ORDER + 100;
+
+    private final long clientSeed;
+    private final int subsetSize;
+    private final Map<String, Subset> subsets = new ConcurrentHashMap<>();
+    private final ReferenceQueue<List<ServiceInstance>> collected = new ReferenceQueue<>();
+
+    /**
+     * @param configuration            The subsetting configuration
+     * @param applicationConfiguration The application configuration
+     */
+    public SubsettingFilter(LoadBalancerConfiguration.SubsettingConfiguration configuration,
+                            ApplicationConfiguration applicationConfiguration) {
+        this(configuration.getClientId()
+                .or(() -> applicationConfiguration.getInstance().getId())
+                .orElseGet(() -> UUID.randomUUID().toString()),
+            configuration.getSubsetSize());
+    }
+
+    /**
+     * @param clientId   The ID of the client
+     * @param subsetSize The subset size
+     */
+    SubsettingFilter(@NonNull String clientId, int subsetSize) {
+        this.clientSeed = Hashing.hash(clientId, 0L);
+        this.subsetSize = subsetSize;
+    }
+
+    @Override
+    public List<ServiceInstance> filter(String serviceId, List<ServiceInstance> instances) {
+        evictCollected();
+        if (instances.size() <= subsetSize) {
+            subsets.remove(serviceId);
+            return instances;
+        }
+        Subset subset = subsets.get(serviceId);
+        if (subset != null && subset.get() == instances) {
+            return subset.instances;
+        }
+        // keep the highest scores in a min-heap of the subset size
+        PriorityQueue<Scored> top = new PriorityQueue<>(subsetSize + 1);
+        for (ServiceInstance instance : instances) {
+            long score = Hashing.hash(Hashing.key(instance), clientSeed);
+            if (top.size() < subsetSize) {
+                top.add(new Scored(score, instance));
+            } else if (Long.compareUnsigned(score, top.peek().score) > 0) {
+                top.poll();
+                top.add(new Scored(score, instance));
+            }
+        }
+        List<ServiceInstance> selected = new ArrayList<>(top.size());
+        for (Scored scored : top) {
+            selected.add(scored.instance);
+        }
+        subsets.put(serviceId, new Subset(serviceId, instances, selected, collected));
+        return selected;
+    }
+
+    /**
+     * @return The number of memoized subsets
+     */
+    int getSubsetCount() {
+        return subsets.size();
+    }
+
+    private void evictCollected() {
+        Reference<? extends List<ServiceInstance>> reference;
+        while ((reference = collected.poll()) != null) {
+            Subset subset = (Subset) reference;
+            subsets.remove(subset.serviceId, subset);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * An instance and its rendezvous score.
+     *
+     * @param score    The score
+     * @param instance The instance
+     */
+    private record Scored(long score, ServiceInstance instance) implements Comparable<Scored> {
+        @Override
+        public int compareTo(Scored other) {
+            return Long.compareUnsigned(score, other.score);
+        }
+    }
+
+    /**
+     * The subset selected from an instance list, which is referenced weakly.
+     */
+    private static final class Subset extends WeakReference<List<ServiceInstance>> {
+
+        final String serviceId;
+        final List<ServiceInstance> instances;
+
+        /**
+         * @param serviceId The service ID
+         * @param source    The instance list
+         * @param instances The subset
+         * @param queue     The queue the subset is enqueued on once the instance list is collected
+         */
+        Subset(String serviceId, List<ServiceInstance> source, List<ServiceInstance> instances, ReferenceQueue<List<ServiceInstance>> queue) {
+            super(source, queue);
+            this.serviceId = serviceId;
+            this.instances = instances;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.discovery.DiscoveryClient;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.consul.ConsulServiceInstance;
+import io.micronaut.discovery.consul.client.v1.ConsulWeights;
+import io.micronaut.discovery.exceptions.NoAvailableServiceException;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.http.client.LoadBalancer;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>A {@link LoadBalancer} that selects instances at random in proportion to their weight.</p>
+ *
+ * <p>The weight of a {@link ConsulServiceInstance} is its Consul passing or warning weight. An instance in warning state
+ * without a warning weight uses its passing weight multiplied by the configured warning factor instead. Other instances
+ * use the {@value #WEIGHT_METADATA} metadata entry, defaulting to {@code 1}. Instances that are down are only selected when no other instance is available.</p>
+ *
+ * <p>Instances that appear after the first lookup start with a tenth of their weight, which ramps up linearly to the
+ * full weight over the slow start window, giving a freshly started JVM time to warm up.</p>
+ *
+ * @since 4.5.0
+ */
+public class WeightedLoadBalancer implements LoadBalancer {
+
+    /**
+     * The metadata entry holding the weight of instances that do not come from Consul.
+     */
+    public static final String WEIGHT_METADATA = "weight";
+
+    private static final double MIN_RAMP = 0.1;
+
+    private final String serviceId;
+    private final DiscoveryClient discoveryClient;
+    private final long slowStartNanos;
+    private final double warningFactor;
+    private final LongSupplier clock;
+    private final Map<String, Long> firstSeen = new ConcurrentHashMap<>();
+    private volatile boolean initialized;
+    private volatile Weights weights;
+
+    /**
+     * @param serviceId       The service ID
+     * @param discoveryClient The discovery client
+     * @param slowStart       The slow start window
+     * @param warningFactor   The factor applied to the weight of instances in warning state
+     */
+    public WeightedLoadBalancer(@NonNull String serviceId,
+                                @NonNull DiscoveryClient discoveryClient,
+                                @NonNull Duration slowStart,
+                                double warningFactor) {
+        this(serviceId, discoveryClient, slowStart, warningFactor, System::nanoTime);
+    }
+
+    /**
+     * @param serviceId       The service ID
+     * @param discoveryClient The discovery client
+     * @param slowStart       The slow start window
+     * @param warningFactor   The factor applied to the weight of instances in warning state
+     * @param clock           The nano time source
+     */
+    WeightedLoadBalancer(String serviceId, DiscoveryClient discoveryClient, Duration slowStart, double warningFactor, LongSupplier clock) {
+        this.serviceId = serviceId;
+        this.discoveryClient = discoveryClient;
+        this.slowStartNanos = slowStart.toNanos();
+        this.warningFactor = warningFactor;
+        this.clock = clock;
+    }
+
+    @Override
+    public Publisher<ServiceInstance> select(@Nullable Object discriminator) {
+        return Publishers.map(discoveryClient.getInstances(serviceId), this::select);
+    }
+
+    /**
+     * Selects an instance from the given instances.
+     *
+     * @param instances The current instances
+     * @return The selected instance
+     */
+    @NonNull
+    ServiceInstance select(@NonNull List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            throw new NoAvailableServiceException(serviceId);
+        }
+        Weights current = weights(instances);
+        double[] cumulative = current.cumulative;
+        double total = cumulative[cumulative.length - 1];
+        if (total <= 0) {
+            return instances.get(ThreadLocalRandom.current().nextInt(instances.size()));
+        }
+        double point = ThreadLocalRandom.current().nextDouble(total);
+        // find the first instance whose running total exceeds the point, which never selects a zero weight
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] > point) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return instances.get(low);
+    }
+
+    /**
+     * Computes the effective weight of an instance.
+     *
+     * @param instance The instance
+     * @param now      The current nano time
+     * @return The weight
+     */
+    double weight(@NonNull ServiceInstance instance, long now) {
+        if (HealthStatus.NAME_DOWN.equals(instance.getHealthStatus().getName())) {
+            return 0;
+        }
+        double weight;
+        if (instance instanceof ConsulServiceInstance consulInstance) {
+            ConsulWeights consulWeights = consulInstance.getWeights().orElse(null);
+            Integer passing = consulWeights != null ? consulWeights.passing() : null;
+            if (consulInstance.isWarning()) {
+                Integer warning = consulWeights != null ? consulWeights.warning() : null;
+                // the warning weight is already Consul's penalised weight, so the factor only stands in for it
+                weight = warning != null ? warning : (passing != null ? passing : 1) * warningFactor;
+            } else {
+                weight = passing != null ? passing : 1;
+            }
+        } else {
+            weight = instance.getMetadata().get(WEIGHT_METADATA, Double.class).orElse(1.0);
+        }
+        return Math.max(0, weight) * ramp(Hashing.key(instance), now);
+    }
+
+    private double ramp(String key, long now) {
+        if (slowStartNanos <= 0) {
+            return 1;
+        }
+        Long seen = firstSeen.get(key);
+        if (seen == null) {
+            return 1;
+        }
+        long elapsed = now - seen;
+        if (elapsed >= slowStartNanos) {
+            return 1;
+        }
+        return Math.max(MIN_RAMP, (double) elapsed / slowStartNanos);
+    }
+
+    private Weights weights(List<ServiceInstance> instances) {
+        long now = clock.getAsLong();
+        Weights current = weights;
+        if (current != null && current.source == instances && now - current.rampingUntil >= 0) {
+            return current;
+        }
+        Set<String> keys = new HashSet<>(instances.size() * 4 / 3 + 1);
+        for (ServiceInstance instance : instances) {
+            String key = Hashing.key(instance);
+            keys.add(key);
+            // instances present in the first lookup are established and are not ramped up
+            firstSeen.putIfAbsent(key, initialized ? now : now - slowStartNanos);
+        }
+        initialized = true;
+        firstSeen.keySet().retainAll(keys);
+        double[] cumulative = new double[instances.size()];
+        double total = 0;
+        long rampingUntil = now;
+        for (int i = 0; i < cumulative.length; i++) {
+            ServiceInstance instance = instances.get(i);
+            total += weight(instance, now);
+            cumulative[i] = total;
+            Long seen = firstSeen.get(Hashing.key(instance));
+            if (seen != null && seen + slowStartNanos - rampingUntil > 0) {
+                rampingUntil = seen + slowStartNanos;
+            }
+        }
+        Weights computed = new Weights(instances, cumulative, rampingUntil);
+        weights = computed;
+        return computed;
+    }
+
+    /**
+     * The cumulative weights computed for an instance list.
+     *
+     * @param source       The instance list
+     * @param cumulative   The running total of the weights
+     * @param rampingUntil The nano time until which weights change due to slow start
+     */
+    private record Weights(List<ServiceInstance> source, double[] cumulative, long rampingUntil) {
+    }
+}
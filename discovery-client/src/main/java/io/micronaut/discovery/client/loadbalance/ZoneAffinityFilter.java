@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.runtime.ApplicationConfiguration;
+import jakarta.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An {@link InstanceFilter} that keeps requests within the zone of the client, such as an AWS availability zone
+ * reported by Eureka, to reduce cross-zone latency and data transfer. Requests spill over to all zones when the
+ * healthy capacity of the local zone falls below the configured minimum. The capacity is measured against the healthy
+ * instances that report a zone, so instances without a zone and zones whose instances are all down do not count.
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = LoadBalancerConfiguration.class)
+@Requires(property = LoadBalancerConfiguration.PREFIX + "." + LoadBalancerConfiguration.ZoneAffinityConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class ZoneAffinityFilter implements InstanceFilter {
+
+    /**
+     * The order of the filter.
+     */
+    public static final int ORDER = 100;
+
+    private final String localZone;
+    private final double minCapacity;
+
+    /**
+     * @param configuration            The zone affinity configuration
+     * @param applicationConfiguration The application configuration
+     */
+    public ZoneAffinityFilter(LoadBalancerConfiguration.ZoneAffinityConfiguration configuration,
+                              ApplicationConfiguration applicationConfiguration) {
+        this(configuration.getZone().orElseGet(() -> applicationConfiguration.getInstance().getZone().orElse(null)),
+            configuration.getMinCapacity());
+    }
+
+    /**
+     * @param localZone   The zone of the client
+     * @param minCapacity The minimum healthy capacity of the local zone
+     */
+    ZoneAffinityFilter(@Nullable String localZone, double minCapacity) {
+        this.localZone = localZone;
+        this.minCapacity = minCapacity;
+    }
+
+    @Override
+    public List<ServiceInstance> filter(String serviceId, List<ServiceInstance> instances) {
+        if (localZone == null || instances.isEmpty()) {
+            return instances;
+        }
+        Set<String> zones = new HashSet<>();
+        List<ServiceInstance> local = new ArrayList<>();
+        int healthy = 0;
+        for (ServiceInstance instance : instances) {
+            String zone = instance.getZone().orElse(null);
+            if (zone == null || HealthStatus.NAME_DOWN.equals(instance.getHealthStatus().getName())) {
+                continue;
+            }
+            zones.add(zone);
+            healthy++;
+            if (localZone.equals(zone)) {
+                local.add(instance);
+            }
+        }
+        if (local.isEmpty() || local.size() < minCapacity * healthy / zones.size()) {
+            return instances;
+        }
+        return local;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.management;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the registrations, heartbeats, lookups and recent errors of the discovery clients for the
+ * {@link DiscoveryEndpoint}.
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(classes = Endpoint.class)
+@Requires(property = DiscoveryEndpoint.ENABLED, notEquals = StringUtils.FALSE)
+public class DiscoveryActivity {
+
+    /**
+     * The number of recent errors that are kept.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int MAX_ERRORS = 20;
+
+    private final Map<String, RegistrationState> registrations = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LookupState>> lookups = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> errors = new ArrayDeque<>(MAX_ERRORS);
+
+    /**
+     * Records the outcome of a registration.
+     *
+     * @param discoveryService The discovery service
+     * @param instance         The registered instance
+     * @param error            The error, if the registration failed
+     */
+    public void registered(@NonNull String discoveryService, @NonNull ServiceInstance instance, @Nullable Throwable error) {
+        RegistrationState state = registrations.computeIfAbsent(key(discoveryService), key -> new RegistrationState());
+        state.serviceId = instance.getId();
+        if (error == null) {
+            state.registered = true;
+            state.registeredAt = System.currentTimeMillis();
+        } else {
+            error(discoveryService, "registration", instance.getId(), error);
+        }
+    }
+
+    /**
+     * Records that the application is no longer registered.
+     *
+     * @param discoveryService The discovery service
+     */
+    public void deregistered(@NonNull String discoveryService) {
+        RegistrationState state = registrations.get(key(discoveryService));
+        if (state != null) {
+            state.registered = false;
+        }
+    }
+
+    /**
+     * Records the outcome of a heartbeat.
+     *
+     * @param discoveryService The discovery service
+     * @param instance         The instance
+     * @param status           The reported health status
+     * @param error            The error, if the heartbeat failed
+     */
+    public void heartbeat(@NonNull String discoveryService, @NonNull ServiceInstance instance, @NonNull HealthStatus status, @Nullable Throwable error) {
+        heartbeat(discoveryService, instance, status, null, error);
+    }
+
+    /**
+     * Records the outcome of a heartbeat sent at an interval of the discovery service's own, such as the lease
+     * renewal interval of Eureka, rather than the configured heartbeat interval.
+     *
+     * @param discoveryService The discovery service
+     * @param instance         The instance
+     * @param status           The reported health status
+     * @param interval         The interval between heartbeats, or {@code null} for the configured heartbeat interval
+     * @param error            The error, if the heartbeat failed
+     */
+    public void heartbeat(@NonNull String discoveryService,
+                          @NonNull ServiceInstance instance,
+                          @NonNull HealthStatus status,
+                          @Nullable Duration interval,
+                          @Nullable Throwable error) {
+        RegistrationState state = registrations.computeIfAbsent(key(discoveryService), key -> new RegistrationState());
+        state.serviceId = instance.getId();
+        state.healthStatus = status.getName();
+        state.heartbeatInterval = interval;
+        if (error == null) {
+            state.lastHeartbeat = System.currentTimeMillis();
+        } else {
+            state.heartbeatFailures.incrementAndGet();
+            error(discoveryService, "heartbeat", instance.getId(), error);
+        }
+    }
+
+    /**
+     * Records the outcome of the lookups of a service.
+     *
+     * @param discoveryService The discovery service
+     * @param serviceId        The service ID
+     * @param instances        The lookup
+     * @return The lookup, recording its outcome
+     */
+    @NonNull
+    public Publisher<List<ServiceInstance>> lookup(@NonNull String discoveryService,
+                                                   @NonNull String serviceId,
+                                                   @NonNull Publisher<List<ServiceInstance>> instances) {
+        return Flux.from(instances)
+            .doOnNext(list -> {
+                LookupState state = lookups.computeIfAbsent(key(discoveryService), key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(serviceId, key -> new LookupState());
+                state.instances = list.size();
+                state.lastLookup = System.currentTimeMillis();
+            })
+            .doOnError(throwable -> error(discoveryService, "lookup", serviceId, throwable));
+    }
+
+    /**
+     * @param heartbeatInterval The expected interval between heartbeats, or {@code null} if unknown. Discovery services
+     *                          that reported their own interval with their heartbeats are measured against it instead
+     * @return The registration state by discovery service
+     */
+    @NonNull
+    public Map<String, Object> getRegistrations(@Nullable Duration heartbeatInterval) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> details = new TreeMap<>();
+        registrations.forEach((discoveryService, state) -> {
+            Map<String, Object> registration = new LinkedHashMap<>();
+            registration.put("service-id", state.serviceId);
+            registration.put("registered", state.registered);
+            if (state.registeredAt > 0) {
+                registration.put("registered-at", Instant.ofEpochMilli(state.registeredAt).toString());
+            }
+            if (state.healthStatus != null) {
+                registration.put("health-status", state.healthStatus);
+            }
+            long lastHeartbeat = state.lastHeartbeat;
+            if (lastHeartbeat > 0) {
+                long age = now - lastHeartbeat;
+                registration.put("last-heartbeat-age", Duration.ofMillis(age).toString());
+                Duration interval = state.heartbeatInterval != null ? state.heartbeatInterval : heartbeatInterval;
+                if (interval != null) {
+                    // how far the heartbeat is overdue, beyond the interval it is sent at
+                    registration.put("heartbeat-lag", Duration.ofMillis(Math.max(0L, age - interval.toMillis())).toString());
+                }
+            }
+            registration.put("heartbeat-failures", state.heartbeatFailures.get());
+            details.put(discoveryService, registration);
+        });
+        return details;
+    }
+
+    /**
+     * @return The instance count and the age of the last lookup of each service, by discovery service
+     */
+    @NonNull
+    public Map<String, Object> getLookups() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> details = new TreeMap<>();
+        lookups.forEach((discoveryService, services) -> {
+            Map<String, Object> serviceDetails = new TreeMap<>();
+            services.forEach((serviceId, state) -> {
+                Map<String, Object> lookup = new LinkedHashMap<>();
+                lookup.put("instances", state.instances);
+                lookup.put("last-lookup-age", Duration.ofMillis(now - state.lastLookup).toString());
+                serviceDetails.put(serviceId, lookup);
+            });
+            details.put(discoveryService, serviceDetails);
+        });
+        return details;
+    }
+
+    /**
+     * @return The most recent errors, newest first
+     */
+    @NonNull
+    public List<Map<String, Object>> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    /**
+     * Registrations log the name of the discovery service, such as {@code Consul}, while the clients use their
+     * service ID, such as {@code consul}, so both are recorded under the same key.
+     */
+    private static String key(String discoveryService) {
+        return discoveryService.toLowerCase(Locale.ENGLISH);
+    }
+
+    private void error(String discoveryService, String operation, String serviceId, Throwable error) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("time", Instant.now().toString());
+        entry.put("discovery-service", key(discoveryService));
+        entry.put("operation", operation);
+        entry.put("service-id", serviceId);
+        entry.put("error", String.valueOf(error.getMessage()));
+        synchronized (errors) {
+            if (errors.size() == MAX_ERRORS) {
+                errors.removeLast();
+            }
+            errors.addFirst(entry);
+        }
+    }
+
+    /**
+     * The registration state of the application with a discovery service.
+     */
+    private static final class RegistrationState {
+        private volatile String serviceId;
+        private volatile boolean registered;
+        private volatile long registeredAt;
+        private volatile String healthStatus;
+        private volatile long lastHeartbeat;
+        private final AtomicInteger heartbeatFailures = new AtomicInteger();
+        private volatile Duration heartbeatInterval;
+    }
+
+    /**
+     * The outcome of the last lookup of a service.
+     */
+    private static final class LookupState {
+        private volatile int instances;
+        private volatile long lastLookup;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.management;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.client.breaker.DiscoveryCircuitBreaker;
+import io.micronaut.discovery.client.breaker.DiscoveryCircuitBreakers;
+import io.micronaut.discovery.consul.dns.ConsulDnsDiscoveryClient;
+import io.micronaut.discovery.consul.watch.ConsulServiceWatcher;
+import io.micronaut.health.HeartbeatConfiguration;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>A management endpoint exposing the state of the discovery clients, to debug stale routing without a heap dump.</p>
+ *
+ * <p>It reports the registration and heartbeat state of the application, the instance count and age of the last
+ * lookup of each service, the Consul watch and its last index, the Consul DNS cache, the circuit breakers and the
+ * most recent errors.</p>
+ *
+ * @since 4.5.0
+ */
+@Endpoint(id = DiscoveryEndpoint.NAME)
+@Requires(classes = Endpoint.class)
+public class DiscoveryEndpoint {
+
+    /**
+     * The ID of the endpoint.
+     */
+    public static final String NAME = "discovery";
+
+    /**
+     * The property that enables the endpoint.
+     */
+    public static final String ENABLED = Endpoint.PREFIX + "." + NAME + ".enabled";
+
+    private final DiscoveryActivity activity;
+    private final DiscoveryCircuitBreakers circuitBreakers;
+    private final ConsulServiceWatcher serviceWatcher;
+    private final ConsulDnsDiscoveryClient dnsDiscoveryClient;
+    private final HeartbeatConfiguration heartbeatConfiguration;
+
+    /**
+     * @param activity               The activity of the discovery clients
+     * @param circuitBreakers        The circuit breakers, if enabled
+     * @param serviceWatcher         The Consul service watcher, if enabled
+     * @param dnsDiscoveryClient     The Consul DNS discovery client, if enabled
+     * @param heartbeatConfiguration The heartbeat configuration, used to compute the heartbeat lag
+     */
+    public DiscoveryEndpoint(DiscoveryActivity activity,
+                             @Nullable DiscoveryCircuitBreakers circuitBreakers,
+                             @Nullable ConsulServiceWatcher serviceWatcher,
+                             @Nullable ConsulDnsDiscoveryClient dnsDiscoveryClient,
+                             @Nullable HeartbeatConfiguration heartbeatConfiguration) {
+        this.activity = activity;
+        this.circuitBreakers = circuitBreakers;
+        this.serviceWatcher = serviceWatcher;
+        this.dnsDiscoveryClient = dnsDiscoveryClient;
+        this.heartbeatConfiguration = heartbeatConfiguration;
+    }
+
+    /**
+     * @return The state of the discovery clients
+     */
+    @Read
+    public Map<String, Object> getDiscovery() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("registrations", activity.getRegistrations(
+            heartbeatConfiguration != null && heartbeatConfiguration.isEnabled() ? heartbeatConfiguration.getInterval() : null));
+        details.put("lookups", activity.getLookups());
+        if (serviceWatcher != null) {
+            details.put("consul-watch", serviceWatcher.getDetails());
+        }
+        if (dnsDiscoveryClient != null) {
+            details.put("consul-dns", dnsDiscoveryClient.getDetails());
+        }
+        if (circuitBreakers != null) {
+            Map<String, Object> breakers = new TreeMap<>();
+            for (DiscoveryCircuitBreaker breaker : circuitBreakers.getAll()) {
+                breakers.put(breaker.getName(), breaker.getDetails());
+            }
+            details.put("circuit-breakers", breakers);
+        }
+        details.put("errors", activity.getErrors());
+        return details;
+    }
+}
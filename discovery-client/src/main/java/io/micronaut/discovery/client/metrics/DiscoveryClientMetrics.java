@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.consul.client.v1.ConsulOperations;
+import io.micronaut.discovery.consul.client.v1.ConsulWatchClient;
+import io.micronaut.discovery.eureka.client.v2.EurekaOperations;
+import io.micronaut.discovery.spring.config.client.SpringCloudConfigClient;
+import io.micronaut.discovery.vault.config.VaultConfigHttpClient;
+import io.micronaut.inject.ExecutableMethod;
+import io.micronaut.retry.event.RetryEvent;
+import jakarta.inject.Singleton;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Records the latency, response status, response size and retries of every call made by the Consul, Eureka, Vault
+ * and Spring Cloud Config clients, tagged by the URI template of the endpoint.</p>
+ *
+ * <p>Meters are created on the first call of an endpoint and looked up by the client method afterwards, so finding
+ * the meters of a call does not allocate. Recording the call still allocates, for instance the reactive operators
+ * that observe the response.</p>
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(classes = MeterRegistry.class)
+@Requires(beans = MeterRegistry.class)
+@Requires(property = DiscoveryClientMetrics.ENABLED, notEquals = StringUtils.FALSE)
+public class DiscoveryClientMetrics implements ApplicationEventListener<RetryEvent> {
+
+    /**
+     * The prefix to use for all metrics settings.
+     */
+    public static final String PREFIX = "discovery-client.metrics";
+
+    /**
+     * The property that enables the metrics.
+     */
+    public static final String ENABLED = PREFIX + ".enabled";
+
+    /**
+     * The timer of calls.
+     */
+    public static final String REQUESTS = "discovery.client.requests";
+
+    /**
+     * The counter of responses by status.
+     */
+    public static final String RESPONSES = "discovery.client.responses";
+
+    /**
+     * The distribution of response body sizes.
+     */
+    public static final String RESPONSE_SIZE = "discovery.client.response.size";
+
+    /**
+     * The counter of retries.
+     */
+    public static final String RETRIES = "discovery.client.retries";
+
+    /**
+     * The status tag of calls that failed without a response.
+     */
+    public static final String STATUS_NONE = "NONE";
+
+    private static final int MAX_STATUS = 600;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<ExecutableMethod<?, ?>, EndpointMeters> endpoints = new ConcurrentHashMap<>();
+    private final Map<ExecutableMethod<?, ?>, Counter> retries = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry The meter registry
+     */
+    public DiscoveryClientMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param target The target of a client method invocation
+     * @return The name of the client, or {@code null} if the target is not one of the instrumented clients
+     */
+    @Nullable
+    static String clientName(@Nullable Object target) {
+        if (target instanceof ConsulOperations) {
+            return "consul";
+        } else if (target instanceof ConsulWatchClient) {
+            return "consul-watch";
+        } else if (target instanceof EurekaOperations) {
+            return "eureka";
+        } else if (target instanceof VaultConfigHttpClient) {
+            return "vault";
+        } else if (target instanceof SpringCloudConfigClient) {
+            return "spring-cloud-config";
+        }
+        return null;
+    }
+
+    /**
+     * Returns the meters of an endpoint, creating them on the first call.
+     *
+     * @param method      The client method
+     * @param client      The name of the client
+     * @param httpMethod  The HTTP method
+     * @param uriTemplate The URI template of the endpoint
+     * @return The meters
+     */
+    @NonNull
+    EndpointMeters endpoint(@NonNull ExecutableMethod<?, ?> method, @NonNull String client, @NonNull String httpMethod, @NonNull String uriTemplate) {
+        EndpointMeters meters = endpoints.get(method);
+        if (meters == null) {
+            meters = endpoints.computeIfAbsent(method, m -> new EndpointMeters(client, httpMethod, uriTemplate));
+        }
+        return meters;
+    }
+
+    @Override
+    public void onApplicationEvent(RetryEvent event) {
+        MethodInvocationContext<?, ?> context = event.getSource();
+        ExecutableMethod<?, ?> method = context.getExecutableMethod();
+        Counter counter = retries.get(method);
+        if (counter == null) {
+            String client = clientName(context.getTarget());
+            if (client == null) {
+                return;
+            }
+            counter = retries.computeIfAbsent(method, m -> Counter.builder(RETRIES)
+                .description("Retries of discovery client calls")
+                .tags("client", client, "operation", m.getMethodName())
+                .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
+    /**
+     * The meters of a single endpoint.
+     */
+    final class EndpointMeters {
+
+        private final Tags tags;
+        private final Timer timer;
+        private final DistributionSummary responseSize;
+        private final AtomicReferenceArray<Counter> responses = new AtomicReferenceArray<>(MAX_STATUS);
+
+        private EndpointMeters(String client, String httpMethod, String uriTemplate) {
+            this.tags = Tags.of("client", client, "method", httpMethod, "uri", uriTemplate);
+            this.timer = Timer.builder(REQUESTS)
+                .description("Latency of discovery client calls")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+            this.responseSize = DistributionSummary.builder(RESPONSE_SIZE)
+                .description("Size of discovery client response bodies")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(meterRegistry);
+        }
+
+        /**
+         * Records a call.
+         *
+         * @param status        The response status, or {@code 0} if the call failed without a response
+         * @param nanos         The latency in nanoseconds
+         * @param contentLength The length of the response body, or a negative value if unknown
+         */
+        void record(int status, long nanos, long contentLength) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+            int index = status > 0 && status < MAX_STATUS ? status : 0;
+            Counter counter = responses.get(index);
+            if (counter == null) {
+                counter = Counter.builder(RESPONSES)
+                    .description("Responses of discovery client calls")
+                    .tags(tags)
+                    .tag("status", index == 0 ? STATUS_NONE : Integer.toString(status))
+                    .register(meterRegistry);
+                // the registry returns the same counter to concurrent callers
+                responses.lazySet(index, counter);
+            }
+            counter.increment();
+            if (contentLength >= 0) {
+                responseSize.record(contentLength);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.order.Ordered;
+import io.micronaut.http.HttpAttributes;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.filter.ClientFilterChain;
+import io.micronaut.http.filter.HttpClientFilter;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+/**
+ * A {@link HttpClientFilter} that records the calls of the discovery clients with {@link DiscoveryClientMetrics}.
+ * Requests of any other client pass through untouched.
+ *
+ * @since 4.5.0
+ */
+@Filter(Filter.MATCH_ALL_PATTERN)
+@Requires(classes = MeterRegistry.class)
+@Requires(beans = DiscoveryClientMetrics.class)
+public class DiscoveryClientMetricsFilter implements HttpClientFilter {
+
+    private final DiscoveryClientMetrics metrics;
+
+    /**
+     * @param metrics The discovery client metrics
+     */
+    public DiscoveryClientMetricsFilter(DiscoveryClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Publisher<? extends HttpResponse<?>> doFilter(MutableHttpRequest<?> request, ClientFilterChain chain) {
+        MethodInvocationContext<?, ?> context = request.getAttribute(HttpAttributes.INVOCATION_CONTEXT, MethodInvocationContext.class).orElse(null);
+        String client = context != null ? DiscoveryClientMetrics.clientName(context.getTarget()) : null;
+        if (client == null) {
+            return chain.proceed(request);
+        }
+        String uriTemplate = request.getAttribute(HttpAttributes.URI_TEMPLATE, String.class).orElse(request.getPath());
+        DiscoveryClientMetrics.EndpointMeters meters = metrics.endpoint(context.getExecutableMethod(), client, request.getMethodName(), uriTemplate);
+        long start = System.nanoTime();
+        return Flux.from(chain.proceed(request))
+            .doOnNext(response -> meters.record(response.code(), System.nanoTime() - start, response.getContentLength()))
+            .doOnError(throwable -> {
+                if (throwable instanceof HttpClientResponseException e) {
+                    HttpResponse<?> response = e.getResponse();
+                    meters.record(response.code(), System.nanoTime() - start, response.getContentLength());
+                } else {
+                    meters.record(0, System.nanoTime() - start, -1);
+                }
+            });
+    }
+
+    @Override
+    public int getOrder() {
+        // outermost, so that the latency includes every other filter
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
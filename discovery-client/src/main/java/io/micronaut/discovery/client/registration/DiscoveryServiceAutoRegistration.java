@@ -15,18 +15,27 @@
  */
 package io.micronaut.discovery.client.registration;
 
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.discovery.EmbeddedServerInstance;
 import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.client.jfr.DiscoveryEvents;
+import io.micronaut.discovery.client.management.DiscoveryActivity;
+import io.micronaut.discovery.event.AbstractServiceInstanceEvent;
 import io.micronaut.discovery.registration.AutoRegistration;
 import io.micronaut.discovery.registration.RegistrationConfiguration;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.health.HeartbeatEvent;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import jakarta.inject.Inject;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Abstract class for {@link AutoRegistration} with discovery services.
@@ -36,6 +45,10 @@ import java.time.Duration;
  */
 public abstract class DiscoveryServiceAutoRegistration extends AutoRegistration {
 
+    private DiscoveryActivity discoveryActivity;
+    private HeartbeatJitter heartbeatJitter;
+    private final AtomicReference<HealthStatus> lastHeartbeatStatus = new AtomicReference<>();
+
     /**
      * @param registrationConfiguration The registration configuration
      */
@@ -43,6 +56,100 @@ public abstract class DiscoveryServiceAutoRegistration extends AutoRegistration
         super(registrationConfiguration);
     }
 
+    /**
+     * @param discoveryActivity The activity reported by the discovery management endpoint
+     */
+    @Inject
+    public void setDiscoveryActivity(@Nullable DiscoveryActivity discoveryActivity) {
+        this.discoveryActivity = discoveryActivity;
+    }
+
+    /**
+     * @param heartbeatJitter The jitter applied to heartbeats
+     */
+    @Inject
+    public void setHeartbeatJitter(@Nullable HeartbeatJitter heartbeatJitter) {
+        this.heartbeatJitter = heartbeatJitter;
+    }
+
+    /**
+     * Delays heartbeats by the phase offset and jitter of the instance, so that the instances of a fleet started
+     * together spread their heartbeats over the heartbeat interval. Heartbeats that change the health status are
+     * not delayed.
+     *
+     * @param event The event
+     */
+    @Override
+    public void onApplicationEvent(AbstractServiceInstanceEvent event) {
+        HeartbeatJitter heartbeatJitter = this.heartbeatJitter;
+        if (heartbeatJitter != null && event instanceof HeartbeatEvent heartbeatEvent
+            && heartbeatEvent.getStatus().equals(lastHeartbeatStatus.getAndSet(heartbeatEvent.getStatus()))) {
+            Duration delay = heartbeatJitter.delay(event.getSource());
+            if (!delay.isZero()) {
+                Mono.delay(delay).subscribe(ignored -> super.onApplicationEvent(event));
+                return;
+            }
+        }
+        super.onApplicationEvent(event);
+    }
+
+    /**
+     * Computes the phase offset and jitter of an instance for discovery services that schedule their own heartbeats.
+     *
+     * @param instance The service instance
+     * @param interval The interval between heartbeats
+     * @return The delay to apply to the next heartbeat, zero if heartbeat jitter is disabled
+     */
+    protected Duration heartbeatJitter(ServiceInstance instance, Duration interval) {
+        HeartbeatJitter heartbeatJitter = this.heartbeatJitter;
+        return heartbeatJitter != null ? heartbeatJitter.delay(instance, interval) : Duration.ZERO;
+    }
+
+    /**
+     * Discovery services that expire instances which miss a heartbeat must allow for this delay on top of the
+     * heartbeat interval, since a heartbeat sent undelayed can be followed by one delayed by the maximum.
+     *
+     * @param interval The interval between heartbeats
+     * @return The longest delay applied to a heartbeat, zero if heartbeat jitter is disabled
+     */
+    protected Duration heartbeatJitterMargin(Duration interval) {
+        HeartbeatJitter heartbeatJitter = this.heartbeatJitter;
+        return heartbeatJitter != null ? heartbeatJitter.maxDelay(interval) : Duration.ZERO;
+    }
+
+    /**
+     * Reports the outcome of a heartbeat to the discovery management endpoint.
+     *
+     * @param discoveryService The discovery service
+     * @param instance         The service instance
+     * @param status           The reported health status
+     * @param error            The error, if the heartbeat failed
+     */
+    protected void heartbeatReported(String discoveryService, ServiceInstance instance, HealthStatus status, @Nullable Throwable error) {
+        heartbeatReported(discoveryService, instance, status, null, error);
+    }
+
+    /**
+     * Reports the outcome of a heartbeat sent at an interval of the discovery service's own to the discovery
+     * management endpoint, so that its lag is measured against that interval.
+     *
+     * @param discoveryService The discovery service
+     * @param instance         The service instance
+     * @param status           The reported health status
+     * @param interval         The interval between heartbeats, or {@code null} for the configured heartbeat interval
+     * @param error            The error, if the heartbeat failed
+     */
+    protected void heartbeatReported(String discoveryService,
+                                     ServiceInstance instance,
+                                     HealthStatus status,
+                                     @Nullable Duration interval,
+                                     @Nullable Throwable error) {
+        DiscoveryActivity discoveryActivity = this.discoveryActivity;
+        if (discoveryActivity != null) {
+            discoveryActivity.heartbeat(discoveryService, instance, status, interval, error);
+        }
+    }
+
     /**
      * Register a new service instance in the discovery service.
      *
@@ -57,7 +164,7 @@ public abstract class DiscoveryServiceAutoRegistration extends AutoRegistration
         ServiceInstance instance,
         Publisher<HttpStatus> registrationObservable) {
 
-        Flux<HttpStatus> registrationFlowable = Flux.from(registrationObservable);
+        Flux<HttpStatus> registrationFlowable = Flux.from(DiscoveryEvents.registration(discoveryService, instance, registrationObservable));
         final Duration timeout = registration.getTimeout().orElse(null);
         if (timeout != null) {
             registrationFlowable = registrationFlowable.timeout(Duration.ofMillis(timeout.toMillis()));
@@ -78,6 +185,9 @@ public abstract class DiscoveryServiceAutoRegistration extends AutoRegistration
 
             @Override
             public void onError(Throwable t) {
+                if (discoveryActivity != null) {
+                    discoveryActivity.registered(discoveryService, instance, t);
+                }
                 if (LOG.isErrorEnabled()) {
                     String message = getErrorMessage(discoveryService, t);
                     LOG.error(message, t);
@@ -90,6 +200,9 @@ public abstract class DiscoveryServiceAutoRegistration extends AutoRegistration
             @Override
             public void onComplete() {
                 registered.set(true);
+                if (discoveryActivity != null) {
+                    discoveryActivity.registered(discoveryService, instance, null);
+                }
             }
         });
     }
@@ -139,7 +252,7 @@ public abstract class DiscoveryServiceAutoRegistration extends AutoRegistration
                     LOG.error("Error occurred de-registering service [" + applicationName + "] with " + discoveryService + ": " + t.getMessage(), t);
                 }
             } finally {
-                registered.set(false);
+                deregistered(discoveryService);
             }
         } else {
             deregisterFlowable.subscribe(new Subscriber<>() {
@@ -160,17 +273,25 @@ public abstract class DiscoveryServiceAutoRegistration extends AutoRegistration
                     if (LOG.isErrorEnabled()) {
                         LOG.error("Error occurred de-registering service [" + applicationName + "] with " + discoveryService + ": " + t.getMessage(), t);
                     }
-                    registered.set(false);
+                    deregistered(discoveryService);
                 }
 
                 @Override
                 public void onComplete() {
-                    registered.set(false);
+                    deregistered(discoveryService);
                 }
             });
         }
     }
 
+    private void deregistered(String discoveryService) {
+        registered.set(false);
+        DiscoveryActivity discoveryActivity = this.discoveryActivity;
+        if (discoveryActivity != null) {
+            discoveryActivity.deregistered(discoveryService);
+        }
+    }
+
     private String getErrorMessage(String discoveryService, Throwable e) {
         String description = "Error occurred during service registration with " + discoveryService + ": ";
         return getErrorMessage(e, description);
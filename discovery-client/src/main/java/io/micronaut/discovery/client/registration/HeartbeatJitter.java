@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registration;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.health.HeartbeatConfiguration;
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>Computes the delay applied to each heartbeat of an instance before it is sent to the discovery service.</p>
+ *
+ * <p>The delay is the sum of a phase offset, derived deterministically from the instance ID so that it is stable
+ * across heartbeats and evenly distributed across a fleet, and a bounded random jitter. Since the phase offset is
+ * constant, consecutive heartbeats remain one interval apart, give or take the jitter.</p>
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = HeartbeatConfiguration.class)
+@Requires(property = HeartbeatJitterConfiguration.PREFIX + ".enabled", notEquals = StringUtils.FALSE)
+public class HeartbeatJitter {
+
+    private final HeartbeatConfiguration heartbeatConfiguration;
+    private final HeartbeatJitterConfiguration configuration;
+
+    /**
+     * @param heartbeatConfiguration The heartbeat configuration
+     * @param configuration          The heartbeat jitter configuration
+     */
+    public HeartbeatJitter(HeartbeatConfiguration heartbeatConfiguration, HeartbeatJitterConfiguration configuration) {
+        this.heartbeatConfiguration = heartbeatConfiguration;
+        this.configuration = configuration;
+    }
+
+    /**
+     * @param instance The service instance
+     * @return The delay to apply to the next heartbeat of the instance
+     */
+    @NonNull
+    public Duration delay(@NonNull ServiceInstance instance) {
+        return delay(instance, heartbeatConfiguration.getInterval());
+    }
+
+    /**
+     * @param instance The service instance
+     * @param interval The interval between heartbeats
+     * @return The delay to apply to the next heartbeat of the instance
+     */
+    @NonNull
+    public Duration delay(@NonNull ServiceInstance instance, @NonNull Duration interval) {
+        long intervalNanos = interval.toNanos();
+        long phase = (long) (phase(instance) * configuration.getPhase() * intervalNanos);
+        long jitterBound = (long) (configuration.getJitter() * intervalNanos);
+        long jitter = jitterBound > 0 ? ThreadLocalRandom.current().nextLong(jitterBound) : 0;
+        // never delay a heartbeat past the next one
+        return Duration.ofNanos(Math.min(phase + jitter, intervalNanos - 1));
+    }
+
+    /**
+     * @param interval The interval between heartbeats
+     * @return The longest delay applied to a heartbeat of any instance, which extends the gap between two heartbeats
+     */
+    @NonNull
+    public Duration maxDelay(@NonNull Duration interval) {
+        long intervalNanos = interval.toNanos();
+        long bound = (long) ((configuration.getPhase() + configuration.getJitter()) * intervalNanos);
+        return Duration.ofNanos(Math.max(0, Math.min(bound, intervalNanos - 1)));
+    }
+
+    /**
+     * @param instance The service instance
+     * @return The phase of the instance, evenly distributed in [0, 1)
+     */
+    static double phase(@NonNull ServiceInstance instance) {
+        String key = instance.getInstanceId().orElseGet(() -> instance.getId() + ':' + instance.getHost() + ':' + instance.getPort());
+        // finalizer of MurmurHash3 to spread similar IDs, such as those differing only by port, across the range
+        long h = key.hashCode();
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (h >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registration;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.util.Toggleable;
+
+/**
+ * Configuration for spreading the heartbeats of the instances of a service over the heartbeat interval.
+ *
+ * @since 4.5.0
+ */
+@ConfigurationProperties(HeartbeatJitterConfiguration.PREFIX)
+public class HeartbeatJitterConfiguration implements Toggleable {
+
+    /**
+     * The prefix to use for all heartbeat jitter settings.
+     */
+    public static final String PREFIX = "discovery-client.heartbeat-jitter";
+
+    /**
+     * The default phase, as a fraction of the heartbeat interval.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final double DEFAULT_PHASE = 0.5;
+
+    /**
+     * The default jitter, as a fraction of the heartbeat interval.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final double DEFAULT_JITTER = 0.1;
+
+    private boolean enabled = true;
+    private double phase = DEFAULT_PHASE;
+    private double jitter = DEFAULT_JITTER;
+
+    /**
+     * @return Whether heartbeats are spread over the heartbeat interval
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Default value (true).
+     * @param enabled Whether heartbeats are spread over the heartbeat interval
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The maximum phase offset of an instance, as a fraction of the heartbeat interval
+     */
+    public double getPhase() {
+        return phase;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_PHASE}). Each instance derives a fixed offset within this fraction of the
+     * heartbeat interval from its ID, so the instances of a fleet started together do not beat on the same tick.
+     * @param phase The maximum phase offset of an instance, as a fraction of the heartbeat interval
+     */
+    public void setPhase(double phase) {
+        if (phase >= 0 && phase < 1) {
+            this.phase = phase;
+        }
+    }
+
+    /**
+     * @return The maximum random delay added to each heartbeat, as a fraction of the heartbeat interval
+     */
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_JITTER}).
+     * @param jitter The maximum random delay added to each heartbeat, as a fraction of the heartbeat interval
+     */
+    public void setJitter(double jitter) {
+        if (jitter >= 0 && jitter < 1) {
+            this.jitter = jitter;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HeartbeatJitterConfiguration{" +
+            "enabled=" + enabled +
+            ", phase=" + phase +
+            ", jitter=" + jitter +
+            '}';
+    }
+}
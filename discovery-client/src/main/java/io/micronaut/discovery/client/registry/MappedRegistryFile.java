@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registry;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * <p>A registry file that is memory-mapped by a single writer process and any number of reader processes.</p>
+ *
+ * <p>Consistency between processes is provided by a seqlock: the writer makes the sequence odd before modifying the
+ * body and even again once it is done, and a reader retries whenever the sequence was odd or changed while it was
+ * reading. The file starts with a fixed header:</p>
+ *
+ * <pre>
+ * 0  int  magic
+ * 4  int  format version
+ * 8  long sequence
+ * 16 long write or heartbeat timestamp (epoch millis)
+ * 24 int  body length
+ * 28 int  reserved
+ * </pre>
+ *
+ * <p>The body uses the {@link RegistryCodec} encoding.</p>
+ *
+ * @since 4.5.0
+ */
+@Internal
+final class MappedRegistryFile implements Closeable {
+
+    static final int MAGIC = 0x4D4E4452; // MNDR
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int TIMESTAMP_OFFSET = 16;
+    private static final int LENGTH_OFFSET = 24;
+    private static final int MAX_READ_ATTEMPTS = 64;
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean writable;
+    private final Object fileKey;
+
+    private MappedRegistryFile(FileChannel channel, MappedByteBuffer buffer, boolean writable, @Nullable Object fileKey) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.writable = writable;
+        this.fileKey = fileKey;
+    }
+
+    /**
+     * Creates the registry file, or reuses an existing one, and maps it for writing. An existing file is never
+     * truncated: it is grown to fit the given capacity if needed, and its sequence is carried over so that readers
+     * still mapping it observe the new body.
+     *
+     * @param path     The path
+     * @param capacity The maximum size of the encoded body
+     * @return The mapped file
+     * @throws IOException If the file cannot be mapped
+     */
+    static MappedRegistryFile openForWriting(@NonNull Path path, int capacity) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) HEADER_SIZE + capacity);
+            long sequence = buffer.getInt(MAGIC_OFFSET) == MAGIC ? (long) LONG_VIEW.getVolatile(buffer, SEQUENCE_OFFSET) : 0L;
+            // continue from an even sequence so that readers of a previous incarnation observe the change
+            LONG_VIEW.setVolatile(buffer, SEQUENCE_OFFSET, (sequence | 1L) + 1L);
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            return new MappedRegistryFile(channel, buffer, true, null);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing registry file for reading.
+     *
+     * @param path The path
+     * @return The mapped file, or {@code null} if the file does not exist yet or was not written by a compatible writer
+     * @throws IOException If the file cannot be mapped
+     */
+    @Nullable
+    static MappedRegistryFile openForReading(@NonNull Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Object fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                channel.close();
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION) {
+                channel.close();
+                return null;
+            }
+            return new MappedRegistryFile(channel, buffer, false, fileKey);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The current sequence. An odd value indicates a write in progress.
+     */
+    long sequence() {
+        return (long) LONG_VIEW.getAcquire(buffer, SEQUENCE_OFFSET);
+    }
+
+    /**
+     * @return The capacity available for the body
+     */
+    int capacity() {
+        return buffer.capacity() - HEADER_SIZE;
+    }
+
+    /**
+     * Publishes a new body.
+     *
+     * @param body The encoded body
+     * @throws IllegalArgumentException If the body exceeds the capacity of the file
+     */
+    void write(@NonNull byte[] body) {
+        if (!writable) {
+            throw new IllegalStateException("Registry file is mapped read-only");
+        }
+        if (body.length > capacity()) {
+            throw new IllegalArgumentException("Encoded registry of " + body.length + " bytes exceeds the capacity of " + capacity() + " bytes");
+        }
+        long sequence = (long) LONG_VIEW.getVolatile(buffer, SEQUENCE_OFFSET);
+        LONG_VIEW.setVolatile(buffer, SEQUENCE_OFFSET, sequence + 1);
+        // keep the plain writes of the body from becoming visible before the odd sequence
+        VarHandle.storeStoreFence();
+        buffer.put(HEADER_SIZE, body);
+        buffer.putInt(LENGTH_OFFSET, body.length);
+        LONG_VIEW.setRelease(buffer, TIMESTAMP_OFFSET, System.currentTimeMillis());
+        LONG_VIEW.setRelease(buffer, SEQUENCE_OFFSET, sequence + 2);
+    }
+
+    /**
+     * Refreshes the write timestamp without changing the body, so that readers keep treating an unchanged registry
+     * as fresh. The sequence is left untouched so that readers can keep using values they already decoded.
+     */
+    void heartbeat() {
+        if (!writable) {
+            throw new IllegalStateException("Registry file is mapped read-only");
+        }
+        LONG_VIEW.setRelease(buffer, TIMESTAMP_OFFSET, System.currentTimeMillis());
+    }
+
+    /**
+     * @param maxAgeMillis The maximum age of the data
+     * @return Whether the data was last written or refreshed more than the given age ago
+     */
+    boolean isStale(long maxAgeMillis) {
+        return maxAgeMillis > 0 && System.currentTimeMillis() - (long) LONG_VIEW.getAcquire(buffer, TIMESTAMP_OFFSET) > maxAgeMillis;
+    }
+
+    /**
+     * @param path The path the file was mapped from
+     * @return Whether the path still refers to the mapped file, rather than to a file created in its place. Always
+     * {@code true} where the platform does not identify files.
+     */
+    boolean isMappedFrom(@NonNull Path path) {
+        if (fileKey == null) {
+            return true;
+        }
+        try {
+            return Objects.equals(fileKey, Files.readAttributes(path, BasicFileAttributes.class).fileKey());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads a consistent view of the body, retrying while the writer is active.
+     *
+     * @param maxAgeMillis The maximum age of the data. Older data is treated as absent.
+     * @param reader       Decodes the body. The buffer must not be retained after the function returns.
+     * @param <T>          The decoded type
+     * @return The decoded value, or {@code null} if no consistent, fresh view could be read
+     */
+    @Nullable
+    <T> T read(long maxAgeMillis, @NonNull Function<ByteBuffer, T> reader) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long before = sequence();
+            if ((before & 1L) != 0L || before == 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int length = buffer.getInt(LENGTH_OFFSET);
+            T value = null;
+            boolean valid = length >= 0 && length <= capacity();
+            if (valid) {
+                try {
+                    value = reader.apply(buffer.slice(HEADER_SIZE, length));
+                } catch (RuntimeException e) {
+                    // torn read, validated against the sequence below
+                    valid = false;
+                }
+            }
+            VarHandle.acquireFence();
+            if (sequence() == before) {
+                if (!valid || isStale(maxAgeMillis)) {
+                    return null;
+                }
+                return value;
+            }
+            Thread.onSpinWait();
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registry;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.health.HealthStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Binary encoding of discovered instance sets, shared by the memory-mapped registry and registry snapshots.</p>
+ *
+ * <p>The body is laid out as a service count followed by one length-prefixed block per service, so that a reader
+ * looking for a single service can skip the blocks of every other service without decoding them:</p>
+ *
+ * <pre>
+ * int    serviceCount
+ * repeated serviceCount times:
+ *   string serviceId
+ *   int    blockLength
+ *   int    instanceCount
+ *   repeated instanceCount times:
+ *     string id, string instanceId, string uri, string healthStatus, string zone, string region, string group
+ *     int    metadataCount
+ *     repeated metadataCount times: string key, string value
+ * </pre>
+ *
+ * <p>Strings are written as an int byte length (or {@code -1} for {@code null}) followed by UTF-8 bytes.</p>
+ *
+ * @since 4.5.0
+ */
+@Internal
+public final class RegistryCodec {
+
+    private static final int NULL_LENGTH = -1;
+
+    private RegistryCodec() {
+    }
+
+    /**
+     * Encodes the given instance sets.
+     *
+     * @param registry The instances keyed by service ID
+     * @return The encoded body
+     */
+    @NonNull
+    public static byte[] encode(@NonNull Map<String, List<ServiceInstance>> registry) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(body);
+            out.writeInt(registry.size());
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            DataOutputStream blockOut = new DataOutputStream(block);
+            for (Map.Entry<String, List<ServiceInstance>> entry : registry.entrySet()) {
+                block.reset();
+                List<ServiceInstance> instances = entry.getValue();
+                blockOut.writeInt(instances.size());
+                for (ServiceInstance instance : instances) {
+                    writeInstance(blockOut, instance);
+                }
+                blockOut.flush();
+                writeString(out, entry.getKey());
+                out.writeInt(block.size());
+                block.writeTo(out);
+            }
+            out.flush();
+            return body.toByteArray();
+        } catch (IOException e) {
+            // cannot happen with in-memory streams
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the instances of a single service, skipping the blocks of all other services.
+     *
+     * @param body      The encoded body. The position of the buffer is not modified.
+     * @param serviceId The service ID
+     * @return The instances, or {@code null} if the service is not present
+     */
+    @Nullable
+    public static List<ServiceInstance> decode(@NonNull ByteBuffer body, @NonNull String serviceId) {
+        ByteBuffer in = body.duplicate();
+        int serviceCount = readCount(in);
+        for (int i = 0; i < serviceCount; i++) {
+            String name = readString(in);
+            int blockLength = in.getInt();
+            if (serviceId.equals(name)) {
+                return readInstances(in, name);
+            }
+            in.position(in.position() + blockLength);
+        }
+        return null;
+    }
+
+    /**
+     * Decodes every instance set.
+     *
+     * @param body The encoded body. The position of the buffer is not modified.
+     * @return The instances keyed by service ID
+     */
+    @NonNull
+    public static Map<String, List<ServiceInstance>> decodeAll(@NonNull ByteBuffer body) {
+        ByteBuffer in = body.duplicate();
+        int serviceCount = readCount(in);
+        Map<String, List<ServiceInstance>> registry = new LinkedHashMap<>(serviceCount * 4 / 3 + 1);
+        for (int i = 0; i < serviceCount; i++) {
+            String name = readString(in);
+            in.getInt();
+            registry.put(name, readInstances(in, name));
+        }
+        return registry;
+    }
+
+    /**
+     * Decodes the service IDs only.
+     *
+     * @param body The encoded body. The position of the buffer is not modified.
+     * @return The service IDs
+     */
+    @NonNull
+    public static List<String> decodeServiceIds(@NonNull ByteBuffer body) {
+        ByteBuffer in = body.duplicate();
+        int serviceCount = readCount(in);
+        List<String> serviceIds = new ArrayList<>(serviceCount);
+        for (int i = 0; i < serviceCount; i++) {
+            serviceIds.add(readString(in));
+            int blockLength = in.getInt();
+            in.position(in.position() + blockLength);
+        }
+        return serviceIds;
+    }
+
+    private static void writeInstance(DataOutputStream out, ServiceInstance instance) throws IOException {
+        writeString(out, instance.getId());
+        writeString(out, instance.getInstanceId().orElse(null));
+        writeString(out, instance.getURI().toString());
+        writeString(out, instance.getHealthStatus().getName());
+        writeString(out, instance.getZone().orElse(null));
+        writeString(out, instance.getRegion().orElse(null));
+        writeString(out, instance.getGroup().orElse(null));
+        Map<String, String> metadata = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : instance.getMetadata()) {
+            metadata.put(entry.getKey(), entry.getValue());
+        }
+        out.writeInt(metadata.size());
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static List<ServiceInstance> readInstances(ByteBuffer in, String serviceId) {
+        int instanceCount = readCount(in);
+        if (instanceCount == 0) {
+            return Collections.emptyList();
+        }
+        List<ServiceInstance> instances = new ArrayList<>(instanceCount);
+        for (int i = 0; i < instanceCount; i++) {
+            String id = readString(in);
+            String instanceId = readString(in);
+            URI uri = URI.create(readString(in));
+            HealthStatus status = healthStatus(readString(in));
+            String zone = readString(in);
+            String region = readString(in);
+            String group = readString(in);
+            int metadataCount = readCount(in);
+            Map<String, String> metadata = metadataCount == 0 ? Collections.emptyMap() : new LinkedHashMap<>(metadataCount * 4 / 3 + 1);
+            for (int j = 0; j < metadataCount; j++) {
+                metadata.put(readString(in), readString(in));
+            }
+            ServiceInstance.Builder builder = ServiceInstance.builder(id != null ? id : serviceId, uri)
+                .status(status)
+                .metadata(metadata);
+            if (instanceId != null) {
+                builder = builder.instanceId(instanceId);
+            }
+            if (zone != null) {
+                builder = builder.zone(zone);
+            }
+            if (region != null) {
+                builder = builder.region(region);
+            }
+            if (group != null) {
+                builder = builder.group(group);
+            }
+            instances.add(builder.build());
+        }
+        return instances;
+    }
+
+    private static HealthStatus healthStatus(@Nullable String name) {
+        if (name == null || HealthStatus.NAME_UNKNOWN.equals(name)) {
+            return HealthStatus.UNKNOWN;
+        } else if (HealthStatus.NAME_UP.equals(name)) {
+            return HealthStatus.UP;
+        } else if (HealthStatus.NAME_DOWN.equals(name)) {
+            return HealthStatus.DOWN;
+        }
+        return new HealthStatus(name);
+    }
+
+    private static int readCount(ByteBuffer in) {
+        int count = in.getInt();
+        // every entry occupies at least four bytes, which guards against allocating for corrupt counts
+        if (count < 0 || count > in.remaining() / Integer.BYTES) {
+            throw new IllegalStateException("Corrupt registry data: invalid count " + count);
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    @Nullable
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalStateException("Corrupt registry data: invalid string length " + length);
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registry;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.core.util.Toggleable;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Configuration for the registry snapshot that is used to warm discovery clients at startup.
+ *
+ * @since 4.5.0
+ */
+@ConfigurationProperties(RegistrySnapshotConfiguration.PREFIX)
+@Requires(property = RegistrySnapshotConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class RegistrySnapshotConfiguration implements Toggleable {
+
+    /**
+     * The prefix to use for all registry snapshot settings.
+     */
+    public static final String PREFIX = "discovery-client.snapshot";
+
+    /**
+     * The default write interval in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_WRITE_INTERVAL_SECONDS = 30;
+
+    /**
+     * The default maximum age in hours.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_AGE_HOURS = 24;
+
+    private boolean enabled;
+    private Path path = Paths.get(System.getProperty("java.io.tmpdir"), "micronaut-discovery-snapshot.bin");
+    private Duration writeInterval = Duration.ofSeconds(DEFAULT_WRITE_INTERVAL_SECONDS);
+    private Duration maxAge = Duration.ofHours(DEFAULT_MAX_AGE_HOURS);
+
+    /**
+     * @return Whether registry snapshots are enabled
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Default value (false).
+     * @param enabled Whether registry snapshots are enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The path of the snapshot file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @param path The path of the snapshot file. Defaults to a file in the temporary directory.
+     */
+    public void setPath(Path path) {
+        if (path != null) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * @return How often changed instance sets are written to the snapshot
+     */
+    public Duration getWriteInterval() {
+        return writeInterval;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_WRITE_INTERVAL_SECONDS} seconds).
+     * @param writeInterval How often changed instance sets are written to the snapshot
+     */
+    public void setWriteInterval(Duration writeInterval) {
+        if (writeInterval != null) {
+            this.writeInterval = writeInterval;
+        }
+    }
+
+    /**
+     * @return The age after which a snapshot is no longer loaded at startup
+     */
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_MAX_AGE_HOURS} hours).
+     * @param maxAge The age after which a snapshot is no longer loaded at startup
+     */
+    public void setMaxAge(Duration maxAge) {
+        if (maxAge != null) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrySnapshotConfiguration{" +
+            "enabled=" + enabled +
+            ", path=" + path +
+            ", writeInterval=" + writeInterval +
+            ", maxAge=" + maxAge +
+            '}';
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registry;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Keeps a snapshot of discovered instance sets on disk so that discovery clients can answer the first lookup of
+ * a service after a restart without waiting for the discovery server.</p>
+ *
+ * <p>Instances loaded from the snapshot are provisional: they carry the {@link #STALE_METADATA} metadata entry and are
+ * only returned until the first live lookup of the service completes, which is started in the background when the
+ * provisional instances are returned.</p>
+ *
+ * <p>The snapshot file starts with a fixed header followed by a {@link RegistryCodec} body:</p>
+ *
+ * <pre>
+ * 0  int  magic
+ * 4  int  format version
+ * 8  long write timestamp (epoch millis)
+ * 16 long CRC32 of the body
+ * 24 int  body length
+ * </pre>
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = RegistrySnapshotConfiguration.class)
+public class RegistrySnapshotStore implements Closeable {
+
+    /**
+     * The metadata entry set to {@code true} on instances loaded from a snapshot.
+     */
+    public static final String STALE_METADATA = "discovery-snapshot-stale";
+
+    static final int MAGIC = 0x4D4E4453; // MNDS
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 28;
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistrySnapshotStore.class);
+
+    private final RegistrySnapshotConfiguration configuration;
+    private final Map<String, List<ServiceInstance>> snapshot = new ConcurrentHashMap<>();
+    private final Map<String, List<ServiceInstance>> provisional = new ConcurrentHashMap<>();
+    private final Set<String> reconciling = ConcurrentHashMap.newKeySet();
+    private final ScheduledFuture<?> writeTask;
+    private volatile boolean dirty;
+    private byte[] lastBody;
+
+    /**
+     * @param configuration The snapshot configuration
+     * @param taskScheduler The scheduler used to write the snapshot
+     */
+    public RegistrySnapshotStore(RegistrySnapshotConfiguration configuration,
+                                 @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler) {
+        this.configuration = configuration;
+        Map<String, List<ServiceInstance>> loaded = load(configuration.getPath(), configuration.getMaxAge().toMillis());
+        for (Map.Entry<String, List<ServiceInstance>> entry : loaded.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue());
+            provisional.put(entry.getKey(), markStale(entry.getValue()));
+        }
+        if (LOG.isDebugEnabled() && !loaded.isEmpty()) {
+            LOG.debug("Loaded provisional instances of {} services from registry snapshot {}", loaded.size(), configuration.getPath());
+        }
+        this.writeTask = taskScheduler.scheduleWithFixedDelay(
+            configuration.getWriteInterval(),
+            configuration.getWriteInterval(),
+            this::write
+        );
+    }
+
+    /**
+     * Returns the provisional instances of the given service if it has not been looked up since startup, starting the
+     * live lookup in the background, and otherwise the live lookup itself. Every live result is recorded in the
+     * snapshot.
+     *
+     * @param source    The discovery client the lookup belongs to
+     * @param serviceId The service ID
+     * @param lookup    The live lookup
+     * @return The instances
+     */
+    @NonNull
+    public Publisher<List<ServiceInstance>> warm(@NonNull String source,
+                                                 @NonNull String serviceId,
+                                                 @NonNull Publisher<List<ServiceInstance>> lookup) {
+        String key = source + '/' + serviceId;
+        Flux<List<ServiceInstance>> recorded = Flux.from(lookup).doOnNext(instances -> record(key, instances));
+        List<ServiceInstance> instances = provisional.get(key);
+        if (instances == null) {
+            return recorded;
+        }
+        if (reconciling.add(key)) {
+            recorded.doFinally(signal -> reconciling.remove(key)).subscribe(
+                ignored -> { },
+                throwable -> {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Background lookup of service [{}] failed, continuing with snapshot instances: {}", serviceId, throwable.getMessage());
+                    }
+                }
+            );
+        }
+        return Flux.just(instances);
+    }
+
+    /**
+     * @param instance The instance
+     * @return Whether the instance was loaded from a snapshot and not yet confirmed by a live lookup
+     */
+    public static boolean isStale(@NonNull ServiceInstance instance) {
+        return instance.getMetadata().get(STALE_METADATA, Boolean.class).orElse(false);
+    }
+
+    /**
+     * Writes the snapshot if any instance set changed since the last write.
+     */
+    synchronized void write() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            byte[] body = RegistryCodec.encode(new LinkedHashMap<>(snapshot));
+            if (!Arrays.equals(body, lastBody)) {
+                writeFile(configuration.getPath(), body);
+                lastBody = body;
+            }
+        } catch (Exception e) {
+            dirty = true;
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Error writing registry snapshot {}: {}", configuration.getPath(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        writeTask.cancel(false);
+        write();
+    }
+
+    private void record(String key, List<ServiceInstance> instances) {
+        provisional.remove(key);
+        snapshot.put(key, instances);
+        dirty = true;
+    }
+
+    private static void writeFile(Path path, byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer file = ByteBuffer.allocate(HEADER_SIZE + body.length)
+            .putInt(MAGIC)
+            .putInt(VERSION)
+            .putLong(System.currentTimeMillis())
+            .putLong(crc.getValue())
+            .putInt(body.length)
+            .put(body);
+        Path target = path.toAbsolutePath();
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // write to a temporary file first so that a crash never leaves a truncated snapshot behind
+        Path temp = Files.createTempFile(parent != null ? parent : target, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, file.array());
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Map<String, List<ServiceInstance>> load(Path path, long maxAgeMillis) {
+        try {
+            ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (file.remaining() < HEADER_SIZE || file.getInt() != MAGIC || file.getInt() != VERSION) {
+                return ignore(path, "unknown format");
+            }
+            long timestamp = file.getLong();
+            long checksum = file.getLong();
+            int length = file.getInt();
+            if (length != file.remaining()) {
+                return ignore(path, "truncated");
+            }
+            if (maxAgeMillis > 0 && System.currentTimeMillis() - timestamp > maxAgeMillis) {
+                return ignore(path, "expired");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(file.duplicate());
+            if (crc.getValue() != checksum) {
+                return ignore(path, "checksum mismatch");
+            }
+            return RegistryCodec.decodeAll(file);
+        } catch (NoSuchFileException e) {
+            return Collections.emptyMap();
+        } catch (IOException | RuntimeException e) {
+            return ignore(path, e.getMessage());
+        }
+    }
+
+    private static Map<String, List<ServiceInstance>> ignore(Path path, String reason) {
+        if (LOG.isWarnEnabled()) {
+            LOG.warn("Ignoring registry snapshot {}: {}", path, reason);
+        }
+        return Collections.emptyMap();
+    }
+
+    private static List<ServiceInstance> markStale(List<ServiceInstance> instances) {
+        List<ServiceInstance> stale = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            Map<String, String> metadata = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : instance.getMetadata()) {
+                metadata.put(entry.getKey(), entry.getValue());
+            }
+            metadata.put(STALE_METADATA, Boolean.TRUE.toString());
+            ServiceInstance.Builder builder = ServiceInstance.builder(instance.getId(), instance.getURI())
+                .status(instance.getHealthStatus())
+                .metadata(metadata);
+            if (instance.getInstanceId().isPresent()) {
+                builder = builder.instanceId(instance.getInstanceId().get());
+            }
+            if (instance.getZone().isPresent()) {
+                builder = builder.zone(instance.getZone().get());
+            }
+            if (instance.getRegion().isPresent()) {
+                builder = builder.region(instance.getRegion().get());
+            }
+            if (instance.getGroup().isPresent()) {
+                builder = builder.group(instance.getGroup().get());
+            }
+            stale.add(builder.build());
+        }
+        return stale;
+    }
+}
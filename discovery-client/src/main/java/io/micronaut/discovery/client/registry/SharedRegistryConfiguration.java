@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registry;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.core.util.Toggleable;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration for the memory-mapped registry shared between co-located processes.
+ *
+ * @since 4.5.0
+ */
+@ConfigurationProperties(SharedRegistryConfiguration.PREFIX)
+@Requires(property = SharedRegistryConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class SharedRegistryConfiguration implements Toggleable {
+
+    /**
+     * The prefix to use for all shared registry settings.
+     */
+    public static final String PREFIX = "discovery-client.shared-registry";
+
+    /**
+     * The property that defines the role of this process.
+     */
+    public static final String ROLE = PREFIX + ".role";
+
+    /**
+     * The default refresh interval in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_REFRESH_INTERVAL_SECONDS = 10;
+
+    /**
+     * The default maximum age in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_AGE_SECONDS = 120;
+
+    /**
+     * The default capacity in bytes.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_CAPACITY = 16 * 1024 * 1024;
+
+    private boolean enabled;
+    private Role role = Role.READER;
+    private Path path = Paths.get(System.getProperty("java.io.tmpdir"), "micronaut-discovery-registry.bin");
+    private List<String> services = Collections.emptyList();
+    private Duration refreshInterval = Duration.ofSeconds(DEFAULT_REFRESH_INTERVAL_SECONDS);
+    private Duration maxAge = Duration.ofSeconds(DEFAULT_MAX_AGE_SECONDS);
+    private int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * @return Whether the shared registry is enabled
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Default value (false).
+     * @param enabled Whether the shared registry is enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The role of this process
+     */
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * Default value (reader). Exactly one process per host should be configured as the writer.
+     * @param role The role of this process
+     */
+    public void setRole(Role role) {
+        if (role != null) {
+            this.role = role;
+        }
+    }
+
+    /**
+     * @return The path of the memory-mapped file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @param path The path of the memory-mapped file. Defaults to a file in the temporary directory.
+     */
+    public void setPath(Path path) {
+        if (path != null) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * @return The services the writer publishes
+     */
+    public List<String> getServices() {
+        return services;
+    }
+
+    /**
+     * @param services The services the writer publishes
+     */
+    public void setServices(List<String> services) {
+        if (services != null) {
+            this.services = services;
+        }
+    }
+
+    /**
+     * @return How often the writer refreshes the published instances
+     */
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_REFRESH_INTERVAL_SECONDS} seconds).
+     * @param refreshInterval How often the writer refreshes the published instances
+     */
+    public void setRefreshInterval(Duration refreshInterval) {
+        if (refreshInterval != null) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    /**
+     * @return The age after which readers consider the published data stale and ignore it
+     */
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_MAX_AGE_SECONDS} seconds).
+     * @param maxAge The age after which readers consider the published data stale and ignore it
+     */
+    public void setMaxAge(Duration maxAge) {
+        if (maxAge != null) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    /**
+     * @return The maximum size in bytes of the encoded registry
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_CAPACITY}).
+     * @param capacity The maximum size in bytes of the encoded registry
+     */
+    public void setCapacity(int capacity) {
+        if (capacity > 0) {
+            this.capacity = capacity;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SharedRegistryConfiguration{" +
+            "enabled=" + enabled +
+            ", role=" + role +
+            ", path=" + path +
+            ", services=" + services +
+            ", refreshInterval=" + refreshInterval +
+            ", maxAge=" + maxAge +
+            ", capacity=" + capacity +
+            '}';
+    }
+
+    /**
+     * The role of a process sharing the registry.
+     */
+    public enum Role {
+        /**
+         * Discovers instances and publishes them to the shared file.
+         */
+        WRITER,
+        /**
+         * Reads instances from the shared file.
+         */
+        READER
+    }
+}
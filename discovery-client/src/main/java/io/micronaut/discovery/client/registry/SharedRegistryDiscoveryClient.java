@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registry;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.core.naming.NameUtils;
+import io.micronaut.discovery.DiscoveryClient;
+import io.micronaut.discovery.ServiceInstance;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A {@link DiscoveryClient} that reads the instances published by the {@link SharedRegistryWriter} of another
+ * process on the same host. Decoded instance sets are reused for as long as the writer does not publish a new
+ * version of the registry and keeps refreshing it within the configured maximum age.
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = SharedRegistryConfiguration.class)
+@Requires(property = SharedRegistryConfiguration.ROLE, notEquals = "writer")
+public class SharedRegistryDiscoveryClient implements DiscoveryClient {
+
+    /**
+     * The ID of the shared registry.
+     */
+    public static final String SERVICE_ID = "shared-registry";
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedRegistryDiscoveryClient.class);
+
+    private final SharedRegistryConfiguration configuration;
+    private final Map<String, Decoded> decoded = new ConcurrentHashMap<>();
+    private volatile MappedRegistryFile file;
+
+    /**
+     * @param configuration The shared registry configuration
+     */
+    public SharedRegistryDiscoveryClient(SharedRegistryConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public Publisher<List<ServiceInstance>> getInstances(String serviceId) {
+        String id = NameUtils.hyphenate(serviceId);
+        List<ServiceInstance> instances = read(file -> {
+            if (file.isStale(configuration.getMaxAge().toMillis())) {
+                // the writer stopped refreshing the registry, so previously decoded instances are stale as well
+                return null;
+            }
+            long sequence = file.sequence();
+            Decoded cached = decoded.get(id);
+            if (cached != null && cached.sequence == sequence) {
+                return cached.instances;
+            }
+            List<ServiceInstance> result = file.read(configuration.getMaxAge().toMillis(), body -> {
+                List<ServiceInstance> list = RegistryCodec.decode(body, id);
+                return list != null ? list : Collections.emptyList();
+            });
+            if (result != null) {
+                decoded.put(id, new Decoded(sequence, result));
+            }
+            return result;
+        });
+        return Publishers.just(instances != null ? instances : Collections.emptyList());
+    }
+
+    @Override
+    public Publisher<List<String>> getServiceIds() {
+        List<String> serviceIds = read(file -> file.read(configuration.getMaxAge().toMillis(), RegistryCodec::decodeServiceIds));
+        return Publishers.just(serviceIds != null ? serviceIds : Collections.emptyList());
+    }
+
+    @Override
+    public String getDescription() {
+        return SERVICE_ID;
+    }
+
+    @Override
+    public void close() {
+        MappedRegistryFile file = this.file;
+        if (file != null) {
+            close(file);
+        }
+    }
+
+    @Nullable
+    private <T> T read(@NonNull Function<MappedRegistryFile, T> reader) {
+        MappedRegistryFile file = file();
+        if (file == null) {
+            return null;
+        }
+        T value = reader.apply(file);
+        if (value == null && (!file.isStale(configuration.getMaxAge().toMillis()) || !file.isMappedFrom(configuration.getPath()))) {
+            // the writer may have restarted with a different capacity or a new file, so map the file again on the next
+            // read. Stale data of the same file only means the writer stopped refreshing it, so the mapping is kept.
+            synchronized (this) {
+                if (this.file == file) {
+                    this.file = null;
+                    decoded.clear();
+                    close(file);
+                }
+            }
+        }
+        return value;
+    }
+
+    @Nullable
+    private MappedRegistryFile file() {
+        MappedRegistryFile file = this.file;
+        if (file == null) {
+            synchronized (this) {
+                file = this.file;
+                if (file == null) {
+                    try {
+                        file = MappedRegistryFile.openForReading(configuration.getPath());
+                        this.file = file;
+                    } catch (IOException e) {
+                        if (LOG.isWarnEnabled()) {
+                            LOG.warn("Unable to map shared registry file {}: {}", configuration.getPath(), e.getMessage());
+                        }
+                    }
+                }
+            }
+        }
+        return file;
+    }
+
+    private static void close(MappedRegistryFile file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * An instance set decoded from a given version of the registry.
+     *
+     * @param sequence  The sequence of the registry it was decoded from
+     * @param instances The instances
+     */
+    private record Decoded(long sequence, List<ServiceInstance> instances) {
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registry;
+
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.discovery.DiscoveryClient;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Named;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Periodically discovers the configured services and publishes their instances to the shared registry file.
+ *
+ * @since 4.5.0
+ */
+@Context
+@Requires(beans = SharedRegistryConfiguration.class)
+@Requires(property = SharedRegistryConfiguration.ROLE, value = "writer")
+public class SharedRegistryWriter implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedRegistryWriter.class);
+
+    private final SharedRegistryConfiguration configuration;
+    private final DiscoveryClient discoveryClient;
+    private final MappedRegistryFile file;
+    private final ScheduledFuture<?> refreshTask;
+    private byte[] lastBody;
+
+    /**
+     * @param configuration   The shared registry configuration
+     * @param discoveryClient The discovery client used to discover the published services
+     * @param taskScheduler   The scheduler used to refresh the published instances
+     */
+    public SharedRegistryWriter(SharedRegistryConfiguration configuration,
+                                DiscoveryClient discoveryClient,
+                                @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler) {
+        this.configuration = configuration;
+        this.discoveryClient = discoveryClient;
+        try {
+            this.file = MappedRegistryFile.openForWriting(configuration.getPath(), configuration.getCapacity());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map shared registry file " + configuration.getPath(), e);
+        }
+        this.refreshTask = taskScheduler.scheduleWithFixedDelay(
+            null,
+            configuration.getRefreshInterval(),
+            this::refresh
+        );
+    }
+
+    /**
+     * Discovers the configured services and publishes them if any instance set changed.
+     */
+    void refresh() {
+        try {
+            Map<String, List<ServiceInstance>> registry = new LinkedHashMap<>();
+            for (String serviceId : configuration.getServices()) {
+                List<ServiceInstance> instances = Flux.from(discoveryClient.getInstances(serviceId))
+                    .onErrorResume(throwable -> {
+                        if (LOG.isWarnEnabled()) {
+                            LOG.warn("Error discovering service [{}] for the shared registry: {}", serviceId, throwable.getMessage());
+                        }
+                        return Flux.empty();
+                    })
+                    .blockFirst(configuration.getRefreshInterval());
+                registry.put(serviceId, instances != null ? instances : Collections.emptyList());
+            }
+            publish(registry);
+        } catch (Exception e) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Error refreshing shared registry: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Publishes the given instance sets. If nothing changed only the timestamp is refreshed, so that readers do not
+     * treat a stable registry as stale.
+     *
+     * @param registry The instances keyed by service ID
+     */
+    synchronized void publish(Map<String, List<ServiceInstance>> registry) {
+        byte[] body = RegistryCodec.encode(registry);
+        if (Arrays.equals(body, lastBody)) {
+            file.heartbeat();
+        } else {
+            file.write(body);
+            lastBody = body;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Published {} services ({} bytes) to shared registry {}", registry.size(), body.length, configuration.getPath());
+            }
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() throws IOException {
+        refreshTask.cancel(false);
+        file.close();
+    }
+}
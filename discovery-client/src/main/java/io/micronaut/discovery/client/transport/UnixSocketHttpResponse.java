@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.transport;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.convert.ArgumentConversionContext;
+import io.micronaut.core.convert.value.MutableConvertibleValues;
+import io.micronaut.core.convert.value.MutableConvertibleValuesMap;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.codec.CodecException;
+import io.micronaut.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * <p>A fully read response received over a Unix domain socket. The body is decoded on demand with the
+ * {@link JsonMapper}.</p>
+ *
+ * <p>The HTTP client reads the body of a response returned by a filter with {@link #getBody()}, so the body type the
+ * client expects is captured when the response is built, as the Netty client does.</p>
+ *
+ * @since 4.5.0
+ */
+@Internal
+final class UnixSocketHttpResponse implements HttpResponse<Object> {
+
+    private final int code;
+    private final String reason;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final Argument<?> bodyType;
+    private final JsonMapper jsonMapper;
+    private final MutableConvertibleValues<Object> attributes = new MutableConvertibleValuesMap<>();
+    private Optional<Object> decodedBody;
+
+    /**
+     * @param code       The status code
+     * @param reason     The reason phrase
+     * @param headers    The response headers
+     * @param body       The response body
+     * @param bodyType   The body type expected by the client, or {@code null} to expose the raw bytes
+     * @param jsonMapper The mapper used to decode the body
+     */
+    UnixSocketHttpResponse(int code, String reason, HttpHeaders headers, byte[] body, @Nullable Argument<?> bodyType, JsonMapper jsonMapper) {
+        this.code = code;
+        this.reason = reason;
+        this.headers = headers;
+        this.body = body;
+        this.bodyType = bodyType;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public int code() {
+        return code;
+    }
+
+    @Override
+    public String reason() {
+        return reason;
+    }
+
+    @Override
+    @NonNull
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    @NonNull
+    public MutableConvertibleValues<Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public Optional<Object> getBody() {
+        if (bodyType == null) {
+            return body.length == 0 ? Optional.empty() : Optional.of(body);
+        }
+        Optional<Object> decodedBody = this.decodedBody;
+        if (decodedBody == null) {
+            decodedBody = (Optional<Object>) decode(bodyType);
+            this.decodedBody = decodedBody;
+        }
+        return decodedBody;
+    }
+
+    @Override
+    public <T> Optional<T> getBody(Argument<T> type) {
+        return decode(type);
+    }
+
+    @Override
+    public <T> Optional<T> getBody(ArgumentConversionContext<T> conversionContext) {
+        return decode(conversionContext.getArgument());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Optional<T> decode(Argument<T> type) {
+        if (body.length == 0) {
+            return Optional.empty();
+        }
+        Class<T> javaType = type.getType();
+        if (javaType == byte[].class) {
+            return Optional.of((T) body);
+        }
+        if (javaType == String.class || javaType == CharSequence.class) {
+            return Optional.of((T) new String(body, charset()));
+        }
+        try {
+            return Optional.ofNullable(jsonMapper.readValue(body, type));
+        } catch (IOException e) {
+            throw new CodecException("Error decoding response body: " + e.getMessage(), e);
+        }
+    }
+
+    private Charset charset() {
+        return getContentType()
+            .flatMap(MediaType::getCharset)
+            .orElse(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,496 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.transport;
+
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.core.convert.ConversionService;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpAttributes;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.exceptions.HttpClientException;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.client.exceptions.ReadTimeoutException;
+import io.micronaut.http.simple.SimpleHttpHeaders;
+import io.micronaut.json.JsonMapper;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>A minimal HTTP/1.1 transport over a Unix domain socket, used to talk to a local agent such as the Consul agent or
+ * Vault Agent without going through loopback TCP.</p>
+ *
+ * <p>Connections are kept alive and returned to a pool of up to {@link #DEFAULT_MAX_IDLE_CONNECTIONS} idle
+ * connections once their response has been read, so that heartbeats and blocking queries do not open a connection
+ * each. An idempotent request failing on a pooled connection the agent has closed in the meantime is retried once on a
+ * new connection. Exchanges block a thread of the bounded elastic scheduler while they wait for the response.</p>
+ *
+ * @since 4.5.0
+ */
+@Internal
+public final class UnixSocketHttpTransport implements Closeable {
+
+    /**
+     * The URI scheme of Unix domain socket paths.
+     */
+    public static final String SCHEME = "unix";
+
+    /**
+     * The maximum number of idle connections kept open for reuse.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+
+    private static final String SCHEME_PREFIX = SCHEME + "://";
+    private static final String CRLF = "\r\n";
+    private static final int CLIENT_ERROR = 400;
+    private static final int NO_CONTENT = 204;
+    private static final int NOT_MODIFIED = 304;
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final String CLOSE = "close";
+    private static final String HTTP_1_0 = "HTTP/1.0";
+    private static final Connection CANCELLED = new Connection(null, null);
+
+    private final Path path;
+    private final JsonMapper jsonMapper;
+    private final Duration readTimeout;
+    private final Deque<Connection> idleConnections = new ArrayDeque<>();
+    private boolean closed;
+
+    /**
+     * @param path        The path of the socket file
+     * @param jsonMapper  The mapper used to encode request bodies and decode response bodies
+     * @param readTimeout The time after which an exchange fails with a {@link ReadTimeoutException}
+     */
+    public UnixSocketHttpTransport(@NonNull Path path, @NonNull JsonMapper jsonMapper, @NonNull Duration readTimeout) {
+        this.path = path;
+        this.jsonMapper = jsonMapper;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Parses a socket path given either as a {@code unix://} URI or as a plain file path.
+     *
+     * @param value The configured value
+     * @return The path of the socket file
+     */
+    @NonNull
+    public static Path socketPath(@NonNull String value) {
+        if (value.regionMatches(true, 0, SCHEME_PREFIX, 0, SCHEME_PREFIX.length())) {
+            return Paths.get(URI.create(value).getPath());
+        }
+        return Paths.get(value);
+    }
+
+    /**
+     * @return The path of the socket file
+     */
+    @NonNull
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Sends the request over the socket. Responses with a status of 400 or above are emitted as a
+     * {@link HttpClientResponseException}, like the HTTP client does. The body of other responses is decoded to the
+     * body type of the declarative client method that sent the request, if any.
+     *
+     * @param request The request
+     * @return A publisher that emits the response
+     */
+    @NonNull
+    public Publisher<HttpResponse<?>> exchange(@NonNull HttpRequest<?> request) {
+        Mono<HttpResponse<?>> response = Mono.create(sink -> {
+            AtomicReference<Connection> inFlight = new AtomicReference<>();
+            // closing the connection also unblocks a read that is still waiting after a timeout or cancellation
+            sink.onCancel(() -> {
+                Connection connection = inFlight.getAndSet(CANCELLED);
+                if (connection != null) {
+                    connection.close();
+                }
+            });
+            Schedulers.boundedElastic().schedule(() -> {
+                try {
+                    sink.success(execute(request, inFlight));
+                } catch (IOException e) {
+                    sink.error(new HttpClientException("Error communicating with " + SCHEME_PREFIX + path + ": " + e.getMessage(), e));
+                } catch (RuntimeException e) {
+                    sink.error(e);
+                }
+            });
+        });
+        if (!readTimeout.isZero() && !readTimeout.isNegative()) {
+            response = response
+                .timeout(readTimeout)
+                .onErrorMap(TimeoutException.class, e -> ReadTimeoutException.TIMEOUT_EXCEPTION);
+        }
+        return response.flatMap(r -> {
+            if (r.code() >= CLIENT_ERROR) {
+                return Mono.error(new HttpClientResponseException(r.reason(), r));
+            }
+            return Mono.just(r);
+        });
+    }
+
+    /**
+     * Closes the idle connections. Exchanges still in progress complete, but their connections are not kept.
+     */
+    @Override
+    public void close() {
+        synchronized (idleConnections) {
+            closed = true;
+            for (Connection connection : idleConnections) {
+                connection.close();
+            }
+            idleConnections.clear();
+        }
+    }
+
+    /**
+     * @return The number of idle connections kept open for reuse
+     */
+    int getIdleConnections() {
+        synchronized (idleConnections) {
+            return idleConnections.size();
+        }
+    }
+
+    private HttpResponse<?> execute(HttpRequest<?> request, AtomicReference<Connection> inFlight) throws IOException {
+        byte[] body = encodeBody(request);
+        byte[] head = encodeHead(request, body);
+        while (true) {
+            Connection connection = pollIdleConnection();
+            boolean reused = connection != null;
+            if (connection == null) {
+                connection = connect();
+            }
+            if (!inFlight.compareAndSet(null, connection)) {
+                connection.close();
+                throw new IOException("Exchange cancelled");
+            }
+            boolean responseStarted = false;
+            try {
+                writeFully(connection.channel, ByteBuffer.wrap(head));
+                if (body.length > 0) {
+                    writeFully(connection.channel, ByteBuffer.wrap(body));
+                }
+                connection.in.mark(1);
+                if (connection.in.read() < 0) {
+                    throw new EOFException("Connection closed before the response");
+                }
+                connection.in.reset();
+                responseStarted = true;
+                Response response = receive(connection.in, request);
+                if (inFlight.compareAndSet(connection, null)) {
+                    if (response.keepAlive()) {
+                        releaseConnection(connection);
+                    } else {
+                        connection.close();
+                    }
+                }
+                return response.response();
+            } catch (IOException e) {
+                if (inFlight.compareAndSet(connection, null)) {
+                    connection.close();
+                    // the agent may close an idle connection at any time, before it has read the request
+                    if (reused && !responseStarted && isIdempotent(request.getMethod())) {
+                        continue;
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    private Response receive(InputStream in, HttpRequest<?> request) throws IOException {
+        String statusLine = readLine(in);
+        // HTTP/1.1 200 OK
+        int firstSpace = statusLine.indexOf(' ');
+        if (firstSpace < 0 || statusLine.length() < firstSpace + 4) {
+            throw new IOException("Invalid HTTP status line: " + statusLine);
+        }
+        int code;
+        try {
+            code = Integer.parseInt(statusLine.substring(firstSpace + 1, firstSpace + 4));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid HTTP status line: " + statusLine);
+        }
+        String reason = statusLine.length() > firstSpace + 5 ? statusLine.substring(firstSpace + 5) : "";
+        // error bodies are decoded to the error type by the exception, never to the body type of the method
+        Argument<?> bodyType = code < CLIENT_ERROR ? bodyType(request) : null;
+        SimpleHttpHeaders headers = new SimpleHttpHeaders(ConversionService.SHARED);
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+        }
+        boolean keepAlive = !statusLine.startsWith(HTTP_1_0) && !CLOSE.equalsIgnoreCase(headers.get(HttpHeaders.CONNECTION));
+        byte[] responseBody;
+        if (request.getMethod() == HttpMethod.HEAD || code == NO_CONTENT || code == NOT_MODIFIED || (code >= 100 && code < 200)) {
+            responseBody = new byte[0];
+        } else if ("chunked".equalsIgnoreCase(headers.get(HttpHeaders.TRANSFER_ENCODING))) {
+            responseBody = readChunked(in);
+        } else if (headers.contains(HttpHeaders.CONTENT_LENGTH)) {
+            responseBody = readFully(in, Integer.parseInt(headers.get(HttpHeaders.CONTENT_LENGTH).trim()));
+        } else {
+            // the body ends when the agent closes the connection
+            responseBody = in.readAllBytes();
+            keepAlive = false;
+        }
+        return new Response(new UnixSocketHttpResponse(code, reason, headers, responseBody, bodyType, jsonMapper), keepAlive);
+    }
+
+    private Connection connect() throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(path));
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+        return new Connection(channel, new BufferedInputStream(Channels.newInputStream(channel)));
+    }
+
+    @Nullable
+    private Connection pollIdleConnection() {
+        synchronized (idleConnections) {
+            Connection connection;
+            while ((connection = idleConnections.pollFirst()) != null) {
+                if (connection.channel.isOpen()) {
+                    return connection;
+                }
+            }
+            return null;
+        }
+    }
+
+    private void releaseConnection(Connection connection) {
+        synchronized (idleConnections) {
+            if (!closed && idleConnections.size() < DEFAULT_MAX_IDLE_CONNECTIONS) {
+                // the most recently used connection is reused first, so that surplus connections stay idle and age out
+                idleConnections.addFirst(connection);
+                return;
+            }
+        }
+        connection.close();
+    }
+
+    private static boolean isIdempotent(HttpMethod method) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.PUT
+            || method == HttpMethod.DELETE || method == HttpMethod.OPTIONS;
+    }
+
+    /**
+     * Resolves the body type of the declarative client method that sent a request, unwrapping reactive types,
+     * futures and {@link HttpResponse} like the client does.
+     *
+     * @param request The request
+     * @return The body type, or {@code null} if the request was not sent by a declarative client or has no body type
+     */
+    @Nullable
+    static Argument<?> bodyType(@NonNull HttpRequest<?> request) {
+        MethodInvocationContext<?, ?> context = request.getAttribute(HttpAttributes.INVOCATION_CONTEXT, MethodInvocationContext.class).orElse(null);
+        if (context == null) {
+            return null;
+        }
+        Argument<?> type = context.getReturnType().asArgument();
+        if (Publishers.isConvertibleToPublisher(type.getType()) || CompletionStage.class.isAssignableFrom(type.getType())) {
+            type = type.getFirstTypeVariable().orElse(Argument.OBJECT_ARGUMENT);
+        }
+        if (HttpResponse.class.isAssignableFrom(type.getType())) {
+            type = type.getFirstTypeVariable().orElse(Argument.OBJECT_ARGUMENT);
+        }
+        Class<?> javaType = type.getType();
+        if (javaType == void.class || javaType == Void.class || javaType == Object.class || javaType == byte[].class || javaType == HttpStatus.class) {
+            return null;
+        }
+        return type;
+    }
+
+    private byte[] encodeHead(HttpRequest<?> request, byte[] body) {
+        URI uri = request.getUri();
+        String target = uri.getRawPath();
+        if (target == null || target.isEmpty()) {
+            target = "/";
+        }
+        if (uri.getRawQuery() != null) {
+            target += "?" + uri.getRawQuery();
+        }
+        StringBuilder head = new StringBuilder(256)
+            .append(request.getMethodName()).append(' ').append(target).append(" HTTP/1.1").append(CRLF)
+            // the authority is meaningless on a socket file, but HTTP/1.1 requires the header
+            .append(HttpHeaders.HOST).append(": localhost").append(CRLF);
+        boolean contentType = false;
+        for (Map.Entry<String, List<String>> header : request.getHeaders()) {
+            String name = header.getKey();
+            if (HttpHeaders.HOST.equalsIgnoreCase(name)
+                || HttpHeaders.CONNECTION.equalsIgnoreCase(name)
+                || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                || HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                continue;
+            }
+            contentType |= HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name);
+            for (String value : header.getValue()) {
+                head.append(name).append(": ").append(value).append(CRLF);
+            }
+        }
+        if (body.length > 0 && !contentType) {
+            head.append(HttpHeaders.CONTENT_TYPE).append(": ").append(MediaType.APPLICATION_JSON).append(CRLF);
+        }
+        if (body.length > 0 || HttpMethod.permitsRequestBody(request.getMethod())) {
+            head.append(HttpHeaders.CONTENT_LENGTH).append(": ").append(body.length).append(CRLF);
+        }
+        head.append(CRLF);
+        return head.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private byte[] encodeBody(HttpRequest<?> request) throws IOException {
+        Object body = request.getBody().orElse(null);
+        if (body == null) {
+            return new byte[0];
+        } else if (body instanceof byte[] bytes) {
+            return bytes;
+        } else if (body instanceof CharSequence text) {
+            return text.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return jsonMapper.writeValueAsBytes(body);
+    }
+
+    private static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] readChunked(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true) {
+            String sizeLine = readLine(in);
+            int extension = sizeLine.indexOf(';');
+            int size;
+            try {
+                size = Integer.parseInt((extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size: " + sizeLine);
+            }
+            if (size == 0) {
+                // skip the trailers
+                while (!readLine(in).isEmpty()) {
+                    // ignore
+                }
+                return body.toByteArray();
+            }
+            body.write(readFully(in, size));
+            readLine(in);
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Invalid content length: " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException("Connection closed after " + bytes.length + " of " + length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Connection closed before the end of the response");
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("HTTP header line exceeds " + MAX_LINE_LENGTH + " characters");
+            }
+            line.append((char) b);
+        }
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        return line.toString();
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * A connection to the socket, with the stream its responses are read from.
+     *
+     * @param channel The channel
+     * @param in      The buffered stream reading from the channel
+     */
+    private record Connection(SocketChannel channel, BufferedInputStream in) {
+
+        void close() {
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    /**
+     * A response, and whether its connection can be reused.
+     *
+     * @param response  The response
+     * @param keepAlive Whether the connection can be reused
+     */
+    private record Response(HttpResponse<?> response, boolean keepAlive) {
+    }
+}
@@ -56,6 +56,7 @@ public class ConsulConfiguration extends DiscoveryClientConfiguration {
     private final ConsulConnectionPoolConfiguration consulConnectionPoolConfiguration;
 
     private String aslToken;
+    private String unixSocket;
     private boolean healthCheck = true;
     private ConsulRegistrationConfiguration registration = new ConsulRegistrationConfiguration();
     private ConsulDiscoveryConfiguration discovery = new ConsulDiscoveryConfiguration();
@@ -134,6 +135,23 @@ public class ConsulConfiguration extends DiscoveryClientConfiguration {
         this.aslToken = aslToken;
     }
 
+    /**
+     * @return The Unix domain socket of the local Consul agent, if requests should not use TCP
+     */
+    public Optional<String> getUnixSocket() {
+        return Optional.ofNullable(unixSocket);
+    }
+
+    /**
+     * Sets the Unix domain socket of the local Consul agent, either as a {@code unix://} URI or as a file path. When
+     * set, all requests to Consul are sent over the socket instead of TCP.
+     *
+     * @param unixSocket The Unix domain socket of the local Consul agent
+     */
+    public void setUnixSocket(String unixSocket) {
+        this.unixSocket = unixSocket;
+    }
+
     /**
      * @return The registration configuration
      */
@@ -182,6 +200,7 @@ public class ConsulConfiguration extends DiscoveryClientConfiguration {
     public String toString() {
         return "ConsulConfiguration{" +
             "aslToken='" + aslToken + '\'' +
+            ", unixSocket='" + unixSocket + '\'' +
             ", registration=" + registration +
             ", discovery=" + discovery +
             "} " + super.toString();
@@ -404,6 +423,18 @@ public class ConsulConfiguration extends DiscoveryClientConfiguration {
             @SuppressWarnings("WeakerAccess")
             public static final boolean DEFAULT_HTTP = false;
 
+            /**
+             * The default tcp value.
+             */
+            @SuppressWarnings("WeakerAccess")
+            public static final boolean DEFAULT_TCP = false;
+
+            /**
+             * The default grpc value.
+             */
+            @SuppressWarnings("WeakerAccess")
+            public static final boolean DEFAULT_GRPC = false;
+
             /**
              * The default interval seconds.
              */
@@ -419,6 +450,12 @@ public class ConsulConfiguration extends DiscoveryClientConfiguration {
             private Boolean tlsSkipVerify;
             private boolean enabled = DEFAULT_ENABLED;
             private boolean http = DEFAULT_HTTP;
+            private boolean tcp = DEFAULT_TCP;
+            private boolean grpc = DEFAULT_GRPC;
+            private String grpcService;
+            private Boolean grpcUseTls;
+            private Integer port;
+            private Duration timeout;
 
             /**
              * @return The interval for the checks
@@ -450,6 +487,112 @@ public class ConsulConfiguration extends DiscoveryClientConfiguration {
                 this.http = http;
             }
 
+            /**
+             * @return Whether to perform a TCP check, which only opens a connection to the service port
+             * @since 4.5.0
+             */
+            public boolean isTcp() {
+                return tcp;
+            }
+
+            /**
+             * Default value ({@value #DEFAULT_TCP}).
+             * @param tcp Whether to perform a TCP check, which only opens a connection to the service port
+             * @since 4.5.0
+             */
+            public void setTcp(boolean tcp) {
+                this.tcp = tcp;
+            }
+
+            /**
+             * @return Whether to perform a gRPC check against the standard gRPC health checking protocol
+             * @since 4.5.0
+             */
+            public boolean isGrpc() {
+                return grpc;
+            }
+
+            /**
+             * Default value ({@value #DEFAULT_GRPC}).
+             * @param grpc Whether to perform a gRPC check against the standard gRPC health checking protocol
+             * @since 4.5.0
+             */
+            public void setGrpc(boolean grpc) {
+                this.grpc = grpc;
+            }
+
+            /**
+             * @return The gRPC service to check. When absent, the overall health of the server is checked.
+             * @since 4.5.0
+             */
+            public Optional<String> getGrpcService() {
+                return Optional.ofNullable(grpcService);
+            }
+
+            /**
+             * @param grpcService The gRPC service to check
+             * @since 4.5.0
+             */
+            public void setGrpcService(String grpcService) {
+                this.grpcService = grpcService;
+            }
+
+            /**
+             * @return Whether to use TLS for a gRPC check
+             * @since 4.5.0
+             */
+            public Optional<Boolean> getGrpcUseTls() {
+                return Optional.ofNullable(grpcUseTls);
+            }
+
+            /**
+             * @param grpcUseTls Whether to use TLS for a gRPC check
+             * @since 4.5.0
+             */
+            public void setGrpcUseTls(Boolean grpcUseTls) {
+                this.grpcUseTls = grpcUseTls;
+            }
+
+            /**
+             * @return The port of a TCP or gRPC check. Defaults to the port of the registered service.
+             * @since 4.5.0
+             */
+            public Optional<Integer> getPort() {
+                return Optional.ofNullable(port);
+            }
+
+            /**
+             * @param port The port of a TCP or gRPC check, for example the port of a gRPC server
+             * @since 4.5.0
+             */
+            public void setPort(Integer port) {
+                this.port = port;
+            }
+
+            /**
+             * @return The timeout of an HTTP, TCP or gRPC check
+             * @since 4.5.0
+             */
+            public Optional<Duration> getTimeout() {
+                return Optional.ofNullable(timeout);
+            }
+
+            /**
+             * @param timeout The timeout of an HTTP, TCP or gRPC check. Consul uses 10 seconds when not set.
+             * @since 4.5.0
+             */
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+
+            /**
+             * @return Whether Consul performs the check itself, rather than expecting TTL heartbeats from the application
+             * @since 4.5.0
+             */
+            public boolean isPerformedByAgent() {
+                return http || tcp || grpc;
+            }
+
             /**
              * @return Whether the check module is enabled
              */
@@ -559,6 +702,13 @@ public class ConsulConfiguration extends DiscoveryClientConfiguration {
                     ", notes='" + notes + '\'' +
                     ", id='" + id + '\'' +
                     ", tlsSkipVerify=" + tlsSkipVerify +
+                    ", http=" + http +
+                    ", tcp=" + tcp +
+                    ", grpc=" + grpc +
+                    ", grpcService='" + grpcService + '\'' +
+                    ", grpcUseTls=" + grpcUseTls +
+                    ", port=" + port +
+                    ", timeout=" + timeout +
                     ", enabled=" + enabled +
                     '}';
             }
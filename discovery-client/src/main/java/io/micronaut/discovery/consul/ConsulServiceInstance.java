@@ -102,6 +102,28 @@ public class ConsulServiceInstance implements ServiceInstance {
         return HealthStatus.UP;
     }
 
+    /**
+     * @return The weights used to distribute traffic to this instance, if Consul reported any
+     */
+    public Optional<ConsulWeights> getWeights() {
+        return Optional.ofNullable(healthEntry.service().weights());
+    }
+
+    /**
+     * @return Whether any check of this instance is in warning state
+     */
+    public boolean isWarning() {
+        List<ConsulCheck> checks = healthEntry.checks();
+        if (CollectionUtils.isNotEmpty(checks)) {
+            for (ConsulCheck check : checks) {
+                if (ConsulCheckStatus.WARNING.toString().equals(check.getStatus())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * @return The {@link ConsulHealthEntry}
      * @deprecated not used
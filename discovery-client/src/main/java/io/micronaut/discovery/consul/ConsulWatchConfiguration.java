@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.consul.condition.RequiresConsul;
+import io.micronaut.http.client.HttpClientConfiguration;
+import io.micronaut.http.client.HttpVersionSelection;
+import io.micronaut.runtime.ApplicationConfiguration;
+import jakarta.inject.Inject;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>The HTTP client configuration used for Consul blocking queries.</p>
+ *
+ * <p>Blocking queries hold a connection for up to {@link #getWait() wait}. They use their own client, connection pool
+ * and timeouts so that they never delay short requests such as TTL check passes and registrations, which keep using
+ * the {@link ConsulConfiguration}.</p>
+ *
+ * @since 4.5.0
+ */
+@RequiresConsul
+@ConfigurationProperties(ConsulWatchConfiguration.PREFIX)
+@BootstrapContextCompatible
+@Requires(property = ConsulConfiguration.PREFIX)
+public class ConsulWatchConfiguration extends HttpClientConfiguration {
+
+    /**
+     * The prefix to use for all Consul watch settings.
+     */
+    public static final String PREFIX = ConsulConfiguration.PREFIX + ".watch";
+
+    /**
+     * The default wait in minutes.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_WAIT_MINUTES = 5;
+
+    /**
+     * The default time in minutes after which a service that is not looked up is no longer watched.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_SERVICE_IDLE_TIMEOUT_MINUTES = 10;
+
+    /**
+     * Consul adds a random jitter of up to a sixteenth of the wait to every blocking query.
+     */
+    private static final int WAIT_JITTER_DIVISOR = 16;
+    private static final Duration READ_TIMEOUT_MARGIN = Duration.ofSeconds(10);
+    private static final List<String> HTTP2_ALPN_MODES = List.of(HttpVersionSelection.ALPN_HTTP_2, HttpVersionSelection.ALPN_HTTP_1);
+
+    private final ConsulWatchConnectionPoolConfiguration connectionPoolConfiguration;
+
+    private boolean enabled;
+    private Duration wait = Duration.ofMinutes(DEFAULT_WAIT_MINUTES);
+    private Duration readTimeout;
+    private boolean http2;
+    private Duration serviceIdleTimeout = Duration.ofMinutes(DEFAULT_SERVICE_IDLE_TIMEOUT_MINUTES);
+
+    /**
+     * Default constructor.
+     */
+    public ConsulWatchConfiguration() {
+        this.connectionPoolConfiguration = new ConsulWatchConnectionPoolConfiguration();
+    }
+
+    /**
+     * @param connectionPoolConfiguration The connection pool configuration of blocking queries
+     * @param applicationConfiguration    The application configuration
+     */
+    @Inject
+    public ConsulWatchConfiguration(ConsulWatchConnectionPoolConfiguration connectionPoolConfiguration, ApplicationConfiguration applicationConfiguration) {
+        super(applicationConfiguration);
+        this.connectionPoolConfiguration = connectionPoolConfiguration;
+    }
+
+    @Override
+    public ConnectionPoolConfiguration getConnectionPoolConfiguration() {
+        return connectionPoolConfiguration;
+    }
+
+    /**
+     * @return Whether discovered instances are kept up to date by watching Consul
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether discovered instances are kept up to date by a single blocking query on the health state of the
+     * datacenter, which triggers a fetch of only the services that changed. Default value (false).
+     *
+     * @param enabled Whether discovered instances are kept up to date by watching Consul
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The maximum time Consul holds a blocking query before answering it unchanged
+     */
+    public Duration getWait() {
+        return wait;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_WAIT_MINUTES} minutes). Consul caps the wait at 10 minutes.
+     *
+     * @param wait The maximum time Consul holds a blocking query before answering it unchanged
+     */
+    public void setWait(Duration wait) {
+        if (wait != null) {
+            this.wait = wait;
+        }
+    }
+
+    /**
+     * @return The wait in the format of the {@code wait} query parameter
+     */
+    public String getWaitParameter() {
+        return wait.toSeconds() + "s";
+    }
+
+    /**
+     * @return The time after which a service that is not looked up is no longer watched
+     */
+    public Duration getServiceIdleTimeout() {
+        return serviceIdleTimeout;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_SERVICE_IDLE_TIMEOUT_MINUTES} minutes).
+     *
+     * @param serviceIdleTimeout The time after which a service that is not looked up is no longer watched
+     */
+    public void setServiceIdleTimeout(Duration serviceIdleTimeout) {
+        if (serviceIdleTimeout != null) {
+            this.serviceIdleTimeout = serviceIdleTimeout;
+        }
+    }
+
+    /**
+     * @return Whether blocking queries are sent over HTTP/2
+     */
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    /**
+     * Sets whether blocking queries are sent over HTTP/2, so that all watches against an agent are multiplexed over a
+     * single connection instead of holding one connection each. Plaintext connections use h2c with prior knowledge,
+     * secure connections negotiate HTTP/2 with ALPN. Default value (false).
+     *
+     * @param http2 Whether blocking queries are sent over HTTP/2
+     */
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    @Override
+    public HttpVersionSelection.PlaintextMode getPlaintextMode() {
+        return http2 ? HttpVersionSelection.PlaintextMode.H2C : super.getPlaintextMode();
+    }
+
+    @Override
+    public List<String> getAlpnModes() {
+        List<String> alpnModes = super.getAlpnModes();
+        if (http2 && (alpnModes.isEmpty() || !HttpVersionSelection.ALPN_HTTP_2.equals(alpnModes.get(0)))) {
+            return HTTP2_ALPN_MODES;
+        }
+        return alpnModes;
+    }
+
+    /**
+     * Unless set explicitly, the read timeout is derived from the wait, allowing for the jitter Consul adds to it.
+     *
+     * @return The read timeout
+     */
+    @Override
+    public Optional<Duration> getReadTimeout() {
+        if (readTimeout != null) {
+            return Optional.of(readTimeout);
+        }
+        return Optional.of(wait.plus(wait.dividedBy(WAIT_JITTER_DIVISOR)).plus(READ_TIMEOUT_MARGIN));
+    }
+
+    @Override
+    public void setReadTimeout(@Nullable Duration readTimeout) {
+        super.setReadTimeout(readTimeout);
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * A connection carrying a blocking query is idle until Consul answers, so the read idle timeout is never shorter
+     * than the read timeout.
+     *
+     * @return The read idle timeout
+     */
+    @Override
+    public Optional<Duration> getReadIdleTimeout() {
+        Optional<Duration> readTimeout = getReadTimeout();
+        Optional<Duration> readIdleTimeout = super.getReadIdleTimeout();
+        if (readTimeout.isPresent() && readIdleTimeout.isPresent() && readIdleTimeout.get().compareTo(readTimeout.get()) < 0) {
+            return readTimeout;
+        }
+        return readIdleTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsulWatchConfiguration{" +
+            "enabled=" + enabled +
+            ", wait=" + wait +
+            ", http2=" + http2 +
+            ", serviceIdleTimeout=" + serviceIdleTimeout +
+            ", readTimeout=" + getReadTimeout().orElse(null) +
+            "}";
+    }
+
+    /**
+     * The connection pool configuration of blocking queries.
+     */
+    @ConfigurationProperties(ConnectionPoolConfiguration.PREFIX)
+    @BootstrapContextCompatible
+    public static class ConsulWatchConnectionPoolConfiguration extends ConnectionPoolConfiguration {
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.ServiceInstanceList;
+import io.micronaut.discovery.consul.client.v1.ConsulWatchClient;
+import io.micronaut.discovery.consul.condition.RequiresConsul;
+import jakarta.inject.Singleton;
+
+import java.util.List;
+
+/**
+ * A {@link ServiceInstanceList} that points the {@link ConsulWatchClient} at the same Consul agents as the
+ * {@link io.micronaut.discovery.consul.client.v1.ConsulClient}.
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@RequiresConsul
+@BootstrapContextCompatible
+public class ConsulWatchServiceInstanceList implements ServiceInstanceList {
+
+    private final ConsulServiceInstanceList consulServiceInstanceList;
+
+    /**
+     * @param consulServiceInstanceList The instances of the Consul agents
+     */
+    public ConsulWatchServiceInstanceList(ConsulServiceInstanceList consulServiceInstanceList) {
+        this.consulServiceInstanceList = consulServiceInstanceList;
+    }
+
+    @Override
+    public String getID() {
+        return ConsulWatchClient.SERVICE_ID;
+    }
+
+    @Override
+    public List<ServiceInstance> getInstances() {
+        return consulServiceInstanceList.getInstances();
+    }
+}
@@ -17,12 +17,19 @@ package io.micronaut.discovery.consul.client.v1;
 
 import io.micronaut.context.annotation.BootstrapContextCompatible;
 import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.annotation.TypeHint;
 import io.micronaut.core.async.publisher.Publishers;
 import io.micronaut.core.naming.NameUtils;
 import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.client.breaker.DiscoveryCircuitBreaker;
+import io.micronaut.discovery.client.breaker.DiscoveryCircuitBreakers;
+import io.micronaut.discovery.client.jfr.DiscoveryEvents;
+import io.micronaut.discovery.client.management.DiscoveryActivity;
+import io.micronaut.discovery.client.registry.RegistrySnapshotStore;
 import io.micronaut.discovery.consul.ConsulConfiguration;
 import io.micronaut.discovery.consul.ConsulServiceInstance;
+import io.micronaut.discovery.consul.watch.ConsulServiceWatcher;
 import io.micronaut.http.client.annotation.Client;
 import jakarta.inject.Inject;
 import org.reactivestreams.Publisher;
@@ -51,6 +58,10 @@ public abstract class AbstractConsulClient implements ConsulClient {
     static final String EXPR_CONSUL_CONFIG_RETRY_DELAY = "${" + ConsulConfiguration.ConsulConfigDiscoveryConfiguration.PREFIX + ".retry-delay:1s}";
 
     private ConsulConfiguration consulConfiguration = new ConsulConfiguration();
+    private RegistrySnapshotStore registrySnapshotStore;
+    private DiscoveryCircuitBreaker circuitBreaker;
+    private ConsulServiceWatcher serviceWatcher;
+    private DiscoveryActivity discoveryActivity;
 
     /**
      * @param consulConfiguration The Consul configuration
@@ -62,6 +73,38 @@ public abstract class AbstractConsulClient implements ConsulClient {
         }
     }
 
+    /**
+     * @param registrySnapshotStore The registry snapshot store used to warm the first lookups after startup
+     */
+    @Inject
+    public void setRegistrySnapshotStore(@Nullable RegistrySnapshotStore registrySnapshotStore) {
+        this.registrySnapshotStore = registrySnapshotStore;
+    }
+
+    /**
+     * @param circuitBreakers The circuit breakers protecting lookups against Consul
+     */
+    @Inject
+    public void setCircuitBreakers(@Nullable DiscoveryCircuitBreakers circuitBreakers) {
+        this.circuitBreaker = circuitBreakers != null ? circuitBreakers.get(SERVICE_ID) : null;
+    }
+
+    /**
+     * @param serviceWatcher The watcher keeping discovered instances up to date
+     */
+    @Inject
+    public void setServiceWatcher(@Nullable ConsulServiceWatcher serviceWatcher) {
+        this.serviceWatcher = serviceWatcher;
+    }
+
+    /**
+     * @param discoveryActivity The activity reported by the discovery management endpoint
+     */
+    @Inject
+    public void setDiscoveryActivity(@Nullable DiscoveryActivity discoveryActivity) {
+        this.discoveryActivity = discoveryActivity;
+    }
+
     @Override
     public String getDescription() {
         return ConsulClient.SERVICE_ID;
@@ -93,14 +136,30 @@ public abstract class AbstractConsulClient implements ConsulClient {
             String tag = discovery.getTags().get(serviceId);
             Optional<String> scheme = Optional.ofNullable(discovery.getSchemes().get(serviceId));
 
-            Publisher<List<ConsulHealthEntry>> healthyServicesPublisher = findHealthyServices(serviceId, passing, tag, datacenter);
-            return Publishers.map(healthyServicesPublisher, healthEntries -> {
-                List<ServiceInstance> serviceInstances = new ArrayList<>();
-                for (ConsulHealthEntry healthEntry : healthEntries) {
-                    serviceInstances.add(new ConsulServiceInstance(healthEntry, scheme.orElse("http")));
-                }
-                return serviceInstances;
-            });
+            Publisher<List<ServiceInstance>> instances;
+            if (serviceWatcher != null && datacenter == null) {
+                // the watcher only observes the local datacenter
+                instances = serviceWatcher.getInstances(serviceId);
+            } else {
+                Publisher<List<ConsulHealthEntry>> healthyServicesPublisher = findHealthyServices(serviceId, passing, tag, datacenter);
+                instances = Publishers.map(healthyServicesPublisher, healthEntries -> {
+                    List<ServiceInstance> serviceInstances = new ArrayList<>();
+                    for (ConsulHealthEntry healthEntry : healthEntries) {
+                        serviceInstances.add(new ConsulServiceInstance(healthEntry, scheme.orElse("http")));
+                    }
+                    return serviceInstances;
+                });
+            }
+            if (circuitBreaker != null) {
+                instances = circuitBreaker.execute(serviceId, instances);
+            }
+            if (registrySnapshotStore != null) {
+                instances = registrySnapshotStore.warm(SERVICE_ID, serviceId, instances);
+            }
+            if (discoveryActivity != null) {
+                instances = discoveryActivity.lookup(SERVICE_ID, serviceId, instances);
+            }
+            return DiscoveryEvents.lookup(SERVICE_ID, serviceId, instances);
         }
     }
 }
@@ -34,7 +34,7 @@ import java.util.Optional;
  * @author Graeme Rocher
  * @since 1.0
  */
-@Filter(patterns = "/v1/**", serviceId = ConsulClient.SERVICE_ID)
+@Filter(patterns = "/v1/**", serviceId = {ConsulClient.SERVICE_ID, ConsulWatchClient.SERVICE_ID})
 @Requires(beans = ConsulConfiguration.class)
 @BootstrapContextCompatible
 public class ConsulAslTokenFilter implements HttpClientFilter, Toggleable {
@@ -74,6 +74,34 @@ public class ConsulCheck {
     @JsonProperty("HTTP")
     private URL http;
 
+    /**
+     * Specifies a TCP to connect against the value of TCP (expected to be an IP or hostname plus port combination) every Interval. If the connection attempt is successful, the check is passing. If the connection attempt is unsuccessful, the check is critical.
+     */
+    @Nullable
+    @JsonProperty("TCP")
+    private String tcp;
+
+    /**
+     * Specifies a gRPC check's endpoint that supports the standard gRPC health checking protocol. The state of the check will be updated at the given Interval by probing the configured endpoint. Add the service identifier after the gRPC check's endpoint in the following format to check for a specific service instead of the whole gRPC server: /:service_identifier.
+     */
+    @Nullable
+    @JsonProperty("GRPC")
+    private String grpc;
+
+    /**
+     * Specifies whether to use TLS for this gRPC health check.
+     */
+    @Nullable
+    @JsonProperty("GRPCUseTLS")
+    private Boolean grpcUseTls;
+
+    /**
+     * Specifies a timeout for outgoing connections in the case of a Script, HTTP, TCP, or gRPC check. Must be a duration string, such as 10s or 5m.
+     */
+    @Nullable
+    @JsonProperty("Timeout")
+    private String timeout;
+
     /**
      * Specifies a different HTTP method to be used for an HTTP check. When no value is specified, GET is used.
      */
@@ -200,6 +228,78 @@ public class ConsulCheck {
         this.http = http;
     }
 
+    /**
+     *
+     * @return Specifies a TCP check against the value of TCP (expected to be an IP or hostname plus port combination).
+     * @since 4.5.0
+     */
+    public String getTcp() {
+        return tcp;
+    }
+
+    /**
+     *
+     * @param tcp Specifies a TCP check against the value of TCP (expected to be an IP or hostname plus port combination).
+     * @since 4.5.0
+     */
+    public void setTcp(String tcp) {
+        this.tcp = tcp;
+    }
+
+    /**
+     *
+     * @return Specifies a gRPC check's endpoint that supports the standard gRPC health checking protocol.
+     * @since 4.5.0
+     */
+    public String getGrpc() {
+        return grpc;
+    }
+
+    /**
+     *
+     * @param grpc Specifies a gRPC check's endpoint that supports the standard gRPC health checking protocol.
+     * @since 4.5.0
+     */
+    public void setGrpc(String grpc) {
+        this.grpc = grpc;
+    }
+
+    /**
+     *
+     * @return Specifies whether to use TLS for this gRPC health check.
+     * @since 4.5.0
+     */
+    public Boolean getGrpcUseTls() {
+        return grpcUseTls;
+    }
+
+    /**
+     *
+     * @param grpcUseTls Specifies whether to use TLS for this gRPC health check.
+     * @since 4.5.0
+     */
+    public void setGrpcUseTls(Boolean grpcUseTls) {
+        this.grpcUseTls = grpcUseTls;
+    }
+
+    /**
+     *
+     * @return Specifies a timeout for outgoing connections in the case of a Script, HTTP, TCP, or gRPC check.
+     * @since 4.5.0
+     */
+    public String getTimeout() {
+        return timeout;
+    }
+
+    /**
+     *
+     * @param timeout Specifies a timeout for outgoing connections in the case of a Script, HTTP, TCP, or gRPC check.
+     * @since 4.5.0
+     */
+    public void setTimeout(String timeout) {
+        this.timeout = timeout;
+    }
+
     /**
      *
      * @return Specifies a different HTTP method to be used for an HTTP check. When no value is specified, GET is used.
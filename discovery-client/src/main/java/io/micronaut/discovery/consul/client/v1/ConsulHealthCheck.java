@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.client.v1;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.annotation.Serdeable;
+
+/**
+ * JSON representation of a health check as returned by the health state endpoint.
+ * @see <a href="https://developer.hashicorp.com/consul/api-docs/health#list-checks-in-state">List Checks in State</a>.
+ * @since 4.5.0
+ *
+ * @param node        The node of the check
+ * @param checkId     The check ID
+ * @param status      The status of the check
+ * @param serviceId   The ID of the service instance, or empty for node checks
+ * @param serviceName The name of the service, or empty for node checks
+ * @param modifyIndex The index of the last modification of the check
+ */
+@Serdeable
+public record ConsulHealthCheck(
+    @Nullable
+    @JsonProperty("Node")
+    String node,
+
+    @Nullable
+    @JsonProperty("CheckID")
+    String checkId,
+
+    @Nullable
+    @JsonProperty("Status")
+    String status,
+
+    @Nullable
+    @JsonProperty("ServiceID")
+    String serviceId,
+
+    @Nullable
+    @JsonProperty("ServiceName")
+    String serviceName,
+
+    @JsonProperty("ModifyIndex")
+    long modifyIndex) {
+}
@@ -33,6 +33,7 @@ import java.util.Map;
  * @param tags A list of tags to assign to the service
  * @param id Unique ID of the service
  * @param meta Arbitrary KV metadata linked to the service instance.
+ * @param weights The weights used to distribute traffic to the service instance
  */
 @Serdeable
 public record ConsulServiceEntry(
@@ -56,5 +57,28 @@ public record ConsulServiceEntry(
 
     @Nullable
     @JsonProperty("Meta")
-    Map<String, String> meta) {
+    Map<String, String> meta,
+
+    @Nullable
+    @JsonProperty("Weights")
+    ConsulWeights weights) {
+
+    /**
+     * Creates a service entry without weights.
+     *
+     * @param service The service
+     * @param address The address of the service
+     * @param port The port of the service
+     * @param tags A list of tags to assign to the service
+     * @param id Unique ID of the service
+     * @param meta Arbitrary KV metadata linked to the service instance.
+     */
+    public ConsulServiceEntry(String service,
+                              @Nullable String address,
+                              @Nullable Integer port,
+                              @Nullable List<String> tags,
+                              @Nullable String id,
+                              @Nullable Map<String, String> meta) {
+        this(service, address, port, tags, id, meta, null);
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.client.v1;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.order.Ordered;
+import io.micronaut.discovery.client.transport.UnixSocketHttpTransport;
+import io.micronaut.discovery.consul.ConsulConfiguration;
+import io.micronaut.discovery.consul.ConsulWatchConfiguration;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.ClientFilterChain;
+import io.micronaut.http.filter.HttpClientFilter;
+import io.micronaut.json.JsonMapper;
+import jakarta.annotation.PreDestroy;
+import org.reactivestreams.Publisher;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * A {@link HttpClientFilter} that sends requests to the local Consul agent over the Unix domain socket configured
+ * with {@code consul.client.unix-socket} instead of TCP.
+ *
+ * @since 4.5.0
+ */
+@Filter(patterns = "/v1/**", serviceId = {ConsulClient.SERVICE_ID, ConsulWatchClient.SERVICE_ID})
+@Requires(beans = ConsulConfiguration.class)
+@Requires(property = ConsulConfiguration.PREFIX + ".unix-socket")
+@BootstrapContextCompatible
+public class ConsulUnixSocketFilter implements HttpClientFilter {
+
+    private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(10);
+    private static final String PARAMETER_INDEX = "index";
+
+    private final UnixSocketHttpTransport transport;
+    private final UnixSocketHttpTransport watchTransport;
+
+    /**
+     * @param configuration      The Consul configuration
+     * @param watchConfiguration The configuration of blocking queries
+     * @param jsonMapper         The mapper used to encode and decode bodies
+     */
+    public ConsulUnixSocketFilter(ConsulConfiguration configuration,
+                                  ConsulWatchConfiguration watchConfiguration,
+                                  JsonMapper jsonMapper) {
+        Path path = UnixSocketHttpTransport.socketPath(configuration.getUnixSocket()
+            .orElseThrow(() -> new IllegalStateException("No Unix domain socket configured for Consul")));
+        this.transport = new UnixSocketHttpTransport(path, jsonMapper, configuration.getReadTimeout().orElse(DEFAULT_READ_TIMEOUT));
+        this.watchTransport = new UnixSocketHttpTransport(path, jsonMapper, watchConfiguration.getReadTimeout().orElse(DEFAULT_READ_TIMEOUT));
+    }
+
+    @Override
+    public Publisher<? extends HttpResponse<?>> doFilter(MutableHttpRequest<?> request, ClientFilterChain chain) {
+        // blocking queries are held by Consul for up to their wait, so they need the longer timeout of the watch client
+        if (request.getParameters().contains(PARAMETER_INDEX)) {
+            return watchTransport.exchange(request);
+        }
+        return transport.exchange(request);
+    }
+
+    /**
+     * Closes the idle connections to the socket.
+     */
+    @PreDestroy
+    public void close() {
+        transport.close();
+        watchTransport.close();
+    }
+
+    @Override
+    public int getOrder() {
+        // run after every other filter, such as the one adding the ACL token, has modified the request
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.client.v1;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.consul.ConsulWatchConfiguration;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.client.annotation.Client;
+import jakarta.validation.constraints.NotNull;
+import org.reactivestreams.Publisher;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A client for Consul blocking queries.</p>
+ *
+ * <p>A blocking query passes the {@value #HEADER_CONSUL_INDEX} of the previous response as the {@code index} parameter
+ * and is held by Consul until the result changes or the {@code wait} elapses. The client uses the
+ * {@link ConsulWatchConfiguration}, so its long-lived requests have their own connection pool and timeouts and never
+ * delay the short requests of the {@link ConsulClient}.</p>
+ *
+ * @since 4.5.0
+ */
+@Client(id = ConsulWatchClient.SERVICE_ID, path = "/v1", configuration = ConsulWatchConfiguration.class)
+@Requires(beans = ConsulWatchConfiguration.class)
+@BootstrapContextCompatible
+public interface ConsulWatchClient {
+
+    /**
+     * The ID of the client.
+     */
+    String SERVICE_ID = "consul-watch";
+
+    /**
+     * The header carrying the index of a blocking query result.
+     */
+    String HEADER_CONSUL_INDEX = "X-Consul-Index";
+
+    /**
+     * Watches the health entries of a service.
+     *
+     * @param service The service
+     * @param passing Whether to only include instances passing all checks
+     * @param tag     The tag
+     * @param dc      The dc
+     * @param index   The index of the previous result, or {@code null} for an immediate answer
+     * @param wait    The maximum time to hold the query, for example {@code 5m}
+     * @return The response carrying the {@link ConsulHealthEntry} instances and the {@value #HEADER_CONSUL_INDEX} header
+     */
+    @Get(uri = "/health/service/{service}{?passing,tag,dc,index,wait}", single = true)
+    Publisher<HttpResponse<List<ConsulHealthEntry>>> watchHealthyServices(
+        @NotNull String service,
+        @Nullable Boolean passing,
+        @Nullable String tag,
+        @Nullable String dc,
+        @Nullable Long index,
+        @Nullable String wait);
+
+    /**
+     * Watches the services registered in the catalog.
+     *
+     * @param dc    The dc
+     * @param index The index of the previous result, or {@code null} for an immediate answer
+     * @param wait  The maximum time to hold the query, for example {@code 5m}
+     * @return The response carrying the tags keyed by service name and the {@value #HEADER_CONSUL_INDEX} header
+     */
+    @Get(uri = "/catalog/services{?dc,index,wait}", single = true)
+    Publisher<HttpResponse<Map<String, List<String>>>> watchServices(
+        @Nullable String dc,
+        @Nullable Long index,
+        @Nullable String wait);
+
+    /**
+     * Watches the health checks of the nodes and services in the datacenter. A single query reports a change of any
+     * service, whose {@link ConsulHealthCheck#modifyIndex() modify index} identifies the services to fetch again.
+     *
+     * @param dc     The dc
+     * @param filter The filter expression that selects the checks to return, for example
+     *               {@code ServiceName == "foo"}
+     * @param index  The index of the previous result, or {@code null} for an immediate answer
+     * @param wait   The maximum time to hold the query, for example {@code 5m}
+     * @return The response carrying the {@link ConsulHealthCheck} instances and the {@value #HEADER_CONSUL_INDEX} header
+     */
+    @Get(uri = "/health/state/any{?dc,filter,index,wait}", single = true)
+    Publisher<HttpResponse<List<ConsulHealthCheck>>> watchHealthChecks(
+        @Nullable String dc,
+        @Nullable String filter,
+        @Nullable Long index,
+        @Nullable String wait);
+
+    /**
+     * Resolves the index to pass to the next blocking query. Following the Consul guidance the index restarts from
+     * zero when it goes backwards, and is never smaller than one otherwise.
+     *
+     * @param response      The response of the previous query
+     * @param previousIndex The index passed to the previous query
+     * @return The index for the next query, or zero if the response carries no usable index
+     */
+    static long nextIndex(@NonNull HttpResponse<?> response, long previousIndex) {
+        String header = response.getHeaders().get(HEADER_CONSUL_INDEX);
+        if (header == null) {
+            return 0L;
+        }
+        long index;
+        try {
+            index = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+        if (index < previousIndex) {
+            return 0L;
+        }
+        return Math.max(index, 1L);
+    }
+}
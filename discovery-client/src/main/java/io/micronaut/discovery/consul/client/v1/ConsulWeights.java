@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017-2023 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.client.v1;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.annotation.Serdeable;
+
+/**
+ * JSON representation of the weights of a Consul service, used to distribute traffic between its instances.
+ * @since 4.5.0
+ *
+ * @param passing The weight of the instance while all its checks are passing
+ * @param warning The weight of the instance while any of its checks is in warning state
+ */
+@Serdeable
+public record ConsulWeights(
+    @Nullable
+    @JsonProperty("Passing")
+    Integer passing,
+
+    @Nullable
+    @JsonProperty("Warning")
+    Integer warning) {
+}
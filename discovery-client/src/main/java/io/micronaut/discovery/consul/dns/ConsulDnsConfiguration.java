@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.dns;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.core.util.Toggleable;
+import io.micronaut.discovery.consul.ConsulConfiguration;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration for the discovery of Consul services through the Consul DNS interface.
+ *
+ * @since 4.5.0
+ */
+@ConfigurationProperties(ConsulDnsConfiguration.PREFIX)
+@Requires(property = ConsulDnsConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class ConsulDnsConfiguration implements Toggleable {
+
+    /**
+     * The prefix to use for all Consul DNS settings.
+     */
+    public static final String PREFIX = ConsulConfiguration.PREFIX + ".dns";
+
+    /**
+     * The default DNS server, the DNS interface of the local Consul agent.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String DEFAULT_SERVER = "127.0.0.1:8600";
+
+    /**
+     * The default domain.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String DEFAULT_DOMAIN = "consul";
+
+    /**
+     * The default query timeout in milliseconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_TIMEOUT_MILLIS = 2000;
+
+    /**
+     * The default minimum time to live in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MIN_TTL_SECONDS = 5;
+
+    /**
+     * The default maximum time to live in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_TTL_SECONDS = 60;
+
+    private boolean enabled;
+    private List<String> servers = Collections.singletonList(DEFAULT_SERVER);
+    private String domain = DEFAULT_DOMAIN;
+    private Duration timeout = Duration.ofMillis(DEFAULT_TIMEOUT_MILLIS);
+    private Duration minTtl = Duration.ofSeconds(DEFAULT_MIN_TTL_SECONDS);
+    private Duration maxTtl = Duration.ofSeconds(DEFAULT_MAX_TTL_SECONDS);
+
+    /**
+     * @return Whether services are discovered through the Consul DNS interface
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Default value (false).
+     * @param enabled Whether services are discovered through the Consul DNS interface
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The DNS servers, tried in order
+     */
+    public List<String> getServers() {
+        return servers;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_SERVER}).
+     * @param servers The DNS servers as {@code host:port}, tried in order
+     */
+    public void setServers(List<String> servers) {
+        if (servers != null && !servers.isEmpty()) {
+            this.servers = servers;
+        }
+    }
+
+    /**
+     * @return The domain of the Consul DNS interface
+     */
+    public String getDomain() {
+        return domain;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_DOMAIN}).
+     * @param domain The domain of the Consul DNS interface
+     */
+    public void setDomain(String domain) {
+        if (StringUtils.isNotEmpty(domain)) {
+            this.domain = domain;
+        }
+    }
+
+    /**
+     * @return The timeout of a query against a single server
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_TIMEOUT_MILLIS} milliseconds).
+     * @param timeout The timeout of a query against a single server
+     */
+    public void setTimeout(Duration timeout) {
+        if (timeout != null) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * @return The minimum time resolved instances are cached
+     */
+    public Duration getMinTtl() {
+        return minTtl;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_MIN_TTL_SECONDS} seconds). Consul answers with a time to live of zero unless
+     * configured otherwise, so this bounds the rate of queries per service.
+     * @param minTtl The minimum time resolved instances are cached
+     */
+    public void setMinTtl(Duration minTtl) {
+        if (minTtl != null) {
+            this.minTtl = minTtl;
+        }
+    }
+
+    /**
+     * @return The maximum time resolved instances are cached
+     */
+    public Duration getMaxTtl() {
+        return maxTtl;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_MAX_TTL_SECONDS} seconds).
+     * @param maxTtl The maximum time resolved instances are cached
+     */
+    public void setMaxTtl(Duration maxTtl) {
+        if (maxTtl != null) {
+            this.maxTtl = maxTtl;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConsulDnsConfiguration{" +
+            "enabled=" + enabled +
+            ", servers=" + servers +
+            ", domain='" + domain + '\'' +
+            ", timeout=" + timeout +
+            ", minTtl=" + minTtl +
+            ", maxTtl=" + maxTtl +
+            '}';
+    }
+}
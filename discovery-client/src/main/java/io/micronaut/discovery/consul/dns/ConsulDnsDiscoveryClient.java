@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.dns;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.naming.NameUtils;
+import io.micronaut.discovery.DiscoveryClient;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.client.dns.DnsClient;
+import io.micronaut.discovery.client.dns.DnsRecord;
+import io.micronaut.discovery.client.dns.DnsResponse;
+import io.micronaut.discovery.consul.ConsulConfiguration;
+import io.micronaut.discovery.exceptions.DiscoveryException;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>A {@link DiscoveryClient} that resolves Consul services through the {@code SRV} records of the Consul DNS
+ * interface, so that discovery needs neither HTTP connections nor JSON parsing.</p>
+ *
+ * <p>Resolved instances are cached for the time to live of their records, bounded by the configured minimum and
+ * maximum. Concurrent lookups of a service whose cache entry expired share a single query. The DNS interface only
+ * returns instances passing their health checks and cannot list services, so {@link #getServiceIds()} is always
+ * empty.</p>
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = {ConsulDnsConfiguration.class, ConsulConfiguration.class})
+public class ConsulDnsDiscoveryClient implements DiscoveryClient {
+
+    /**
+     * The ID of the client.
+     */
+    public static final String SERVICE_ID = "consul-dns";
+
+    private final ConsulDnsConfiguration dnsConfiguration;
+    private final ConsulConfiguration consulConfiguration;
+    private final DnsClient dnsClient;
+    private final Map<String, Lookup> lookups = new ConcurrentHashMap<>();
+
+    /**
+     * @param dnsConfiguration    The Consul DNS configuration
+     * @param consulConfiguration The Consul configuration providing the tags, datacenters and schemes of services
+     */
+    public ConsulDnsDiscoveryClient(ConsulDnsConfiguration dnsConfiguration, ConsulConfiguration consulConfiguration) {
+        this.dnsConfiguration = dnsConfiguration;
+        this.consulConfiguration = consulConfiguration;
+        List<InetSocketAddress> servers = new ArrayList<>();
+        for (String server : dnsConfiguration.getServers()) {
+            servers.add(DnsClient.parseServer(server, DnsClient.DEFAULT_PORT));
+        }
+        this.dnsClient = new DnsClient(servers, dnsConfiguration.getTimeout());
+    }
+
+    @Override
+    public Publisher<List<ServiceInstance>> getInstances(String serviceId) {
+        String id = NameUtils.hyphenate(serviceId);
+        Lookup lookup = lookups.computeIfAbsent(id, Lookup::new);
+        Resolved resolved = lookup.resolved;
+        if (resolved != null && resolved.expiresAt - System.nanoTime() > 0) {
+            return Mono.just(resolved.instances);
+        }
+        return lookup.refresh();
+    }
+
+    @Override
+    public Publisher<List<String>> getServiceIds() {
+        return Mono.just(Collections.emptyList());
+    }
+
+    @Override
+    public String getDescription() {
+        return SERVICE_ID;
+    }
+
+    /**
+     * @return The cached instances of each service, suitable for management endpoints
+     */
+    @NonNull
+    public Map<String, Object> getDetails() {
+        long now = System.nanoTime();
+        Map<String, Object> details = new TreeMap<>();
+        lookups.forEach((serviceId, lookup) -> {
+            Resolved resolved = lookup.resolved;
+            if (resolved != null) {
+                Map<String, Object> serviceDetails = new LinkedHashMap<>();
+                serviceDetails.put("instances", resolved.instances().size());
+                serviceDetails.put("cache-age", Duration.ofNanos(now - resolved.resolvedAt()).toString());
+                serviceDetails.put("expired", resolved.expiresAt() - now <= 0);
+                details.put(serviceId, serviceDetails);
+            }
+        });
+        return details;
+    }
+
+    @Override
+    public void close() {
+        lookups.clear();
+    }
+
+    /**
+     * @param serviceId The service ID
+     * @return The name of the {@code SRV} records of the service
+     */
+    @NonNull
+    String queryName(@NonNull String serviceId) {
+        ConsulConfiguration.ConsulDiscoveryConfiguration discovery = consulConfiguration.getDiscovery();
+        StringBuilder name = new StringBuilder();
+        String tag = discovery.getTags().get(serviceId);
+        if (tag != null) {
+            name.append(tag).append('.');
+        }
+        name.append(serviceId).append(".service.");
+        String datacenter = discovery.getDatacenters().get(serviceId);
+        if (datacenter != null) {
+            name.append(datacenter).append('.');
+        }
+        return name.append(dnsConfiguration.getDomain()).toString();
+    }
+
+    private Mono<Resolved> resolve(String serviceId) {
+        String name = queryName(serviceId);
+        return dnsClient.query(name, DnsClient.TYPE_SRV)
+            .onErrorMap(throwable -> !(throwable instanceof DiscoveryException),
+                throwable -> new DiscoveryException("Error resolving " + name + ": " + throwable.getMessage(), throwable))
+            .map(response -> toResolved(serviceId, name, response));
+    }
+
+    private Resolved toResolved(String serviceId, String name, DnsResponse response) {
+        long now = System.nanoTime();
+        long minTtl = dnsConfiguration.getMinTtl().toNanos();
+        if (response.responseCode() == DnsResponse.NAME_ERROR) {
+            return new Resolved(Collections.emptyList(), now, now + minTtl);
+        }
+        if (response.responseCode() != DnsResponse.NO_ERROR) {
+            throw new DiscoveryException("Error resolving " + name + ": DNS response code " + response.responseCode());
+        }
+        Map<String, InetAddress> addresses = new HashMap<>();
+        long ttlSeconds = Long.MAX_VALUE;
+        for (DnsRecord record : response.additionals()) {
+            if (record instanceof DnsRecord.Address address) {
+                addresses.putIfAbsent(address.name().toLowerCase(Locale.ENGLISH), address.address());
+                ttlSeconds = Math.min(ttlSeconds, address.ttl());
+            }
+        }
+        String scheme = consulConfiguration.getDiscovery().getSchemes().getOrDefault(serviceId, "http");
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (DnsRecord record : response.answers()) {
+            if (record instanceof DnsRecord.Srv srv) {
+                ttlSeconds = Math.min(ttlSeconds, srv.ttl());
+                InetAddress address = addresses.get(srv.target().toLowerCase(Locale.ENGLISH));
+                String host = address != null ? address.getHostAddress() : srv.target();
+                try {
+                    URI uri = new URI(scheme, null, host, srv.port(), null, null, null);
+                    instances.add(ServiceInstance.builder(serviceId, uri)
+                        .instanceId(host + ":" + srv.port())
+                        .build());
+                } catch (URISyntaxException e) {
+                    throw new DiscoveryException("Invalid instance " + host + ":" + srv.port() + " of " + name, e);
+                }
+            }
+        }
+        long ttl = ttlSeconds == Long.MAX_VALUE ? 0L : Math.min(ttlSeconds, dnsConfiguration.getMaxTtl().toSeconds()) * 1_000_000_000L;
+        return new Resolved(Collections.unmodifiableList(instances), now, now + Math.max(ttl, minTtl));
+    }
+
+    /**
+     * The resolved instances of a service.
+     *
+     * @param instances  The instances
+     * @param resolvedAt The nano time the instances were resolved
+     * @param expiresAt  The nano time after which the instances must be resolved again
+     */
+    private record Resolved(List<ServiceInstance> instances, long resolvedAt, long expiresAt) {
+    }
+
+    /**
+     * The cache entry of a service.
+     */
+    private final class Lookup {
+
+        private final String serviceId;
+        private volatile Resolved resolved;
+        private Mono<List<ServiceInstance>> inFlight;
+
+        Lookup(String serviceId) {
+            this.serviceId = serviceId;
+        }
+
+        synchronized Mono<List<ServiceInstance>> refresh() {
+            Mono<List<ServiceInstance>> inFlight = this.inFlight;
+            if (inFlight == null) {
+                inFlight = resolve(serviceId)
+                    .doOnNext(r -> resolved = r)
+                    .map(Resolved::instances)
+                    .doFinally(signal -> clearInFlight())
+                    .cache();
+                this.inFlight = inFlight;
+            }
+            return inFlight;
+        }
+
+        private synchronized void clearInFlight() {
+            inFlight = null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.health;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.client.health.CachedHealthResult;
+import io.micronaut.discovery.client.health.HealthCacheConfiguration;
+import io.micronaut.discovery.consul.ConsulConfiguration;
+import io.micronaut.discovery.consul.registration.HttpCheckTarget;
+import io.micronaut.discovery.eureka.health.EurekaHealthIndicator;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.management.endpoint.EndpointDefaultConfiguration;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import io.micronaut.management.health.indicator.HealthIndicator;
+import io.micronaut.management.health.indicator.HealthResult;
+import io.micronaut.management.health.indicator.discovery.DiscoveryClientHealthIndicator;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>A minimal management endpoint for Consul HTTP checks. The endpoint is disabled by default. When it is enabled with
+ * {@value #ENABLED}, it is registered as the check target when the HTTP check is enabled and no {@code health-path} is
+ * configured.</p>
+ *
+ * <p>Unlike the health endpoint, it skips the indicators that query the discovery registries, so that a check by
+ * Consul never results in a call back to Consul, and it answers from the cached aggregate status of the remaining
+ * indicators. It responds with {@code 200} when the application is operational and {@code 503} otherwise.</p>
+ *
+ * @since 4.5.0
+ */
+@Endpoint(id = ConsulCheckEndpoint.NAME, defaultEnabled = false, defaultSensitive = false)
+@Requires(classes = HealthIndicator.class)
+@Requires(beans = ConsulConfiguration.class)
+@Requires(property = ConsulConfiguration.PREFIX + ".registration.check.http", value = StringUtils.TRUE)
+public class ConsulCheckEndpoint implements HttpCheckTarget {
+
+    /**
+     * The ID of the endpoint.
+     */
+    public static final String NAME = "consul-check";
+
+    /**
+     * The property that enables the endpoint.
+     */
+    public static final String ENABLED = Endpoint.PREFIX + "." + NAME + ".enabled";
+
+    private final List<HealthIndicator> healthIndicators;
+    private final EndpointDefaultConfiguration endpointConfiguration;
+    private final CachedHealthResult cachedResult;
+
+    /**
+     * @param healthIndicators      The health indicators
+     * @param endpointConfiguration The default endpoint configuration
+     * @param cacheConfiguration    The health cache configuration
+     */
+    public ConsulCheckEndpoint(List<HealthIndicator> healthIndicators,
+                               EndpointDefaultConfiguration endpointConfiguration,
+                               HealthCacheConfiguration cacheConfiguration) {
+        this.healthIndicators = healthIndicators.stream()
+            .filter(healthIndicator -> !isRegistryIndicator(healthIndicator))
+            .toList();
+        this.endpointConfiguration = endpointConfiguration;
+        this.cachedResult = new CachedHealthResult(cacheConfiguration, this::aggregate);
+    }
+
+    /**
+     * @return A response with the aggregate status of the application
+     */
+    @Read
+    public Publisher<HttpResponse<?>> check() {
+        return Mono.from(cachedResult.getResult()).map(result -> {
+            HealthStatus status = result.getStatus();
+            HttpStatus httpStatus = status.getOperational().orElse(true) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+            return HttpResponse.status(httpStatus).body(Collections.singletonMap("status", status.getName()));
+        });
+    }
+
+    @Override
+    public String getPath() {
+        String basePath = endpointConfiguration.getPath();
+        return (basePath.endsWith("/") ? basePath : basePath + "/") + NAME;
+    }
+
+    @Override
+    public Optional<Integer> getPort() {
+        return endpointConfiguration.getPort();
+    }
+
+    private Publisher<HealthResult> aggregate() {
+        return Flux.fromIterable(healthIndicators)
+            .flatMap(healthIndicator -> Flux.from(healthIndicator.getResult())
+                .map(HealthResult::getStatus)
+                .onErrorReturn(HealthStatus.DOWN))
+            .filter(status -> !status.getOperational().orElse(true))
+            .next()
+            .defaultIfEmpty(HealthStatus.UP)
+            .map(status -> HealthResult.builder(NAME, status).build());
+    }
+
+    private static boolean isRegistryIndicator(HealthIndicator healthIndicator) {
+        return healthIndicator instanceof ConsulHealthIndicator
+            || healthIndicator instanceof EurekaHealthIndicator
+            || healthIndicator instanceof DiscoveryClientHealthIndicator;
+    }
+}
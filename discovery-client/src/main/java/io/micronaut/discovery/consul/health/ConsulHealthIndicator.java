@@ -16,20 +16,26 @@
 package io.micronaut.discovery.consul.health;
 
 import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.util.StringUtils;
 import io.micronaut.discovery.consul.ConsulConfiguration;
 import io.micronaut.discovery.consul.client.v1.ConsulClient;
+import io.micronaut.discovery.client.breaker.DiscoveryCircuitBreakers;
+import io.micronaut.discovery.client.health.CachedHealthResult;
+import io.micronaut.discovery.client.health.HealthCacheConfiguration;
 import io.micronaut.health.HealthStatus;
 import io.micronaut.management.health.indicator.HealthIndicator;
 import io.micronaut.management.health.indicator.HealthResult;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 
-import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * A {@link HealthIndicator} for Consul.
+ * A {@link HealthIndicator} for Consul. Results are cached according to the {@link HealthCacheConfiguration}.
  *
  * @author Graeme Rocher
  * @since 1.0
@@ -41,22 +47,55 @@ import java.util.Collections;
 public class ConsulHealthIndicator implements HealthIndicator {
 
     private final ConsulClient client;
+    private final DiscoveryCircuitBreakers circuitBreakers;
+    private final CachedHealthResult cachedResult;
 
     /**
      * @param client The Consul client
      */
     public ConsulHealthIndicator(ConsulClient client) {
+        this(client, null);
+    }
+
+    /**
+     * @param client          The Consul client
+     * @param circuitBreakers The circuit breakers protecting lookups against Consul
+     */
+    public ConsulHealthIndicator(ConsulClient client, @Nullable DiscoveryCircuitBreakers circuitBreakers) {
+        this(client, circuitBreakers, new HealthCacheConfiguration());
+    }
+
+    /**
+     * @param client             The Consul client
+     * @param circuitBreakers    The circuit breakers protecting lookups against Consul
+     * @param cacheConfiguration The health cache configuration
+     * @since 4.5.0
+     */
+    @Inject
+    public ConsulHealthIndicator(ConsulClient client,
+                                 @Nullable DiscoveryCircuitBreakers circuitBreakers,
+                                 HealthCacheConfiguration cacheConfiguration) {
         this.client = client;
+        this.circuitBreakers = circuitBreakers;
+        this.cachedResult = new CachedHealthResult(cacheConfiguration, this::probe);
     }
 
     @Override
     public Publisher<HealthResult> getResult() {
+        return cachedResult.getResult();
+    }
+
+    private Publisher<HealthResult> probe() {
         Flux<String> statusFlowable = Flux.from(client.status());
 
         return statusFlowable.map(s -> {
             HealthResult.Builder builder = HealthResult.builder(ConsulClient.SERVICE_ID, HealthStatus.UP);
-            builder.details(Collections.singletonMap("leader", s));
-            return builder.build();
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("leader", s);
+            if (circuitBreakers != null) {
+                details.put("circuit-breaker", circuitBreakers.get(ConsulClient.SERVICE_ID).getDetails());
+            }
+            return builder.details(details).build();
         }).onErrorResume(throwable -> {
             HealthResult.Builder builder = HealthResult.builder(ConsulClient.SERVICE_ID, HealthStatus.DOWN);
             builder.exception(throwable);
@@ -24,6 +24,7 @@ import io.micronaut.core.util.StringUtils;
 import io.micronaut.discovery.EmbeddedServerInstance;
 import io.micronaut.discovery.ServiceInstance;
 import io.micronaut.discovery.ServiceInstanceIdGenerator;
+import io.micronaut.discovery.client.jfr.DiscoveryEvents;
 import io.micronaut.discovery.client.registration.DiscoveryServiceAutoRegistration;
 import io.micronaut.discovery.consul.ConsulConfiguration;
 import io.micronaut.discovery.consul.client.v1.ConsulCheck;
@@ -37,6 +38,7 @@ import io.micronaut.health.HeartbeatConfiguration;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.runtime.ApplicationConfiguration;
 import io.micronaut.runtime.server.EmbeddedServer;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
@@ -63,6 +65,7 @@ public class ConsulAutoRegistration extends DiscoveryServiceAutoRegistration {
     private final ConsulConfiguration consulConfiguration;
     private final ServiceInstanceIdGenerator idGenerator;
     private final Environment environment;
+    private HttpCheckTarget httpCheckTarget;
 
     /**
      * @param environment            The environment
@@ -86,10 +89,19 @@ public class ConsulAutoRegistration extends DiscoveryServiceAutoRegistration {
         this.idGenerator = idGenerator;
     }
 
+    /**
+     * @param httpCheckTarget The target of the HTTP check when no health path is configured
+     * @since 4.5.0
+     */
+    @Inject
+    public void setHttpCheckTarget(@Nullable HttpCheckTarget httpCheckTarget) {
+        this.httpCheckTarget = httpCheckTarget;
+    }
+
     @Override
     protected void pulsate(ServiceInstance instance, HealthStatus status) {
         ConsulConfiguration.ConsulRegistrationConfiguration registration = consulConfiguration.getRegistration();
-        if (registration != null && !registration.getCheck().isHttp() && registration.getCheck().isEnabled() && registered.get()) {
+        if (registration != null && !registration.getCheck().isPerformedByAgent() && registration.getCheck().isEnabled() && registered.get()) {
 
             String checkId = "service:" + idGenerator.generateId(environment, instance);
             if (LOG.isDebugEnabled()) {
@@ -98,12 +110,14 @@ public class ConsulAutoRegistration extends DiscoveryServiceAutoRegistration {
 
             if (status.equals(HealthStatus.UP)) {
                 // send a request to /agent/check/pass/:check_id
-                Mono<HttpStatus> passPublisher = Mono.from(consulClient.pass(checkId));
+                Mono<HttpStatus> passPublisher = Mono.from(DiscoveryEvents.heartbeat(ConsulClient.SERVICE_ID, instance, status, consulClient.pass(checkId)));
                 passPublisher.subscribe(httpStatus -> {
+                    heartbeatReported(ConsulClient.SERVICE_ID, instance, status, null);
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Successfully reported passing state to Consul");
                     }
                 }, throwable -> {
+                        heartbeatReported(ConsulClient.SERVICE_ID, instance, status, throwable);
 
                         // check if the service is still registered with Consul
                         Mono.from(consulClient.getServiceIds()).subscribe(serviceIds -> {
@@ -122,12 +136,15 @@ public class ConsulAutoRegistration extends DiscoveryServiceAutoRegistration {
                     });
             } else {
                 // send a request to /agent/check/fail/:check_id
-                Mono<HttpStatus> failPublisher = Mono.from(consulClient.fail(checkId, status.getDescription().orElse(null)));
+                Mono<HttpStatus> failPublisher = Mono.from(DiscoveryEvents.heartbeat(
+                    ConsulClient.SERVICE_ID, instance, status, consulClient.fail(checkId, status.getDescription().orElse(null))));
                 failPublisher.subscribe(httpStatus -> {
+                    heartbeatReported(ConsulClient.SERVICE_ID, instance, status, null);
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Successfully reported failure state to Consul");
                     }
                 }, throwable -> {
+                    heartbeatReported(ConsulClient.SERVICE_ID, instance, status, throwable);
                     if (LOG.isErrorEnabled()) {
                         LOG.error(getErrorMessage(throwable, "Error reporting failure state to Consul: "), throwable);
                     }
@@ -241,10 +258,24 @@ public class ConsulAutoRegistration extends DiscoveryServiceAutoRegistration {
         checkConfig.getId().ifPresent(check::setId);
         check.setStatus(DEFAULT_CHECK_STATUS);
         checkConfig.getNotes().ifPresent(check::setNotes);
-        if (heartbeatConfiguration.isEnabled() && !checkConfig.isHttp()) {
-            check.setTtl(heartbeatConfiguration.getInterval().plus(Duration.ofSeconds(10)).toSeconds() + "s");
+        if (checkConfig.isGrpc()) {
+            check.setInterval(checkInternal(checkConfig));
+            check.setTimeout(checkTimeout(checkConfig));
+            String grpc = hostPort(address, checkConfig.getPort().orElse(instance.getPort()));
+            check.setGrpc(checkConfig.getGrpcService().map(service -> grpc + "/" + service).orElse(grpc));
+            checkConfig.getGrpcUseTls().ifPresent(check::setGrpcUseTls);
+        } else if (checkConfig.isTcp()) {
+            check.setInterval(checkInternal(checkConfig));
+            check.setTimeout(checkTimeout(checkConfig));
+            check.setTcp(hostPort(address, checkConfig.getPort().orElse(instance.getPort())));
+        } else if (heartbeatConfiguration.isEnabled() && !checkConfig.isHttp()) {
+            Duration interval = heartbeatConfiguration.getInterval();
+            // allow for heartbeats delayed by their phase offset and jitter
+            Duration ttl = interval.plus(heartbeatJitterMargin(interval)).plus(Duration.ofSeconds(10));
+            check.setTtl((ttl.toMillis() + 999) / 1000 + "s");
         } else {
             check.setInterval(checkInternal(checkConfig));
+            check.setTimeout(checkTimeout(checkConfig));
             httpCheckUrl(instance, registration, address).ifPresent(check::setHttp);
             check.setMethod(checkConfig.getMethod());
             checkConfig.getTlsSkipVerify().ifPresent(check::setTlsSkipVerify);
@@ -253,6 +284,15 @@ public class ConsulAutoRegistration extends DiscoveryServiceAutoRegistration {
         return check;
     }
 
+    @NonNull
+    private static String hostPort(@Nullable String address, int port) {
+        // IPv6 literals must be bracketed, otherwise Consul cannot tell the port from the address
+        if (address != null && address.indexOf(':') != -1 && !address.startsWith("[")) {
+            return "[" + address + "]:" + port;
+        }
+        return address + ":" + port;
+    }
+
     @Nullable
     private String deregisterCriticalServiceAfterCheck(@NonNull ConsulConfiguration.ConsulRegistrationConfiguration.CheckConfiguration checkConfig) {
         return checkConfig.getDeregisterCriticalServiceAfter().map(d -> d.toMinutes() + "m").orElse(null);
@@ -263,6 +303,11 @@ public class ConsulAutoRegistration extends DiscoveryServiceAutoRegistration {
         return checkConfig.getInterval().toSeconds() + "s";
     }
 
+    @Nullable
+    private String checkTimeout(@NonNull ConsulConfiguration.ConsulRegistrationConfiguration.CheckConfiguration checkConfig) {
+        return checkConfig.getTimeout().map(d -> d.toMillis() + "ms").orElse(null);
+    }
+
     private Optional<URL> httpCheckUrl(@NonNull ServiceInstance instance,
                                        @NonNull ConsulConfiguration.ConsulRegistrationConfiguration registration,
                                        @Nullable String address) {
@@ -279,8 +324,13 @@ public class ConsulAutoRegistration extends DiscoveryServiceAutoRegistration {
                     throw new DiscoveryException("Invalid health path configured: " + registration.getHealthPath());
                 }
             }
+            Optional<String> healthPath = registration.getHealthPath();
             try {
-                return Optional.of(new URL(serverURL, registration.getHealthPath().orElse("/health")));
+                if (healthPath.isEmpty() && httpCheckTarget != null) {
+                    int port = httpCheckTarget.getPort().orElse(serverURL.getPort());
+                    return Optional.of(new URL(serverURL.getProtocol(), serverURL.getHost(), port, httpCheckTarget.getPath()));
+                }
+                return Optional.of(new URL(serverURL, healthPath.orElse("/health")));
             } catch (MalformedURLException e) {
                 throw new DiscoveryException("Invalid health path configured: " + registration.getHealthPath());
             }
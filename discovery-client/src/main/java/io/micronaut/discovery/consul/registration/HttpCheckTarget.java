@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.registration;
+
+import io.micronaut.core.annotation.NonNull;
+
+import java.util.Optional;
+
+/**
+ * A target for the Consul HTTP check of this application, used by {@link ConsulAutoRegistration} when no
+ * {@code health-path} is configured.
+ *
+ * @since 4.5.0
+ */
+public interface HttpCheckTarget {
+
+    /**
+     * @return The path of the target, relative to the root of the server
+     */
+    @NonNull
+    String getPath();
+
+    /**
+     * @return The port of the target, if it is not served by the embedded server port
+     */
+    @NonNull
+    default Optional<Integer> getPort() {
+        return Optional.empty();
+    }
+}
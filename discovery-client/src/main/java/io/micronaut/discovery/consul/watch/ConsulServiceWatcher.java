@@ -0,0 +1,502 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.watch;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.consul.ConsulConfiguration;
+import io.micronaut.discovery.consul.ConsulServiceInstance;
+import io.micronaut.discovery.consul.ConsulWatchConfiguration;
+import io.micronaut.discovery.consul.client.v1.ConsulHealthCheck;
+import io.micronaut.discovery.consul.client.v1.ConsulHealthEntry;
+import io.micronaut.discovery.consul.client.v1.ConsulWatchClient;
+import io.micronaut.http.HttpResponse;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Keeps the instances of the services discovered from Consul up to date with two blocking queries, however many
+ * services are watched.</p>
+ *
+ * <p>The first blocking query watches the health checks of the watched services and of the nodes, filtered by service
+ * name so that the size of the result does not grow with the datacenter. Whenever it returns, the
+ * {@link ConsulHealthCheck#modifyIndex() modify indexes} of the checks of every watched service are compared with
+ * those of the previous result, and only the services whose checks changed are fetched again. A change of a node check
+ * affects every service on the node, so it causes all watched services to be fetched again.</p>
+ *
+ * <p>The second blocking query watches the service catalog. Whenever it returns, the names and tags of the registered
+ * services are compared with the previous result, and only the watched services that were added, removed or retagged
+ * are fetched again. Changes of the address, port or metadata of an instance that leave its checks and the tags of its
+ * service untouched are picked up by fetching every watched service again once its instances are older than the
+ * {@link ConsulWatchConfiguration#getWait() wait}, as often as a blocking query per service would return.</p>
+ *
+ * <p>A service is watched from its first lookup on, until it has not been looked up for the
+ * {@link ConsulWatchConfiguration#getServiceIdleTimeout() service idle timeout}. Idle services are evicted by the same
+ * periodic task that fetches expired instances again. Lookups are answered from the watched instances while both
+ * blocking queries are in sync, and sent to Consul otherwise.</p>
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = ConsulWatchClient.class)
+@Requires(property = ConsulWatchConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class ConsulServiceWatcher implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConsulServiceWatcher.class);
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final int MAX_BACKOFF_DOUBLINGS = 16;
+    private static final int MAX_CONCURRENT_FETCHES = 8;
+    private static final String NODE_CHECKS = "";
+    private static final Fingerprint NO_CHECKS = new Fingerprint(0L, 0);
+
+    private final ConsulWatchClient watchClient;
+    private final ConsulConfiguration consulConfiguration;
+    private final ConsulWatchConfiguration watchConfiguration;
+    private final Map<String, WatchedService> services = new ConcurrentHashMap<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Fingerprint nodeChecks;
+    private volatile boolean synced;
+    private volatile boolean catalogSynced;
+    private volatile boolean closed;
+    private volatile long index;
+    private volatile long catalogIndex;
+    private volatile Map<String, List<String>> catalog;
+    private volatile int failures;
+    private volatile int catalogFailures;
+    private volatile long lastSync;
+    private volatile String lastError;
+    private volatile Disposable poll;
+    private volatile Disposable catalogPoll;
+    private volatile Disposable maintenance;
+
+    /**
+     * @param watchClient         The client used for the blocking queries and the fetches of changed services
+     * @param consulConfiguration The Consul configuration
+     * @param watchConfiguration  The configuration of blocking queries
+     */
+    public ConsulServiceWatcher(ConsulWatchClient watchClient,
+                                ConsulConfiguration consulConfiguration,
+                                ConsulWatchConfiguration watchConfiguration) {
+        this.watchClient = watchClient;
+        this.consulConfiguration = consulConfiguration;
+        this.watchConfiguration = watchConfiguration;
+    }
+
+    /**
+     * Looks up the instances of a service, and watches it from now on.
+     *
+     * @param serviceId The service ID
+     * @return A publisher that emits the instances of the service
+     */
+    @NonNull
+    public Publisher<List<ServiceInstance>> getInstances(@NonNull String serviceId) {
+        start();
+        WatchedService watched = services.get(serviceId);
+        if (watched != null) {
+            watched.lastLookup().set(System.currentTimeMillis());
+            if (isSynced() && watched.instances() != null) {
+                return Mono.just(watched.instances());
+            }
+        }
+        return fetch(serviceId, true);
+    }
+
+    /**
+     * @return Whether the blocking queries are in sync with Consul, so that lookups are answered from watched instances
+     */
+    public boolean isSynced() {
+        return synced && catalogSynced;
+    }
+
+    /**
+     * @return The IDs of the watched services
+     */
+    @NonNull
+    public List<String> getWatchedServices() {
+        return new ArrayList<>(services.keySet());
+    }
+
+    /**
+     * @return The state of the watch and the watched services, suitable for management endpoints
+     */
+    @NonNull
+    public Map<String, Object> getDetails() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("synced", isSynced());
+        details.put("index", index);
+        details.put("catalog-index", catalogIndex);
+        details.put("consecutive-failures", Math.max(failures, catalogFailures));
+        long lastSync = this.lastSync;
+        if (lastSync > 0) {
+            details.put("last-sync-age", Duration.ofMillis(now - lastSync).toString());
+        }
+        String lastError = this.lastError;
+        if (lastError != null) {
+            details.put("last-error", lastError);
+        }
+        Map<String, Object> watched = new TreeMap<>();
+        services.forEach((serviceId, service) -> {
+            Map<String, Object> serviceDetails = new LinkedHashMap<>();
+            List<ServiceInstance> instances = service.instances();
+            serviceDetails.put("instances", instances != null ? instances.size() : 0);
+            serviceDetails.put("cached", instances != null);
+            serviceDetails.put("cache-age", Duration.ofMillis(now - service.fetchedAt()).toString());
+            serviceDetails.put("lookup-age", Duration.ofMillis(now - service.lastLookup().get()).toString());
+            watched.put(serviceId, serviceDetails);
+        });
+        details.put("services", watched);
+        return details;
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        closed = true;
+        synced = false;
+        catalogSynced = false;
+        Disposable poll = this.poll;
+        if (poll != null) {
+            poll.dispose();
+        }
+        Disposable catalogPoll = this.catalogPoll;
+        if (catalogPoll != null) {
+            catalogPoll.dispose();
+        }
+        Disposable maintenance = this.maintenance;
+        if (maintenance != null) {
+            maintenance.dispose();
+        }
+    }
+
+    private void start() {
+        if (started.compareAndSet(false, true)) {
+            poll();
+            pollCatalog();
+            Duration wait = watchConfiguration.getWait();
+            Duration idleTimeout = watchConfiguration.getServiceIdleTimeout();
+            Duration period = (wait.compareTo(idleTimeout) < 0 ? wait : idleTimeout).dividedBy(2);
+            maintenance = Flux.interval(period.compareTo(MIN_BACKOFF) < 0 ? MIN_BACKOFF : period)
+                .onBackpressureDrop()
+                .concatMap(tick -> maintain())
+                .subscribe();
+        }
+    }
+
+    private void poll() {
+        if (closed) {
+            return;
+        }
+        long previousIndex = index;
+        String filter = healthFilter(services.keySet());
+        poll = Mono.from(watchClient.watchHealthChecks(null, filter, previousIndex > 0 ? previousIndex : null, watchConfiguration.getWaitParameter()))
+            .flatMap(response -> onChecks(response, previousIndex))
+            .subscribe(
+                blocking -> {
+                    synced = true;
+                    failures = 0;
+                    lastSync = System.currentTimeMillis();
+                    if (blocking) {
+                        poll();
+                    } else {
+                        // without an index the query cannot block, so avoid polling Consul in a tight loop
+                        schedulePoll(MIN_BACKOFF);
+                    }
+                },
+                this::onPollError
+            );
+    }
+
+    private void pollCatalog() {
+        if (closed) {
+            return;
+        }
+        long previousIndex = catalogIndex;
+        catalogPoll = Mono.from(watchClient.watchServices(null, previousIndex > 0 ? previousIndex : null, watchConfiguration.getWaitParameter()))
+            .flatMap(response -> onCatalog(response, previousIndex))
+            .subscribe(
+                blocking -> {
+                    catalogSynced = true;
+                    catalogFailures = 0;
+                    if (blocking) {
+                        pollCatalog();
+                    } else {
+                        scheduleCatalogPoll(MIN_BACKOFF);
+                    }
+                },
+                this::onCatalogPollError
+            );
+    }
+
+    private Mono<Boolean> onChecks(HttpResponse<List<ConsulHealthCheck>> response, long previousIndex) {
+        long nextIndex = ConsulWatchClient.nextIndex(response, previousIndex);
+        index = nextIndex;
+        // compared even if the wait elapsed without a change, to pick up services watched since the previous result
+        Map<String, Fingerprint> fingerprints = fingerprints(response.body());
+        Fingerprint nodes = fingerprints.getOrDefault(NODE_CHECKS, NO_CHECKS);
+        boolean nodesChanged = !nodes.equals(nodeChecks);
+        nodeChecks = nodes;
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, WatchedService> entry : services.entrySet()) {
+            Fingerprint fingerprint = fingerprints.getOrDefault(entry.getKey(), NO_CHECKS);
+            if (nodesChanged || !fingerprint.equals(entry.getValue().fingerprint())) {
+                changed.add(entry.getKey());
+            }
+        }
+        if (changed.isEmpty()) {
+            return Mono.just(nextIndex > 0);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Consul health state changed at index {}, fetching services {}", nextIndex, changed);
+        }
+        return fetchChanged(changed, fingerprints).then(Mono.just(nextIndex > 0));
+    }
+
+    private Mono<Boolean> onCatalog(HttpResponse<Map<String, List<String>>> response, long previousIndex) {
+        long nextIndex = ConsulWatchClient.nextIndex(response, previousIndex);
+        catalogIndex = nextIndex;
+        Map<String, List<String>> body = response.body();
+        Map<String, List<String>> registered = body != null ? body : Collections.emptyMap();
+        // compared with the last observed catalog, which survives errors, so that a change missed meanwhile is noticed
+        Map<String, List<String>> previous = catalog;
+        catalog = registered;
+        if (previous == null) {
+            return Mono.just(nextIndex > 0);
+        }
+        List<String> changed = new ArrayList<>();
+        for (String serviceId : services.keySet()) {
+            if (!Objects.equals(previous.get(serviceId), registered.get(serviceId))) {
+                changed.add(serviceId);
+            }
+        }
+        if (changed.isEmpty()) {
+            return Mono.just(nextIndex > 0);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Consul catalog changed at index {}, fetching services {}", nextIndex, changed);
+        }
+        return fetchChanged(changed, null).then(Mono.just(nextIndex > 0));
+    }
+
+    private Mono<Void> fetchChanged(List<String> changed, @Nullable Map<String, Fingerprint> fingerprints) {
+        return Flux.fromIterable(changed)
+            .flatMap(serviceId -> fetch(serviceId, false)
+                .doOnNext(instances -> {
+                    if (fingerprints != null) {
+                        services.computeIfPresent(serviceId, (id, watched) ->
+                            watched.withFingerprint(fingerprints.getOrDefault(serviceId, NO_CHECKS)));
+                    }
+                })
+                .onErrorResume(throwable -> {
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn("Error fetching changed Consul service [{}]: {}", serviceId, throwable.getMessage());
+                    }
+                    // drop the stale instances so that lookups go to Consul until the next change is observed
+                    services.computeIfPresent(serviceId, (id, watched) -> watched.withInstances(null, watched.fetchedAt()));
+                    return Mono.empty();
+                }), MAX_CONCURRENT_FETCHES)
+            .then();
+    }
+
+    private Mono<Void> maintain() {
+        evictIdleServices();
+        if (!isSynced()) {
+            // lookups are sent to Consul anyway
+            return Mono.empty();
+        }
+        long expiredSince = System.currentTimeMillis() - watchConfiguration.getWait().toMillis();
+        List<String> expired = new ArrayList<>();
+        services.forEach((serviceId, watched) -> {
+            if (watched.instances() != null && watched.fetchedAt() < expiredSince) {
+                expired.add(serviceId);
+            }
+        });
+        if (expired.isEmpty()) {
+            return Mono.empty();
+        }
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Fetching Consul services {} whose instances expired", expired);
+        }
+        return fetchChanged(expired, null);
+    }
+
+    private void evictIdleServices() {
+        long idleSince = System.currentTimeMillis() - watchConfiguration.getServiceIdleTimeout().toMillis();
+        services.entrySet().removeIf(entry -> {
+            boolean idle = entry.getValue().lastLookup().get() < idleSince;
+            if (idle && LOG.isDebugEnabled()) {
+                LOG.debug("No longer watching Consul service [{}], which was not looked up recently", entry.getKey());
+            }
+            return idle;
+        });
+    }
+
+    private void onPollError(Throwable throwable) {
+        synced = false;
+        index = 0;
+        schedulePoll(backoff(failures++, throwable, "health state"));
+    }
+
+    private void onCatalogPollError(Throwable throwable) {
+        catalogSynced = false;
+        catalogIndex = 0;
+        scheduleCatalogPoll(backoff(catalogFailures++, throwable, "catalog"));
+    }
+
+    private Duration backoff(int failures, Throwable throwable, String watched) {
+        lastError = String.valueOf(throwable.getMessage());
+        int doublings = Math.min(failures, MAX_BACKOFF_DOUBLINGS);
+        long backoffMillis = Math.min(MIN_BACKOFF.toMillis() << doublings, MAX_BACKOFF.toMillis());
+        if (LOG.isWarnEnabled()) {
+            LOG.warn("Error watching Consul {}, retrying in {}ms: {}", watched, backoffMillis, throwable.getMessage());
+        }
+        return Duration.ofMillis(backoffMillis);
+    }
+
+    private void schedulePoll(Duration delay) {
+        if (!closed) {
+            poll = Mono.delay(delay).subscribe(tick -> poll());
+        }
+    }
+
+    private void scheduleCatalogPoll(Duration delay) {
+        if (!closed) {
+            catalogPoll = Mono.delay(delay).subscribe(tick -> pollCatalog());
+        }
+    }
+
+    /**
+     * Fetches the instances of a service.
+     *
+     * @param serviceId The service ID
+     * @param lookup    Whether the fetch answers a lookup, which starts watching the service. Fetches of changed
+     *                  services only update services that are still watched.
+     * @return The instances
+     */
+    private Mono<List<ServiceInstance>> fetch(String serviceId, boolean lookup) {
+        ConsulConfiguration.ConsulDiscoveryConfiguration discovery = consulConfiguration.getDiscovery();
+        String scheme = discovery.getSchemes().getOrDefault(serviceId, "http");
+        return Mono.from(watchClient.watchHealthyServices(serviceId, discovery.isPassing(), discovery.getTags().get(serviceId), null, null, null))
+            .map(response -> {
+                List<ServiceInstance> instances = toInstances(response.body(), scheme);
+                long now = System.currentTimeMillis();
+                if (lookup) {
+                    services.compute(serviceId, (id, watched) -> watched != null
+                        ? watched.withInstances(instances, now)
+                        : new WatchedService(null, instances, now, new AtomicLong(now)));
+                } else {
+                    services.computeIfPresent(serviceId, (id, watched) -> watched.withInstances(instances, now));
+                }
+                return instances;
+            });
+    }
+
+    private static List<ServiceInstance> toInstances(@Nullable List<ConsulHealthEntry> entries, String scheme) {
+        if (entries == null || entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ServiceInstance> instances = new ArrayList<>(entries.size());
+        for (ConsulHealthEntry entry : entries) {
+            instances.add(new ConsulServiceInstance(entry, scheme));
+        }
+        return instances;
+    }
+
+    /**
+     * @param serviceIds The watched services
+     * @return A filter expression selecting the node checks and the checks of the given services
+     */
+    static String healthFilter(Collection<String> serviceIds) {
+        // sorted, so that the expression only changes with the watched services
+        StringBuilder filter = new StringBuilder("ServiceName == \"\"");
+        for (String serviceId : new TreeSet<>(serviceIds)) {
+            filter.append(" or ServiceName == \"")
+                .append(serviceId.replace("\\", "\\\\").replace("\"", "\\\""))
+                .append('"');
+        }
+        return filter.toString();
+    }
+
+    private static Map<String, Fingerprint> fingerprints(@Nullable List<ConsulHealthCheck> checks) {
+        if (checks == null || checks.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, long[]> state = new HashMap<>();
+        for (ConsulHealthCheck check : checks) {
+            String serviceName = check.serviceName() != null ? check.serviceName() : NODE_CHECKS;
+            long[] fingerprint = state.computeIfAbsent(serviceName, name -> new long[2]);
+            fingerprint[0] = Math.max(fingerprint[0], check.modifyIndex());
+            fingerprint[1]++;
+        }
+        Map<String, Fingerprint> fingerprints = new HashMap<>(state.size() * 4 / 3 + 1);
+        state.forEach((serviceName, fingerprint) -> fingerprints.put(serviceName, new Fingerprint(fingerprint[0], (int) fingerprint[1])));
+        return fingerprints;
+    }
+
+    /**
+     * Summarizes the checks of a service. It changes whenever a check is added, removed or modified.
+     *
+     * @param modifyIndex The highest modify index of the checks
+     * @param checks      The number of checks
+     */
+    private record Fingerprint(long modifyIndex, int checks) {
+    }
+
+    /**
+     * A watched service.
+     *
+     * @param fingerprint The fingerprint of its checks when it was last fetched, or {@code null} if not observed yet
+     * @param instances   The instances, or {@code null} if they must be fetched again
+     * @param fetchedAt   The time in epoch millis the instances were last fetched
+     * @param lastLookup  The time in epoch millis the service was last looked up, shared by all versions of the service
+     */
+    private record WatchedService(@Nullable Fingerprint fingerprint, @Nullable List<ServiceInstance> instances, long fetchedAt, AtomicLong lastLookup) {
+
+        WatchedService withFingerprint(Fingerprint fingerprint) {
+            return new WatchedService(fingerprint, instances, fetchedAt, lastLookup);
+        }
+
+        WatchedService withInstances(@Nullable List<ServiceInstance> instances, long fetchedAt) {
+            return new WatchedService(fingerprint, instances, fetchedAt, lastLookup);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.eureka;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.eureka.client.v2.AmazonInfo;
+import io.micronaut.discovery.eureka.client.v2.ApplicationInfo;
+import io.micronaut.discovery.eureka.client.v2.DataCenterInfo;
+import io.micronaut.discovery.eureka.client.v2.InstanceInfo;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * <p>A compact, read-only representation of a Eureka registry.</p>
+ *
+ * <p>Instead of retaining the full {@link InstanceInfo} object graph, host names, ports, statuses, zones and metadata
+ * are stored in primitive arrays that index into a dictionary of de-duplicated strings. {@link ServiceInstance} views
+ * are only materialized when the instances of an application are actually requested.</p>
+ *
+ * @since 4.5.0
+ */
+public final class EurekaCompactRegistry {
+
+    private static final int NONE = -1;
+    private static final InstanceInfo.Status[] STATUSES = InstanceInfo.Status.values();
+
+    private final String[] strings;
+    private final Map<String, Integer> applicationIndex;
+    private final int[] applicationNames;
+    private final int[] applicationOffsets;
+
+    private final int[] instanceIds;
+    private final int[] hostNames;
+    private final int[] ports;
+    private final int[] securePorts;
+    private final byte[] statuses;
+    private final int[] zones;
+    private final int[] groups;
+    private final int[] metadataOffsets;
+    private final int[] metadataEntries;
+
+    private final List<ServiceInstance>[] views;
+
+    @SuppressWarnings({"unchecked", "ParameterNumber"})
+    private EurekaCompactRegistry(String[] strings,
+                                  Map<String, Integer> applicationIndex,
+                                  int[] applicationNames,
+                                  int[] applicationOffsets,
+                                  int[] instanceIds,
+                                  int[] hostNames,
+                                  int[] ports,
+                                  int[] securePorts,
+                                  byte[] statuses,
+                                  int[] zones,
+                                  int[] groups,
+                                  int[] metadataOffsets,
+                                  int[] metadataEntries) {
+        this.strings = strings;
+        this.applicationIndex = applicationIndex;
+        this.applicationNames = applicationNames;
+        this.applicationOffsets = applicationOffsets;
+        this.instanceIds = instanceIds;
+        this.hostNames = hostNames;
+        this.ports = ports;
+        this.securePorts = securePorts;
+        this.statuses = statuses;
+        this.zones = zones;
+        this.groups = groups;
+        this.metadataOffsets = metadataOffsets;
+        this.metadataEntries = metadataEntries;
+        this.views = new List[applicationNames.length];
+    }
+
+    /**
+     * Builds a compact registry from the given applications.
+     *
+     * @param applications  The applications as returned by Eureka
+     * @param useSecurePort Whether the secure port of each instance should be retained
+     * @return The compact registry
+     */
+    @NonNull
+    public static EurekaCompactRegistry of(@Nullable Collection<ApplicationInfo> applications, boolean useSecurePort) {
+        return new Builder(applications != null ? applications : Collections.emptyList(), useSecurePort).build();
+    }
+
+    /**
+     * @return The names of the applications in this registry
+     */
+    @NonNull
+    public List<String> getServiceIds() {
+        List<String> names = new ArrayList<>(applicationNames.length);
+        for (int name : applicationNames) {
+            names.add(string(name));
+        }
+        return names;
+    }
+
+    /**
+     * @return The number of applications in this registry
+     */
+    public int getApplicationCount() {
+        return applicationNames.length;
+    }
+
+    /**
+     * @return The total number of instances in this registry
+     */
+    public int getInstanceCount() {
+        return hostNames.length;
+    }
+
+    /**
+     * @return The number of distinct strings retained by this registry
+     */
+    public int getStringCount() {
+        return strings.length;
+    }
+
+    /**
+     * Returns the instances of the given application. The lookup is case-insensitive since Eureka upper-cases
+     * application names. The returned list is immutable and materializes each {@link ServiceInstance} on first access.
+     *
+     * @param serviceId The service ID
+     * @return The instances, or an empty list if the application is not known
+     */
+    @NonNull
+    public List<ServiceInstance> getInstances(@NonNull String serviceId) {
+        Integer app = applicationIndex.get(serviceId.toUpperCase(Locale.ENGLISH));
+        if (app == null) {
+            return Collections.emptyList();
+        }
+        List<ServiceInstance> view = views[app];
+        if (view == null) {
+            view = new InstanceList(applicationOffsets[app], applicationOffsets[app + 1]);
+            views[app] = view;
+        }
+        return view;
+    }
+
+    /**
+     * Two registries are equal if they were built from the same applications and instances, which lets a client keep
+     * handing out the instances of a registry it already retains while the registry does not change.
+     *
+     * @param o The other object
+     * @return Whether the registries hold the same content
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EurekaCompactRegistry that)) {
+            return false;
+        }
+        return Arrays.equals(applicationOffsets, that.applicationOffsets)
+            && Arrays.equals(statuses, that.statuses)
+            && Arrays.equals(ports, that.ports)
+            && Arrays.equals(securePorts, that.securePorts)
+            && Arrays.equals(applicationNames, that.applicationNames)
+            && Arrays.equals(instanceIds, that.instanceIds)
+            && Arrays.equals(hostNames, that.hostNames)
+            && Arrays.equals(zones, that.zones)
+            && Arrays.equals(groups, that.groups)
+            && Arrays.equals(metadataOffsets, that.metadataOffsets)
+            && Arrays.equals(metadataEntries, that.metadataEntries)
+            && Arrays.equals(strings, that.strings);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(strings);
+        result = 31 * result + Arrays.hashCode(applicationOffsets);
+        result = 31 * result + Arrays.hashCode(ports);
+        result = 31 * result + Arrays.hashCode(statuses);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "EurekaCompactRegistry{" +
+            "applications=" + applicationNames.length +
+            ", instances=" + hostNames.length +
+            ", strings=" + strings.length +
+            '}';
+    }
+
+    @Nullable
+    String string(int index) {
+        return index == NONE ? null : strings[index];
+    }
+
+    String instanceId(int row) {
+        return string(instanceIds[row]);
+    }
+
+    String hostName(int row) {
+        return string(hostNames[row]);
+    }
+
+    int port(int row) {
+        return ports[row];
+    }
+
+    int securePort(int row) {
+        return securePorts[row];
+    }
+
+    InstanceInfo.Status status(int row) {
+        return STATUSES[statuses[row]];
+    }
+
+    @Nullable
+    String zone(int row) {
+        return string(zones[row]);
+    }
+
+    @Nullable
+    String group(int row) {
+        return string(groups[row]);
+    }
+
+    Map<String, String> metadata(int row) {
+        int start = metadataOffsets[row];
+        int end = metadataOffsets[row + 1];
+        if (start == end) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> metadata = new LinkedHashMap<>((end - start) / 2 * 4 / 3 + 1);
+        for (int i = start; i < end; i += 2) {
+            metadata.put(string(metadataEntries[i]), string(metadataEntries[i + 1]));
+        }
+        return metadata;
+    }
+
+    /**
+     * A lazily materialized view over a range of rows.
+     */
+    private final class InstanceList extends AbstractList<ServiceInstance> implements RandomAccess {
+
+        private final int start;
+        private final ServiceInstance[] instances;
+
+        InstanceList(int start, int end) {
+            this.start = start;
+            this.instances = new ServiceInstance[end - start];
+        }
+
+        @Override
+        public ServiceInstance get(int index) {
+            ServiceInstance instance = instances[index];
+            if (instance == null) {
+                instance = new EurekaCompactServiceInstance(EurekaCompactRegistry.this, start + index);
+                instances[index] = instance;
+            }
+            return instance;
+        }
+
+        @Override
+        public int size() {
+            return instances.length;
+        }
+    }
+
+    /**
+     * Encodes applications into the columnar layout.
+     */
+    private static final class Builder {
+
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final Collection<ApplicationInfo> applications;
+        private final boolean useSecurePort;
+
+        Builder(Collection<ApplicationInfo> applications, boolean useSecurePort) {
+            this.applications = applications;
+            this.useSecurePort = useSecurePort;
+        }
+
+        EurekaCompactRegistry build() {
+            int instanceCount = 0;
+            int metadataCount = 0;
+            for (ApplicationInfo application : applications) {
+                List<InstanceInfo> instances = application.getInstances();
+                if (instances != null) {
+                    instanceCount += instances.size();
+                    for (InstanceInfo instance : instances) {
+                        metadataCount += instance.getMetadata().size() * 2;
+                    }
+                }
+            }
+
+            Map<String, Integer> applicationIndex = new HashMap<>(applications.size() * 4 / 3 + 1);
+            int[] applicationNames = new int[applications.size()];
+            int[] applicationOffsets = new int[applications.size() + 1];
+            int[] instanceIds = new int[instanceCount];
+            int[] hostNames = new int[instanceCount];
+            int[] ports = new int[instanceCount];
+            int[] securePorts = new int[instanceCount];
+            byte[] statuses = new byte[instanceCount];
+            int[] zones = new int[instanceCount];
+            int[] groups = new int[instanceCount];
+            int[] metadataOffsets = new int[instanceCount + 1];
+            int[] metadataEntries = new int[metadataCount];
+
+            int app = 0;
+            int row = 0;
+            int entry = 0;
+            for (ApplicationInfo application : applications) {
+                String name = application.getName();
+                applicationNames[app] = intern(name);
+                applicationOffsets[app] = row;
+                if (name != null) {
+                    applicationIndex.putIfAbsent(name.toUpperCase(Locale.ENGLISH), app);
+                }
+                List<InstanceInfo> instances = application.getInstances();
+                if (instances != null) {
+                    for (InstanceInfo instance : instances) {
+                        instanceIds[row] = intern(instance.getId());
+                        hostNames[row] = intern(instance.getHostName());
+                        ports[row] = instance.getPort();
+                        securePorts[row] = useSecurePort ? instance.getSecurePort() : -1;
+                        InstanceInfo.Status status = instance.getStatus();
+                        statuses[row] = (byte) (status != null ? status : InstanceInfo.Status.UNKNOWN).ordinal();
+                        zones[row] = intern(availabilityZone(instance.getDataCenterInfo()));
+                        groups[row] = intern(instance.getAsgName());
+                        metadataOffsets[row] = entry;
+                        for (Map.Entry<String, String> metadata : instance.getMetadata().entrySet()) {
+                            metadataEntries[entry++] = intern(metadata.getKey());
+                            metadataEntries[entry++] = intern(metadata.getValue());
+                        }
+                        row++;
+                    }
+                }
+                app++;
+            }
+            applicationOffsets[app] = row;
+            metadataOffsets[row] = entry;
+
+            return new EurekaCompactRegistry(
+                strings.toArray(new String[0]),
+                applicationIndex,
+                applicationNames,
+                applicationOffsets,
+                instanceIds,
+                hostNames,
+                ports,
+                securePorts,
+                statuses,
+                zones,
+                groups,
+                metadataOffsets,
+                metadataEntries
+            );
+        }
+
+        private int intern(@Nullable String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.add(value);
+                dictionary.put(value, index);
+            }
+            return index;
+        }
+
+        @Nullable
+        private static String availabilityZone(@Nullable DataCenterInfo dataCenterInfo) {
+            if (dataCenterInfo instanceof AmazonInfo amazonInfo) {
+                return amazonInfo.get(AmazonInfo.MetaDataKey.availabilityZone);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.eureka;
+
+import io.micronaut.core.convert.value.ConvertibleValues;
+import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.eureka.client.v2.InstanceInfo;
+import io.micronaut.health.HealthStatus;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * A {@link ServiceInstance} view over a single row of a {@link EurekaCompactRegistry}.
+ *
+ * @since 4.5.0
+ */
+public final class EurekaCompactServiceInstance implements ServiceInstance {
+
+    private final EurekaCompactRegistry registry;
+    private final int row;
+    private URI uri;
+
+    /**
+     * @param registry The registry
+     * @param row      The row of the instance within the registry
+     */
+    EurekaCompactServiceInstance(EurekaCompactRegistry registry, int row) {
+        this.registry = registry;
+        this.row = row;
+    }
+
+    @Override
+    public String getId() {
+        return registry.instanceId(row);
+    }
+
+    @Override
+    public Optional<String> getInstanceId() {
+        return Optional.ofNullable(registry.instanceId(row));
+    }
+
+    /**
+     * @return The Eureka status of the instance
+     */
+    public InstanceInfo.Status getStatus() {
+        return registry.status(row);
+    }
+
+    @Override
+    public HealthStatus getHealthStatus() {
+        return switch (registry.status(row)) {
+            case UP -> HealthStatus.UP;
+            case UNKNOWN -> HealthStatus.UNKNOWN;
+            default -> HealthStatus.DOWN;
+        };
+    }
+
+    @Override
+    public Optional<String> getZone() {
+        return Optional.ofNullable(registry.zone(row));
+    }
+
+    @Override
+    public Optional<String> getRegion() {
+        String region = EurekaServiceInstance.regionOf(registry.zone(row));
+        if (region != null) {
+            return Optional.of(region);
+        }
+        return ServiceInstance.super.getRegion();
+    }
+
+    @Override
+    public Optional<String> getGroup() {
+        String group = registry.group(row);
+        if (group != null) {
+            return Optional.of(group);
+        }
+        return ServiceInstance.super.getGroup();
+    }
+
+    @Override
+    public URI getURI() {
+        URI uri = this.uri;
+        if (uri == null) {
+            uri = createURI();
+            this.uri = uri;
+        }
+        return uri;
+    }
+
+    @Override
+    public ConvertibleValues<String> getMetadata() {
+        return ConvertibleValues.of(registry.metadata(row));
+    }
+
+    private URI createURI() {
+        int securePort = registry.securePort(row);
+        if (securePort > 0) {
+            return URI.create("https://" + registry.hostName(row) + ":" + securePort);
+        } else {
+            int port = registry.port(row);
+            String portStr = port > 0 ? ":" + port : "";
+            return URI.create("http://" + registry.hostName(row) + portStr);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getId();
+    }
+}
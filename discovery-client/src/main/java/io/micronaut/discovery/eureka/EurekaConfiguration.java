@@ -155,6 +155,7 @@ public class EurekaConfiguration extends DiscoveryClientConfiguration {
     public static class EurekaDiscoveryConfiguration extends DiscoveryConfiguration {
 
         private boolean useSecurePort;
+        private boolean compactRegistry;
 
         /**
          * @return Whether the secure port is used for communication.
@@ -171,6 +172,24 @@ public class EurekaConfiguration extends DiscoveryClientConfiguration {
         public void setUseSecurePort(boolean useSecurePort) {
             this.useSecurePort = useSecurePort;
         }
+
+        /**
+         * @return Whether discovered instances are retained in the compact registry representation
+         * @see EurekaCompactRegistry
+         */
+        public boolean isCompactRegistry() {
+            return compactRegistry;
+        }
+
+        /**
+         * Sets whether discovered instances are retained in the compact registry representation instead of the full
+         * {@link InstanceInfo} object graph. Defaults to {@code false}.
+         *
+         * @param compactRegistry True if the compact registry should be used
+         */
+        public void setCompactRegistry(boolean compactRegistry) {
+            this.compactRegistry = compactRegistry;
+        }
     }
 
     /**
@@ -26,6 +26,8 @@ import jakarta.validation.constraints.NotNull;
 
 import java.net.URI;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * A {@link ServiceInstance} implementation for Eureka.
@@ -34,6 +36,8 @@ import java.util.Optional;
  * @since 1.0
  */
 public class EurekaServiceInstance implements ServiceInstance {
+    private static final Pattern REGION_PATTERN = Pattern.compile("^([a-z]{2}(?:-gov)?-[a-z]+-\\d+)(?:[a-z]|-[a-z])");
+
     private final InstanceInfo instanceInfo;
     private final URI uri;
 
@@ -74,10 +78,12 @@ public class EurekaServiceInstance implements ServiceInstance {
     public Optional<String> getRegion() {
         @NotNull DataCenterInfo dataCenterInfo = instanceInfo.getDataCenterInfo();
         if (dataCenterInfo instanceof AmazonInfo amazonInfo) {
-            String availabilityZone = amazonInfo.get(AmazonInfo.MetaDataKey.availabilityZone);
-            return Optional.ofNullable(availabilityZone);
+            String region = regionOf(amazonInfo.get(AmazonInfo.MetaDataKey.availabilityZone));
+            if (region != null) {
+                return Optional.of(region);
+            }
         }
-        return ServiceInstance.super.getZone();
+        return ServiceInstance.super.getRegion();
     }
 
     @Override
@@ -89,6 +95,21 @@ public class EurekaServiceInstance implements ServiceInstance {
         return ServiceInstance.super.getZone();
     }
 
+    /**
+     * Derives the AWS region from an availability zone, for example {@code us-east-1} from {@code us-east-1a} or
+     * {@code us-west-2} from the local zone {@code us-west-2-lax-1a}.
+     *
+     * @param availabilityZone The availability zone
+     * @return The region, or {@code null} if the zone does not follow the AWS naming scheme
+     */
+    static String regionOf(String availabilityZone) {
+        if (availabilityZone == null) {
+            return null;
+        }
+        Matcher matcher = REGION_PATTERN.matcher(availabilityZone);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
     /**
      * @return The Eureka {@link InstanceInfo}
      */
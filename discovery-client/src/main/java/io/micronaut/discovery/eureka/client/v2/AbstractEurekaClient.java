@@ -24,9 +24,16 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonRootName;
 import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.async.publisher.Publishers;
 import io.micronaut.core.naming.NameUtils;
 import io.micronaut.discovery.ServiceInstance;
+import io.micronaut.discovery.client.breaker.DiscoveryCircuitBreaker;
+import io.micronaut.discovery.client.breaker.DiscoveryCircuitBreakers;
+import io.micronaut.discovery.client.jfr.DiscoveryEvents;
+import io.micronaut.discovery.client.management.DiscoveryActivity;
+import io.micronaut.discovery.client.registry.RegistrySnapshotStore;
+import io.micronaut.discovery.eureka.EurekaCompactRegistry;
 import io.micronaut.discovery.eureka.EurekaConfiguration;
 import io.micronaut.discovery.eureka.EurekaServiceInstance;
 import io.micronaut.discovery.eureka.condition.RequiresEureka;
@@ -38,13 +45,17 @@ import io.micronaut.http.client.exceptions.HttpClientException;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.jackson.annotation.JacksonFeatures;
 import io.micronaut.validation.Validated;
+import jakarta.inject.Inject;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Compile time implementation of {@link EurekaClient}.
@@ -66,6 +77,10 @@ abstract class AbstractEurekaClient implements EurekaClient {
     static final String EXPR_EUREKA_REGISTRATION_RETRY_COUNT = "${" + EurekaConfiguration.EurekaRegistrationConfiguration.PREFIX + ".retry-count:10}";
 
     private final EurekaConfiguration.EurekaDiscoveryConfiguration discoveryConfiguration;
+    private RegistrySnapshotStore registrySnapshotStore;
+    private DiscoveryCircuitBreaker circuitBreaker;
+    private DiscoveryActivity discoveryActivity;
+    private final Map<String, EurekaCompactRegistry> compactRegistries = new ConcurrentHashMap<>();
 
     /**
      * Default constructor.
@@ -76,6 +91,30 @@ abstract class AbstractEurekaClient implements EurekaClient {
         this.discoveryConfiguration = discoveryConfiguration;
     }
 
+    /**
+     * @param registrySnapshotStore The registry snapshot store used to warm the first lookups after startup
+     */
+    @Inject
+    public void setRegistrySnapshotStore(@Nullable RegistrySnapshotStore registrySnapshotStore) {
+        this.registrySnapshotStore = registrySnapshotStore;
+    }
+
+    /**
+     * @param circuitBreakers The circuit breakers protecting lookups against Eureka
+     */
+    @Inject
+    public void setCircuitBreakers(@Nullable DiscoveryCircuitBreakers circuitBreakers) {
+        this.circuitBreaker = circuitBreakers != null ? circuitBreakers.get(EurekaClient.SERVICE_ID) : null;
+    }
+
+    /**
+     * @param discoveryActivity The activity reported by the discovery management endpoint
+     */
+    @Inject
+    public void setDiscoveryActivity(@Nullable DiscoveryActivity discoveryActivity) {
+        this.discoveryActivity = discoveryActivity;
+    }
+
     @Override
     public @NonNull String getDescription() {
         return EurekaClient.SERVICE_ID;
@@ -84,20 +123,13 @@ abstract class AbstractEurekaClient implements EurekaClient {
     @Override
     public Publisher<List<ServiceInstance>> getInstances(String serviceId) {
         serviceId = NameUtils.hyphenate(serviceId);
-        Flux<List<ServiceInstance>> flowable = Flux.from(getApplicationInfo(serviceId)).map(applicationInfo -> Optional.ofNullable(applicationInfo.getInstances())
-            .stream()
-            .flatMap(Collection::stream)
-            .map(ii -> {
-                if (!discoveryConfiguration.isUseSecurePort()) {
-                    ii.setSecurePort(-1);
-                }
-                return (ServiceInstance) new EurekaServiceInstance(ii);
-            })
-            .toList());
+        String id = serviceId;
+        Flux<List<ServiceInstance>> flowable = Flux.from(getApplicationInfo(serviceId)).map(this::toServiceInstances);
 
-        return flowable.onErrorResume(throwable -> {
+        Flux<List<ServiceInstance>> instances = flowable.onErrorResume(throwable -> {
             // Translate 404 into empty list
             if (throwable instanceof HttpClientResponseException hcre && hcre.getStatus() == HttpStatus.NOT_FOUND) {
+                compactRegistries.remove(applicationKey(id));
                 return Flux.just(Collections.emptyList());
             }
             if (throwable instanceof Exception) {
@@ -106,6 +138,50 @@ abstract class AbstractEurekaClient implements EurekaClient {
                 return Flux.error(new HttpClientException("Internal Client Error: " + throwable.getMessage(), throwable));
             }
         });
+        if (circuitBreaker != null) {
+            instances = Flux.from(circuitBreaker.execute(serviceId, instances));
+        }
+        Publisher<List<ServiceInstance>> result = instances;
+        if (registrySnapshotStore != null) {
+            result = registrySnapshotStore.warm(EurekaClient.SERVICE_ID, serviceId, instances);
+        }
+        if (discoveryActivity != null) {
+            result = discoveryActivity.lookup(EurekaClient.SERVICE_ID, serviceId, result);
+        }
+        return DiscoveryEvents.lookup(EurekaClient.SERVICE_ID, serviceId, result);
+    }
+
+    @Override
+    public Publisher<EurekaCompactRegistry> getCompactRegistry() {
+        return Publishers.map(getApplicationInfosInternal(), applicationInfos ->
+            EurekaCompactRegistry.of(applicationInfos.applications, discoveryConfiguration.isUseSecurePort())
+        );
+    }
+
+    private List<ServiceInstance> toServiceInstances(ApplicationInfo applicationInfo) {
+        // applications without a name cannot be looked up in a compact registry, so their instances are mapped directly
+        if (discoveryConfiguration.isCompactRegistry() && applicationInfo.getName() != null) {
+            // the response is still decoded into instance infos, but only the compact registry outlives the lookup.
+            // It is replaced only when the application changes, so unchanged lookups hand out the same instances.
+            EurekaCompactRegistry registry = EurekaCompactRegistry.of(Collections.singletonList(applicationInfo), discoveryConfiguration.isUseSecurePort());
+            EurekaCompactRegistry retained = compactRegistries.merge(applicationKey(applicationInfo.getName()), registry,
+                (previous, next) -> previous.equals(next) ? previous : next);
+            return retained.getInstances(applicationInfo.getName());
+        }
+        return Optional.ofNullable(applicationInfo.getInstances())
+            .stream()
+            .flatMap(Collection::stream)
+            .map(ii -> {
+                if (!discoveryConfiguration.isUseSecurePort()) {
+                    ii.setSecurePort(-1);
+                }
+                return (ServiceInstance) new EurekaServiceInstance(ii);
+            })
+            .toList();
+    }
+
+    private static String applicationKey(String name) {
+        return name.toUpperCase(Locale.ENGLISH);
     }
 
     @Override
@@ -15,7 +15,10 @@
  */
 package io.micronaut.discovery.eureka.client.v2;
 
+import io.micronaut.core.async.publisher.Publishers;
 import io.micronaut.discovery.DiscoveryClient;
+import io.micronaut.discovery.eureka.EurekaCompactRegistry;
+import org.reactivestreams.Publisher;
 
 /**
  * Default EurekaClient interface that implements both {@link EurekaOperations} and {@link DiscoveryClient}.
@@ -29,4 +32,16 @@ public interface EurekaClient extends EurekaOperations, DiscoveryClient {
      * The default ID of the Eureka service.
      */
     String SERVICE_ID = "eureka";
+
+    /**
+     * Obtain the full registry in the compact columnar representation. The default implementation builds it from
+     * {@link #getApplicationInfos()} and retains the insecure port of each instance; the built-in client overrides it
+     * to honour {@code eureka.client.discovery.use-secure-port}.
+     *
+     * @return A {@link Publisher} that emits the {@link EurekaCompactRegistry}
+     * @since 4.5.0
+     */
+    default Publisher<EurekaCompactRegistry> getCompactRegistry() {
+        return Publishers.map(getApplicationInfos(), applicationInfos -> EurekaCompactRegistry.of(applicationInfos, false));
+    }
 }
@@ -16,19 +16,29 @@
 package io.micronaut.discovery.eureka.health;
 
 import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.discovery.eureka.client.v2.EurekaClient;
+import io.micronaut.discovery.client.breaker.DiscoveryCircuitBreakers;
+import io.micronaut.discovery.client.health.CachedHealthResult;
+import io.micronaut.discovery.client.health.HealthCacheConfiguration;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.ApplicationConfiguration;
 import io.micronaut.health.HealthStatus;
 import io.micronaut.management.health.indicator.HealthIndicator;
 import io.micronaut.management.health.indicator.HealthResult;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 
-import java.util.Collections;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * A {@link HealthIndicator} for Eureka.
+ * A {@link HealthIndicator} for Eureka. Rather than downloading the whole registry, the indicator fetches the
+ * application of this service, which Eureka answers even before the service is registered. Results are cached
+ * according to the {@link HealthCacheConfiguration}.
  *
  * @author Graeme Rocher
  * @since 1.0
@@ -38,20 +48,68 @@ import java.util.List;
 @Requires(beans = EurekaClient.class)
 public class EurekaHealthIndicator implements HealthIndicator {
     private final EurekaClient eurekaClient;
+    private final DiscoveryCircuitBreakers circuitBreakers;
+    private final String appId;
+    private final CachedHealthResult cachedResult;
 
     /**
      * @param eurekaClient The Eureka client
      */
     public EurekaHealthIndicator(EurekaClient eurekaClient) {
+        this(eurekaClient, null);
+    }
+
+    /**
+     * @param eurekaClient    The Eureka client
+     * @param circuitBreakers The circuit breakers protecting lookups against Eureka
+     */
+    public EurekaHealthIndicator(EurekaClient eurekaClient, @Nullable DiscoveryCircuitBreakers circuitBreakers) {
+        this(eurekaClient, circuitBreakers, new HealthCacheConfiguration(), null);
+    }
+
+    /**
+     * @param eurekaClient             The Eureka client
+     * @param circuitBreakers          The circuit breakers protecting lookups against Eureka
+     * @param cacheConfiguration       The health cache configuration
+     * @param applicationConfiguration The application configuration, whose name is the application probed
+     * @since 4.5.0
+     */
+    @Inject
+    public EurekaHealthIndicator(EurekaClient eurekaClient,
+                                 @Nullable DiscoveryCircuitBreakers circuitBreakers,
+                                 HealthCacheConfiguration cacheConfiguration,
+                                 @Nullable ApplicationConfiguration applicationConfiguration) {
         this.eurekaClient = eurekaClient;
+        this.circuitBreakers = circuitBreakers;
+        this.appId = applicationConfiguration != null ? applicationConfiguration.getName().orElse(EurekaClient.SERVICE_ID) : EurekaClient.SERVICE_ID;
+        this.cachedResult = new CachedHealthResult(cacheConfiguration, this::probe);
     }
 
     @Override
     public Publisher<HealthResult> getResult() {
-        Flux<List<String>> serviceIds = Flux.from(eurekaClient.getServiceIds());
-        return serviceIds.map(ids -> {
+        return cachedResult.getResult();
+    }
+
+    private Publisher<HealthResult> probe() {
+        Flux<Integer> instances = Flux.from(eurekaClient.getApplicationInfo(appId))
+            .map(applicationInfo -> applicationInfo.getInstances() != null ? applicationInfo.getInstances().size() : 0)
+            .onErrorResume(throwable -> {
+                // Eureka answers 404 for an application without instances, which still proves it is reachable
+                if (throwable instanceof HttpClientResponseException hcre && hcre.getStatus() == HttpStatus.NOT_FOUND) {
+                    return Flux.just(0);
+                }
+                return Flux.error(throwable);
+            })
+            .defaultIfEmpty(0);
+        return instances.map(count -> {
             HealthResult.Builder builder = HealthResult.builder(EurekaClient.SERVICE_ID, HealthStatus.UP);
-            return builder.details(Collections.singletonMap("available-services", ids)).build();
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("application", appId);
+            details.put("instances", count);
+            if (circuitBreakers != null) {
+                details.put("circuit-breaker", circuitBreakers.get(EurekaClient.SERVICE_ID).getDetails());
+            }
+            return builder.details(details).build();
         }).onErrorResume(throwable -> {
             HealthResult.Builder builder = HealthResult.builder(EurekaClient.SERVICE_ID, HealthStatus.DOWN);
             builder.exception(throwable);
@@ -17,9 +17,11 @@ package io.micronaut.discovery.eureka.registration;
 
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.context.env.Environment;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.convert.value.ConvertibleValues;
 import io.micronaut.discovery.ServiceInstance;
 import io.micronaut.discovery.ServiceInstanceIdGenerator;
+import io.micronaut.discovery.client.jfr.DiscoveryEvents;
 import io.micronaut.discovery.client.registration.DiscoveryServiceAutoRegistration;
 import io.micronaut.discovery.eureka.EurekaConfiguration;
 import io.micronaut.discovery.eureka.client.v2.EurekaClient;
@@ -30,18 +32,23 @@ import io.micronaut.http.HttpStatus;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.runtime.ApplicationConfiguration;
 import io.micronaut.runtime.server.EmbeddedServer;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * A {@link io.micronaut.discovery.registration.AutoRegistration} that registers with Eureka.
+ * A {@link io.micronaut.discovery.registration.AutoRegistration} that registers with Eureka. Once registered, the
+ * lease is renewed on the cadence of the {@link io.micronaut.discovery.eureka.client.v2.LeaseInfo} of the instance.
  *
  * @author Graeme Rocher
  * @since 1.0
@@ -58,6 +65,10 @@ public class EurekaAutoRegistration extends DiscoveryServiceAutoRegistration {
     private final HeartbeatConfiguration heartbeatConfiguration;
     private final ServiceInstanceIdGenerator idGenerator;
     private final AtomicReference<HealthStatus> lastStatus = new AtomicReference<>();
+    private final AtomicBoolean renewing = new AtomicBoolean();
+    private final AtomicBoolean deregistering = new AtomicBoolean();
+    private volatile Disposable renewal;
+    private EurekaInstanceInfoReplicator instanceInfoReplicator;
 
     /**
      * @param environment            The environment
@@ -81,39 +92,42 @@ public class EurekaAutoRegistration extends DiscoveryServiceAutoRegistration {
         this.idGenerator = idGenerator;
     }
 
+    /**
+     * @param instanceInfoReplicator The replicator coalescing status and metadata changes
+     * @since 4.5.0
+     */
+    @Inject
+    public void setInstanceInfoReplicator(@Nullable EurekaInstanceInfoReplicator instanceInfoReplicator) {
+        this.instanceInfoReplicator = instanceInfoReplicator;
+    }
+
     @Override
     protected void pulsate(ServiceInstance instance, HealthStatus status) {
         EurekaConfiguration.EurekaRegistrationConfiguration registration = eurekaConfiguration.getRegistration();
-        if (heartbeatConfiguration.isEnabled() && registration != null && registered.get()) {
+        if (heartbeatConfiguration.isEnabled() && registration != null && registered.get() && !deregistering.get()) {
             InstanceInfo instanceInfo = registration.getInstanceInfo();
-            if (status.equals(HealthStatus.UP)) {
-                Mono<HttpStatus> heartbeatPublisher = Mono.from(eurekaClient.heartbeat(instanceInfo.getApp(), instanceInfo.getId()));
-                heartbeatPublisher.subscribe(httpStatus -> {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Successfully reported passing state to Eureka");
-                    }
-                }, throwable -> {
-                    if (throwable instanceof HttpClientResponseException hcre) {
-                        HttpStatus httpStatus = hcre.getStatus();
-                        if (httpStatus == HttpStatus.NOT_FOUND) {
-                            if (LOG.isInfoEnabled()) {
-                                LOG.info("Instance [{}] no longer registered with Eureka. Attempting re-registration.", instance.getId());
-                            }
-                            register(instance);
-                            return;
-                        }
-                    }
-                    String errorMessage = getErrorMessage(throwable, "Error reporting passing state to Eureka: ");
-                    if (LOG.isErrorEnabled()) {
-                        LOG.error(errorMessage, throwable);
-                    }
-                });
+            EurekaInstanceInfoReplicator instanceInfoReplicator = this.instanceInfoReplicator;
+            if (instanceInfoReplicator != null) {
+                instanceInfoReplicator.start();
+            }
+            if (status.equals(HealthStatus.UP) && renewing.compareAndSet(false, true)) {
+                LeaseRenewalSchedule schedule = new LeaseRenewalSchedule(instanceInfo.getLeaseInfo(), System.nanoTime());
+                scheduleRenewal(instance, schedule, heartbeatJitter(instance, schedule.getRenewalInterval()));
+            }
+            if (deregistering.get()) {
+                // deregistration started concurrently, and registered is only reset once it completes
+                stopRenewals();
+                return;
             }
 
             final HealthStatus lastStatus = this.lastStatus.getAndSet(status);
             if (lastStatus == null || !lastStatus.equals(status)) {
 
                 InstanceInfo.Status s = translateState(status);
+                if (instanceInfoReplicator != null) {
+                    instanceInfoReplicator.statusChanged(s);
+                    return;
+                }
                 eurekaClient.updateStatus(instanceInfo.getApp(), instanceInfo.getId(), s)
                         .subscribe(new Subscriber<>() {
                             @Override
@@ -146,6 +160,65 @@ public class EurekaAutoRegistration extends DiscoveryServiceAutoRegistration {
         }
     }
 
+    private void scheduleRenewal(ServiceInstance instance, LeaseRenewalSchedule schedule, Duration delay) {
+        renewal = Mono.delay(delay).subscribe(ignored -> renew(instance, schedule));
+    }
+
+    private void renew(ServiceInstance instance, LeaseRenewalSchedule schedule) {
+        EurekaConfiguration.EurekaRegistrationConfiguration registration = eurekaConfiguration.getRegistration();
+        if (!renewing.get() || deregistering.get() || registration == null) {
+            return;
+        }
+        HealthStatus status = lastStatus.get();
+        if (!registered.get() || !HealthStatus.UP.equals(status)) {
+            // the lease is not renewed while the instance is down, as before lease renewals were scheduled
+            scheduleRenewal(instance, schedule, schedule.nextDelay(System.nanoTime()));
+            return;
+        }
+        InstanceInfo instanceInfo = registration.getInstanceInfo();
+        long start = System.nanoTime();
+        Mono<HttpStatus> heartbeatPublisher = Mono.from(DiscoveryEvents.heartbeat(
+            EurekaClient.SERVICE_ID, instance, status, eurekaClient.heartbeat(instanceInfo.getApp(), instanceInfo.getId())));
+        heartbeatPublisher.subscribe(httpStatus -> {
+            long now = System.nanoTime();
+            schedule.renewed(now, now - start);
+            heartbeatReported(EurekaClient.SERVICE_ID, instance, status, schedule.getRenewalInterval(), null);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Successfully reported passing state to Eureka");
+            }
+        }, throwable -> {
+            schedule.failed(System.nanoTime() - start);
+            heartbeatReported(EurekaClient.SERVICE_ID, instance, status, schedule.getRenewalInterval(), throwable);
+            scheduleRenewal(instance, schedule, schedule.nextDelay(System.nanoTime()));
+            if (throwable instanceof HttpClientResponseException hcre) {
+                HttpStatus httpStatus = hcre.getStatus();
+                if (httpStatus == HttpStatus.NOT_FOUND && !deregistering.get()) {
+                    if (LOG.isInfoEnabled()) {
+                        LOG.info("Instance [{}] no longer registered with Eureka. Attempting re-registration.", instance.getId());
+                    }
+                    register(instance);
+                    return;
+                }
+            }
+            String errorMessage = getErrorMessage(throwable, "Error reporting passing state to Eureka: ");
+            if (LOG.isErrorEnabled()) {
+                LOG.error(errorMessage, throwable);
+            }
+        }, () -> scheduleRenewal(instance, schedule, schedule.nextDelay(System.nanoTime())));
+    }
+
+    private void stopRenewals() {
+        renewing.set(false);
+        EurekaInstanceInfoReplicator instanceInfoReplicator = this.instanceInfoReplicator;
+        if (instanceInfoReplicator != null) {
+            instanceInfoReplicator.stop();
+        }
+        Disposable renewal = this.renewal;
+        if (renewal != null) {
+            renewal.dispose();
+        }
+    }
+
     /**
      * Translate a {@link HealthStatus} to a Eureka {@link io.micronaut.discovery.eureka.client.v2.InstanceInfo.Status}.
      *
@@ -162,6 +235,9 @@ public class EurekaAutoRegistration extends DiscoveryServiceAutoRegistration {
     @Override
     protected void deregister(ServiceInstance instance) {
         EurekaConfiguration.EurekaRegistrationConfiguration registration = eurekaConfiguration.getRegistration();
+        // set before the renewals are stopped, so that a concurrent heartbeat cannot start them again
+        deregistering.set(true);
+        stopRenewals();
         if (registration != null) {
             InstanceInfo instanceInfo = registration.getInstanceInfo();
 
@@ -174,6 +250,11 @@ public class EurekaAutoRegistration extends DiscoveryServiceAutoRegistration {
     protected void register(ServiceInstance instance) {
         EurekaConfiguration.EurekaRegistrationConfiguration registration = eurekaConfiguration.getRegistration();
         if (registration != null) {
+            deregistering.set(false);
+            EurekaInstanceInfoReplicator instanceInfoReplicator = this.instanceInfoReplicator;
+            if (instanceInfoReplicator != null) {
+                instanceInfoReplicator.registering();
+            }
             InstanceInfo instanceInfo = registration.getInstanceInfo();
 
             if (!registration.isExplicitInstanceId()) {
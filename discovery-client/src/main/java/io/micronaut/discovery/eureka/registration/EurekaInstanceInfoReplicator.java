@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.eureka.registration;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.discovery.eureka.EurekaConfiguration;
+import io.micronaut.discovery.eureka.client.v2.EurekaClient;
+import io.micronaut.discovery.eureka.client.v2.InstanceInfo;
+import io.micronaut.http.HttpStatus;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Replicates status changes of the registered instance to Eureka.</p>
+ *
+ * <p>Status changes made within the configured burst window are coalesced into a single status update of the latest
+ * status, and none is sent if the status flapped back. Replications are limited by a token bucket, which protects the
+ * Eureka server from flapping health.</p>
+ *
+ * @since 4.5.0
+ */
+@Singleton
+@Requires(beans = {EurekaClient.class, EurekaConfiguration.class})
+@Requires(property = EurekaReplicationConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public class EurekaInstanceInfoReplicator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EurekaInstanceInfoReplicator.class);
+
+    private final EurekaClient eurekaClient;
+    private final EurekaConfiguration eurekaConfiguration;
+    private final EurekaReplicationConfiguration configuration;
+    private final TokenBucket tokenBucket;
+    private final AtomicReference<InstanceInfo.Status> pendingStatus = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile InstanceInfo.Status replicatedStatus;
+    private volatile boolean active;
+
+    /**
+     * @param eurekaClient        The Eureka client
+     * @param eurekaConfiguration The Eureka configuration
+     * @param configuration       The replication configuration
+     */
+    public EurekaInstanceInfoReplicator(EurekaClient eurekaClient,
+                                        EurekaConfiguration eurekaConfiguration,
+                                        EurekaReplicationConfiguration configuration) {
+        this.eurekaClient = eurekaClient;
+        this.eurekaConfiguration = eurekaConfiguration;
+        this.configuration = configuration;
+        this.tokenBucket = new TokenBucket(configuration.getBurstSize(), configuration.getRatePerMinute(), System.nanoTime());
+    }
+
+    /**
+     * Replicates a status change of the instance.
+     *
+     * @param status The new status
+     */
+    public void statusChanged(@NonNull InstanceInfo.Status status) {
+        pendingStatus.set(status);
+        schedule(configuration.getBurstWindow());
+    }
+
+    /**
+     * Starts replicating changes, once the instance is registered.
+     */
+    void start() {
+        EurekaConfiguration.EurekaRegistrationConfiguration registration = eurekaConfiguration.getRegistration();
+        if (replicatedStatus == null && registration != null) {
+            // the status was sent with the registration
+            replicatedStatus = registration.getInstanceInfo().getStatus();
+        }
+        if (!active) {
+            active = true;
+            if (isPending()) {
+                schedule(configuration.getBurstWindow());
+            }
+        }
+    }
+
+    /**
+     * Stops replicating changes, before the instance is deregistered.
+     */
+    void stop() {
+        active = false;
+    }
+
+    /**
+     * Forgets the last replicated status when the instance is registered again, since the registration sends the
+     * status of the instance info and replaces whatever Eureka held before.
+     */
+    void registering() {
+        replicatedStatus = null;
+    }
+
+    private boolean isPending() {
+        InstanceInfo.Status status = pendingStatus.get();
+        return status != null && status != replicatedStatus;
+    }
+
+    private void schedule(Duration delay) {
+        if (active && scheduled.compareAndSet(false, true)) {
+            Mono.delay(delay).subscribe(ignored -> replicate());
+        }
+    }
+
+    private void replicate() {
+        EurekaConfiguration.EurekaRegistrationConfiguration registration = eurekaConfiguration.getRegistration();
+        if (!active || registration == null || !isPending()) {
+            done();
+            return;
+        }
+        long wait = tokenBucket.tryAcquire(System.nanoTime());
+        if (wait > 0) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Rate limit reached, delaying replication to Eureka by {}ms", Duration.ofNanos(wait).toMillis());
+            }
+            Mono.delay(Duration.ofNanos(wait)).subscribe(ignored -> replicate());
+            return;
+        }
+
+        InstanceInfo instanceInfo = registration.getInstanceInfo();
+        InstanceInfo.Status status = pendingStatus.getAndSet(null);
+        if (status == null) {
+            done();
+            return;
+        }
+        instanceInfo.setStatus(status);
+        Publisher<HttpStatus> replication = eurekaClient.updateStatus(instanceInfo.getApp(), instanceInfo.getId(), status);
+        Mono.from(replication).subscribe(httpStatus -> {
+            replicatedStatus = status;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Successfully replicated status {} to Eureka", status);
+            }
+        }, throwable -> {
+            pendingStatus.compareAndSet(null, status);
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Error replicating status to Eureka: " + throwable.getMessage(), throwable);
+            }
+            done();
+        }, this::done);
+    }
+
+    private void done() {
+        scheduled.set(false);
+        if (isPending()) {
+            schedule(configuration.getBurstWindow());
+        }
+    }
+}
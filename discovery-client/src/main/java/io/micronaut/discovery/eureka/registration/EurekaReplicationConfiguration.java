@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.eureka.registration;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.util.Toggleable;
+import io.micronaut.discovery.eureka.EurekaConfiguration;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the {@link EurekaInstanceInfoReplicator}.
+ *
+ * @since 4.5.0
+ */
+@ConfigurationProperties(EurekaReplicationConfiguration.PREFIX)
+public class EurekaReplicationConfiguration implements Toggleable {
+
+    /**
+     * The prefix to use for all replication settings.
+     */
+    public static final String PREFIX = EurekaConfiguration.PREFIX + ".registration.replication";
+
+    /**
+     * The default burst window in milliseconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_BURST_WINDOW_MILLIS = 500;
+
+    /**
+     * The default burst size.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_BURST_SIZE = 2;
+
+    /**
+     * The default number of replications per minute.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_RATE_PER_MINUTE = 4;
+
+    private boolean enabled;
+    private Duration burstWindow = Duration.ofMillis(DEFAULT_BURST_WINDOW_MILLIS);
+    private int burstSize = DEFAULT_BURST_SIZE;
+    private int ratePerMinute = DEFAULT_RATE_PER_MINUTE;
+
+    /**
+     * @return Whether status changes are coalesced and rate limited
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Default value (false).
+     * @param enabled Whether status changes are coalesced and rate limited
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return How long changes are collected before they are replicated together
+     */
+    public Duration getBurstWindow() {
+        return burstWindow;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_BURST_WINDOW_MILLIS} milliseconds).
+     * @param burstWindow How long changes are collected before they are replicated together
+     */
+    public void setBurstWindow(Duration burstWindow) {
+        if (burstWindow != null) {
+            this.burstWindow = burstWindow;
+        }
+    }
+
+    /**
+     * @return The number of replications allowed in a burst
+     */
+    public int getBurstSize() {
+        return burstSize;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_BURST_SIZE}).
+     * @param burstSize The number of replications allowed in a burst
+     */
+    public void setBurstSize(int burstSize) {
+        if (burstSize > 0) {
+            this.burstSize = burstSize;
+        }
+    }
+
+    /**
+     * @return The sustained number of replications allowed per minute
+     */
+    public int getRatePerMinute() {
+        return ratePerMinute;
+    }
+
+    /**
+     * Default value ({@value #DEFAULT_RATE_PER_MINUTE}).
+     * @param ratePerMinute The sustained number of replications allowed per minute
+     */
+    public void setRatePerMinute(int ratePerMinute) {
+        if (ratePerMinute > 0) {
+            this.ratePerMinute = ratePerMinute;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EurekaReplicationConfiguration{" +
+            "enabled=" + enabled +
+            ", burstWindow=" + burstWindow +
+            ", burstSize=" + burstSize +
+            ", ratePerMinute=" + ratePerMinute +
+            '}';
+    }
+}
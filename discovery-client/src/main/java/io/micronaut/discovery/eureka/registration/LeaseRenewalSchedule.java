@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.eureka.registration;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.discovery.eureka.client.v2.LeaseInfo;
+
+import java.time.Duration;
+
+/**
+ * <p>Schedules the lease renewals of an instance registered with Eureka from its {@link LeaseInfo}.</p>
+ *
+ * <p>Renewals are sent every {@link LeaseInfo#getRenewalIntervalInSecs()}. When the latency of renewals grows, or
+ * renewals fail, the next renewal is brought forward so that it completes, with a margin of a few round trips, before
+ * the lease expires after {@link LeaseInfo#getDurationInSecs()} without a successful renewal.</p>
+ *
+ * @since 4.5.0
+ */
+final class LeaseRenewalSchedule {
+
+    /**
+     * The number of renewal round trips kept as a margin before the lease expires.
+     */
+    static final int LATENCY_MARGIN = 3;
+
+    /**
+     * The minimum delay between two renewals.
+     */
+    static final Duration MIN_DELAY = Duration.ofSeconds(1);
+
+    private static final double LATENCY_WEIGHT = 0.3;
+
+    private final long renewalInterval;
+    private final long leaseDuration;
+    private long lastRenewal;
+    private double latency;
+    private boolean failing;
+
+    /**
+     * @param leaseInfo The lease info, or {@code null} for the Eureka defaults
+     * @param now       The current value of {@link System#nanoTime()}
+     */
+    LeaseRenewalSchedule(@Nullable LeaseInfo leaseInfo, long now) {
+        int renewalIntervalInSecs = leaseInfo != null ? leaseInfo.getRenewalIntervalInSecs() : LeaseInfo.DEFAULT_LEASE_RENEWAL_INTERVAL;
+        int durationInSecs = leaseInfo != null ? leaseInfo.getDurationInSecs() : LeaseInfo.DEFAULT_LEASE_DURATION;
+        this.renewalInterval = Duration.ofSeconds(renewalIntervalInSecs).toNanos();
+        this.leaseDuration = Duration.ofSeconds(Math.max(durationInSecs, renewalIntervalInSecs)).toNanos();
+        this.lastRenewal = now;
+    }
+
+    /**
+     * @return The interval between renewals configured by the lease
+     */
+    Duration getRenewalInterval() {
+        return Duration.ofNanos(renewalInterval);
+    }
+
+    /**
+     * Records a successful renewal.
+     *
+     * @param now     The current value of {@link System#nanoTime()}
+     * @param latency The latency of the renewal in nanoseconds
+     */
+    synchronized void renewed(long now, long latency) {
+        observe(latency);
+        lastRenewal = now;
+        failing = false;
+    }
+
+    /**
+     * Records a failed renewal.
+     *
+     * @param latency The time until the renewal failed in nanoseconds
+     */
+    synchronized void failed(long latency) {
+        observe(latency);
+        failing = true;
+    }
+
+    /**
+     * @param now The current value of {@link System#nanoTime()}
+     * @return The delay until the next renewal
+     */
+    synchronized Duration nextDelay(long now) {
+        long interval = failing ? renewalInterval / 2 : renewalInterval;
+        long remaining = leaseDuration - (now - lastRenewal);
+        long deadline = remaining - (long) (LATENCY_MARGIN * latency);
+        long delay = Math.min(interval, deadline);
+        return Duration.ofNanos(Math.max(delay, MIN_DELAY.toNanos()));
+    }
+
+    /**
+     * @return The estimated latency of a renewal in nanoseconds
+     */
+    synchronized long getLatency() {
+        return (long) latency;
+    }
+
+    private void observe(long latency) {
+        this.latency = this.latency == 0 ? latency : LATENCY_WEIGHT * latency + (1 - LATENCY_WEIGHT) * this.latency;
+    }
+}
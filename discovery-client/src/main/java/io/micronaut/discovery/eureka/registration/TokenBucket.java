@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.eureka.registration;
+
+/**
+ * A token bucket that allows bursts of a given size and refills at a steady rate.
+ *
+ * @since 4.5.0
+ */
+final class TokenBucket {
+
+    private final long capacity;
+    private final long refillNanos;
+    private long credit;
+    private long refilledAt;
+
+    /**
+     * @param capacity      The maximum number of tokens, the size of a burst
+     * @param ratePerMinute The number of tokens added per minute
+     * @param now           The current value of {@link System#nanoTime()}
+     */
+    TokenBucket(int capacity, int ratePerMinute, long now) {
+        this.refillNanos = 60_000_000_000L / ratePerMinute;
+        this.capacity = capacity * refillNanos;
+        this.credit = this.capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @param now The current value of {@link System#nanoTime()}
+     * @return Zero if a token was taken, otherwise the nanoseconds until the next token is available
+     */
+    synchronized long tryAcquire(long now) {
+        // the credit is kept in nanoseconds of refill time, a token being worth refillNanos
+        credit = Math.min(capacity, credit + (now - refilledAt));
+        refilledAt = now;
+        if (credit >= refillNanos) {
+            credit -= refillNanos;
+            return 0;
+        }
+        return refillNanos - credit;
+    }
+}
@@ -23,6 +23,7 @@ import io.micronaut.http.client.HttpClientConfiguration;
 import io.micronaut.runtime.ApplicationConfiguration;
 
 import jakarta.inject.Inject;
+import java.util.Optional;
 
 /**
  *  A {@link HttpClientConfiguration} for Vault Client.
@@ -58,6 +59,7 @@ public class VaultClientConfiguration extends HttpClientConfiguration {
 
     private String uri = DEFAULT_URI;
     private String token;
+    private String unixSocket;
     private VaultKvVersion kvVersion = DEFAULT_KV_VERSION;
     private String secretEngineName = DEFAULT_SECRET_ENGINE;
     private String pathPrefix = DEFAULT_PATH_PREFIX;
@@ -101,6 +103,23 @@ public class VaultClientConfiguration extends HttpClientConfiguration {
         this.uri = uri;
     }
 
+    /**
+     * @return The Unix domain socket of the local Vault Agent, if requests should not use TCP
+     */
+    public Optional<String> getUnixSocket() {
+        return Optional.ofNullable(unixSocket);
+    }
+
+    /**
+     * Set the Unix domain socket of the local Vault Agent, either as a {@code unix://} URI or as a file path. When
+     * set, requests to the Vault Server Uri are sent over the socket instead of TCP.
+     *
+     * @param unixSocket The Unix domain socket of the local Vault Agent
+     */
+    public void setUnixSocket(String unixSocket) {
+        this.unixSocket = unixSocket;
+    }
+
     /**
      * @return The Vault authentication token
      */
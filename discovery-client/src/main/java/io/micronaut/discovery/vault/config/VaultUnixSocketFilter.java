@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.order.Ordered;
+import io.micronaut.discovery.client.transport.UnixSocketHttpTransport;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.ClientFilterChain;
+import io.micronaut.http.filter.HttpClientFilter;
+import io.micronaut.json.JsonMapper;
+import jakarta.annotation.PreDestroy;
+import org.reactivestreams.Publisher;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A {@link HttpClientFilter} that sends requests for the Vault Server Uri to the local Vault Agent over the Unix
+ * domain socket configured with {@code vault.client.unix-socket} instead of TCP.
+ *
+ * @since 4.5.0
+ */
+@Filter(patterns = "/v1/**")
+@Requires(beans = VaultClientConfiguration.class)
+@Requires(property = VaultClientConfiguration.PREFIX + ".unix-socket")
+@BootstrapContextCompatible
+public class VaultUnixSocketFilter implements HttpClientFilter {
+
+    private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(10);
+
+    private final UnixSocketHttpTransport transport;
+    private final URI vaultUri;
+
+    /**
+     * @param configuration The Vault client configuration
+     * @param jsonMapper    The mapper used to encode and decode bodies
+     */
+    public VaultUnixSocketFilter(VaultClientConfiguration configuration, JsonMapper jsonMapper) {
+        String unixSocket = configuration.getUnixSocket()
+            .orElseThrow(() -> new IllegalStateException("No Unix domain socket configured for Vault"));
+        this.transport = new UnixSocketHttpTransport(
+            UnixSocketHttpTransport.socketPath(unixSocket),
+            jsonMapper,
+            configuration.getReadTimeout().orElse(DEFAULT_READ_TIMEOUT)
+        );
+        this.vaultUri = URI.create(configuration.getUri());
+    }
+
+    @Override
+    public Publisher<? extends HttpResponse<?>> doFilter(MutableHttpRequest<?> request, ClientFilterChain chain) {
+        URI uri = request.getUri();
+        // the filter matches by path, so only divert the requests sent to the Vault Server Uri
+        if (!Objects.equals(uri.getHost(), vaultUri.getHost()) || uri.getPort() != vaultUri.getPort()) {
+            return chain.proceed(request);
+        }
+        return transport.exchange(request);
+    }
+
+    /**
+     * Closes the idle connections to the socket.
+     */
+    @PreDestroy
+    public void close() {
+        transport.close();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
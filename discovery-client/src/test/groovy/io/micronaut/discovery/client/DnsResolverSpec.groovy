@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client
+
+import io.micronaut.discovery.client.dns.DnsClient
+import io.micronaut.discovery.client.dns.DnsException
+import io.micronaut.discovery.client.dns.DnsRecord
+import io.micronaut.discovery.client.dns.DnsResponse
+import io.micronaut.discovery.client.dns.StandInDnsServer
+import reactor.core.Exceptions
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.time.Duration
+
+class DnsResolverSpec extends Specification {
+
+    @AutoCleanup
+    StandInDnsServer dnsServer = new StandInDnsServer()
+
+    DnsClient client = new DnsClient([DnsClient.parseServer(dnsServer.address, DnsClient.DEFAULT_PORT)], Duration.ofSeconds(2))
+
+    void "test cnames are read from TXT records"() {
+        given:
+        dnsServer.add(new DnsRecord.Txt("txt.us-east-1.example.com", 60, ["us-east-1c.example.com us-east-1d.example.com"]))
+        dnsServer.add(new DnsRecord.Txt("txt.us-east-1c.example.com", 60, ["ec2-1.example.com", "ec2-2.example.com"]))
+
+        when:
+        Map<String, Set<String>> cnames = DnsResolver.getCNamesFromTxtRecords(client, ["txt.us-east-1.example.com", "txt.us-east-1c.example.com"]).block()
+
+        then:
+        cnames == [
+            "txt.us-east-1.example.com" : ["us-east-1c.example.com", "us-east-1d.example.com"] as TreeSet,
+            "txt.us-east-1c.example.com": ["ec2-1.example.com", "ec2-2.example.com"] as TreeSet
+        ]
+    }
+
+    void "test concurrent lookups are pipelined and answered in order"() {
+        given:
+        List<String> names = (1..20).collect { "txt.zone-${it}.example.com".toString() }
+        names.each { dnsServer.add(new DnsRecord.Txt(it, 60, ["host.${it}".toString()])) }
+
+        when:
+        Map<String, DnsResponse> responses = client.queryAll(names, DnsClient.TYPE_TXT).block()
+
+        then:
+        responses.keySet() as List == names
+        responses.every { name, response -> ((DnsRecord.Txt) response.answers()[0]).texts() == ["host.${name}".toString()] }
+        dnsServer.udpQueries.get() == 20
+        dnsServer.tcpQueries.get() == 0
+    }
+
+    void "test CNAME records are decoded"() {
+        given:
+        dnsServer.add(new DnsRecord.Cname("eureka.example.com", 60, "us-east-1c.example.com"))
+
+        when:
+        DnsResponse response = client.query("eureka.example.com", DnsClient.TYPE_CNAME).block()
+
+        then:
+        response.answers() == [new DnsRecord.Cname("eureka.example.com", 60, "us-east-1c.example.com")]
+    }
+
+    void "test failed lookups are reported"() {
+        given:
+        dnsServer.responseCode = DnsResponse.NAME_ERROR
+
+        when:
+        DnsResolver.getCNamesFromTxtRecords(client, ["txt.missing.example.com"]).block()
+
+        then:
+        RuntimeException e = thrown()
+        Exceptions.unwrap(e) instanceof DnsException
+        Exceptions.unwrap(e).message.contains("txt.missing.example.com")
+    }
+
+    void "test the host name servers are used"() {
+        expect:
+        !DnsResolver.getNameServers().isEmpty()
+    }
+
+    void "test the resolver configuration is parsed"() {
+        when:
+        DnsResolver.ResolverConfiguration configuration = DnsResolver.ResolverConfiguration.parse([
+            "# generated",
+            "nameserver 10.0.0.2",
+            "nameserver [fe80::1]:5353",
+            "domain example.com",
+            "search corp.example.com example.com",
+            "options edns0 ndots:3"
+        ])
+
+        then:
+        configuration.servers() == [
+            InetSocketAddress.createUnresolved("10.0.0.2", 53),
+            InetSocketAddress.createUnresolved("fe80::1", 5353)
+        ]
+        configuration.search() == ["corp.example.com", "example.com"]
+        configuration.ndots() == 3
+        configuration.candidates("txt.us-east-1") == ["txt.us-east-1.corp.example.com", "txt.us-east-1.example.com", "txt.us-east-1"]
+        configuration.candidates("txt.us-east-1.example.com") == ["txt.us-east-1.example.com", "txt.us-east-1.example.com.corp.example.com", "txt.us-east-1.example.com.example.com"]
+        configuration.candidates("txt.us-east-1.") == ["txt.us-east-1"]
+    }
+
+    void "test names not found are retried with the search domains"() {
+        given:
+        dnsServer.unknownNamesNotFound = true
+        dnsServer.add(new DnsRecord.Txt("txt.us-east-1.example.com", 60, ["us-east-1c.example.com"]))
+        dnsServer.add(new DnsRecord.Txt("txt.us-west-2", 60, ["us-west-2a.example.com"]))
+        DnsResolver.ResolverConfiguration configuration = DnsResolver.ResolverConfiguration.parse([
+            "search corp.example.com example.com",
+            "options ndots:2"
+        ])
+
+        when:
+        Map<String, Set<String>> cnames = DnsResolver.getCNamesFromTxtRecords(client, configuration, ["txt.us-east-1", "txt.us-west-2"]).block()
+
+        then:
+        cnames == [
+            "txt.us-east-1": ["us-east-1c.example.com"] as TreeSet,
+            "txt.us-west-2": ["us-west-2a.example.com"] as TreeSet
+        ]
+        cnames.keySet() as List == ["txt.us-east-1", "txt.us-west-2"]
+        // the names still pending are queried together, one search domain at a time
+        dnsServer.queries.size() == 5
+        dnsServer.queries.subList(0, 2) as Set == ["txt.us-east-1.corp.example.com", "txt.us-west-2.corp.example.com"] as Set
+        dnsServer.queries.subList(2, 4) as Set == ["txt.us-east-1.example.com", "txt.us-west-2.example.com"] as Set
+        dnsServer.queries[4] == "txt.us-west-2"
+    }
+
+    void "test names not found under any search domain are reported"() {
+        given:
+        dnsServer.unknownNamesNotFound = true
+        DnsResolver.ResolverConfiguration configuration = DnsResolver.ResolverConfiguration.parse(["search example.com"])
+
+        when:
+        DnsResolver.getCNamesFromTxtRecords(client, configuration, ["txt.missing"]).block()
+
+        then:
+        RuntimeException e = thrown()
+        Exceptions.unwrap(e) instanceof DnsException
+        Exceptions.unwrap(e).message.contains("txt.missing")
+        dnsServer.queries == ["txt.missing", "txt.missing.example.com"]
+    }
+}
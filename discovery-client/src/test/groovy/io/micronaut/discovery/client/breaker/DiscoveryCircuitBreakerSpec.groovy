@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.breaker
+
+import io.micronaut.discovery.exceptions.DiscoveryException
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.HttpStatus
+import io.micronaut.http.client.exceptions.HttpClientResponseException
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Duration
+
+class DiscoveryCircuitBreakerSpec extends Specification {
+
+    long now = 0
+    int calls = 0
+    DiscoveryCircuitBreaker breaker = new DiscoveryCircuitBreaker("consul", 2, Duration.ofSeconds(30), Duration.ZERO, { now })
+
+    void "test the circuit opens after consecutive failures and serves the last known good result"() {
+        expect:
+        Flux.from(breaker.execute("foo", succeeding(["a", "b"]))).blockFirst() == ["a", "b"]
+        breaker.state == DiscoveryCircuitBreaker.State.CLOSED
+
+        when:
+        Flux.from(breaker.execute("foo", failing())).blockFirst()
+
+        then:
+        thrown(RuntimeException)
+        breaker.state == DiscoveryCircuitBreaker.State.CLOSED
+
+        when:"the threshold is reached the failed lookup is answered from the last known good result"
+        def result = Flux.from(breaker.execute("foo", failing())).blockFirst()
+
+        then:
+        result == ["a", "b"]
+        breaker.state == DiscoveryCircuitBreaker.State.OPEN
+        breaker.degraded
+        breaker.details.mode == "degraded"
+        breaker.details."consecutive-failures" == 2
+
+        when:"lookups are not sent while the circuit is open"
+        calls = 0
+        result = Flux.from(breaker.execute("foo", succeeding(["c"]))).blockFirst()
+
+        then:
+        result == ["a", "b"]
+        calls == 0
+    }
+
+    void "test a successful trial lookup closes the circuit"() {
+        given:
+        Flux.from(breaker.execute("foo", succeeding(["a"]))).blockFirst()
+        trip()
+
+        when:
+        now = Duration.ofSeconds(30).toNanos()
+        def result = Flux.from(breaker.execute("foo", succeeding(["b"]))).blockFirst()
+
+        then:
+        result == ["b"]
+        calls == 2
+        breaker.state == DiscoveryCircuitBreaker.State.CLOSED
+        breaker.details.mode == "normal"
+    }
+
+    void "test a failed trial lookup opens the circuit again"() {
+        given:
+        Flux.from(breaker.execute("foo", succeeding(["a"]))).blockFirst()
+        trip()
+
+        when:
+        now = Duration.ofSeconds(30).toNanos()
+        def result = Flux.from(breaker.execute("foo", failing())).blockFirst()
+
+        then:
+        result == ["a"]
+        breaker.state == DiscoveryCircuitBreaker.State.OPEN
+
+        when:"the reset timeout starts again from the failed trial"
+        now = Duration.ofSeconds(45).toNanos()
+        calls = 0
+        Flux.from(breaker.execute("foo", succeeding(["b"]))).blockFirst()
+
+        then:
+        calls == 0
+    }
+
+    void "test an open circuit without a previous result fails with a discovery exception"() {
+        given:
+        trip()
+
+        when:
+        Flux.from(breaker.execute("foo", succeeding(["a"]))).blockFirst()
+
+        then:
+        thrown(DiscoveryException)
+        breaker.state == DiscoveryCircuitBreaker.State.OPEN
+    }
+
+    void "test client errors do not count as failures"() {
+        when:
+        3.times {
+            try {
+                Flux.from(breaker.execute("foo", Mono.error(new HttpClientResponseException("Not Found", HttpResponse.status(HttpStatus.NOT_FOUND))))).blockFirst()
+            } catch (HttpClientResponseException ignored) {
+            }
+        }
+
+        then:
+        breaker.state == DiscoveryCircuitBreaker.State.CLOSED
+        breaker.details."consecutive-failures" == 0
+    }
+
+    void "test slow lookups count as failures"() {
+        given:
+        DiscoveryCircuitBreaker breaker = new DiscoveryCircuitBreaker("consul", 1, Duration.ofSeconds(30), Duration.ofMillis(50), { now })
+
+        when:
+        Flux.from(breaker.execute("foo", Mono.never())).blockFirst()
+
+        then:
+        thrown(DiscoveryException)
+        breaker.state == DiscoveryCircuitBreaker.State.OPEN
+    }
+
+    private void trip() {
+        2.times {
+            try {
+                Flux.from(breaker.execute("foo", failing())).blockFirst()
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+
+    private Mono<List<String>> succeeding(List<String> value) {
+        Mono.fromCallable {
+            calls++
+            value
+        }
+    }
+
+    private Mono<List<String>> failing() {
+        Mono.fromCallable {
+            calls++
+            throw new IOException("Connection refused")
+        }
+    }
+}
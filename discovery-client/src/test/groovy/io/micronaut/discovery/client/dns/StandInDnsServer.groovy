@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.dns
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * A minimal DNS server answering queries over UDP and TCP from a fixed set of records.
+ */
+class StandInDnsServer implements Closeable {
+
+    final DatagramSocket udp = new DatagramSocket(0, InetAddress.loopbackAddress)
+    final ServerSocket tcp = new ServerSocket(udp.localPort, 50, InetAddress.loopbackAddress)
+    final Map<String, List<DnsRecord>> records = new ConcurrentHashMap<>()
+    final List<String> queries = new CopyOnWriteArrayList<>()
+    final AtomicInteger udpQueries = new AtomicInteger()
+    final AtomicInteger tcpQueries = new AtomicInteger()
+    volatile boolean truncate
+    volatile int responseCode
+    volatile boolean unknownNamesNotFound
+
+    StandInDnsServer() {
+        Thread.startDaemon {
+            byte[] buffer = new byte[4096]
+            while (!udp.closed) {
+                try {
+                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length)
+                    udp.receive(packet)
+                    udpQueries.incrementAndGet()
+                    byte[] response = answer(ByteBuffer.wrap(packet.data, 0, packet.length), truncate)
+                    udp.send(new DatagramPacket(response, response.length, packet.socketAddress))
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        Thread.startDaemon {
+            while (!tcp.closed) {
+                try {
+                    tcp.accept().withCloseable { socket ->
+                        def input = new DataInputStream(socket.inputStream)
+                        byte[] query = new byte[input.readUnsignedShort()]
+                        input.readFully(query)
+                        tcpQueries.incrementAndGet()
+                        byte[] response = answer(ByteBuffer.wrap(query), false)
+                        def output = new DataOutputStream(socket.outputStream)
+                        output.writeShort(response.length)
+                        output.write(response)
+                        output.flush()
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    String getAddress() {
+        "127.0.0.1:${udp.localPort}"
+    }
+
+    void add(DnsRecord record) {
+        records.computeIfAbsent(record.name().toLowerCase(), { new CopyOnWriteArrayList<>() }) << record
+    }
+
+    private byte[] answer(ByteBuffer query, boolean truncated) {
+        int id = query.getShort(0) & 0xFFFF
+        query.position(12)
+        String name = readName(query)
+        int type = query.getShort() & 0xFFFF
+        queries << name
+        List<DnsRecord> answers = truncated ? [] : records.getOrDefault(name.toLowerCase(), []).findAll { typeOf(it) == type }
+        List<DnsRecord> additionals = truncated ? [] : answers.findAll { it instanceof DnsRecord.Srv }.collectMany { srv ->
+            records.getOrDefault(((DnsRecord.Srv) srv).target().toLowerCase(), []).findAll { it instanceof DnsRecord.Address }
+        }
+        ByteBuffer out = ByteBuffer.allocate(65535)
+        out.putShort((short) id)
+        int code = unknownNamesNotFound && !records.containsKey(name.toLowerCase()) ? DnsResponse.NAME_ERROR : responseCode
+        out.putShort((short) (0x8000 | 0x0080 | (truncated ? 0x0200 : 0) | code))
+        out.putShort((short) 1)
+        out.putShort((short) answers.size())
+        out.putShort((short) 0)
+        out.putShort((short) additionals.size())
+        writeName(out, name)
+        out.putShort((short) type)
+        out.putShort((short) 1)
+        for (DnsRecord record : answers + additionals) {
+            writeRecord(out, record)
+        }
+        byte[] response = new byte[out.position()]
+        out.flip().get(response)
+        return response
+    }
+
+    private static int typeOf(DnsRecord record) {
+        if (record instanceof DnsRecord.Srv) {
+            return DnsClient.TYPE_SRV
+        } else if (record instanceof DnsRecord.Txt) {
+            return DnsClient.TYPE_TXT
+        } else if (record instanceof DnsRecord.Cname) {
+            return DnsClient.TYPE_CNAME
+        }
+        return ((DnsRecord.Address) record).address() instanceof Inet6Address ? DnsClient.TYPE_AAAA : DnsClient.TYPE_A
+    }
+
+    private static void writeRecord(ByteBuffer out, DnsRecord record) {
+        writeName(out, record.name())
+        out.putShort((short) typeOf(record))
+        out.putShort((short) 1)
+        out.putInt((int) record.ttl())
+        int lengthPosition = out.position()
+        out.putShort((short) 0)
+        if (record instanceof DnsRecord.Srv) {
+            out.putShort((short) record.priority())
+            out.putShort((short) record.weight())
+            out.putShort((short) record.port())
+            writeName(out, record.target())
+        } else if (record instanceof DnsRecord.Cname) {
+            writeName(out, record.target())
+        } else if (record instanceof DnsRecord.Txt) {
+            for (String text : record.texts()) {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8)
+                out.put((byte) bytes.length)
+                out.put(bytes)
+            }
+        } else {
+            out.put(((DnsRecord.Address) record).address().address)
+        }
+        out.putShort(lengthPosition, (short) (out.position() - lengthPosition - 2))
+    }
+
+    private static String readName(ByteBuffer query) {
+        List<String> labels = []
+        for (int length = query.get() & 0xFF; length > 0; length = query.get() & 0xFF) {
+            byte[] label = new byte[length]
+            query.get(label)
+            labels << new String(label, StandardCharsets.US_ASCII)
+        }
+        return labels.join('.')
+    }
+
+    private static void writeName(ByteBuffer out, String name) {
+        for (String label : name.split('\\.')) {
+            byte[] bytes = label.getBytes(StandardCharsets.US_ASCII)
+            out.put((byte) bytes.length)
+            out.put(bytes)
+        }
+        out.put((byte) 0)
+    }
+
+    @Override
+    void close() {
+        udp.close()
+        tcp.close()
+    }
+}
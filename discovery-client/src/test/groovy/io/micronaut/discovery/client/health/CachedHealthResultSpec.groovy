@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.health
+
+import io.micronaut.health.HealthStatus
+import io.micronaut.management.health.indicator.HealthResult
+import reactor.core.publisher.Mono
+import reactor.core.publisher.Sinks
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicInteger
+
+class CachedHealthResultSpec extends Specification {
+
+    AtomicInteger probes = new AtomicInteger()
+    PollingConditions conditions = new PollingConditions(timeout: 5)
+
+    void "test a fresh result is served without probing again"() {
+        given:
+        CachedHealthResult cached = new CachedHealthResult(configuration(Duration.ofMinutes(1), Duration.ofMinutes(1)), this::probe)
+
+        when:
+        List<HealthResult> results = (1..5).collect { Mono.from(cached.result).block() }
+
+        then:
+        probes.get() == 1
+        results*.details.unique() == [[probe: 1]]
+    }
+
+    void "test an expired result is served while it is refreshed in the background"() {
+        given:
+        CachedHealthResult cached = new CachedHealthResult(configuration(Duration.ofMillis(50), Duration.ofMinutes(1)), this::probe)
+        Mono.from(cached.result).block()
+        sleep(100)
+
+        when:
+        HealthResult stale = Mono.from(cached.result).block()
+
+        then:
+        stale.details == [probe: 1]
+        conditions.eventually {
+            assert probes.get() == 2
+            assert Mono.from(cached.result).block().details == [probe: 2]
+        }
+    }
+
+    void "test a result older than the maximum staleness is not served"() {
+        given:
+        CachedHealthResult cached = new CachedHealthResult(configuration(Duration.ofMillis(20), Duration.ofMillis(20)), this::probe)
+        Mono.from(cached.result).block()
+        sleep(100)
+
+        expect:
+        Mono.from(cached.result).block().details == [probe: 2]
+    }
+
+    void "test concurrent probes share a single request"() {
+        given:
+        Sinks.One<HealthResult> pending = Sinks.one()
+        AtomicInteger calls = new AtomicInteger()
+        CachedHealthResult cached = new CachedHealthResult(configuration(Duration.ofMinutes(1), Duration.ofMinutes(1)), {
+            calls.incrementAndGet()
+            pending.asMono()
+        })
+
+        when:
+        List<Mono<HealthResult>> results = (1..3).collect { Mono.from(cached.result) }
+        pending.tryEmitValue(HealthResult.builder("test", HealthStatus.UP).build())
+
+        then:
+        results.collect { it.block().status } == [HealthStatus.UP] * 3
+        calls.get() == 1
+    }
+
+    void "test every call probes when caching is disabled"() {
+        given:
+        HealthCacheConfiguration configuration = configuration(Duration.ofMinutes(1), Duration.ofMinutes(1))
+        configuration.enabled = false
+        CachedHealthResult cached = new CachedHealthResult(configuration, this::probe)
+
+        when:
+        3.times { Mono.from(cached.result).block() }
+
+        then:
+        probes.get() == 3
+    }
+
+    private Mono<HealthResult> probe() {
+        Mono.fromCallable {
+            HealthResult.builder("test", HealthStatus.UP).details([probe: probes.incrementAndGet()]).build()
+        }
+    }
+
+    private static HealthCacheConfiguration configuration(Duration ttl, Duration maxStale) {
+        HealthCacheConfiguration configuration = new HealthCacheConfiguration()
+        configuration.ttl = ttl
+        configuration.maxStale = maxStale
+        configuration
+    }
+}
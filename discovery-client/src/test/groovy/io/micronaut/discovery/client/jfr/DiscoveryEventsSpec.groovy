@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.jfr
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.consul.MockConsulServer
+import io.micronaut.discovery.consul.client.v1.ConsulClient
+import io.micronaut.health.HealthStatus
+import io.micronaut.http.HttpStatus
+import io.micronaut.runtime.server.EmbeddedServer
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordedEvent
+import jdk.jfr.consumer.RecordingFile
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+class DiscoveryEventsSpec extends Specification {
+
+    Path dump = Files.createTempFile("discovery", ".jfr")
+
+    void cleanup() {
+        Files.deleteIfExists(dump)
+    }
+
+    List<RecordedEvent> record(String eventName, Closure<?> action) {
+        Recording recording = new Recording()
+        recording.enable(eventName).withThreshold(Duration.ZERO)
+        recording.start()
+        try {
+            action.call()
+        } finally {
+            recording.stop()
+            recording.dump(dump)
+            recording.close()
+        }
+        RecordingFile.readAllEvents(dump).findAll { it.eventType.name == eventName }
+    }
+
+    void "test publishers are returned untouched when recording is off"() {
+        given:
+        def publisher = Flux.just([])
+
+        expect:
+        DiscoveryEvents.lookup("consul", "foo", publisher).is(publisher)
+        DiscoveryEvents.configLoad("consul", ["test"]) == null
+    }
+
+    void "test lookups are recorded with the number of instances"() {
+        when:
+        List<RecordedEvent> events = record("io.micronaut.discovery.Lookup") {
+            Mono.from(DiscoveryEvents.lookup("consul", "foo", Flux.just([
+                ServiceInstance.of("foo", "localhost", 8081),
+                ServiceInstance.of("foo", "localhost", 8082)
+            ]))).block()
+        }
+
+        then:
+        events.size() == 1
+        events[0].getString("discoveryService") == "consul"
+        events[0].getString("serviceId") == "foo"
+        events[0].getInt("instances") == 2
+        events[0].getBoolean("success")
+    }
+
+    void "test failed heartbeats are recorded with the error"() {
+        when:
+        List<RecordedEvent> events = record("io.micronaut.discovery.Heartbeat") {
+            Flux.from(DiscoveryEvents.heartbeat("eureka", ServiceInstance.of("foo", "localhost", 8081), HealthStatus.UP,
+                Flux.<HttpStatus>error(new IOException("Connection refused")))).onErrorResume { Flux.empty() }.blockLast()
+        }
+
+        then:
+        events.size() == 1
+        events[0].getString("healthStatus") == HealthStatus.NAME_UP
+        !events[0].getBoolean("success")
+        events[0].getString("error") == "Connection refused"
+    }
+
+    void "test Consul lookups emit events"() {
+        given:
+        EmbeddedServer consulServer = ApplicationContext.run(EmbeddedServer, [(MockConsulServer.ENABLED): true])
+        ApplicationContext context = ApplicationContext.run('consul.client.host': consulServer.host, 'consul.client.port': consulServer.port)
+
+        when:
+        List<RecordedEvent> events = record("io.micronaut.discovery.Lookup") {
+            Mono.from(context.getBean(ConsulClient).getInstances("foo")).block()
+        }
+
+        then:
+        events.size() == 1
+        events[0].getString("discoveryService") == ConsulClient.SERVICE_ID
+        events[0].getString("serviceId") == "foo"
+
+        cleanup:
+        context?.close()
+        consulServer?.close()
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.DiscoveryClient
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.exceptions.NoAvailableServiceException
+import io.micronaut.http.client.loadbalance.DiscoveryClientLoadBalancerFactory
+import spock.lang.Specification
+
+class ConsistentHashLoadBalancerSpec extends Specification {
+
+    void "test the same key keeps landing on the same instance"() {
+        given:
+        List<ServiceInstance> instances = (1..5).collect { instance(it) }
+        ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer("foo", Stub(DiscoveryClient), 1009)
+
+        when:
+        Map<String, ServiceInstance> selected = (1..1000).collectEntries { ["key-$it".toString(), loadBalancer.select(instances, "key-$it".toString())] }
+        Map<String, Integer> counts = selected.values().countBy { it.instanceId.get() }
+
+        then:
+        (1..1000).every { loadBalancer.select(instances, "key-$it".toString()).is(selected["key-$it".toString()]) }
+        counts.size() == 5
+        counts.values().every { it > 100 }
+
+        when:"an instance is removed"
+        List<ServiceInstance> remaining = instances.findAll { it.instanceId.get() != "foo-3" }
+        int moved = selected.count { key, instance ->
+            instance.instanceId.get() != "foo-3" && loadBalancer.select(remaining, key).instanceId.get() != instance.instanceId.get()
+        }
+
+        then:"only a small fraction of keys of the remaining instances move"
+        moved < 80
+        selected.findAll { key, instance -> instance.instanceId.get() == "foo-3" }
+                .every { key, instance -> loadBalancer.select(remaining, key).instanceId.get() != "foo-3" }
+    }
+
+    void "test the table is kept when the instance set is unchanged"() {
+        given:
+        ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer("foo", Stub(DiscoveryClient), 101)
+        List<ServiceInstance> first = (1..3).collect { instance(it) }
+        List<ServiceInstance> second = (1..3).reverse().collect { instance(it) }
+
+        expect:
+        loadBalancer.select(first, "key").instanceId.get() == loadBalancer.select(second, "key").instanceId.get()
+        second.any { it.is(loadBalancer.select(second, "key")) }
+        loadBalancer.select(first, null) != loadBalancer.select(first, null)
+
+        when:
+        loadBalancer.select([], "key")
+
+        then:
+        thrown(NoAvailableServiceException)
+    }
+
+    void "test duplicate instances do not cause a rebuild on every selection"() {
+        given:
+        ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer("foo", Stub(DiscoveryClient), 101)
+        List<ServiceInstance> instances = [instance(1), instance(2), instance(2), instance(3)]
+
+        when:
+        ServiceInstance selected = loadBalancer.select(instances, "key")
+        int[] lookup = loadBalancer.@table.lookup()
+        List<ServiceInstance> refreshed = [instance(2), instance(1), instance(3), instance(1)]
+
+        then:
+        loadBalancer.select(refreshed, "key").instanceId.get() == selected.instanceId.get()
+        loadBalancer.@table.lookup().is(lookup)
+        loadBalancer.@table.instances().length == 3
+
+        when:"a duplicate replaces a distinct instance"
+        loadBalancer.select([instance(1), instance(1), instance(3), instance(3)], "key")
+
+        then:
+        !loadBalancer.@table.lookup().is(lookup)
+        loadBalancer.@table.instances().length == 2
+    }
+
+    void "test table sizes that are not prime are rounded up to the next prime"() {
+        given:
+        List<ServiceInstance> instances = (1..4).collect { instance(it) }
+        ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer("foo", Stub(DiscoveryClient), 1000)
+
+        when:
+        Map<String, Integer> counts = (1..1000).collect { loadBalancer.select(instances, "key-$it".toString()).instanceId.get() }.countBy { it }
+
+        then:
+        loadBalancer.@tableSize == 1009
+        counts.size() == 4
+        new LoadBalancerConfiguration(tableSize: 1000).tableSize == 1009
+        new LoadBalancerConfiguration(tableSize: 65537).tableSize == 65537
+        Hashing.nextPrime(1) == 2
+        Hashing.nextPrime(4) == 5
+        Hashing.nextPrime(9) == 11
+    }
+
+    void "test the load balancer factory honours per service strategies"() {
+        given:
+        ApplicationContext context = ApplicationContext.run(
+                'discovery-client.load-balancer.enabled': true,
+                'discovery-client.load-balancer.strategies.foo': 'consistent-hash'
+        )
+        DiscoveryClientLoadBalancerFactory factory = context.getBean(DiscoveryClientLoadBalancerFactory)
+
+        expect:
+        factory instanceof DiscoveryLoadBalancerFactory
+        factory.create("foo") instanceof ConsistentHashLoadBalancer
+        !(factory.create("bar") instanceof ConsistentHashLoadBalancer)
+
+        cleanup:
+        context.close()
+    }
+
+    private static ServiceInstance instance(int i) {
+        ServiceInstance.builder("foo", URI.create("http://foo-$i:8080")).instanceId("foo-$i").build()
+    }
+}
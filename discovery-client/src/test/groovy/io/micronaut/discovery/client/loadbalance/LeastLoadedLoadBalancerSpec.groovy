@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance
+
+import io.micronaut.discovery.DiscoveryClient
+import io.micronaut.discovery.ServiceInstance
+import spock.lang.Specification
+
+class LeastLoadedLoadBalancerSpec extends Specification {
+
+    InstanceLoadTracker tracker = new InstanceLoadTracker()
+    LeastLoadedLoadBalancer loadBalancer = new LeastLoadedLoadBalancer("foo", Stub(DiscoveryClient), tracker)
+    ServiceInstance busy = ServiceInstance.builder("foo", URI.create("http://busy:8080")).instanceId("busy").build()
+    ServiceInstance idle = ServiceInstance.builder("foo", URI.create("http://idle:8080")).instanceId("idle").build()
+
+    void "test the instance with fewer in-flight requests is preferred"() {
+        given:
+        3.times { tracker.get(busy).start() }
+
+        expect:
+        (1..100).every { loadBalancer.select([busy, idle]).is(idle) }
+    }
+
+    void "test in-flight requests are weighted by latency"() {
+        given:
+        tracker.get(busy).start()
+        tracker.get(busy).finish(1_000_000)
+        tracker.get(idle).start()
+        tracker.get(idle).finish(50_000_000)
+        tracker.get(busy).start()
+
+        expect:"two requests to a fast instance beat one to a slow instance"
+        (1..100).every { loadBalancer.select([busy, idle]).is(busy) }
+    }
+
+    void "test the tracker maps request URIs to instance loads and averages latency"() {
+        given:
+        InstanceLoadTracker.InstanceLoad load = tracker.get(busy)
+
+        when:
+        load.start()
+        load.finish(100)
+        load.start()
+        load.finish(200)
+        load.start()
+        load.finish(-1)
+
+        then:
+        tracker.forUri(URI.create("http://busy:8080/foo?bar=baz")).is(load)
+        tracker.forUri(URI.create("http://busy:9090/foo")) == null
+        tracker.get(ServiceInstance.builder("foo", URI.create("http://other:8080")).instanceId("busy").build()).is(load)
+        load.inFlight == 0
+        load.latency == 100 + InstanceLoadTracker.LATENCY_ALPHA * 100
+    }
+
+    void "test the loads of instances that are no longer discovered are evicted"() {
+        given:
+        InstanceLoadTracker.InstanceLoad busyLoad = tracker.get(busy)
+        tracker.get(idle).recordFailure()
+        tracker.retain("foo", [busy, idle])
+        ServiceInstance replacement = ServiceInstance.builder("foo", URI.create("http://idle:8080")).instanceId("replacement").build()
+
+        when:"an instance is replaced by one reusing its address"
+        tracker.retain("foo", [busy, replacement])
+
+        then:
+        !tracker.isTracked("idle")
+        tracker.forUri(URI.create("http://idle:8080/foo")) == null
+        tracker.get(replacement).consecutiveFailures == 0
+        tracker.get(busy).is(busyLoad)
+        tracker.evictions == 1
+
+        when:"the same instances are discovered again"
+        tracker.retain("foo", [replacement, busy])
+
+        then:
+        tracker.evictions == 1
+        tracker.get(busy).is(busyLoad)
+    }
+}
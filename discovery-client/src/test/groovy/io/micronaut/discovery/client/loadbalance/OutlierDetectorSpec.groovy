@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance
+
+import io.micronaut.discovery.ServiceInstance
+import spock.lang.Specification
+
+import java.time.Duration
+
+class OutlierDetectorSpec extends Specification {
+
+    long now = 0
+    InstanceLoadTracker tracker = new InstanceLoadTracker()
+    OutlierDetector detector = new OutlierDetector(tracker, 3, Duration.ofSeconds(10), Duration.ofSeconds(25), 50, { now })
+    List<ServiceInstance> instances = (1..4).collect {
+        ServiceInstance.builder("foo", URI.create("http://foo-$it:8080")).instanceId("foo-$it").build()
+    }
+
+    void "test instances are ejected after consecutive failures with exponential ejection time"() {
+        when:
+        fail(instances[0], 2)
+
+        then:
+        detector.filter("foo", instances).is(instances)
+
+        when:
+        fail(instances[0], 1)
+
+        then:
+        detector.filter("foo", instances)*.instanceId*.get() == ["foo-2", "foo-3", "foo-4"]
+        detector.isEjected(instances[0])
+
+        when:"the first ejection expires and the instance keeps failing"
+        now = Duration.ofSeconds(10).toNanos()
+        List<ServiceInstance> afterFirst = detector.filter("foo", instances)
+        fail(instances[0], 3)
+        detector.filter("foo", instances)
+
+        then:
+        afterFirst.size() == 4
+        detector.isEjected(instances[0])
+
+        when:"the second ejection lasts twice as long"
+        now = Duration.ofSeconds(29).toNanos()
+
+        then:
+        detector.isEjected(instances[0])
+
+        when:
+        now = Duration.ofSeconds(30).toNanos()
+
+        then:
+        !detector.isEjected(instances[0])
+
+        when:"further ejections are capped at the maximum ejection time"
+        fail(instances[0], 3)
+        detector.filter("foo", instances)
+        now = Duration.ofSeconds(55).toNanos()
+
+        then:
+        !detector.isEjected(instances[0])
+    }
+
+    void "test successes reset the consecutive failures"() {
+        when:
+        fail(instances[0], 2)
+        tracker.get(instances[0]).recordSuccess()
+        fail(instances[0], 2)
+
+        then:
+        detector.filter("foo", instances).is(instances)
+    }
+
+    void "test no more than the maximum percentage of instances is ejected"() {
+        when:
+        instances.each { fail(it, 3) }
+
+        then:
+        detector.filter("foo", instances).size() == 2
+    }
+
+    void "test the ejections of instances that are no longer discovered are dropped"() {
+        given:
+        tracker.retain("foo", instances)
+        fail(instances[0], 3)
+        detector.filter("foo", instances)
+
+        when:
+        List<ServiceInstance> remaining = instances.subList(1, 4)
+        tracker.retain("foo", remaining)
+        detector.filter("foo", remaining)
+
+        then:
+        detector.@ejections.isEmpty()
+        !detector.isEjected(instances[0])
+    }
+
+    private void fail(ServiceInstance instance, int times) {
+        times.times { tracker.get(instance).recordFailure() }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance
+
+import io.micronaut.discovery.ServiceInstance
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+class SubsettingFilterSpec extends Specification {
+
+    List<ServiceInstance> fleet = (1..500).collect {
+        ServiceInstance.builder("foo", URI.create("http://foo-$it:8080")).instanceId("foo-$it").build()
+    }
+
+    void "test each client selects a stable subset"() {
+        given:
+        SubsettingFilter filter = new SubsettingFilter("client-1", 10)
+
+        when:
+        List<ServiceInstance> subset = filter.filter("foo", fleet)
+
+        then:
+        subset.size() == 10
+        filter.filter("foo", fleet).is(subset)
+        new SubsettingFilter("client-1", 10).filter("foo", fleet.reverse())*.instanceId as Set == subset*.instanceId as Set
+        new SubsettingFilter("client-2", 10).filter("foo", fleet)*.instanceId as Set != subset*.instanceId as Set
+        new SubsettingFilter("client-1", 10).filter("foo", fleet.take(5)).size() == 5
+    }
+
+    void "test fleet changes only replace the changed instances"() {
+        given:
+        SubsettingFilter filter = new SubsettingFilter("client-1", 10)
+        Set<String> before = filter.filter("foo", fleet)*.instanceId*.get() as Set
+        String removed = before.first()
+
+        when:
+        Set<String> after = filter.filter("foo", fleet.findAll { it.instanceId.get() != removed })*.instanceId*.get() as Set
+
+        then:
+        after.size() == 10
+        (before - after) == [removed] as Set
+    }
+
+    void "test subsets are evicted together with the instance list"() {
+        given:
+        SubsettingFilter filter = new SubsettingFilter("client-1", 10)
+        PollingConditions conditions = new PollingConditions(timeout: 10)
+
+        when:"the instances of a service shrink to the subset size"
+        filter.filter("foo", fleet)
+        filter.filter("foo", fleet.take(5))
+
+        then:
+        filter.subsetCount == 0
+
+        when:"the instance list of a service is no longer referenced"
+        filter.filter("foo", new ArrayList<>(fleet))
+
+        then:
+        conditions.eventually {
+            System.gc()
+            filter.filter("bar", fleet.take(5))
+            assert filter.subsetCount == 0
+        }
+    }
+
+    void "test instances are spread evenly over clients"() {
+        when:
+        Map<String, Integer> connections = (1..500).collectMany { client ->
+            new SubsettingFilter("client-$client", 10).filter("foo", fleet)*.instanceId*.get()
+        }.countBy { it }
+
+        then:"every instance is used by about ten clients"
+        connections.values().sum() == 5000
+        connections.values().max() < 30
+    }
+}
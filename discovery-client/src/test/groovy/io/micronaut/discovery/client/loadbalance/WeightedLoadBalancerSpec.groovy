@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance
+
+import io.micronaut.discovery.DiscoveryClient
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.consul.ConsulServiceInstance
+import io.micronaut.discovery.consul.client.v1.ConsulCatalogEntry
+import io.micronaut.discovery.consul.client.v1.ConsulCheck
+import io.micronaut.discovery.consul.client.v1.ConsulCheckStatus
+import io.micronaut.discovery.consul.client.v1.ConsulHealthEntry
+import io.micronaut.discovery.consul.client.v1.ConsulServiceEntry
+import io.micronaut.discovery.consul.client.v1.ConsulWeights
+import io.micronaut.health.HealthStatus
+import spock.lang.Specification
+
+import java.time.Duration
+
+class WeightedLoadBalancerSpec extends Specification {
+
+    void "test consul weights and warning state determine the weight"() {
+        given:
+        WeightedLoadBalancer loadBalancer = new WeightedLoadBalancer("foo", Stub(DiscoveryClient), Duration.ZERO, 0.5d)
+
+        expect:
+        loadBalancer.weight(consulInstance("foo-1", new ConsulWeights(10, 1), ConsulCheckStatus.PASSING), 0) == 10d
+        loadBalancer.weight(consulInstance("foo-2", new ConsulWeights(10, 4), ConsulCheckStatus.WARNING), 0) == 4d
+        loadBalancer.weight(consulInstance("foo-5", new ConsulWeights(10, null), ConsulCheckStatus.WARNING), 0) == 5d
+        loadBalancer.weight(consulInstance("foo-3", null, ConsulCheckStatus.WARNING), 0) == 0.5d
+        loadBalancer.weight(consulInstance("foo-4", new ConsulWeights(10, 1), ConsulCheckStatus.CRITICAL), 0) == 0d
+        loadBalancer.weight(ServiceInstance.builder("foo", URI.create("http://foo:8080")).metadata([weight: "3"]).build(), 0) == 3d
+        loadBalancer.weight(ServiceInstance.builder("foo", URI.create("http://foo:8080")).status(HealthStatus.DOWN).build(), 0) == 0d
+    }
+
+    void "test selection is proportional to weight"() {
+        given:
+        WeightedLoadBalancer loadBalancer = new WeightedLoadBalancer("foo", Stub(DiscoveryClient), Duration.ZERO, 0.5d)
+        List<ServiceInstance> instances = [
+                consulInstance("heavy", new ConsulWeights(9, 1), ConsulCheckStatus.PASSING),
+                consulInstance("light", new ConsulWeights(1, 1), ConsulCheckStatus.PASSING),
+                consulInstance("down", new ConsulWeights(1, 1), ConsulCheckStatus.CRITICAL)
+        ]
+
+        when:
+        Map<String, Integer> counts = (1..10000).collect { loadBalancer.select(instances).id }.countBy { it }
+
+        then:
+        counts["heavy"] > 8500
+        counts["light"] > 500
+        !counts.containsKey("down")
+    }
+
+    void "test newly discovered instances ramp up over the slow start window"() {
+        given:
+        long now = 0
+        WeightedLoadBalancer loadBalancer = new WeightedLoadBalancer("foo", Stub(DiscoveryClient), Duration.ofSeconds(10), 0.5d, { now })
+        ServiceInstance established = instance("established")
+        ServiceInstance fresh = instance("fresh")
+
+        when:"the first lookup establishes the existing instances"
+        loadBalancer.select([established])
+        now = Duration.ofSeconds(1).toNanos()
+        loadBalancer.select([established, fresh])
+
+        then:
+        loadBalancer.weight(established, now) == 1d
+        loadBalancer.weight(fresh, now) == 0.1d
+
+        when:
+        now = Duration.ofSeconds(6).toNanos()
+
+        then:
+        loadBalancer.weight(fresh, now) == 0.5d
+
+        when:
+        now = Duration.ofSeconds(11).toNanos()
+
+        then:
+        loadBalancer.weight(fresh, now) == 1d
+    }
+
+    private static ServiceInstance instance(String id) {
+        ServiceInstance.builder("foo", URI.create("http://$id:8080")).instanceId(id).build()
+    }
+
+    private static ConsulServiceInstance consulInstance(String id, ConsulWeights weights, ConsulCheckStatus status) {
+        ConsulCheck check = new ConsulCheck()
+        check.setStatus(status.toString())
+        new ConsulServiceInstance(new ConsulHealthEntry(
+                new ConsulCatalogEntry("node", InetAddress.loopbackAddress, null, null, null, null),
+                new ConsulServiceEntry("foo", "10.0.0.1", 8080, null, id, null, weights),
+                [check]
+        ), "http")
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.loadbalance
+
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.health.HealthStatus
+import spock.lang.Specification
+
+class ZoneAffinityFilterSpec extends Specification {
+
+    void "test requests stay in the local zone while it has enough healthy capacity"() {
+        given:
+        ZoneAffinityFilter filter = new ZoneAffinityFilter("us-east-1a", 0.7d)
+        List<ServiceInstance> instances = [
+                instance(1, "us-east-1a"), instance(2, "us-east-1a"),
+                instance(3, "us-east-1b"), instance(4, "us-east-1b"),
+        ]
+
+        expect:
+        filter.filter("foo", instances)*.instanceId*.get() == ["foo-1", "foo-2"]
+    }
+
+    void "test requests spill over when the local zone lacks healthy capacity"() {
+        given:
+        ZoneAffinityFilter filter = new ZoneAffinityFilter("us-east-1a", 0.7d)
+        List<ServiceInstance> instances = [
+                instance(1, "us-east-1a"), instance(2, "us-east-1a", HealthStatus.DOWN),
+                instance(3, "us-east-1b"), instance(4, "us-east-1b"),
+                instance(5, "us-east-1b"), instance(6, "us-east-1b"),
+        ]
+
+        expect:"one healthy local instance is below 70% of an even share of five healthy instances over two zones"
+        filter.filter("foo", instances).is(instances)
+        new ZoneAffinityFilter("us-east-1c", 0.7d).filter("foo", instances).is(instances)
+        new ZoneAffinityFilter(null, 0.7d).filter("foo", instances).is(instances)
+    }
+
+    void "test only healthy instances with a zone count toward the capacity"() {
+        given:
+        List<ServiceInstance> withoutZone = [
+                instance(1, "us-east-1a"), instance(2, "us-east-1a"),
+                instance(3, "us-east-1b"), instance(4, "us-east-1b"),
+                instance(5, null), instance(6, null), instance(7, null), instance(8, null),
+        ]
+        List<ServiceInstance> zoneDown = [
+                instance(1, "us-east-1a"),
+                instance(2, "us-east-1b"), instance(3, "us-east-1b"), instance(4, "us-east-1b"),
+                instance(5, "us-east-1c", HealthStatus.DOWN), instance(6, "us-east-1c", HealthStatus.DOWN),
+        ]
+
+        expect:"two local instances are an even share of four healthy instances over two zones"
+        new ZoneAffinityFilter("us-east-1a", 0.9d).filter("foo", withoutZone)*.instanceId*.get() == ["foo-1", "foo-2"]
+
+        and:"a zone with only instances that are down does not lower the share"
+        new ZoneAffinityFilter("us-east-1a", 0.7d).filter("foo", zoneDown).is(zoneDown)
+    }
+
+    private static ServiceInstance instance(int i, String zone, HealthStatus status = HealthStatus.UP) {
+        ServiceInstance.builder("foo", URI.create("http://foo-$i:8080")).instanceId("foo-$i").zone(zone).status(status).build()
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.management
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.consul.MockConsulServer
+import io.micronaut.discovery.consul.client.v1.ConsulClient
+import io.micronaut.health.HealthStatus
+import io.micronaut.http.client.HttpClient
+import io.micronaut.runtime.server.EmbeddedServer
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+
+class DiscoveryEndpointSpec extends Specification {
+
+    @Shared
+    @AutoCleanup
+    EmbeddedServer consulServer = ApplicationContext.run(EmbeddedServer, [(MockConsulServer.ENABLED): true])
+
+    void "test the endpoint reports registration, lookups and errors"() {
+        given:
+        EmbeddedServer application = ApplicationContext.run(EmbeddedServer, [
+            'consul.client.host'                      : consulServer.host,
+            'consul.client.port'                      : consulServer.port,
+            'micronaut.application.name'              : 'endpoint-service',
+            'endpoints.discovery.sensitive'           : false,
+            'discovery-client.circuit-breaker.enabled': true
+        ])
+        HttpClient client = application.applicationContext.createBean(HttpClient, application.URL)
+        PollingConditions conditions = new PollingConditions(timeout: 10)
+
+        when:
+        ConsulClient consulClient = application.applicationContext.getBean(ConsulClient)
+        Map<String, Object> discovery
+
+        then:
+        conditions.eventually {
+            Mono.from(consulClient.getInstances("endpoint-service")).block()
+            discovery = client.toBlocking().retrieve("/discovery", Map)
+            discovery.registrations.consul.registered == true
+            discovery.lookups.consul['endpoint-service'].instances == 1
+        }
+        discovery.registrations.consul['service-id'] == 'endpoint-service'
+        discovery['circuit-breakers'].consul.state == 'CLOSED'
+        discovery.errors == []
+
+        cleanup:
+        client?.close()
+        application?.close()
+    }
+
+    void "test the endpoint can be disabled"() {
+        when:
+        ApplicationContext context = ApplicationContext.run([
+            'consul.client.host'         : consulServer.host,
+            'consul.client.port'         : consulServer.port,
+            'endpoints.discovery.enabled': false
+        ])
+
+        then:
+        !context.containsBean(DiscoveryEndpoint)
+        !context.containsBean(DiscoveryActivity)
+
+        cleanup:
+        context?.close()
+    }
+
+    void "test errors are recorded newest first and bounded"() {
+        given:
+        DiscoveryActivity activity = new DiscoveryActivity()
+        ServiceInstance instance = ServiceInstance.of("foo", "localhost", 8080)
+
+        when:
+        (1..DiscoveryActivity.MAX_ERRORS + 5).each {
+            activity.heartbeat("eureka", instance, HealthStatus.UP, new IOException("failure $it"))
+        }
+        Flux.from(activity.lookup("eureka", "bar", Flux.error(new IOException("lookup failure")))).onErrorResume { Flux.empty() }.blockLast()
+
+        then:
+        activity.errors.size() == DiscoveryActivity.MAX_ERRORS
+        activity.errors[0].operation == 'lookup'
+        activity.errors[0].error == 'lookup failure'
+        activity.errors[1].error == "failure ${DiscoveryActivity.MAX_ERRORS + 5}".toString()
+        activity.getRegistrations(null).eureka['heartbeat-failures'] == DiscoveryActivity.MAX_ERRORS + 5
+        activity.getRegistrations(null).eureka['health-status'] == HealthStatus.NAME_UP
+    }
+
+    void "test the heartbeat lag is measured against the interval the heartbeats are sent at"() {
+        given:
+        DiscoveryActivity activity = new DiscoveryActivity()
+        ServiceInstance instance = ServiceInstance.of("foo", "localhost", 8080)
+
+        when:
+        activity.heartbeat("consul", instance, HealthStatus.UP, null)
+        activity.heartbeat("eureka", instance, HealthStatus.UP, Duration.ofSeconds(30), null)
+        Thread.sleep(50)
+        Map<String, Object> registrations = activity.getRegistrations(Duration.ofMillis(1))
+
+        then:
+        registrations.consul['heartbeat-lag'] != Duration.ZERO.toString()
+        registrations.eureka['heartbeat-lag'] == Duration.ZERO.toString()
+    }
+
+    void "test registrations and heartbeats of a discovery service are recorded together"() {
+        given:
+        DiscoveryActivity activity = new DiscoveryActivity()
+        ServiceInstance instance = ServiceInstance.of("foo", "localhost", 8080)
+
+        when:
+        activity.registered("Consul", instance, null)
+        activity.heartbeat("consul", instance, HealthStatus.UP, null)
+
+        then:
+        activity.getRegistrations(null).keySet() == ["consul"] as Set
+        activity.getRegistrations(null).consul.registered == true
+        activity.getRegistrations(null).consul['last-heartbeat-age']
+
+        when:
+        activity.deregistered("Consul")
+
+        then:
+        activity.getRegistrations(null).consul.registered == false
+    }
+
+    void "test concurrent heartbeat failures are all counted"() {
+        given:
+        DiscoveryActivity activity = new DiscoveryActivity()
+        ServiceInstance instance = ServiceInstance.of("foo", "localhost", 8080)
+
+        when:
+        (1..8).collect {
+            Thread.start {
+                1000.times { activity.heartbeat("eureka", instance, HealthStatus.DOWN, new IOException("failure")) }
+            }
+        }*.join()
+
+        then:
+        activity.getRegistrations(null).eureka['heartbeat-failures'] == 8000
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.metrics
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.consul.MockConsulServer
+import io.micronaut.discovery.consul.client.v1.ConsulClient
+import io.micronaut.runtime.server.EmbeddedServer
+import reactor.core.publisher.Mono
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class DiscoveryClientMetricsSpec extends Specification {
+
+    @Shared
+    @AutoCleanup
+    EmbeddedServer consulServer = ApplicationContext.run(EmbeddedServer, [(MockConsulServer.ENABLED): true])
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    @AutoCleanup
+    ApplicationContext context
+
+    ApplicationContext start(Map<String, Object> properties) {
+        context = ApplicationContext.builder(properties)
+            .singletons(meterRegistry)
+            .start()
+    }
+
+    void "test calls are timed and counted by URI template and status"() {
+        given:
+        start('consul.client.host': consulServer.host, 'consul.client.port': consulServer.port)
+        ConsulClient client = context.getBean(ConsulClient)
+
+        when:
+        2.times { Mono.from(client.status()).block() }
+
+        then:
+        meterRegistry.get(DiscoveryClientMetrics.REQUESTS)
+            .tags("client", "consul", "method", "GET", "uri", "/v1/status/leader")
+            .timer().count() == 2
+        meterRegistry.get(DiscoveryClientMetrics.RESPONSES)
+            .tags("client", "consul", "uri", "/v1/status/leader", "status", "200")
+            .counter().count() == 2
+        meterRegistry.get(DiscoveryClientMetrics.RESPONSE_SIZE)
+            .tags("client", "consul", "uri", "/v1/status/leader")
+            .summary().count() == 2
+    }
+
+    void "test retries and failures without a response are counted"() {
+        given:
+        int port = new ServerSocket(0).withCloseable { it.localPort }
+        start(
+            'consul.client.host'              : 'localhost',
+            'consul.client.port'              : port,
+            'consul.client.config.retry-count': 2,
+            'consul.client.config.retry-delay': '10ms'
+        )
+        ConsulClient client = context.getBean(ConsulClient)
+
+        when:
+        Mono.from(client.readValues("config/application", null, null, null)).block()
+
+        then:
+        thrown(Exception)
+        meterRegistry.get(DiscoveryClientMetrics.RETRIES)
+            .tags("client", "consul", "operation", "readValues")
+            .counter().count() == 2
+        meterRegistry.get(DiscoveryClientMetrics.RESPONSES)
+            .tags("client", "consul", "status", DiscoveryClientMetrics.STATUS_NONE)
+            .counter().count() == 3
+    }
+
+    void "test metrics can be disabled"() {
+        when:
+        start('consul.client.host': consulServer.host, 'consul.client.port': consulServer.port, (DiscoveryClientMetrics.ENABLED): false)
+
+        then:
+        !context.containsBean(DiscoveryClientMetrics)
+        !context.containsBean(DiscoveryClientMetricsFilter)
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registration
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.registration.RegistrationConfiguration
+import io.micronaut.health.HealthStatus
+import io.micronaut.health.HeartbeatConfiguration
+import io.micronaut.health.HeartbeatEvent
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+
+class HeartbeatJitterSpec extends Specification {
+
+    void "test the phase of an instance is stable and spread across a fleet"() {
+        given:
+        List<ServiceInstance> fleet = (8080..8279).collect { int port ->
+            ServiceInstance.builder("orders", URI.create("http://10.0.0.1:$port")).build()
+        }
+
+        when:
+        List<Double> phases = fleet.collect { HeartbeatJitter.phase(it) }
+
+        then:
+        phases == fleet.collect { HeartbeatJitter.phase(it) }
+        phases.every { it >= 0 && it < 1 }
+        (0..9).every { int bucket -> phases.count { (int) (it * 10) == bucket } >= 5 }
+    }
+
+    void "test the delay is the phase offset plus a bounded jitter"() {
+        given:
+        HeartbeatConfiguration heartbeatConfiguration = new HeartbeatConfiguration()
+        heartbeatConfiguration.interval = Duration.ofSeconds(10)
+        HeartbeatJitter jitter = new HeartbeatJitter(heartbeatConfiguration, new HeartbeatJitterConfiguration())
+        ServiceInstance instance = ServiceInstance.builder("orders", URI.create("http://10.0.0.1:8080")).build()
+        long phase = (long) (HeartbeatJitter.phase(instance) * HeartbeatJitterConfiguration.DEFAULT_PHASE * Duration.ofSeconds(10).toNanos())
+
+        when:
+        List<Duration> delays = (1..50).collect { jitter.delay(instance) }
+
+        then:
+        delays.every { it.toNanos() >= phase && it.toNanos() < phase + Duration.ofSeconds(1).toNanos() }
+        delays.unique(false).size() > 1
+    }
+
+    void "test the maximum delay bounds the delay of every instance"() {
+        given:
+        HeartbeatJitter jitter = new HeartbeatJitter(new HeartbeatConfiguration(), new HeartbeatJitterConfiguration())
+        List<ServiceInstance> fleet = (8080..8179).collect { int port ->
+            ServiceInstance.builder("orders", URI.create("http://10.0.0.1:$port")).build()
+        }
+
+        expect:
+        jitter.maxDelay(Duration.ofSeconds(30)) == Duration.ofSeconds(18)
+        fleet.every { jitter.delay(it, Duration.ofSeconds(30)) <= Duration.ofSeconds(18) }
+    }
+
+    void "test routine heartbeats are delayed and status changes are not"() {
+        given:
+        HeartbeatConfiguration heartbeatConfiguration = new HeartbeatConfiguration()
+        heartbeatConfiguration.interval = Duration.ofSeconds(2)
+        HeartbeatJitterConfiguration jitterConfiguration = new HeartbeatJitterConfiguration()
+        jitterConfiguration.phase = 0.5
+        jitterConfiguration.jitter = 0
+        ServiceInstance instance = (8080..8179)
+                .collect { int port -> ServiceInstance.builder("orders", URI.create("http://10.0.0.1:$port")).build() }
+                .find { HeartbeatJitter.phase(it) > 0.5 }
+        RecordingAutoRegistration registration = new RecordingAutoRegistration()
+        registration.heartbeatJitter = new HeartbeatJitter(heartbeatConfiguration, jitterConfiguration)
+        PollingConditions conditions = new PollingConditions(timeout: 3)
+
+        when:"the first heartbeat is sent"
+        registration.onApplicationEvent(new HeartbeatEvent(instance, HealthStatus.UP))
+
+        then:"it is not delayed"
+        registration.pulses == [HealthStatus.UP]
+
+        when:"a heartbeat repeats the status"
+        long start = System.nanoTime()
+        registration.onApplicationEvent(new HeartbeatEvent(instance, HealthStatus.UP))
+
+        then:"it is delayed by the phase offset of the instance"
+        registration.pulses == [HealthStatus.UP]
+        conditions.eventually {
+            assert registration.pulses == [HealthStatus.UP, HealthStatus.UP]
+        }
+        Duration.ofNanos(System.nanoTime() - start) >= Duration.ofMillis(500)
+
+        when:"a heartbeat changes the status"
+        registration.onApplicationEvent(new HeartbeatEvent(instance, HealthStatus.DOWN))
+
+        then:"it is sent without delay"
+        registration.pulses == [HealthStatus.UP, HealthStatus.UP, HealthStatus.DOWN]
+    }
+
+    void "test the jitter can be disabled"() {
+        given:
+        ApplicationContext context = ApplicationContext.run(['discovery-client.heartbeat-jitter.enabled': false])
+
+        expect:
+        !context.containsBean(HeartbeatJitter)
+
+        cleanup:
+        context.close()
+    }
+
+    static class RecordingAutoRegistration extends DiscoveryServiceAutoRegistration {
+
+        final List<HealthStatus> pulses = new CopyOnWriteArrayList<>()
+
+        RecordingAutoRegistration() {
+            super(new RegistrationConfiguration() {})
+        }
+
+        @Override
+        protected void pulsate(ServiceInstance instance, HealthStatus status) {
+            pulses << status
+        }
+
+        @Override
+        protected void register(ServiceInstance instance) {
+        }
+
+        @Override
+        protected void deregister(ServiceInstance instance) {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registry
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.ServiceInstance
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import reactor.core.publisher.Sinks
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class RegistrySnapshotSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    void "test snapshot instances are served provisionally until a live lookup completes"() {
+        given:
+        Path path = tempDir.resolve("snapshot.bin")
+        Map<String, Object> config = [
+                'discovery-client.snapshot.enabled': true,
+                'discovery-client.snapshot.path'   : path.toString()
+        ]
+        ApplicationContext context = ApplicationContext.run(config)
+        ServiceInstance instance = ServiceInstance.builder("foo", URI.create("http://foo:8080")).instanceId("foo-1").build()
+
+        when:"a live lookup is recorded and the application stops"
+        List<ServiceInstance> live = Mono.from(context.getBean(RegistrySnapshotStore).warm("consul", "foo", Mono.just([instance]))).block()
+        context.close()
+
+        then:
+        !RegistrySnapshotStore.isStale(live[0])
+        Files.exists(path)
+
+        when:"the application restarts while the discovery server is slow"
+        context = ApplicationContext.run(config)
+        RegistrySnapshotStore store = context.getBean(RegistrySnapshotStore)
+        ServiceInstance updated = ServiceInstance.builder("foo", URI.create("http://foo:9090")).instanceId("foo-2").build()
+        def pending = Sinks.one()
+        List<ServiceInstance> provisional = Mono.from(store.warm("consul", "foo", pending.asMono())).block()
+
+        then:
+        provisional.size() == 1
+        provisional[0].URI == URI.create("http://foo:8080")
+        provisional[0].instanceId.get() == "foo-1"
+        RegistrySnapshotStore.isStale(provisional[0])
+        Mono.from(store.warm("eureka", "foo", Flux.just([]))).block().isEmpty()
+
+        when:"the background lookup completes"
+        pending.tryEmitValue([updated])
+
+        then:
+        Mono.from(store.warm("consul", "foo", Mono.just([updated]))).block()[0].URI == URI.create("http://foo:9090")
+
+        cleanup:
+        context?.close()
+    }
+
+    void "test corrupt snapshots are ignored"() {
+        given:
+        Path path = tempDir.resolve("corrupt.bin")
+        Files.write(path, new byte[64])
+        ApplicationContext context = ApplicationContext.run(
+                'discovery-client.snapshot.enabled': true,
+                'discovery-client.snapshot.path'   : path.toString()
+        )
+        ServiceInstance instance = ServiceInstance.of("foo", new URL("http://foo:8080"))
+
+        expect:
+        Mono.from(context.getBean(RegistrySnapshotStore).warm("consul", "foo", Mono.just([instance]))).block()[0].is(instance)
+
+        cleanup:
+        context?.close()
+    }
+}
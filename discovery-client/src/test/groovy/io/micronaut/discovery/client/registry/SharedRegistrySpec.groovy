@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.registry
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.DiscoveryClient
+import io.micronaut.health.HealthStatus
+import io.micronaut.scheduling.TaskScheduler
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+class SharedRegistrySpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    void "test registry codec round trip"() {
+        given:
+        ServiceInstance instance = ServiceInstance.builder("foo", URI.create("http://foo:8080"))
+                .instanceId("foo-1")
+                .zone("us-east-1a")
+                .status(HealthStatus.DOWN)
+                .metadata([version: "1"])
+                .build()
+        byte[] body = RegistryCodec.encode([foo: [instance], bar: []])
+
+        when:
+        List<ServiceInstance> decoded = RegistryCodec.decode(ByteBuffer.wrap(body), "foo")
+
+        then:
+        RegistryCodec.decodeServiceIds(ByteBuffer.wrap(body)) == ["foo", "bar"]
+        RegistryCodec.decode(ByteBuffer.wrap(body), "bar").isEmpty()
+        RegistryCodec.decode(ByteBuffer.wrap(body), "baz") == null
+        decoded.size() == 1
+        decoded[0].id == "foo"
+        decoded[0].instanceId.get() == "foo-1"
+        decoded[0].URI == URI.create("http://foo:8080")
+        decoded[0].zone.get() == "us-east-1a"
+        decoded[0].healthStatus == HealthStatus.DOWN
+        decoded[0].metadata.get("version", String).get() == "1"
+    }
+
+    void "test reader discovers instances published to the mapped file"() {
+        given:
+        Path path = tempDir.resolve("registry.bin")
+        MappedRegistryFile writer = MappedRegistryFile.openForWriting(path, 64 * 1024)
+        writer.write(RegistryCodec.encode([foo: [ServiceInstance.of("foo", new URL("http://foo:8080"))]]))
+        ApplicationContext context = ApplicationContext.run(
+                'discovery-client.shared-registry.enabled': true,
+                'discovery-client.shared-registry.path': path.toString()
+        )
+        SharedRegistryDiscoveryClient client = context.getBean(SharedRegistryDiscoveryClient)
+
+        expect:
+        Mono.from(client.getServiceIds()).block() == ["foo"]
+        Mono.from(client.getInstances("foo")).block()[0].URI == URI.create("http://foo:8080")
+        Mono.from(client.getInstances("foo")).block().is(Mono.from(client.getInstances("foo")).block())
+        Mono.from(client.getInstances("bar")).block().isEmpty()
+
+        when:
+        writer.write(RegistryCodec.encode([foo: [ServiceInstance.of("foo", new URL("http://foo:9090"))]]))
+
+        then:
+        Mono.from(client.getInstances("foo")).block()[0].URI == URI.create("http://foo:9090")
+
+        cleanup:
+        context?.close()
+        writer?.close()
+    }
+
+    void "test reader ignores stale data"() {
+        given:
+        Path path = tempDir.resolve("stale.bin")
+        MappedRegistryFile writer = MappedRegistryFile.openForWriting(path, 1024)
+        writer.write(RegistryCodec.encode([foo: [ServiceInstance.of("foo", new URL("http://foo:8080"))]]))
+        MappedRegistryFile reader = MappedRegistryFile.openForReading(path)
+
+        expect:
+        reader.read(60_000, RegistryCodec::decodeServiceIds) == ["foo"]
+        reader.read(-1, RegistryCodec::decodeServiceIds) == ["foo"]
+
+        when:
+        sleep(20)
+
+        then:
+        reader.read(5, RegistryCodec::decodeServiceIds) == null
+
+        cleanup:
+        reader?.close()
+        writer?.close()
+    }
+
+    void "test a reader detects a registry file created in place of the mapped one"() {
+        given:
+        Path path = tempDir.resolve("replaced.bin")
+        MappedRegistryFile writer = MappedRegistryFile.openForWriting(path, 1024)
+        MappedRegistryFile reader = MappedRegistryFile.openForReading(path)
+
+        expect:
+        reader.isMappedFrom(path)
+
+        when:
+        writer.close()
+        Files.delete(path)
+        writer = MappedRegistryFile.openForWriting(path, 1024)
+
+        then:
+        !reader.isMappedFrom(path)
+
+        cleanup:
+        reader?.close()
+        writer?.close()
+    }
+
+    void "test an unchanged registry stays fresh while the writer keeps publishing"() {
+        given:
+        SharedRegistryConfiguration configuration = new SharedRegistryConfiguration(
+                path: tempDir.resolve("heartbeat.bin"),
+                maxAge: Duration.ofMillis(300)
+        )
+        SharedRegistryWriter writer = new SharedRegistryWriter(configuration, Stub(DiscoveryClient), Stub(TaskScheduler))
+        SharedRegistryDiscoveryClient client = new SharedRegistryDiscoveryClient(configuration)
+        Map<String, List<ServiceInstance>> registry = [foo: [ServiceInstance.of("foo", new URL("http://foo:8080"))]]
+
+        when:
+        writer.publish(registry)
+        List<ServiceInstance> first = Mono.from(client.getInstances("foo")).block()
+        sleep(200)
+        writer.publish(registry)
+        sleep(200)
+
+        then:
+        first.size() == 1
+        Mono.from(client.getInstances("foo")).block().is(first)
+        Mono.from(client.getServiceIds()).block() == ["foo"]
+
+        when:
+        sleep(400)
+
+        then:
+        Mono.from(client.getInstances("foo")).block().isEmpty()
+        Mono.from(client.getServiceIds()).block().isEmpty()
+
+        cleanup:
+        client?.close()
+        writer?.close()
+    }
+}
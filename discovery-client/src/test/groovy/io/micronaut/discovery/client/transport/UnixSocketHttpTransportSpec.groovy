@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.client.transport
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.core.type.Argument
+import io.micronaut.discovery.consul.client.v1.ConsulClient
+import io.micronaut.discovery.consul.client.v1.HealthEntry
+import io.micronaut.discovery.consul.client.v1.KeyValue
+import io.micronaut.http.HttpRequest
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.client.exceptions.HttpClientResponseException
+import io.micronaut.json.JsonMapper
+import reactor.core.publisher.Flux
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.net.StandardProtocolFamily
+import java.net.UnixDomainSocketAddress
+import java.nio.channels.Channels
+import java.nio.channels.ServerSocketChannel
+import java.nio.channels.SocketChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+
+class UnixSocketHttpTransportSpec extends Specification {
+
+    Path directory = Files.createTempDirectory("uds")
+    Path socket = directory.resolve("agent.sock")
+    List<String> requests = new CopyOnWriteArrayList<>()
+    AtomicInteger connections = new AtomicInteger()
+    volatile String response
+    volatile boolean closeAfterResponse
+    @AutoCleanup
+    ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+    JsonMapper jsonMapper = JsonMapper.createDefault()
+
+    void setup() {
+        server.bind(UnixDomainSocketAddress.of(socket))
+        Thread.startDaemon {
+            while (server.isOpen()) {
+                try {
+                    def accepted = server.accept()
+                    connections.incrementAndGet()
+                    Thread.startDaemon { serve(accepted) }
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        connection.withCloseable { channel ->
+            def reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.ISO_8859_1))
+            def output = Channels.newOutputStream(channel)
+            // serve requests on the connection until the client closes it
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                StringBuilder request = new StringBuilder()
+                int contentLength = 0
+                while (line) {
+                    request.append(line).append('\n')
+                    if (line.toLowerCase().startsWith("content-length:")) {
+                        contentLength = line.substring(15).trim() as int
+                    }
+                    line = reader.readLine()
+                }
+                char[] body = new char[contentLength]
+                reader.read(body, 0, contentLength)
+                requests << request.append('\n').append(body).toString()
+                output.write(response.getBytes(StandardCharsets.ISO_8859_1))
+                output.flush()
+                if (closeAfterResponse) {
+                    break
+                }
+            }
+        }
+    }
+
+    void cleanup() {
+        Files.deleteIfExists(socket)
+        Files.deleteIfExists(directory)
+    }
+
+    void "test socket paths are parsed from unix URIs and file paths"() {
+        expect:
+        UnixSocketHttpTransport.socketPath("unix:///var/run/consul.sock") == Path.of("/var/run/consul.sock")
+        UnixSocketHttpTransport.socketPath("/var/run/consul.sock") == Path.of("/var/run/consul.sock")
+    }
+
+    void "test a request is sent over the socket and the JSON body decoded"() {
+        given:
+        response = 'HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 17\r\n\r\n{"consul":["a"]}\n'
+        UnixSocketHttpTransport transport = new UnixSocketHttpTransport(socket, jsonMapper, Duration.ofSeconds(5))
+
+        when:
+        HttpResponse<?> result = Flux.from(transport.exchange(
+            HttpRequest.PUT("http://localhost:8500/v1/agent/check/pass/foo?note=ok", [status: "passing"])
+                .header("X-Consul-Token", "secret")
+        )).blockFirst()
+
+        then:
+        result.code() == 200
+        result.getBody(Argument.mapOf(Argument.STRING, Argument.listOf(String))).get() == [consul: ["a"]]
+        requests[0].startsWith("PUT /v1/agent/check/pass/foo?note=ok HTTP/1.1\n")
+        requests[0].contains("X-Consul-Token: secret\n")
+        !requests[0].contains("Connection:")
+        requests[0].endsWith('{"status":"passing"}')
+    }
+
+    void "test chunked responses are decoded"() {
+        given:
+        response = 'HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\n"lead\r\n3;ext=1\r\ner"\r\n0\r\n\r\n'
+        UnixSocketHttpTransport transport = new UnixSocketHttpTransport(socket, jsonMapper, Duration.ofSeconds(5))
+
+        when:
+        HttpResponse<?> result = Flux.from(transport.exchange(HttpRequest.GET("/v1/status/leader"))).blockFirst()
+
+        then:
+        result.getBody(String).get() == '"leader"'
+        result.getBody(Argument.of(String)).isPresent()
+    }
+
+    void "test connections are kept alive and reused across chunked responses"() {
+        given:
+        response = 'HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\n"lead\r\n3\r\ner"\r\n0\r\n\r\n'
+        UnixSocketHttpTransport transport = new UnixSocketHttpTransport(socket, jsonMapper, Duration.ofSeconds(5))
+
+        when:
+        List<String> bodies = (1..3).collect {
+            Flux.from(transport.exchange(HttpRequest.GET("/v1/status/leader"))).blockFirst().getBody(String).get()
+        }
+
+        then:
+        bodies == ['"leader"'] * 3
+        requests.size() == 3
+        connections.get() == 1
+        transport.idleConnections == 1
+
+        when:
+        transport.close()
+
+        then:
+        transport.idleConnections == 0
+    }
+
+    void "test connections closed by the agent are not reused"() {
+        given:
+        response = 'HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\n{}'
+        UnixSocketHttpTransport transport = new UnixSocketHttpTransport(socket, jsonMapper, Duration.ofSeconds(5))
+
+        when:
+        2.times { Flux.from(transport.exchange(HttpRequest.GET("/v1/agent/self"))).blockFirst() }
+
+        then:
+        connections.get() == 2
+        transport.idleConnections == 0
+    }
+
+    void "test idempotent requests are retried when a pooled connection was closed"() {
+        given:
+        response = 'HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\n{}'
+        closeAfterResponse = true
+        UnixSocketHttpTransport transport = new UnixSocketHttpTransport(socket, jsonMapper, Duration.ofSeconds(5))
+
+        when:
+        List<Integer> codes = (1..2).collect {
+            Flux.from(transport.exchange(HttpRequest.GET("/v1/agent/self"))).blockFirst().code()
+        }
+
+        then:
+        codes == [200, 200]
+        requests.size() == 2
+        connections.get() == 2
+    }
+
+    void "test error responses are emitted as client response exceptions"() {
+        given:
+        response = 'HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n'
+        UnixSocketHttpTransport transport = new UnixSocketHttpTransport(socket, jsonMapper, Duration.ofSeconds(5))
+
+        when:
+        Flux.from(transport.exchange(HttpRequest.GET("/v1/kv/missing"))).blockFirst()
+
+        then:
+        HttpClientResponseException e = thrown()
+        e.status.code == 404
+    }
+
+    void "test the Consul client talks to the agent over the configured socket"() {
+        given:
+        response = 'HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 15\r\n\r\n"10.0.0.1:8300"'
+        ApplicationContext context = ApplicationContext.run(
+            'consul.client.host': 'localhost',
+            'consul.client.port': 1,
+            'consul.client.unix-socket': "unix://$socket".toString()
+        )
+
+        when:
+        String leader = Flux.from(context.getBean(ConsulClient).status()).blockFirst()
+
+        then:
+        leader == "10.0.0.1:8300"
+        requests[0].startsWith("GET /v1/status/leader HTTP/1.1\n")
+
+        cleanup:
+        context.close()
+    }
+
+    void "test typed bodies of the Consul client are decoded over the socket"() {
+        given:
+        String body = '[{"Node":{"Node":"node-1","Address":"10.0.0.1"},"Service":{"ID":"foo-1","Service":"foo","Address":"10.0.0.2","Port":8080},"Checks":[]}]'
+        response = "HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: ${body.length()}\r\n\r\n$body"
+        ApplicationContext context = ApplicationContext.run(
+            'consul.client.host': 'localhost',
+            'consul.client.port': 1,
+            'consul.client.unix-socket': "unix://$socket".toString()
+        )
+
+        when:
+        List<HealthEntry> entries = Flux.from(context.getBean(ConsulClient).getHealthyServices("foo")).blockFirst()
+
+        then:
+        entries.size() == 1
+        entries[0] instanceof HealthEntry
+        entries[0].service.getID().get() == "foo-1"
+        entries[0].service.port.getAsInt() == 8080
+        requests[0].startsWith("GET /v1/health/service/foo HTTP/1.1\n")
+
+        cleanup:
+        context.close()
+    }
+
+    void "test a missing key read over the socket is empty"() {
+        given:
+        response = 'HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n'
+        ApplicationContext context = ApplicationContext.run(
+            'consul.client.host': 'localhost',
+            'consul.client.port': 1,
+            'consul.client.unix-socket': "unix://$socket".toString()
+        )
+
+        when:
+        List<KeyValue> values = Flux.from(context.getBean(ConsulClient).readValues("missing")).blockFirst()
+
+        then:
+        values == null
+        requests[0].startsWith("GET /v1/kv/missing HTTP/1.1\n")
+
+        cleanup:
+        context.close()
+    }
+}
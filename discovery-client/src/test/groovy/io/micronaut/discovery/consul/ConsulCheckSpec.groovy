@@ -40,4 +40,35 @@ class ConsulCheckSpec extends Specification {
         json.contains('"Interval":"10s"')
         json.contains('"TLSSkipVerify":true')
     }
+
+    void "test TCP and gRPC checks are serialized"() {
+        given:
+        ConsulCheck check = new ConsulCheck()
+        check.tcp = "localhost:8080"
+        check.grpc = "localhost:50051/greeter"
+        check.grpcUseTls = true
+        check.timeout = "2s"
+
+        when:
+        String json = jsonMapper.writeValueAsString(check)
+
+        then:
+        json.contains('"TCP":"localhost:8080"')
+        json.contains('"GRPC":"localhost:50051/greeter"')
+        json.contains('"GRPCUseTLS":true')
+        json.contains('"Timeout":"2s"')
+    }
+
+    void "test the gRPC TLS flag is omitted unless configured"() {
+        given:
+        ConsulCheck check = new ConsulCheck()
+        check.grpc = "[::1]:50051/greeter"
+
+        when:
+        String json = jsonMapper.writeValueAsString(check)
+
+        then:
+        json.contains('"GRPC":"[::1]:50051/greeter"')
+        !json.contains('GRPCUseTLS')
+    }
 }
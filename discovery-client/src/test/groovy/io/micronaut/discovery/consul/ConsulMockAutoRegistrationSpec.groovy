@@ -18,6 +18,7 @@ package io.micronaut.discovery.consul
 import io.micronaut.context.ApplicationContext
 import io.micronaut.discovery.DiscoveryClient
 import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.consul.client.v1.ConsulCheck
 import io.micronaut.discovery.consul.client.v1.ConsulCheckStatus
 import io.micronaut.discovery.consul.client.v1.ConsulClient
 
@@ -287,6 +288,107 @@ class ConsulMockAutoRegistrationSpec extends Specification {
     }
 
 
+    void "test that a service can be registered with a TCP health check"() {
+        when: "creating another server instance"
+        def serviceName = 'another-server'
+        EmbeddedServer anotherServer = ApplicationContext.run(EmbeddedServer, ['micronaut.application.name'               : serviceName,
+                                                                               'consul.client.registration.check.tcp'     : true,
+                                                                               'consul.client.registration.check.timeout' : '2s',
+                                                                               'consul.client.host'                      : 'localhost',
+                                                                               'consul.client.port'                      : consulServer.port])
+
+        PollingConditions conditions = new PollingConditions(timeout: 3)
+
+        then:
+        conditions.eventually {
+            assert MockConsulServer.newEntries.get(serviceName).checks().size() == 1
+            ConsulCheck check = MockConsulServer.newEntries.get(serviceName).checks()[0]
+            assert check.tcp == "localhost:${anotherServer.port}".toString()
+            assert check.timeout == '2000ms'
+            assert check.interval == '15s'
+            assert check.ttl == null
+            assert check.http == null
+        }
+
+        cleanup:
+        anotherServer.stop()
+    }
+
+    void "test that a service can be registered with a gRPC health check"() {
+        when: "creating another server instance"
+        def serviceName = 'another-server'
+        EmbeddedServer anotherServer = ApplicationContext.run(EmbeddedServer, ['micronaut.application.name'                 : serviceName,
+                                                                               'consul.client.registration.check.grpc'       : true,
+                                                                               'consul.client.registration.check.grpc-service': 'greeter',
+                                                                               'consul.client.registration.check.grpc-use-tls': true,
+                                                                               'consul.client.registration.check.port'       : 50051,
+                                                                               'consul.client.host'                        : 'localhost',
+                                                                               'consul.client.port'                        : consulServer.port])
+
+        PollingConditions conditions = new PollingConditions(timeout: 3)
+
+        then:
+        conditions.eventually {
+            assert MockConsulServer.newEntries.get(serviceName).checks().size() == 1
+            ConsulCheck check = MockConsulServer.newEntries.get(serviceName).checks()[0]
+            assert check.grpc == 'localhost:50051/greeter'
+            assert check.grpcUseTls
+            assert check.ttl == null
+        }
+
+        cleanup:
+        anotherServer.stop()
+    }
+
+    void "test that a gRPC health check without a service or TLS targets the server"() {
+        when: "creating another server instance"
+        def serviceName = 'another-server'
+        EmbeddedServer anotherServer = ApplicationContext.run(EmbeddedServer, ['micronaut.application.name'          : serviceName,
+                                                                               'consul.client.registration.check.grpc': true,
+                                                                               'consul.client.host'                 : 'localhost',
+                                                                               'consul.client.port'                 : consulServer.port])
+
+        PollingConditions conditions = new PollingConditions(timeout: 3)
+
+        then:
+        conditions.eventually {
+            assert MockConsulServer.newEntries.get(serviceName).checks().size() == 1
+            ConsulCheck check = MockConsulServer.newEntries.get(serviceName).checks()[0]
+            assert check.grpc == "localhost:${anotherServer.port}".toString()
+            assert check.grpcUseTls == null
+        }
+
+        cleanup:
+        anotherServer.stop()
+    }
+
+    void "test that IPv6 addresses are bracketed in #type health checks"() {
+        when: "creating another server instance"
+        def serviceName = 'another-server'
+        EmbeddedServer anotherServer = ApplicationContext.run(EmbeddedServer, ['micronaut.application.name'                  : serviceName,
+                                                                               ("consul.client.registration.check.${type}".toString()): true,
+                                                                               'consul.client.registration.check.port'       : 50051,
+                                                                               'consul.client.registration.prefer-ip-address': true,
+                                                                               'consul.client.registration.ip-addr'          : '::1',
+                                                                               'consul.client.host'                         : 'localhost',
+                                                                               'consul.client.port'                         : consulServer.port])
+
+        PollingConditions conditions = new PollingConditions(timeout: 3)
+
+        then:
+        conditions.eventually {
+            assert MockConsulServer.newEntries.get(serviceName).checks().size() == 1
+            ConsulCheck check = MockConsulServer.newEntries.get(serviceName).checks()[0]
+            assert check."${type}" == '[::1]:50051'
+        }
+
+        cleanup:
+        anotherServer.stop()
+
+        where:
+        type << ['tcp', 'grpc']
+    }
+
     void "test that a asl token can be configured"() {
         when: "creating another server instance"
         def serviceName = 'another-server'
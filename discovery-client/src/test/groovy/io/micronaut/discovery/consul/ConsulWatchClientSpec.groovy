@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.consul.client.v1.ConsulClient
+import io.micronaut.discovery.consul.client.v1.ConsulHealthEntry
+import io.micronaut.discovery.consul.client.v1.ConsulWatchClient
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.client.HttpVersionSelection
+import io.micronaut.runtime.server.EmbeddedServer
+import reactor.core.publisher.Flux
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+
+class ConsulWatchClientSpec extends Specification {
+
+    void "test blocking queries have their own pool and timeouts"() {
+        given:
+        ApplicationContext context = ApplicationContext.run(
+            'consul.client.host': 'localhost',
+            'consul.client.port': 8500,
+            'consul.client.read-timeout': '5s',
+            'consul.client.pool.max-connections': 10,
+            'consul.client.watch.wait': '2m',
+            'consul.client.watch.pool.max-connections': 100
+        )
+
+        when:
+        ConsulConfiguration consulConfiguration = context.getBean(ConsulConfiguration)
+        ConsulWatchConfiguration watchConfiguration = context.getBean(ConsulWatchConfiguration)
+
+        then:
+        consulConfiguration.readTimeout.get() == Duration.ofSeconds(5)
+        consulConfiguration.connectionPoolConfiguration.maxConnections == 10
+        watchConfiguration.connectionPoolConfiguration.maxConnections == 100
+        !watchConfiguration.connectionPoolConfiguration.is(consulConfiguration.connectionPoolConfiguration)
+        watchConfiguration.wait == Duration.ofMinutes(2)
+        watchConfiguration.waitParameter == "120s"
+        watchConfiguration.readTimeout.get() == Duration.ofMinutes(2).plusMillis(7500).plusSeconds(10)
+        watchConfiguration.readIdleTimeout.get() >= watchConfiguration.readTimeout.get()
+
+        cleanup:
+        context.close()
+    }
+
+    void "test an explicit read timeout is used as is"() {
+        given:
+        ApplicationContext context = ApplicationContext.run(
+            'consul.client.host': 'localhost',
+            'consul.client.port': 8500,
+            'consul.client.watch.read-timeout': '20m'
+        )
+
+        expect:
+        context.getBean(ConsulWatchConfiguration).readTimeout.get() == Duration.ofMinutes(20)
+
+        cleanup:
+        context.close()
+    }
+
+    void "test blocking queries can be sent over HTTP/2"() {
+        given:
+        ApplicationContext context = ApplicationContext.run(
+            'consul.client.host': 'localhost',
+            'consul.client.port': 8500,
+            'consul.client.watch.http2': true
+        )
+
+        when:
+        ConsulWatchConfiguration watchConfiguration = context.getBean(ConsulWatchConfiguration)
+
+        then:
+        watchConfiguration.http2
+        watchConfiguration.plaintextMode == HttpVersionSelection.PlaintextMode.H2C
+        watchConfiguration.alpnModes[0] == HttpVersionSelection.ALPN_HTTP_2
+        context.getBean(ConsulConfiguration).plaintextMode == HttpVersionSelection.PlaintextMode.HTTP_1
+
+        cleanup:
+        context.close()
+    }
+
+    void "test the watch client queries the Consul agent"() {
+        given:
+        EmbeddedServer consulServer = ApplicationContext.run(EmbeddedServer, [(MockConsulServer.ENABLED): true])
+        EmbeddedServer application = ApplicationContext.run(
+            EmbeddedServer,
+            ['consul.client.host'        : consulServer.host,
+             'consul.client.port'        : consulServer.port,
+             'micronaut.application.name': 'watched-service']
+        )
+        ConsulWatchClient watchClient = application.applicationContext.getBean(ConsulWatchClient)
+        PollingConditions conditions = new PollingConditions()
+
+        expect:
+        conditions.eventually {
+            Flux.from(application.applicationContext.getBean(ConsulClient).getInstances('watched-service')).blockFirst().size() == 1
+        }
+
+        when:
+        HttpResponse<List<ConsulHealthEntry>> response = Flux.from(watchClient.watchHealthyServices('watched-service', null, null, null, 1L, '1s')).blockFirst()
+
+        then:
+        response.body().size() == 1
+        response.body()[0].service().service() == 'watched-service'
+
+        cleanup:
+        application?.stop()
+        consulServer?.stop()
+    }
+
+    void "test the next index follows the Consul guidance"() {
+        expect:
+        ConsulWatchClient.nextIndex(response(header), previous) == expected
+
+        where:
+        header | previous | expected
+        "42"   | 0        | 42
+        "42"   | 42       | 42
+        "41"   | 42       | 0
+        "0"    | 0        | 1
+        null   | 10       | 0
+        "x"    | 10       | 0
+    }
+
+    private static HttpResponse<?> response(String index) {
+        def response = HttpResponse.ok()
+        if (index != null) {
+            response.header(ConsulWatchClient.HEADER_CONSUL_INDEX, index)
+        }
+        response
+    }
+}
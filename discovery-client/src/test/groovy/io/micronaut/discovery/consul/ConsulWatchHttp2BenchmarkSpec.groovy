@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.annotation.Nullable
+import io.micronaut.discovery.consul.client.v1.ConsulHealthEntry
+import io.micronaut.discovery.consul.client.v1.ConsulWatchClient
+import io.micronaut.http.HttpRequest
+import io.micronaut.http.annotation.Controller
+import io.micronaut.http.annotation.Get
+import io.micronaut.http.annotation.QueryValue
+import io.micronaut.runtime.server.EmbeddedServer
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Compares the sockets and heap used by 500 concurrent blocking queries over HTTP/1.1 and HTTP/2 against a local
+ * stand-in for the Consul agent. Run with {@code CONSUL_WATCH_BENCHMARK=true}.
+ */
+@IgnoreIf({ !env['CONSUL_WATCH_BENCHMARK'] })
+class ConsulWatchHttp2BenchmarkSpec extends Specification {
+
+    static final int WATCHES = 500
+
+    @Unroll
+    void "benchmark #watches concurrent watches with http2=#http2"() {
+        given:
+        EmbeddedServer consulServer = ApplicationContext.run(EmbeddedServer, [
+            'spec.name'                    : 'ConsulWatchHttp2BenchmarkSpec',
+            'micronaut.server.http-version': '2.0'
+        ])
+        ApplicationContext context = ApplicationContext.run(
+            'consul.client.host'                      : consulServer.host,
+            'consul.client.port'                      : consulServer.port,
+            'consul.client.watch.http2'               : http2,
+            'consul.client.watch.pool.max-connections': watches
+        )
+        ConsulWatchClient watchClient = context.getBean(ConsulWatchClient)
+        StandInConsulAgent agent = consulServer.applicationContext.getBean(StandInConsulAgent)
+        System.gc()
+        long heapBefore = usedHeap()
+
+        when:
+        List<ConsulHealthEntry> results = Flux.range(0, watches)
+            .flatMap({ int i -> watchClient.watchHealthyServices("service-$i", null, null, null, 1L, '2s') }, watches)
+            .map({ it.body() })
+            .collectList()
+            .block(Duration.ofMinutes(1))
+            .flatten()
+        long heapDuring = agent.peakHeap
+        int sockets = agent.remoteAddresses.size()
+        println "http2=$http2 watches=$watches sockets=$sockets heap=${(heapDuring - heapBefore).intdiv(1024 * 1024)}MB"
+
+        then:
+        results.isEmpty()
+        http2 ? sockets <= 2 : sockets >= watches.intdiv(2)
+
+        cleanup:
+        context?.close()
+        consulServer?.close()
+
+        where:
+        http2 << [false, true]
+        watches = WATCHES
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime()
+        runtime.totalMemory() - runtime.freeMemory()
+    }
+
+    @Controller("/v1")
+    @Requires(property = "spec.name", value = "ConsulWatchHttp2BenchmarkSpec")
+    static class StandInConsulAgent {
+
+        final Set<String> remoteAddresses = ConcurrentHashMap.newKeySet()
+        volatile long peakHeap
+
+        @Get("/health/service/{service}{?index,wait}")
+        Mono<List<ConsulHealthEntry>> health(String service, @Nullable @QueryValue Long index, @Nullable @QueryValue String wait, HttpRequest<?> request) {
+            remoteAddresses.add(request.remoteAddress.toString())
+            // hold the query like Consul does until the wait elapses without a change
+            Mono.delay(Duration.ofSeconds(2)).map {
+                peakHeap = Math.max(peakHeap, usedHeap())
+                Collections.<ConsulHealthEntry>emptyList()
+            }
+        }
+    }
+}
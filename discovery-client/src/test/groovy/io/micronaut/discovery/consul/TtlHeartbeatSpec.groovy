@@ -60,6 +60,9 @@ class TtlHeartbeatSpec extends Specification implements MockConsulSpec {
             MockConsulServer.passingReports.find { it.contains(NameUtils.hyphenate(serviceId))} != null
         }
 
+        and:"the TTL allows for the heartbeat jitter of 0.6 times the interval"
+        MockConsulServer.newEntries.get(NameUtils.hyphenate(serviceId)).checks()[0].ttl == '12s'
+
         cleanup:
         application?.stop()
         consulServer?.stop()
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.dns
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.client.dns.DnsRecord
+import io.micronaut.discovery.client.dns.DnsResponse
+import io.micronaut.discovery.client.dns.StandInDnsServer
+import io.micronaut.discovery.exceptions.DiscoveryException
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+class ConsulDnsDiscoveryClientSpec extends Specification {
+
+    @AutoCleanup
+    StandInDnsServer dnsServer = new StandInDnsServer()
+
+    @AutoCleanup
+    ApplicationContext context
+
+    void setup() {
+        dnsServer.add(new DnsRecord.Srv("foo.service.consul", 30, 1, 1, 8081, "foo-1.node.dc1.consul"))
+        dnsServer.add(new DnsRecord.Srv("foo.service.consul", 30, 1, 1, 8082, "foo-2.node.dc1.consul"))
+        dnsServer.add(new DnsRecord.Address("foo-1.node.dc1.consul", 30, InetAddress.getByAddress([10, 0, 0, 1] as byte[])))
+    }
+
+    ConsulDnsDiscoveryClient start(Map<String, Object> properties = [:]) {
+        context = ApplicationContext.run([
+            'consul.client.host'       : 'localhost',
+            'consul.client.dns.enabled': true,
+            'consul.client.dns.servers': [dnsServer.address]
+        ] + properties)
+        context.getBean(ConsulDnsDiscoveryClient)
+    }
+
+    void "test the client is not present unless enabled"() {
+        when:
+        context = ApplicationContext.run(['consul.client.host': 'localhost'])
+
+        then:
+        !context.containsBean(ConsulDnsDiscoveryClient)
+    }
+
+    void "test instances are resolved from SRV records and their additional addresses"() {
+        given:
+        ConsulDnsDiscoveryClient client = start()
+
+        when:
+        List<ServiceInstance> instances = Mono.from(client.getInstances("foo")).block()
+
+        then:
+        instances*.URI*.toString().sort() == ["http://10.0.0.1:8081", "http://foo-2.node.dc1.consul:8082"]
+        instances.every { it.id == "foo" }
+        dnsServer.queries == ["foo.service.consul"]
+    }
+
+    void "test tags, datacenters and schemes are applied to the query and URIs"() {
+        given:
+        dnsServer.add(new DnsRecord.Srv("v2.foo.service.dc2.consul", 30, 1, 1, 8443, "foo-3.node.dc2.consul"))
+        ConsulDnsDiscoveryClient client = start(
+            'consul.client.discovery.tags.foo'       : 'v2',
+            'consul.client.discovery.datacenters.foo': 'dc2',
+            'consul.client.discovery.schemes.foo'    : 'https'
+        )
+
+        when:
+        List<ServiceInstance> instances = Mono.from(client.getInstances("foo")).block()
+
+        then:
+        instances*.URI*.toString() == ["https://foo-3.node.dc2.consul:8443"]
+        dnsServer.queries == ["v2.foo.service.dc2.consul"]
+    }
+
+    void "test instances are cached for the time to live of the records"() {
+        given:
+        ConsulDnsDiscoveryClient client = start()
+
+        when:
+        Flux.range(0, 8).flatMap { client.getInstances("foo") }.collectList().block()
+        Mono.from(client.getInstances("foo")).block()
+
+        then:
+        dnsServer.udpQueries.get() == 1
+    }
+
+    void "test instances are resolved again once the time to live expires"() {
+        given:
+        dnsServer.records.clear()
+        dnsServer.add(new DnsRecord.Srv("foo.service.consul", 1, 1, 1, 8081, "foo-1.node.dc1.consul"))
+        ConsulDnsDiscoveryClient client = start('consul.client.dns.min-ttl': '0s')
+
+        when:
+        Mono.from(client.getInstances("foo")).block()
+        sleep(1200)
+        Mono.from(client.getInstances("foo")).block()
+
+        then:
+        dnsServer.udpQueries.get() == 2
+    }
+
+    void "test truncated responses are retried over TCP"() {
+        given:
+        dnsServer.truncate = true
+        ConsulDnsDiscoveryClient client = start()
+
+        when:
+        List<ServiceInstance> instances = Mono.from(client.getInstances("foo")).block()
+
+        then:
+        instances.size() == 2
+        dnsServer.udpQueries.get() == 1
+        dnsServer.tcpQueries.get() == 1
+    }
+
+    void "test unknown services resolve to no instances"() {
+        given:
+        dnsServer.responseCode = DnsResponse.NAME_ERROR
+        ConsulDnsDiscoveryClient client = start()
+
+        expect:
+        Mono.from(client.getInstances("bar")).block() == []
+        Mono.from(client.getServiceIds()).block() == []
+    }
+
+    void "test server failures are reported as discovery errors"() {
+        given:
+        dnsServer.responseCode = 2
+        ConsulDnsDiscoveryClient client = start()
+
+        when:
+        Mono.from(client.getInstances("foo")).block()
+
+        then:
+        thrown(DiscoveryException)
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.health
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.context.annotation.Requires
+import io.micronaut.discovery.consul.MockConsulServer
+import io.micronaut.discovery.consul.registration.HttpCheckTarget
+import io.micronaut.health.HealthStatus
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.HttpStatus
+import io.micronaut.http.client.HttpClient
+import io.micronaut.http.client.exceptions.HttpClientResponseException
+import io.micronaut.management.health.indicator.HealthIndicator
+import io.micronaut.management.health.indicator.HealthResult
+import io.micronaut.runtime.server.EmbeddedServer
+import jakarta.inject.Singleton
+import org.reactivestreams.Publisher
+import reactor.core.publisher.Mono
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class ConsulCheckEndpointSpec extends Specification {
+
+    @Shared
+    @AutoCleanup
+    EmbeddedServer consulServer = ApplicationContext.run(EmbeddedServer, [(MockConsulServer.ENABLED): true])
+
+    @Shared
+    @AutoCleanup
+    EmbeddedServer application = ApplicationContext.run(EmbeddedServer, [
+        'spec.name'                            : 'ConsulCheckEndpointSpec',
+        'micronaut.application.name'           : 'consul-check-app',
+        'consul.client.host'                   : consulServer.host,
+        'consul.client.port'                   : consulServer.port,
+        'consul.client.registration.check.http': true,
+        (ConsulCheckEndpoint.ENABLED)          : true,
+        'discovery-client.health.cache.enabled': false
+    ])
+
+    @Shared
+    @AutoCleanup
+    HttpClient httpClient = application.applicationContext.createBean(HttpClient, application.URL)
+
+    void cleanup() {
+        application.applicationContext.getBean(TestIndicator).status = HealthStatus.UP
+    }
+
+    void "test the check endpoint reports the status without the registry indicators"() {
+        given:
+        ConsulCheckEndpoint endpoint = application.applicationContext.getBean(ConsulCheckEndpoint)
+        TestIndicator indicator = application.applicationContext.getBean(TestIndicator)
+        int probes = indicator.probes.get()
+
+        when:
+        HttpResponse<Map> response = httpClient.toBlocking().exchange("/consul-check", Map)
+
+        then:
+        response.status() == HttpStatus.OK
+        response.body() == [status: 'UP']
+        indicator.probes.get() == probes + 1
+        endpoint.path == '/consul-check'
+        !endpoint.healthIndicators.any { it instanceof ConsulHealthIndicator }
+    }
+
+    void "test the check endpoint is disabled by default"() {
+        given:
+        ApplicationContext context = ApplicationContext.run([
+            'consul.client.host'                   : consulServer.host,
+            'consul.client.port'                   : consulServer.port,
+            'consul.client.registration.check.http': true
+        ])
+
+        expect:
+        !context.containsBean(ConsulCheckEndpoint)
+        !context.containsBean(HttpCheckTarget)
+
+        cleanup:
+        context.close()
+    }
+
+    void "test the check endpoint responds with 503 when an indicator is down"() {
+        given:
+        application.applicationContext.getBean(TestIndicator).status = HealthStatus.DOWN
+
+        when:
+        httpClient.toBlocking().exchange("/consul-check", Map)
+
+        then:
+        HttpClientResponseException e = thrown()
+        e.status == HttpStatus.SERVICE_UNAVAILABLE
+    }
+
+    @Singleton
+    @Requires(property = 'spec.name', value = 'ConsulCheckEndpointSpec')
+    static class TestIndicator implements HealthIndicator {
+
+        volatile HealthStatus status = HealthStatus.UP
+        final AtomicInteger probes = new AtomicInteger()
+
+        @Override
+        Publisher<HealthResult> getResult() {
+            Mono.fromCallable {
+                probes.incrementAndGet()
+                HealthResult.builder('test', status).build()
+            }
+        }
+    }
+}
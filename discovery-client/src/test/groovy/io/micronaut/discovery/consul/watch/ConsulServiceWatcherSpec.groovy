@@ -0,0 +1,323 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.consul.watch
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.annotation.Nullable
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.consul.client.v1.ConsulClient
+import io.micronaut.discovery.consul.client.v1.ConsulWatchClient
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.annotation.Controller
+import io.micronaut.http.annotation.Get
+import io.micronaut.http.annotation.QueryValue
+import io.micronaut.runtime.server.EmbeddedServer
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+class ConsulServiceWatcherSpec extends Specification {
+
+    @Shared
+    @AutoCleanup
+    EmbeddedServer consulServer = ApplicationContext.run(EmbeddedServer, ['spec.name': 'ConsulServiceWatcherSpec'])
+
+    @Shared
+    StandInConsulAgent agent = consulServer.applicationContext.getBean(StandInConsulAgent)
+
+    ApplicationContext context
+    PollingConditions conditions = new PollingConditions(timeout: 10)
+
+    void setup() {
+        agent.reset()
+        agent.register("foo", "foo-1", 8081)
+        agent.register("bar", "bar-1", 9091)
+        context = ApplicationContext.run(
+            'consul.client.host'         : consulServer.host,
+            'consul.client.port'         : consulServer.port,
+            'consul.client.watch.enabled': true,
+            // the stand-in agent holds blocking queries for a second, the wait only spaces the refreshes
+            'consul.client.watch.wait'   : '30s'
+        )
+    }
+
+    void cleanup() {
+        context?.close()
+    }
+
+    void "test lookups are answered from watched instances once the watch is in sync"() {
+        given:
+        ConsulServiceWatcher watcher = context.getBean(ConsulServiceWatcher)
+
+        when:
+        List<ServiceInstance> instances = Flux.from(watcher.getInstances("foo")).blockFirst()
+
+        then:
+        instances*.port == [8081]
+        conditions.eventually {
+            assert watcher.synced
+        }
+
+        when:
+        int fetches = agent.fetches("foo")
+        3.times { Flux.from(watcher.getInstances("foo")).blockFirst() }
+
+        then:
+        agent.fetches("foo") == fetches
+        watcher.watchedServices == ["foo"]
+    }
+
+    void "test only changed services are fetched again"() {
+        given:
+        ConsulServiceWatcher watcher = context.getBean(ConsulServiceWatcher)
+        Flux.from(watcher.getInstances("foo")).blockFirst()
+        Flux.from(watcher.getInstances("bar")).blockFirst()
+        conditions.eventually {
+            assert watcher.synced
+            assert agent.fetches("foo") == 2
+            assert agent.fetches("bar") == 2
+        }
+
+        when:
+        agent.changeStatus("foo", "foo-1", "critical")
+
+        then:
+        conditions.eventually {
+            assert agent.fetches("foo") == 3
+        }
+        agent.fetches("bar") == 2
+    }
+
+    void "test the health query only selects the checks of nodes and watched services"() {
+        given:
+        ConsulServiceWatcher watcher = context.getBean(ConsulServiceWatcher)
+
+        when:
+        Flux.from(watcher.getInstances("foo")).blockFirst()
+
+        then:
+        conditions.eventually {
+            assert watcher.synced
+            assert agent.lastFilter == 'ServiceName == "" or ServiceName == "foo"'
+        }
+        ConsulServiceWatcher.healthFilter(["b\\z", 'q"x', "bar"]) == 'ServiceName == "" or ServiceName == "b\\\\z" or ServiceName == "bar" or ServiceName == "q\\"x"'
+    }
+
+    void "test only watched services that changed in the catalog are fetched again"() {
+        given:
+        ConsulServiceWatcher watcher = context.getBean(ConsulServiceWatcher)
+        Flux.from(watcher.getInstances("foo")).blockFirst()
+        Flux.from(watcher.getInstances("bar")).blockFirst()
+        conditions.eventually {
+            assert watcher.synced
+            assert agent.fetches("foo") == 2
+            assert agent.fetches("bar") == 2
+        }
+
+        when:"a service that is not watched is registered"
+        agent.register("qux", "qux-1", 6061)
+        sleep(3000)
+
+        then:
+        agent.fetches("foo") == 2
+        agent.fetches("bar") == 2
+
+        when:"the tags of a watched service change"
+        agent.retag("bar", ["v2"])
+
+        then:
+        conditions.eventually {
+            assert agent.fetches("bar") == 3
+        }
+        agent.fetches("foo") == 2
+    }
+
+    void "test registrations and changes of service definitions are observed"() {
+        given:
+        agent.register("baz", "baz-1", 7071, false)
+        ApplicationContext context = ApplicationContext.run(
+            'consul.client.host'         : consulServer.host,
+            'consul.client.port'         : consulServer.port,
+            'consul.client.watch.enabled': true,
+            'consul.client.watch.wait'   : '1s'
+        )
+        ConsulServiceWatcher watcher = context.getBean(ConsulServiceWatcher)
+        Flux.from(watcher.getInstances("foo")).blockFirst()
+        Flux.from(watcher.getInstances("baz")).blockFirst()
+        conditions.eventually {
+            assert watcher.synced
+        }
+
+        when:"an instance is registered"
+        agent.register("foo", "foo-2", 8082)
+
+        then:
+        conditions.eventually {
+            assert Flux.from(watcher.getInstances("foo")).blockFirst()*.port.sort() == [8081, 8082]
+        }
+
+        when:"the port of an instance changes without a change of its checks, which the next refresh picks up"
+        agent.changePort("foo", "foo-1", 8091)
+
+        then:
+        conditions.eventually {
+            assert Flux.from(watcher.getInstances("foo")).blockFirst()*.port.sort() == [8082, 8091]
+        }
+
+        when:"the port of an instance of a service without checks changes"
+        agent.changePort("baz", "baz-1", 7072)
+
+        then:
+        conditions.eventually {
+            assert Flux.from(watcher.getInstances("baz")).blockFirst()*.port == [7072]
+        }
+
+        cleanup:
+        context.close()
+    }
+
+    void "test services that are no longer looked up are no longer watched"() {
+        given:
+        ApplicationContext context = ApplicationContext.run(
+            'consul.client.host'                        : consulServer.host,
+            'consul.client.port'                        : consulServer.port,
+            'consul.client.watch.enabled'               : true,
+            'consul.client.watch.wait'                  : '1s',
+            'consul.client.watch.service-idle-timeout'  : '2s'
+        )
+        ConsulServiceWatcher watcher = context.getBean(ConsulServiceWatcher)
+
+        when:
+        Flux.from(watcher.getInstances("foo")).blockFirst()
+
+        then:
+        watcher.watchedServices == ["foo"]
+        conditions.eventually {
+            assert watcher.watchedServices.isEmpty()
+        }
+
+        cleanup:
+        context.close()
+    }
+
+    void "test the Consul client uses the watcher for lookups"() {
+        given:
+        ConsulClient client = context.getBean(ConsulClient)
+
+        when:
+        Flux.from(client.getInstances("foo")).blockFirst()
+
+        then:
+        context.getBean(ConsulServiceWatcher).watchedServices == ["foo"]
+    }
+
+    @Controller("/v1")
+    @Requires(property = "spec.name", value = "ConsulServiceWatcherSpec")
+    static class StandInConsulAgent {
+
+        final AtomicLong index = new AtomicLong(1)
+        final AtomicLong catalogIndex = new AtomicLong(1)
+        final Map<String, List<Map<String, Object>>> services = new ConcurrentHashMap<>()
+        final Map<String, List<String>> tags = new ConcurrentHashMap<>()
+        final Map<String, AtomicInteger> fetchCounts = new ConcurrentHashMap<>()
+        volatile String lastFilter
+
+        void reset() {
+            services.clear()
+            tags.clear()
+            fetchCounts.clear()
+            lastFilter = null
+        }
+
+        void register(String service, String id, int port, boolean withCheck = true) {
+            long modifyIndex = index.incrementAndGet()
+            catalogIndex.incrementAndGet()
+            services.computeIfAbsent(service, { [] }) << [
+                Node   : [Node: "node-1", Address: "127.0.0.1"],
+                Service: [ID: id, Service: service, Address: "127.0.0.1", Port: port],
+                Checks : withCheck ? [[CheckID: "service:$id".toString(), ServiceID: id, ServiceName: service, Status: "passing", ModifyIndex: modifyIndex]] : []
+            ]
+        }
+
+        void changeStatus(String service, String id, String status) {
+            long modifyIndex = index.incrementAndGet()
+            Map<String, Object> check = instance(service, id).Checks[0] as Map<String, Object>
+            check.Status = status
+            check.ModifyIndex = modifyIndex
+        }
+
+        void retag(String service, List<String> serviceTags) {
+            catalogIndex.incrementAndGet()
+            tags.put(service, serviceTags)
+        }
+
+        void changePort(String service, String id, int port) {
+            catalogIndex.incrementAndGet()
+            (instance(service, id).Service as Map<String, Object>).Port = port
+        }
+
+        private Map<String, Object> instance(String service, String id) {
+            services.get(service).find { (it.Service as Map).ID == id }
+        }
+
+        int fetches(String service) {
+            fetchCounts.get(service)?.get() ?: 0
+        }
+
+        @Get("/health/state/any{?filter,index,wait}")
+        Mono<HttpResponse<List<Map<String, Object>>>> state(@Nullable @QueryValue String filter, @Nullable @QueryValue Long index, @Nullable @QueryValue String wait) {
+            lastFilter = filter
+            Set<String> selected = filter != null ? (filter =~ /ServiceName == "([^"]*)"/).collect { it[1] as String } as Set<String> : null
+            long current = this.index.get()
+            Mono<Long> changed = index != null && index >= current
+                ? Mono.delay(Duration.ofSeconds(1)).map { this.index.get() }
+                : Mono.just(current)
+            changed.map { long latest ->
+                List<Map<String, Object>> checks = services.values().flatten().collectMany { it.Checks }
+                        .findAll { selected == null || it.ServiceName in selected } as List<Map<String, Object>>
+                HttpResponse.ok(checks).header(ConsulWatchClient.HEADER_CONSUL_INDEX, String.valueOf(latest))
+            }
+        }
+
+        @Get("/catalog/services{?index,wait}")
+        Mono<HttpResponse<Map<String, List<String>>>> catalog(@Nullable @QueryValue Long index, @Nullable @QueryValue String wait) {
+            long current = catalogIndex.get()
+            Mono<Long> changed = index != null && index >= current
+                ? Mono.delay(Duration.ofSeconds(1)).map { catalogIndex.get() }
+                : Mono.just(current)
+            changed.map { long latest ->
+                Map<String, List<String>> names = services.keySet().collectEntries { [it, tags.getOrDefault(it, [])] } as Map<String, List<String>>
+                HttpResponse.ok(names).header(ConsulWatchClient.HEADER_CONSUL_INDEX, String.valueOf(latest))
+            }
+        }
+
+        @Get("/health/service/{service}{?passing,tag,index,wait}")
+        HttpResponse<List<Map<String, Object>>> service(String service, @Nullable Boolean passing, @Nullable String tag, @Nullable Long index, @Nullable String wait) {
+            fetchCounts.computeIfAbsent(service, { new AtomicInteger() }).incrementAndGet()
+            HttpResponse.ok(services.getOrDefault(service, []))
+                .header(ConsulWatchClient.HEADER_CONSUL_INDEX, String.valueOf(this.index.get()))
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.eureka
+
+import io.micronaut.discovery.ServiceInstance
+import io.micronaut.discovery.eureka.client.v2.AmazonInfo
+import io.micronaut.discovery.eureka.client.v2.InstanceInfo
+import io.micronaut.discovery.eureka.client.v2.MockApplicationInfo
+import io.micronaut.health.HealthStatus
+import spock.lang.Specification
+
+class EurekaCompactRegistrySpec extends Specification {
+
+    void "test compact registry materializes equivalent service instances"() {
+        given:
+        InstanceInfo first = new InstanceInfo("foo.example.com", 8080, "10.0.0.1", "FOO", "foo-1")
+        first.metadata.put("version", "1")
+        first.securePort = 8443
+        def amazonInfo = new AmazonInfo()
+        amazonInfo.setMetadata((AmazonInfo.MetaDataKey.availabilityZone.toString()): 'us-east-1a')
+        first.dataCenterInfo = amazonInfo
+        InstanceInfo second = new InstanceInfo("bar.example.com", 8081, "10.0.0.2", "FOO", "foo-2")
+        second.metadata.put("version", "1")
+        second.status = InstanceInfo.Status.DOWN
+        InstanceInfo third = new InstanceInfo("baz.example.com", 9090, "10.0.0.3", "BAR", "bar-1")
+
+        when:
+        EurekaCompactRegistry registry = EurekaCompactRegistry.of([
+                new MockApplicationInfo("FOO", [first, second]),
+                new MockApplicationInfo("BAR", [third])
+        ], false)
+        List<ServiceInstance> foo = registry.getInstances("foo")
+
+        then:
+        registry.applicationCount == 2
+        registry.instanceCount == 3
+        registry.serviceIds == ["FOO", "BAR"]
+        foo.size() == 2
+        foo.is(registry.getInstances("FOO"))
+        foo[0].is(foo[0])
+
+        foo[0].id == "foo-1"
+        foo[0].URI == URI.create("http://foo.example.com:8080")
+        foo[0].healthStatus == HealthStatus.UP
+        foo[0].zone.get() == "us-east-1a"
+        foo[0].region.get() == "us-east-1"
+        foo[0].metadata.get("version", String).get() == "1"
+
+        foo[1].id == "foo-2"
+        foo[1].healthStatus == HealthStatus.DOWN
+        !foo[1].zone.present
+
+        registry.getInstances("bar")[0].URI == URI.create("http://baz.example.com:9090")
+        registry.getInstances("unknown").isEmpty()
+    }
+
+    void "test compact registry de-duplicates strings and keeps secure ports when requested"() {
+        given:
+        List<InstanceInfo> instances = (1..10).collect {
+            InstanceInfo info = new InstanceInfo("host-${it}", 8080, "10.0.0.${it}", "FOO", "foo-${it}")
+            info.securePort = 8443
+            info.metadata.put("zone", "eu-west-1")
+            info.metadata.put("team", "routing")
+            info
+        }
+
+        when:
+        EurekaCompactRegistry registry = EurekaCompactRegistry.of([new MockApplicationInfo("FOO", instances)], true)
+
+        then:
+        // app name, 10 ids, 10 hosts and 4 distinct metadata strings
+        registry.stringCount == 25
+        registry.getInstances("foo")*.URI.every { it.scheme == "https" && it.port == 8443 }
+    }
+
+    void "test compact registries of the same application are equal until it changes"() {
+        given:
+        def application = { int port ->
+            new MockApplicationInfo("FOO", [new InstanceInfo("foo.example.com", port, "10.0.0.1", "FOO", "foo-1")])
+        }
+
+        expect:
+        EurekaCompactRegistry.of([application(8080)], false) == EurekaCompactRegistry.of([application(8080)], false)
+        EurekaCompactRegistry.of([application(8080)], false).hashCode() == EurekaCompactRegistry.of([application(8080)], false).hashCode()
+        EurekaCompactRegistry.of([application(8080)], false) != EurekaCompactRegistry.of([application(8081)], false)
+    }
+}
@@ -48,7 +48,8 @@ class EurekaContextPathSpec extends Specification {
                  'eureka.client.port'                       : eurekaServer.getPort(),
                  'jackson.deserialization.UNWRAP_ROOT_VALUE': true,
                  'micronaut.application.name'               : serviceId,
-                 'micronaut.heartbeat.interval'             : '1s']
+                 'micronaut.heartbeat.interval'             : '1s',
+                 'eureka.client.registration.lease-info.renewal-interval-in-secs': 1]
         )
 
         DiscoveryClient discoveryClient = application.applicationContext.getBean(EurekaClient)
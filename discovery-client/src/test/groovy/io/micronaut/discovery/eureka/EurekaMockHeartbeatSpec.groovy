@@ -50,7 +50,8 @@ class EurekaMockHeartbeatSpec extends Specification {
                  'eureka.client.port'                       : eurekaServer.getPort(),
                  'jackson.deserialization.UNWRAP_ROOT_VALUE': true,
                  'micronaut.application.name'               : serviceId,
-                 'micronaut.heartbeat.interval'             : '1s']
+                 'micronaut.heartbeat.interval'             : '1s',
+                 'eureka.client.registration.lease-info.renewal-interval-in-secs': 1]
         )
 
         DiscoveryClient discoveryClient = application.applicationContext.getBean(EurekaClient)
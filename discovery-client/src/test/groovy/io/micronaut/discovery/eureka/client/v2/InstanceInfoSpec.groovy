@@ -27,4 +27,24 @@ class InstanceInfoSpec extends Specification{
         expect:
         new EurekaServiceInstance(instanceInfo).getURI() == new URI("https://localhost:443")
     }
+
+    void "test the region is derived from the availability zone"() {
+        given:
+        def instanceInfo = new InstanceInfo("localhost", "test")
+        def amazonInfo = new AmazonInfo()
+        amazonInfo.setMetadata((AmazonInfo.MetaDataKey.availabilityZone.toString()): zone)
+        instanceInfo.dataCenterInfo = amazonInfo
+        def instance = new EurekaServiceInstance(instanceInfo)
+
+        expect:
+        instance.zone.get() == zone
+        instance.region.orElse(null) == region
+
+        where:
+        zone               | region
+        "us-east-1a"       | "us-east-1"
+        "us-west-2-lax-1a" | "us-west-2"
+        "us-gov-west-1b"   | "us-gov-west-1"
+        "zone-1"           | null
+    }
 }
@@ -48,6 +48,7 @@ class EurekaHealthIndicatorSpec extends Specification {
 
         then:
         healthResult.status == HealthStatus.UP
+        healthResult.details.instances == 0
 
         cleanup:
         eurekaServer?.stop()
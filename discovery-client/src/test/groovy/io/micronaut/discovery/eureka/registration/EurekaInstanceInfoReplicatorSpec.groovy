@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.eureka.registration
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.discovery.eureka.EurekaConfiguration
+import io.micronaut.discovery.eureka.client.v2.EurekaClient
+import io.micronaut.discovery.eureka.client.v2.InstanceInfo
+import io.micronaut.http.HttpStatus
+import io.micronaut.runtime.server.EmbeddedServer
+import reactor.core.publisher.Mono
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+
+class EurekaInstanceInfoReplicatorSpec extends Specification {
+
+    static final long SECOND = Duration.ofSeconds(1).toNanos()
+
+    @Shared
+    @AutoCleanup
+    EmbeddedServer application = ApplicationContext.run(EmbeddedServer, [
+        'micronaut.application.name'          : 'orders',
+        'eureka.client.defaultZone'           : 'localhost:8761',
+        'eureka.client.registration.enabled'  : false
+    ])
+
+    List<String> replications = new CopyOnWriteArrayList<>()
+    EurekaConfiguration eurekaConfiguration = application.applicationContext.getBean(EurekaConfiguration)
+    PollingConditions conditions = new PollingConditions(timeout: 5)
+
+    EurekaClient eurekaClient = Stub(EurekaClient) {
+        updateStatus(_, _, _) >> { String appId, String instanceId, InstanceInfo.Status status ->
+            replications << "status $status".toString()
+            Mono.just(HttpStatus.OK)
+        }
+    }
+
+    void "test the replicator is disabled unless enabled"() {
+        expect:
+        !application.applicationContext.containsBean(EurekaInstanceInfoReplicator)
+
+        when:
+        ApplicationContext context = ApplicationContext.run([
+            'eureka.client.defaultZone'                     : 'localhost:8761',
+            'eureka.client.registration.enabled'            : false,
+            'eureka.client.registration.replication.enabled': true
+        ])
+
+        then:
+        context.containsBean(EurekaInstanceInfoReplicator)
+
+        cleanup:
+        context?.close()
+    }
+
+    void "test status changes within the burst window are coalesced into a single update"() {
+        given:
+        EurekaInstanceInfoReplicator replicator = replicator(Duration.ofMillis(200), 2, 4)
+        replicator.start()
+
+        when:
+        replicator.statusChanged(InstanceInfo.Status.DOWN)
+        replicator.statusChanged(InstanceInfo.Status.OUT_OF_SERVICE)
+
+        then:
+        conditions.eventually {
+            assert replications == ['status OUT_OF_SERVICE']
+        }
+
+        cleanup:
+        replicator.stop()
+    }
+
+    void "test the replicated status is forgotten when the instance registers again"() {
+        given:
+        EurekaInstanceInfoReplicator replicator = replicator(Duration.ofMillis(10), 2, 4)
+        replicator.start()
+        replicator.statusChanged(InstanceInfo.Status.DOWN)
+        conditions.eventually {
+            assert replications == ['status DOWN']
+        }
+
+        when: "the instance registers again with the status UP"
+        replicator.registering()
+        eurekaConfiguration.registration.instanceInfo.status = InstanceInfo.Status.UP
+        replicator.start()
+        replicator.statusChanged(InstanceInfo.Status.DOWN)
+
+        then: "DOWN is not taken as already replicated"
+        conditions.eventually {
+            assert replications == ['status DOWN', 'status DOWN']
+        }
+
+        cleanup:
+        replicator.stop()
+    }
+
+    void "test a status change alone is sent as a status update"() {
+        given:
+        EurekaInstanceInfoReplicator replicator = replicator(Duration.ofMillis(50), 2, 4)
+        replicator.start()
+
+        when:
+        replicator.statusChanged(InstanceInfo.Status.OUT_OF_SERVICE)
+
+        then:
+        conditions.eventually {
+            assert replications == ['status OUT_OF_SERVICE']
+        }
+
+        when: "the status flaps back within the burst window"
+        replicator.statusChanged(InstanceInfo.Status.UP)
+        replicator.statusChanged(InstanceInfo.Status.OUT_OF_SERVICE)
+        sleep(300)
+
+        then: "nothing changed"
+        replications == ['status OUT_OF_SERVICE']
+
+        cleanup:
+        replicator.stop()
+    }
+
+    void "test replications are rate limited"() {
+        given:
+        EurekaInstanceInfoReplicator replicator = replicator(Duration.ofMillis(10), 1, 60)
+        replicator.start()
+
+        when:
+        replicator.statusChanged(InstanceInfo.Status.DOWN)
+        conditions.eventually {
+            assert replications.size() == 1
+        }
+        long start = System.nanoTime()
+        replicator.statusChanged(InstanceInfo.Status.OUT_OF_SERVICE)
+
+        then:
+        conditions.eventually {
+            assert replications == ['status DOWN', 'status OUT_OF_SERVICE']
+        }
+        System.nanoTime() - start >= SECOND / 2
+
+        cleanup:
+        replicator.stop()
+    }
+
+    void "test changes are not replicated before the instance is registered"() {
+        given:
+        EurekaInstanceInfoReplicator replicator = replicator(Duration.ofMillis(10), 2, 4)
+
+        when:
+        replicator.statusChanged(InstanceInfo.Status.DOWN)
+        sleep(100)
+
+        then:
+        replications.isEmpty()
+
+        when:
+        replicator.start()
+
+        then:
+        conditions.eventually {
+            assert replications == ['status DOWN']
+        }
+
+        cleanup:
+        replicator.stop()
+    }
+
+    void "test the token bucket allows a burst and refills at the configured rate"() {
+        given:
+        TokenBucket bucket = new TokenBucket(2, 4, 0)
+
+        expect:
+        bucket.tryAcquire(0) == 0
+        bucket.tryAcquire(0) == 0
+        bucket.tryAcquire(0) == 15 * SECOND
+        bucket.tryAcquire(10 * SECOND) == 5 * SECOND
+        bucket.tryAcquire(15 * SECOND) == 0
+    }
+
+    private EurekaInstanceInfoReplicator replicator(Duration burstWindow, int burstSize, int ratePerMinute) {
+        EurekaReplicationConfiguration configuration = new EurekaReplicationConfiguration()
+        configuration.burstWindow = burstWindow
+        configuration.burstSize = burstSize
+        configuration.ratePerMinute = ratePerMinute
+        eurekaConfiguration.registration.instanceInfo.status = InstanceInfo.Status.UP
+        new EurekaInstanceInfoReplicator(eurekaClient, eurekaConfiguration, configuration)
+    }
+}
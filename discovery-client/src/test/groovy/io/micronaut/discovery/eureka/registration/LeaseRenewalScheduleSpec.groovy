@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.eureka.registration
+
+import io.micronaut.discovery.eureka.client.v2.LeaseInfo
+import spock.lang.Specification
+
+import java.time.Duration
+
+class LeaseRenewalScheduleSpec extends Specification {
+
+    static final long SECOND = Duration.ofSeconds(1).toNanos()
+
+    LeaseInfo leaseInfo = LeaseInfo.Builder.newBuilder()
+        .setRenewalIntervalInSecs(30)
+        .setDurationInSecs(90)
+        .build()
+
+    void "test renewals follow the lease renewal interval"() {
+        given:
+        LeaseRenewalSchedule schedule = new LeaseRenewalSchedule(leaseInfo, 0)
+
+        when:
+        schedule.renewed(30 * SECOND, SECOND.intdiv(100))
+
+        then:
+        schedule.renewalInterval == Duration.ofSeconds(30)
+        schedule.nextDelay(30 * SECOND) == Duration.ofSeconds(30)
+    }
+
+    void "test renewals are brought forward when the latency approaches the lease duration"() {
+        given:
+        LeaseRenewalSchedule schedule = new LeaseRenewalSchedule(leaseInfo, 0)
+
+        when:
+        schedule.renewed(30 * SECOND, 25 * SECOND)
+
+        then:
+        schedule.latency == 25 * SECOND
+        schedule.nextDelay(30 * SECOND) == Duration.ofSeconds(90 - 3 * 25)
+    }
+
+    void "test renewals are retried sooner after a failure"() {
+        given:
+        LeaseRenewalSchedule schedule = new LeaseRenewalSchedule(leaseInfo, 0)
+        schedule.renewed(0, SECOND.intdiv(100))
+
+        when:
+        schedule.failed(SECOND.intdiv(100))
+
+        then:
+        schedule.nextDelay(30 * SECOND).toSeconds() == 15
+
+        when: "the lease is about to expire"
+        Duration delay = schedule.nextDelay(89 * SECOND)
+
+        then:
+        delay == LeaseRenewalSchedule.MIN_DELAY
+    }
+
+    void "test the Eureka defaults apply without lease info"() {
+        expect:
+        new LeaseRenewalSchedule(null, 0).renewalInterval == Duration.ofSeconds(LeaseInfo.DEFAULT_LEASE_RENEWAL_INTERVAL)
+    }
+}